@@ -114,6 +114,15 @@ public Block setBlock(Vector3i pos, Block type) {
         return old;
     }
 
+    @Override
+    public Map<Vector3i, Block> setBlocks(Map<Vector3i, Block> newBlocks) {
+        Map<Vector3i, Block> oldBlocks = Maps.newHashMap();
+        for (Map.Entry<Vector3i, Block> entry : newBlocks.entrySet()) {
+            oldBlocks.put(entry.getKey(), setBlock(entry.getKey(), entry.getValue()));
+        }
+        return oldBlocks;
+    }
+
     @Override
     public boolean setLiquid(int x, int y, int z, LiquidData newData, LiquidData oldData) {
         return false;  //To change body of implemented methods use File | Settings | File Templates.
@@ -279,6 +279,53 @@ public void iterateWithNoComponents() {
         assertEquals(Collections.<EntityRef>emptyList(), results);
     }
 
+    @Test
+    public void registeredQueryContainsExistingEntities() {
+        EntityRef entity1 = entityManager.create(new StringComponent(), new IntegerComponent());
+        entityManager.create(new StringComponent());
+
+        List<EntityRef> results = Lists.newArrayList(entityManager.registerQuery(StringComponent.class, IntegerComponent.class));
+        assertEquals(Lists.newArrayList(entity1), results);
+    }
+
+    @Test
+    public void registeredQueryFollowsComponentChanges() {
+        Iterable<EntityRef> query = entityManager.registerQuery(StringComponent.class, IntegerComponent.class);
+        EntityRef entity1 = entityManager.create(new StringComponent());
+        assertEquals(Collections.<EntityRef>emptyList(), Lists.newArrayList(query));
+
+        entity1.addComponent(new IntegerComponent());
+        assertEquals(Lists.newArrayList(entity1), Lists.newArrayList(query));
+
+        entity1.removeComponent(StringComponent.class);
+        assertEquals(Collections.<EntityRef>emptyList(), Lists.newArrayList(query));
+    }
+
+    @Test
+    public void registeredQueryContainsEntitiesCreatedWithoutLifecycleEvents() {
+        Iterable<EntityRef> query = entityManager.registerQuery(StringComponent.class);
+        EntityRef entity1 = entityManager.createEntityWithoutLifecycleEvents(Lists.<Component>newArrayList(new StringComponent()));
+        assertEquals(Lists.newArrayList(entity1), Lists.newArrayList(query));
+
+        entityManager.destroyEntityWithoutEvents(entity1);
+        assertEquals(Collections.<EntityRef>emptyList(), Lists.newArrayList(query));
+    }
+
+    @Test
+    public void registeredQuerySkipsEntitiesDestroyedDuringIteration() {
+        Iterable<EntityRef> query = entityManager.registerQuery(StringComponent.class);
+        EntityRef entity1 = entityManager.create(new StringComponent());
+        EntityRef entity2 = entityManager.create(new StringComponent());
+
+        List<EntityRef> visited = Lists.newArrayList();
+        for (EntityRef entity : query) {
+            visited.add(entity);
+            entity2.destroy();
+        }
+        assertEquals(Lists.newArrayList(entity1), visited);
+        assertEquals(Lists.newArrayList(entity1), Lists.newArrayList(query));
+    }
+
     @Test
     public void getComponentCountWhenNoComponents() {
         assertEquals(0, entityManager.getCountOfEntitiesWith(StringComponent.class));
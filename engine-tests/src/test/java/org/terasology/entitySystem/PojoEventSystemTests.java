@@ -173,6 +173,54 @@ public void testPriorityAndCancel() {
         assertEquals(0, handlerNormal.receivedList.size());
     }
 
+    @Test
+    public void testHandlerRegisteredAfterSendReceivesLaterEvents() {
+        entity.addComponent(new StringComponent());
+        TestEventHandler handlerNormal = new TestEventHandler();
+        eventSystem.registerEventHandler(handlerNormal);
+        eventSystem.send(entity, new TestEvent());
+
+        TestHighPriorityEventHandler handlerHigh = new TestHighPriorityEventHandler();
+        handlerHigh.cancel = true;
+        eventSystem.registerEventHandler(handlerHigh);
+        eventSystem.send(entity, new TestEvent());
+
+        assertEquals(1, handlerHigh.receivedList.size());
+        assertEquals(1, handlerNormal.receivedList.size());
+    }
+
+    @Test
+    public void testUnregisteredHandlerNoLongerReceivesEvents() {
+        StringComponent component = entity.addComponent(new StringComponent());
+        TestEventHandler handler = new TestEventHandler();
+        eventSystem.registerEventHandler(handler);
+        eventSystem.send(entity, new TestEvent());
+        eventSystem.send(entity, new TestEvent(), component);
+
+        eventSystem.unregisterEventHandler(handler);
+        eventSystem.send(entity, new TestEvent());
+        eventSystem.send(entity, new TestEvent(), component);
+
+        assertEquals(2, handler.receivedList.size());
+    }
+
+    @Test
+    public void testHandlersSelectedByCurrentComponents() {
+        entity.addComponent(new StringComponent());
+        TestCompoundComponentEventHandler handler = new TestCompoundComponentEventHandler();
+        eventSystem.registerEventHandler(handler);
+        eventSystem.send(entity, new TestEvent());
+        assertEquals(0, handler.receivedList.size());
+
+        entity.addComponent(new IntegerComponent());
+        eventSystem.send(entity, new TestEvent());
+        assertEquals(1, handler.receivedList.size());
+
+        entity.removeComponent(StringComponent.class);
+        eventSystem.send(entity, new TestEvent());
+        assertEquals(1, handler.receivedList.size());
+    }
+
     @Test
     public void testChildEvent() {
         entity.addComponent(new IntegerComponent());
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import com.google.common.collect.Sets;
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.list.TLongList;
+import org.junit.Test;
+import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.entitySystem.stubs.OwnerComponent;
+import org.terasology.entitySystem.stubs.StringComponent;
+
+import java.util.ConcurrentModificationException;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ArchetypeComponentTableTest {
+
+    private ArchetypeComponentTable table = new ArchetypeComponentTable();
+
+    @Test
+    public void componentsSurviveArchetypeChanges() {
+        StringComponent string = new StringComponent("a");
+        IntegerComponent integer = new IntegerComponent(1);
+        table.put(1, string);
+        table.put(1, integer);
+        table.put(2, new StringComponent("b"));
+
+        assertSame(string, table.get(1, StringComponent.class));
+        assertSame(integer, table.get(1, IntegerComponent.class));
+
+        assertSame(string, table.remove(1, StringComponent.class));
+        assertNull(table.get(1, StringComponent.class));
+        assertSame(integer, table.get(1, IntegerComponent.class));
+        assertEquals(new StringComponent("b"), table.get(2, StringComponent.class));
+    }
+
+    @Test
+    public void putReplacesExistingComponent() {
+        StringComponent original = new StringComponent("a");
+        table.put(1, original);
+        assertSame(original, table.put(1, new StringComponent("b")));
+        assertEquals(new StringComponent("b"), table.get(1, StringComponent.class));
+        assertEquals(1, table.numEntities());
+    }
+
+    @Test
+    public void removingAnEntityKeepsOtherRowsIntact() {
+        for (int id = 1; id <= 40; id++) {
+            table.put(id, new IntegerComponent(id));
+        }
+        table.remove(3);
+        table.remove(17);
+        assertEquals(38, table.numEntities());
+        assertEquals(38, table.getComponentCount(IntegerComponent.class));
+        for (int id = 1; id <= 40; id++) {
+            IntegerComponent component = table.get(id, IntegerComponent.class);
+            if (id == 3 || id == 17) {
+                assertNull(component);
+            } else {
+                assertEquals(id, component.value);
+            }
+        }
+    }
+
+    @Test
+    public void entityIdsWithMatchAcrossArchetypes() {
+        table.put(1, new StringComponent());
+        table.put(2, new StringComponent());
+        table.put(2, new IntegerComponent());
+        table.put(3, new IntegerComponent());
+        table.put(3, new StringComponent());
+        table.put(3, new OwnerComponent());
+        table.put(4, new IntegerComponent());
+
+        TLongList ids = table.getEntityIdsWith(StringComponent.class, IntegerComponent.class);
+        assertEquals(Sets.newHashSet(2L, 3L), toSet(ids));
+        assertEquals(2, table.getComponentsInNewList(2).size());
+        assertEquals(3, table.getComponentsInNewList(3).size());
+    }
+
+    @Test
+    public void componentIteratorVisitsEveryComponent() {
+        table.put(1, new IntegerComponent(1));
+        table.put(2, new IntegerComponent(2));
+        table.put(2, new StringComponent());
+        table.put(3, new StringComponent());
+
+        TLongObjectIterator<IntegerComponent> iterator = table.componentIterator(IntegerComponent.class);
+        int sum = 0;
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.advance();
+            assertEquals(iterator.key(), iterator.value().value);
+            sum += iterator.value().value;
+            count++;
+        }
+        assertEquals(2, count);
+        assertEquals(3, sum);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void removingComponentWhileIteratingFailsFast() {
+        for (int id = 1; id <= 4; id++) {
+            table.put(id, new IntegerComponent(id));
+            table.put(id, new StringComponent());
+        }
+
+        TLongObjectIterator<IntegerComponent> iterator = table.componentIterator(IntegerComponent.class);
+        iterator.advance();
+        // Would move the last row in place of the current one, which then would get skipped
+        table.remove(iterator.key(), StringComponent.class);
+        iterator.advance();
+    }
+
+    @Test
+    public void replacingComponentWhileIteratingVisitsEveryEntity() {
+        for (int id = 1; id <= 4; id++) {
+            table.put(id, new IntegerComponent(id));
+        }
+
+        TLongObjectIterator<IntegerComponent> iterator = table.componentIterator(IntegerComponent.class);
+        Set<Long> visited = Sets.newHashSet();
+        while (iterator.hasNext()) {
+            iterator.advance();
+            visited.add(iterator.key());
+            table.put(iterator.key(), new IntegerComponent(0));
+        }
+        assertEquals(Sets.newHashSet(1L, 2L, 3L, 4L), visited);
+        assertEquals(0, table.get(3, IntegerComponent.class).value);
+    }
+
+    @Test
+    public void removingLastComponentRemovesEntity() {
+        table.put(1, new StringComponent());
+        table.remove(1, StringComponent.class);
+        assertEquals(0, table.numEntities());
+        assertFalse(table.entityIdIterator().hasNext());
+        assertTrue(table.getComponentsInNewList(1).isEmpty());
+    }
+
+    private static Set<Long> toSet(TLongList ids) {
+        Set<Long> result = Sets.newHashSet();
+        for (int i = 0; i < ids.size(); i++) {
+            result.add(ids.get(i));
+        }
+        return result;
+    }
+}
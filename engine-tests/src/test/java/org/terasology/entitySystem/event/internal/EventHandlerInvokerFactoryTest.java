@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.event.internal;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.AbstractConsumableEvent;
+import org.terasology.entitySystem.stubs.IntegerComponent;
+import org.terasology.entitySystem.stubs.StringComponent;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EventHandlerInvokerFactoryTest {
+
+    private EntityRef entity;
+    private StringComponent stringComponent;
+    private IntegerComponent integerComponent;
+
+    @Before
+    public void setup() {
+        entity = mock(EntityRef.class);
+        stringComponent = new StringComponent();
+        integerComponent = new IntegerComponent();
+        when(entity.getComponent(StringComponent.class)).thenReturn(stringComponent);
+        when(entity.getComponent(IntegerComponent.class)).thenReturn(integerComponent);
+    }
+
+    @Test
+    public void generatedInvokerPassesEventEntityAndComponents() throws Exception {
+        Method method = TestHandler.class.getMethod("onEvent", TestEvent.class, EntityRef.class, StringComponent.class, IntegerComponent.class);
+        List<Class<? extends Component>> componentParams = ImmutableList.<Class<? extends Component>>of(StringComponent.class, IntegerComponent.class);
+        EventHandlerInvoker invoker = new EventHandlerInvokerFactory().createInvoker(TestHandler.class, method, componentParams);
+        assertFalse(invoker instanceof ReflectionEventHandlerInvoker);
+
+        TestHandler handler = new TestHandler();
+        TestEvent event = new TestEvent();
+        invoker.invoke(handler, event, entity);
+
+        assertSame(event, handler.event);
+        assertSame(entity, handler.entity);
+        assertSame(stringComponent, handler.stringComponent);
+        assertSame(integerComponent, handler.integerComponent);
+    }
+
+    @Test
+    public void overloadedMethodsGetSeparateInvokers() throws Exception {
+        EventHandlerInvokerFactory factory = new EventHandlerInvokerFactory();
+        Method withComponents = TestHandler.class.getMethod("onEvent", TestEvent.class, EntityRef.class, StringComponent.class, IntegerComponent.class);
+        Method withoutComponents = TestHandler.class.getMethod("onEvent", TestEvent.class, EntityRef.class);
+        EventHandlerInvoker first = factory.createInvoker(TestHandler.class, withComponents,
+                ImmutableList.<Class<? extends Component>>of(StringComponent.class, IntegerComponent.class));
+        EventHandlerInvoker second = factory.createInvoker(TestHandler.class, withoutComponents, Collections.<Class<? extends Component>>emptyList());
+
+        TestHandler handler = new TestHandler();
+        second.invoke(handler, new TestEvent(), entity);
+        assertEquals(1, handler.calledWithoutComponents);
+        assertFalse(first.getClass().equals(second.getClass()));
+    }
+
+    @Test
+    public void invokerClassIsReusedByOtherFactories() throws Exception {
+        Method method = TestHandler.class.getMethod("onEvent", TestEvent.class, EntityRef.class);
+        EventHandlerInvoker first = new EventHandlerInvokerFactory().createInvoker(TestHandler.class, method, Collections.<Class<? extends Component>>emptyList());
+        EventHandlerInvoker second = new EventHandlerInvokerFactory().createInvoker(TestHandler.class, method, Collections.<Class<? extends Component>>emptyList());
+        assertEquals(first.getClass(), second.getClass());
+    }
+
+    @Test
+    public void handlerExceptionsAreRethrownTheSameOnBothPaths() throws Exception {
+        Method method = TestHandler.class.getMethod("onThrowingEvent", TestEvent.class, EntityRef.class);
+        List<Class<? extends Component>> componentParams = Collections.emptyList();
+        EventHandlerInvoker generated = new EventHandlerInvokerFactory().createInvoker(TestHandler.class, method, componentParams);
+        EventHandlerInvoker reflected = new ReflectionEventHandlerInvoker(method, componentParams);
+        assertFalse(generated instanceof ReflectionEventHandlerInvoker);
+
+        TestHandler handler = new TestHandler();
+        handler.exception = new IllegalStateException("handler failure");
+        assertSame(handler.exception, invokeAndCatch(generated, handler));
+        assertSame(handler.exception, invokeAndCatch(reflected, handler));
+
+        handler.exception = new IllegalArgumentException("bad argument");
+        assertSame(handler.exception, invokeAndCatch(generated, handler));
+        assertSame(handler.exception, invokeAndCatch(reflected, handler));
+    }
+
+    private RuntimeException invokeAndCatch(EventHandlerInvoker invoker, TestHandler handler) {
+        try {
+            invoker.invoke(handler, new TestEvent(), entity);
+        } catch (RuntimeException e) {
+            return e;
+        }
+        fail("Expected the handler exception to be rethrown");
+        return null;
+    }
+
+    private static class TestEvent extends AbstractConsumableEvent {
+    }
+
+    public static class TestHandler {
+        private TestEvent event;
+        private EntityRef entity;
+        private StringComponent stringComponent;
+        private IntegerComponent integerComponent;
+        private int calledWithoutComponents;
+        private RuntimeException exception;
+
+        public void onEvent(TestEvent receivedEvent, EntityRef receivingEntity, StringComponent string, IntegerComponent integer) {
+            this.event = receivedEvent;
+            this.entity = receivingEntity;
+            this.stringComponent = string;
+            this.integerComponent = integer;
+        }
+
+        public void onEvent(TestEvent receivedEvent, EntityRef receivingEntity) {
+            calledWithoutComponents++;
+        }
+
+        public void onThrowingEvent(TestEvent receivedEvent, EntityRef receivingEntity) {
+            throw exception;
+        }
+    }
+}
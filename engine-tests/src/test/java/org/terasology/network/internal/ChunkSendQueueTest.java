@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ChunkSendQueueTest {
+
+    private ChunkSendQueue queue = new ChunkSendQueue();
+
+    @Test
+    public void pollsNearestChunkFirst() {
+        Chunk far = add(new Vector3i(5, 0, 0));
+        Chunk near = add(new Vector3i(1, 0, 0));
+        Chunk middle = add(new Vector3i(0, 3, 0));
+
+        assertSame(near, queue.pollNearest(new Vector3i()));
+        assertSame(middle, queue.pollNearest(new Vector3i()));
+        assertSame(far, queue.pollNearest(new Vector3i()));
+        assertNull(queue.pollNearest(new Vector3i()));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void orderFollowsMovedCenter() {
+        Chunk first = add(new Vector3i(0, 0, 0));
+        Chunk second = add(new Vector3i(10, 0, 0));
+        add(new Vector3i(5, 0, 0));
+
+        assertSame(first, queue.pollNearest(new Vector3i(-1, 0, 0)));
+        assertSame(second, queue.pollNearest(new Vector3i(11, 0, 0)));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void removedChunksAreSkipped() {
+        add(new Vector3i(1, 0, 0));
+        Chunk remaining = add(new Vector3i(2, 0, 0));
+        queue.remove(new Vector3i(1, 0, 0));
+
+        assertSame(remaining, queue.pollNearest(new Vector3i()));
+        assertNull(queue.pollNearest(new Vector3i()));
+    }
+
+    @Test
+    public void readdedChunkIsPolledOnce() {
+        add(new Vector3i(1, 0, 0));
+        queue.remove(new Vector3i(1, 0, 0));
+        Chunk readded = add(new Vector3i(1, 0, 0));
+
+        assertSame(readded, queue.pollNearest(new Vector3i()));
+        assertNull(queue.pollNearest(new Vector3i()));
+    }
+
+    private Chunk add(Vector3i pos) {
+        Chunk chunk = mock(Chunk.class);
+        queue.add(pos, chunk);
+        return chunk;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkSendRateControllerTest {
+
+    private static final int CHUNK_SIZE = 20000;
+    private static final float MAX_CHUNKS_PER_TICK = 10.0f;
+
+    private ChunkSendRateController controller = new ChunkSendRateController();
+
+    @Test
+    public void rateGrowsUpToTheMaximumWhileTheChannelKeepsUp() {
+        int flushed = 0;
+        for (int tick = 0; tick < 200; tick++) {
+            flushed = sendTick(flushed, false, MAX_CHUNKS_PER_TICK);
+        }
+        assertEquals(MAX_CHUNKS_PER_TICK, controller.getChunksPerTick(), 0.001f);
+    }
+
+    @Test
+    public void rateStaysNearTheMeasuredThroughput() {
+        for (int tick = 0; tick < 200; tick++) {
+            // The channel only manages two chunks per tick, whatever gets sent
+            sendTick(2 * CHUNK_SIZE, false, MAX_CHUNKS_PER_TICK);
+        }
+        assertEquals(2.0f, controller.getMeasuredChunksPerTick(), 0.001f);
+        assertTrue(controller.getChunksPerTick() <= ChunkSendRateController.THROUGHPUT_HEADROOM * 2.0f
+                + ChunkSendRateController.CHUNKS_PER_TICK_INCREASE);
+    }
+
+    @Test
+    public void noChunksAreSentAndTheRateHalvesWhileBacklogged() {
+        int flushed = 0;
+        for (int tick = 0; tick < 200; tick++) {
+            flushed = sendTick(flushed, false, MAX_CHUNKS_PER_TICK);
+        }
+        float rate = controller.getChunksPerTick();
+
+        assertEquals(0, controller.beginTick(0, true, MAX_CHUNKS_PER_TICK));
+        assertTrue(controller.getChunksPerTick() <= rate / 2);
+        for (int tick = 0; tick < 100; tick++) {
+            assertEquals(0, controller.beginTick(0, true, MAX_CHUNKS_PER_TICK));
+        }
+        assertEquals(ChunkSendRateController.MIN_CHUNKS_PER_TICK, controller.getChunksPerTick(), 0.001f);
+    }
+
+    @Test
+    public void rateNeverExceedsASmallMaximum() {
+        float maxChunksPerTick = ChunkSendRateController.MIN_CHUNKS_PER_TICK / 4;
+        int sentChunks = 0;
+        int flushed = 0;
+        for (int tick = 0; tick < 320; tick++) {
+            int chunks = controller.beginTick(flushed, false, maxChunksPerTick);
+            flushed = 0;
+            for (int i = 0; i < chunks; i++) {
+                controller.chunkSent(CHUNK_SIZE);
+                flushed += CHUNK_SIZE;
+            }
+            sentChunks += chunks;
+            controller.allowanceUsed(maxChunksPerTick);
+        }
+        assertTrue(controller.getChunksPerTick() <= maxChunksPerTick);
+        assertTrue(sentChunks <= 1 + 320 * maxChunksPerTick);
+    }
+
+    /**
+     * Sends as many chunks as allowed, with more chunks waiting.
+     *
+     * @return the bytes sent, which the next tick reports as flushed
+     */
+    private int sendTick(int flushedBytes, boolean backlogged, float maxChunksPerTick) {
+        int chunks = controller.beginTick(flushedBytes, backlogged, maxChunksPerTick);
+        for (int i = 0; i < chunks; i++) {
+            controller.chunkSent(CHUNK_SIZE);
+        }
+        controller.allowanceUsed(maxChunksPerTick);
+        return chunks * CHUNK_SIZE;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ClientInterestGridTest {
+
+    private ClientInterestGrid grid = new ClientInterestGrid();
+    private NetClient nearClient = mock(NetClient.class);
+    private NetClient otherClient = mock(NetClient.class);
+
+    @Test
+    public void onlyClientsInterestedInTheChunkAreReturned() {
+        grid.addInterest(new Vector3i(0, 0, 0), nearClient);
+        grid.addInterest(new Vector3i(0, 0, 0), otherClient);
+        grid.addInterest(new Vector3i(5, 0, 0), otherClient);
+
+        assertEquals(Sets.newHashSet(nearClient, otherClient), grid.getInterestedClients(new Vector3i(0, 0, 0)));
+        assertEquals(Sets.newHashSet(otherClient), grid.getInterestedClients(new Vector3i(5, 0, 0)));
+        assertTrue(grid.getInterestedClients(new Vector3i(1, 0, 0)).isEmpty());
+    }
+
+    @Test
+    public void removedInterestsAreForgotten() {
+        grid.addInterest(new Vector3i(0, 0, 0), nearClient);
+        grid.addInterest(new Vector3i(1, 0, 0), nearClient);
+        grid.addInterest(new Vector3i(1, 0, 0), otherClient);
+
+        grid.removeInterest(new Vector3i(0, 0, 0), nearClient);
+        assertTrue(grid.getInterestedClients(new Vector3i(0, 0, 0)).isEmpty());
+
+        grid.removeInterests(Lists.newArrayList(new Vector3i(1, 0, 0)), nearClient);
+        assertEquals(Sets.newHashSet(otherClient), grid.getInterestedClients(new Vector3i(1, 0, 0)));
+    }
+
+    @Test
+    public void farEntitiesAreUpdatedLessOften() {
+        Vector3i center = new Vector3i(10, 0, -10);
+        int nearInterval = ClientInterestGrid.getUpdateInterval(new Vector3i(10, 1, -10), center);
+        int farInterval = ClientInterestGrid.getUpdateInterval(new Vector3i(10, 0, 20), center);
+
+        assertEquals(1, nearInterval);
+        assertTrue(farInterval > nearInterval);
+        assertTrue(ClientInterestGrid.getUpdateInterval(new Vector3i(14, 0, -10), center) <= farInterval);
+    }
+}
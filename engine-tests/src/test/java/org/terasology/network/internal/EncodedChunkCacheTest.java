@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.liquid.LiquidData;
+import org.terasology.world.liquid.LiquidType;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EncodedChunkCacheTest {
+
+    private EncodedChunkCache cache;
+    private Chunk chunk;
+
+    @Before
+    public void setup() {
+        cache = new EncodedChunkCache();
+        chunk = mockChunk(new Vector3i(1, 0, -2));
+    }
+
+    @Test
+    public void encodedChunkIsSharedUntilItChanges() {
+        EntityData.ChunkStore encoded = cache.encode(chunk);
+        assertSame(encoded, cache.get(chunk));
+        assertSame(encoded, cache.get(chunk));
+        verify(chunk, times(1)).encode();
+
+        when(chunk.getChangeVersion()).thenReturn(1);
+        assertNull(cache.get(chunk));
+    }
+
+    @Test
+    public void reloadedChunkIsNotServedFromCache() {
+        cache.encode(chunk);
+        assertNull(cache.get(mockChunk(new Vector3i(1, 0, -2))));
+    }
+
+    @Test
+    public void blockChangeDropsEncodedChunk() {
+        cache.encode(chunk);
+        cache.onBlockChanged(new Vector3i(40, 5, -40), mock(Block.class), mock(Block.class));
+        assertNull(cache.get(chunk));
+    }
+
+    @Test
+    public void liquidChangeDropsEncodedChunk() {
+        CoreRegistry.setContext(new ContextImpl());
+        ChunkImpl realChunk = new ChunkImpl(new Vector3i(0, 0, 0));
+        realChunk.markReady();
+        cache.encode(realChunk);
+
+        realChunk.setLiquid(1, 2, 3, new LiquidData(LiquidType.WATER, 3));
+
+        assertNull(cache.get(realChunk));
+    }
+
+    private static Chunk mockChunk(Vector3i pos) {
+        Chunk result = mock(Chunk.class);
+        when(result.getPosition()).thenReturn(pos);
+        when(result.encode()).thenReturn(EntityData.ChunkStore.newBuilder().setX(pos.x).setY(pos.y).setZ(pos.z));
+        return result;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.junit.Test;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+
+import static org.junit.Assert.assertEquals;
+
+public class NetMessageUtilTest {
+
+    @Test
+    public void chunkBlockIndexRoundTrips() {
+        Vector3i[] positions = {
+                new Vector3i(0, 0, 0),
+                new Vector3i(5, 17, 30),
+                new Vector3i(-1, -1, -1),
+                new Vector3i(-33, 130, 64),
+                new Vector3i(ChunkConstants.SIZE_X - 1, ChunkConstants.SIZE_Y - 1, ChunkConstants.SIZE_Z - 1)};
+        for (Vector3i pos : positions) {
+            Vector3i chunkPos = ChunkMath.calcChunkPos(pos);
+            assertEquals(pos, NetMessageUtil.fromChunkBlockIndex(chunkPos, NetMessageUtil.toChunkBlockIndex(pos)));
+        }
+    }
+
+    @Test
+    public void chunkBlockIndicesAreDistinctWithinAChunk() {
+        assertEquals(0, NetMessageUtil.toChunkBlockIndex(new Vector3i(0, 0, 0)));
+        assertEquals(ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z - 1,
+                NetMessageUtil.toChunkBlockIndex(new Vector3i(-1, -1, -1)));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SerialExecutorTest {
+
+    private ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @After
+    public void teardown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void tasksRunInSubmissionOrder() throws Exception {
+        SerialExecutor serialExecutor = new SerialExecutor(pool);
+        final List<Integer> results = Collections.synchronizedList(Lists.<Integer>newArrayList());
+        final CountDownLatch done = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; ++i) {
+            final int value = i;
+            serialExecutor.execute(() -> {
+                results.add(value);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(i, (int) results.get(i));
+        }
+    }
+
+    @Test
+    public void failingTaskDoesNotStopLaterTasks() throws Exception {
+        SerialExecutor serialExecutor = new SerialExecutor(pool);
+        final CountDownLatch done = new CountDownLatch(1);
+        serialExecutor.execute(() -> {
+            throw new IllegalStateException("expected by test");
+        });
+        serialExecutor.execute(done::countDown);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void taskThrowingErrorDoesNotStallLaterTasks() throws Exception {
+        final List<Thread> threads = Collections.synchronizedList(Lists.<Thread>newArrayList());
+        SerialExecutor serialExecutor = new SerialExecutor(task -> {
+            Thread thread = new Thread(task);
+            thread.setUncaughtExceptionHandler((t, e) -> { });
+            threads.add(thread);
+            thread.start();
+        });
+        serialExecutor.execute(() -> {
+            throw new AssertionError("expected by test");
+        });
+        threads.get(0).join(10000);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        serialExecutor.execute(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void differentSerialExecutorsRunInParallel() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final CountDownLatch done = new CountDownLatch(2);
+        for (int i = 0; i < 2; ++i) {
+            new SerialExecutor(pool).execute(() -> {
+                bothStarted.countDown();
+                try {
+                    if (bothStarted.await(10, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+}
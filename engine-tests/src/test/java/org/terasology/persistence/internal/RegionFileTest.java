@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.math.geom.Vector3i;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RegionFileTest {
+
+    private static final Vector3i REGION_POS = new Vector3i(-1, 0, 2);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path indexPath;
+    private Path newIndexPath;
+    private Path dataPath;
+
+    @Before
+    public void setup() throws Exception {
+        Path root = temporaryFolder.getRoot().toPath();
+        indexPath = root.resolve("region.idx");
+        newIndexPath = root.resolve("new").resolve("region.idx");
+        dataPath = root.resolve("region.dat");
+    }
+
+    @Test
+    public void regionPositionRoundsTowardsNegativeInfinity() {
+        assertEquals(new Vector3i(-1, 0, 1), RegionFile.getRegionPosition(new Vector3i(-1, 31, 32)));
+    }
+
+    @Test
+    public void writtenChunkIsOnlyVisibleAfterCommit() throws Exception {
+        Vector3i chunkPos = new Vector3i(-3, 4, 70);
+        byte[] chunkData = createData(5000, (byte) 1);
+        try (RegionFile regionFile = RegionFile.openForWriting(REGION_POS, indexPath, dataPath, newIndexPath)) {
+            regionFile.write(chunkPos, chunkData);
+        }
+        assertNull(RegionFile.openForReading(REGION_POS, indexPath, dataPath));
+
+        commit();
+        try (RegionFile regionFile = RegionFile.openForReading(REGION_POS, indexPath, dataPath)) {
+            assertArrayEquals(chunkData, regionFile.read(chunkPos));
+            assertNull(regionFile.read(new Vector3i(-3, 4, 71)));
+        }
+    }
+
+    @Test
+    public void rewritingAChunkKeepsCommittedDataIntact() throws Exception {
+        Vector3i chunkPos = new Vector3i(-32, 0, 64);
+        byte[] oldData = createData(RegionFile.SECTOR_SIZE * 2, (byte) 1);
+        byte[] newData = createData(100, (byte) 2);
+        try (RegionFile regionFile = RegionFile.openForWriting(REGION_POS, indexPath, dataPath, newIndexPath)) {
+            regionFile.write(chunkPos, oldData);
+        }
+        commit();
+
+        try (RegionFile regionFile = RegionFile.openForWriting(REGION_POS, indexPath, dataPath, newIndexPath)) {
+            regionFile.write(chunkPos, newData);
+        }
+        try (RegionFile regionFile = RegionFile.openForReading(REGION_POS, indexPath, dataPath)) {
+            assertArrayEquals(oldData, regionFile.read(chunkPos));
+        }
+
+        commit();
+        try (RegionFile regionFile = RegionFile.openForReading(REGION_POS, indexPath, dataPath)) {
+            assertArrayEquals(newData, regionFile.read(chunkPos));
+        }
+    }
+
+    @Test
+    public void rewritingInPlaceReusesSectors() throws Exception {
+        Vector3i chunkPos = new Vector3i(-30, 5, 64);
+        byte[] chunkData = createData(RegionFile.SECTOR_SIZE * 3, (byte) 3);
+        for (int i = 0; i < 3; ++i) {
+            try (RegionFile regionFile = RegionFile.openForWriting(REGION_POS, indexPath, dataPath, indexPath)) {
+                regionFile.write(chunkPos, chunkData);
+            }
+        }
+
+        assertEquals(chunkData.length, Files.size(dataPath));
+        try (RegionFile regionFile = RegionFile.openForReading(REGION_POS, indexPath, dataPath)) {
+            assertArrayEquals(chunkData, regionFile.read(chunkPos));
+        }
+    }
+
+    private void commit() throws Exception {
+        Files.move(newIndexPath, indexPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] createData(int length, byte value) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, value);
+        return data;
+    }
+}
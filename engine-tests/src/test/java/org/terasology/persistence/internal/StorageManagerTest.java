@@ -36,6 +36,7 @@
 import org.terasology.entitySystem.stubs.EntityRefComponent;
 import org.terasology.entitySystem.stubs.StringComponent;
 import org.terasology.game.Game;
+import org.terasology.game.GameManifest;
 import org.terasology.logic.location.LocationComponent;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
@@ -44,6 +45,7 @@
 import org.terasology.network.ClientComponent;
 import org.terasology.network.NetworkMode;
 import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.ChunkStorageFormat;
 import org.terasology.persistence.ChunkStore;
 import org.terasology.persistence.PlayerStore;
 import org.terasology.persistence.StorageManager;
@@ -57,7 +59,9 @@
 import org.terasology.world.block.loader.BlockFamilyDefinition;
 import org.terasology.world.block.loader.BlockFamilyDefinitionData;
 import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.ChunkProvider;
+import org.terasology.world.chunks.codec.ChunkCodecs;
 import org.terasology.world.chunks.internal.ChunkImpl;
 import org.terasology.world.internal.WorldInfo;
 
@@ -68,6 +72,7 @@
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -295,6 +300,150 @@ public void chunkSurvivesStorageSaveAndRestore() throws Exception {
         assertEquals(testBlock2, restored.getChunk().getBlock(0, 4, 2));
     }
 
+    @Test
+    public void chunkSurvivesStorageSaveAndRestoreInRegionFiles() throws Exception {
+        Chunk chunk = new ChunkImpl(CHUNK_POS);
+        chunk.setBlock(0, 0, 0, testBlock);
+        chunk.setBlock(0, 4, 2, testBlock2);
+        chunk.markReady();
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getAllChunks()).thenReturn(Arrays.asList(chunk));
+        when(chunkProvider.getChunk(Matchers.any(Vector3i.class))).thenReturn(chunk);
+        CoreRegistry.put(ChunkProvider.class, chunkProvider);
+
+        esm.setStoreChunksInRegionFiles(true);
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        StorageManager newSM = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, false, true);
+        newSM.loadGlobalStore();
+
+        ChunkStore restored = newSM.loadChunkStore(CHUNK_POS);
+        assertNotNull(restored);
+        assertEquals(CHUNK_POS, restored.getChunkPosition());
+        assertNotNull(restored.getChunk());
+        assertEquals(testBlock, restored.getChunk().getBlock(0, 0, 0));
+        assertEquals(testBlock2, restored.getChunk().getBlock(0, 4, 2));
+    }
+
+    @Test
+    public void chunkStoredWithOtherCodecCanBeRestored() throws Exception {
+        Chunk chunk = new ChunkImpl(CHUNK_POS);
+        chunk.setBlock(0, 0, 0, testBlock);
+        chunk.markReady();
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getAllChunks()).thenReturn(Arrays.asList(chunk));
+        CoreRegistry.put(ChunkProvider.class, chunkProvider);
+
+        esm.setChunkCodec(ChunkCodecs.LZ);
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        StorageManager newSM = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, false);
+        newSM.loadGlobalStore();
+
+        ChunkStore restored = newSM.loadChunkStore(CHUNK_POS);
+        assertNotNull(restored);
+        assertEquals(testBlock, restored.getChunk().getBlock(0, 0, 0));
+    }
+
+    @Test
+    public void chunksCompressedInParallelAndSeriallyAreStoredTheSame() throws Exception {
+        List<Chunk> chunks = Lists.newArrayList();
+        for (int i = 0; i < 8; i++) {
+            Chunk chunk = new ChunkImpl(new Vector3i(i, 0, 0));
+            for (int j = 0; j <= i; j++) {
+                chunk.setBlock(j, 2 * j, 3 * i, (j % 2 == 0) ? testBlock : testBlock2);
+            }
+            chunk.markReady();
+            chunks.add(chunk);
+        }
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getAllChunks()).thenReturn(chunks);
+        CoreRegistry.put(ChunkProvider.class, chunkProvider);
+
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+
+        Path serialSavePath = PathManager.getInstance().getSavePath("testSaveSerial");
+        ReadWriteStorageManager serialSM = new ReadWriteStorageManager(serialSavePath, moduleEnvironment, entityManager, false);
+        serialSM.setCompressChunksInParallel(false);
+        serialSM.waitForCompletionOfPreviousSaveAndStartSaving();
+        serialSM.finishSavingAndShutdown();
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        StorageManager parallelLoader = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, false);
+        parallelLoader.loadGlobalStore();
+        StorageManager serialLoader = new ReadWriteStorageManager(serialSavePath, moduleEnvironment, newEntityManager, false);
+        serialLoader.loadGlobalStore();
+
+        for (Chunk chunk : chunks) {
+            Vector3i pos = chunk.getPosition();
+            assertArrayEquals(Files.readAllBytes(esm.getStoragePathProvider().getChunkPath(pos)),
+                    Files.readAllBytes(serialSM.getStoragePathProvider().getChunkPath(pos)));
+            Chunk parallelChunk = parallelLoader.loadChunkStore(pos).getChunk();
+            Chunk serialChunk = serialLoader.loadChunkStore(pos).getChunk();
+            for (Vector3i blockPos : ChunkConstants.CHUNK_REGION) {
+                assertEquals(chunk.getBlock(blockPos), parallelChunk.getBlock(blockPos));
+                assertEquals(chunk.getBlock(blockPos), serialChunk.getBlock(blockPos));
+            }
+        }
+    }
+
+    @Test
+    public void chunkZipsGetMigratedToRegionFiles() throws Exception {
+        Chunk chunk = new ChunkImpl(CHUNK_POS);
+        chunk.setBlock(0, 0, 0, testBlock);
+        chunk.markReady();
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getAllChunks()).thenReturn(Arrays.asList(chunk));
+        CoreRegistry.put(ChunkProvider.class, chunkProvider);
+
+        esm.setStoreChunksInZips(true);
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        StorageManager newSM = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, true, true);
+        newSM.checkAndRepairSaveIfNecessary();
+        newSM.loadGlobalStore();
+
+        StoragePathProvider pathProvider = new StoragePathProvider(savePath);
+        assertFalse(Files.exists(pathProvider.getChunkZipPath(pathProvider.getChunkZipPosition(CHUNK_POS))));
+        assertEquals(ChunkStorageFormat.REGION_FILES, GameManifest.load(pathProvider.getGameManifestPath()).getChunkStorageFormat());
+        ChunkStore restored = newSM.loadChunkStore(CHUNK_POS);
+        assertNotNull(restored);
+        assertEquals(testBlock, restored.getChunk().getBlock(0, 0, 0));
+    }
+
+    @Test
+    public void chunkStorageFormatGetsRecordedInManifest() throws Exception {
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getAllChunks()).thenReturn(Collections.<Chunk>emptyList());
+        CoreRegistry.put(ChunkProvider.class, chunkProvider);
+        Path manifestPath = new StoragePathProvider(savePath).getGameManifestPath();
+
+        esm.setStoreChunksInZips(true);
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+        assertEquals(ChunkStorageFormat.CHUNK_ZIPS, GameManifest.load(manifestPath).getChunkStorageFormat());
+
+        ReadWriteStorageManager regionFileSM = new ReadWriteStorageManager(savePath, moduleEnvironment, entityManager, true, true);
+        regionFileSM.waitForCompletionOfPreviousSaveAndStartSaving();
+        regionFileSM.finishSavingAndShutdown();
+        assertEquals(ChunkStorageFormat.REGION_FILES, GameManifest.load(manifestPath).getChunkStorageFormat());
+    }
+
     @Test
     public void entitySurvivesStorageInChunkStore() throws Exception {
         Chunk chunk = new ChunkImpl(CHUNK_POS);
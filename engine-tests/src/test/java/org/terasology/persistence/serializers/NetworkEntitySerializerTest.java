@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.terasology.asset.Assets;
+import org.terasology.assets.AssetFactory;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.assets.module.ModuleAwareAssetTypeManager;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.SimpleUri;
+import org.terasology.engine.bootstrap.EntitySystemSetupUtil;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.metadata.ComponentMetadata;
+import org.terasology.entitySystem.prefab.Prefab;
+import org.terasology.entitySystem.prefab.PrefabData;
+import org.terasology.entitySystem.prefab.internal.PojoPrefab;
+import org.terasology.entitySystem.stubs.StringComponent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.protobuf.EntityData;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.testUtil.ModuleManagerFactory;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+public class NetworkEntitySerializerTest {
+
+    private static Context context;
+    private static ModuleManager moduleManager;
+    private EngineEntityManager entityManager;
+    private NetworkEntitySerializer serializer;
+    private FieldSerializeCheck<Component> fieldCheck = FieldSerializeCheck.NullCheck.newInstance();
+    private ComponentMetadata<LocationComponent> locationMetadata;
+    private EntityReplicationBaseline baseline = new EntityReplicationBaseline();
+    private Set<Class<? extends Component>> none = Collections.emptySet();
+    private Set<Class<? extends Component>> location = Sets.<Class<? extends Component>>newHashSet(LocationComponent.class);
+
+    @BeforeClass
+    public static void setupClass() throws Exception {
+        context = new ContextImpl();
+        CoreRegistry.setContext(context);
+        moduleManager = ModuleManagerFactory.create();
+        context.put(ModuleManager.class, moduleManager);
+
+        ModuleAwareAssetTypeManager assetTypeManager = new ModuleAwareAssetTypeManager();
+        assetTypeManager.registerCoreAssetType(Prefab.class,
+                (AssetFactory<Prefab, PrefabData>) PojoPrefab::new, "prefabs");
+        assetTypeManager.switchEnvironment(moduleManager.getEnvironment());
+        context.put(AssetManager.class, assetTypeManager.getAssetManager());
+    }
+
+    @Before
+    public void setup() {
+        context.put(NetworkSystem.class, mock(NetworkSystem.class));
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        entityManager = context.get(EngineEntityManager.class);
+        entityManager.getComponentLibrary().register(new SimpleUri("test", "string"), StringComponent.class);
+        locationMetadata = entityManager.getComponentLibrary().getMetadata(LocationComponent.class);
+
+        serializer = new NetworkEntitySerializer(entityManager, entityManager.getComponentLibrary(), context.get(TypeSerializationLibrary.class));
+        serializer.setIdMapping(ImmutableMap.<Class<? extends Component>, Integer>of(LocationComponent.class, 1, StringComponent.class, 2));
+    }
+
+    @Test
+    public void unchangedFieldsAreOmitted() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(1, 2, 3)));
+        serializer.serialize(entity, false, fieldCheck, baseline);
+
+        moveTo(entity, new Vector3f(4, 5, 6));
+        EntityData.PackedEntity update = serializer.serialize(entity, none, location, none, fieldCheck, baseline);
+
+        assertNotNull(update);
+        assertEquals(1, update.getComponentFieldCounts().byteAt(0));
+        assertEquals(locationMetadata.getField("position").getId(), update.getFieldIds().byteAt(0));
+        assertNull(serializer.serialize(entity, none, location, none, fieldCheck, baseline));
+    }
+
+    @Test
+    public void readdedComponentResendsAllFields() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(1, 2, 3)));
+        serializer.serialize(entity, false, fieldCheck, baseline);
+
+        EntityData.PackedEntity update = serializer.serialize(entity, location, none, none, fieldCheck, baseline);
+
+        assertEquals(locationMetadata.getFields().size(), update.getComponentFieldCounts().byteAt(0));
+        assertNull(serializer.serialize(entity, none, location, none, fieldCheck, baseline));
+    }
+
+    @Test
+    public void removedComponentClearsBaseline() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(1, 2, 3)));
+        serializer.serialize(entity, false, fieldCheck, baseline);
+
+        EntityData.PackedEntity update = serializer.serialize(entity, none, none, location, fieldCheck, baseline);
+
+        assertEquals(1, update.getRemovedComponentCount());
+        assertNull(baseline.getSentFields(LocationComponent.class));
+        update = serializer.serialize(entity, none, location, none, fieldCheck, baseline);
+        assertEquals(locationMetadata.getFields().size(), update.getComponentFieldCounts().byteAt(0));
+    }
+
+    @Test
+    public void initialSerializationResetsBaseline() {
+        EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(1, 2, 3)));
+        byte positionId = locationMetadata.getField("position").getId();
+        baseline.getOrCreateSentFields(LocationComponent.class).put(positionId, EntityData.Value.newBuilder().addInteger(7).build());
+        baseline.getOrCreateSentFields(StringComponent.class).put((byte) 0, EntityData.Value.newBuilder().addString("stale").build());
+
+        serializer.serialize(entity, false, fieldCheck, baseline);
+
+        assertNull(baseline.getSentFields(StringComponent.class));
+        assertNull(serializer.serialize(entity, none, location, none, fieldCheck, baseline));
+    }
+
+    @Test
+    public void initialDeltaAgainstPrefabRecordsPrefabValues() {
+        PrefabData prefabData = new PrefabData();
+        prefabData.addComponent(new StringComponent("Value"));
+        Prefab prefab = Assets.generateAsset(new ResourceUrn("test:NetworkTest"), prefabData, Prefab.class);
+        EntityRef entity = entityManager.create(prefab);
+        Set<Class<? extends Component>> string = Sets.<Class<? extends Component>>newHashSet(StringComponent.class);
+
+        EntityData.PackedEntity initial = serializer.serialize(entity, true, fieldCheck, baseline).build();
+
+        assertEquals(0, initial.getComponentIdCount());
+        assertNull(serializer.serialize(entity, none, string, none, fieldCheck, baseline));
+
+        StringComponent component = entity.getComponent(StringComponent.class);
+        component.value = "Changed";
+        entity.saveComponent(component);
+        EntityData.PackedEntity update = serializer.serialize(entity, none, string, none, fieldCheck, baseline);
+        assertEquals(1, update.getFieldValueCount());
+        assertEquals("Changed", update.getFieldValue(0).getString(0));
+    }
+
+    private void moveTo(EntityRef entity, Vector3f position) {
+        LocationComponent loc = entity.getComponent(LocationComponent.class);
+        loc.setLocalPosition(position);
+        entity.saveComponent(loc);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.engine.SimpleUri;
+import org.terasology.entitySystem.metadata.ComponentMetadata;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.reflect.ReflectFactory;
+import org.terasology.reflection.reflect.ReflectionReflectFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class QuantizedValuesTest {
+
+    private ComponentMetadata<LocationComponent> metadata;
+
+    @Before
+    public void setup() throws Exception {
+        ReflectFactory reflectFactory = new ReflectionReflectFactory();
+        metadata = new ComponentMetadata<>(new SimpleUri("engine", "location"), LocationComponent.class, reflectFactory,
+                new CopyStrategyLibrary(reflectFactory));
+    }
+
+    @Test
+    public void quantizedFieldIsSentAsIntegers() {
+        EntityData.Value value = EntityData.Value.newBuilder().addFloat(1.5f).addFloat(-20.0004f).addFloat(0).build();
+
+        EntityData.Value quantized = QuantizedValues.quantize(metadata.getField("position"), value);
+
+        assertEquals(0, quantized.getFloatCount());
+        assertEquals(3, quantized.getIntegerCount());
+        assertTrue(quantized.getSerializedSize() < value.getSerializedSize());
+
+        EntityData.Value restored = QuantizedValues.dequantize(metadata.getField("position"), quantized);
+        assertEquals(3, restored.getFloatCount());
+        assertEquals(1.5f, restored.getFloat(0), 0.0005f);
+        assertEquals(-20.0004f, restored.getFloat(1), 0.0005f);
+        assertEquals(0f, restored.getFloat(2), 0.0005f);
+    }
+
+    @Test
+    public void fieldWithoutAnnotationIsLeftUnchanged() {
+        assertFalse(metadata.getField("scale").isQuantized());
+        EntityData.Value value = EntityData.Value.newBuilder().addFloat(1.25f).build();
+
+        assertSame(value, QuantizedValues.quantize(metadata.getField("scale"), value));
+    }
+
+    @Test
+    public void valuesOutOfIntegerRangeStayFloats() {
+        EntityData.Value value = EntityData.Value.newBuilder().addFloat(1).addFloat(1e10f).build();
+
+        EntityData.Value quantized = QuantizedValues.quantize(metadata.getField("position"), value);
+
+        assertSame(value, quantized);
+        assertSame(quantized, QuantizedValues.dequantize(metadata.getField("position"), quantized));
+    }
+}
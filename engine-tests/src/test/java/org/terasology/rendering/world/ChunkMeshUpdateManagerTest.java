@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.rendering.primitives.ChunkTessellator;
+import org.terasology.world.ChunkView;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ChunkMeshUpdateManagerTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    // More than the update threads, so that the updates of the test chunks stay queued behind them
+    private static final int BLOCKING_CHUNKS = 16;
+    private static final Vector3i BLOCKING_POS = new Vector3i(0, 0, 0);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private WorldProvider worldProvider;
+    private ChunkMeshUpdateManager updateManager;
+
+    @Before
+    public void setup() {
+        worldProvider = mock(WorldProvider.class);
+        doAnswer(new Answer<ChunkView>() {
+            @Override
+            public ChunkView answer(InvocationOnMock invocation) throws Throwable {
+                if (BLOCKING_POS.equals(invocation.getArguments()[0])) {
+                    release.await();
+                }
+                return null;
+            }
+        }).when(worldProvider).getLocalView(any(Vector3i.class));
+        updateManager = new ChunkMeshUpdateManager(new ChunkTessellator(mock(GLBufferPool.class)), worldProvider);
+    }
+
+    @After
+    public void teardown() {
+        release.countDown();
+        updateManager.shutdown();
+    }
+
+    @Test
+    public void queuedUpdatesOutsideTheRegionAreSkippedAndCanBeRequeued() throws Exception {
+        for (int i = 0; i < BLOCKING_CHUNKS; i++) {
+            updateManager.queueChunkUpdate(chunkAt(BLOCKING_POS));
+        }
+        Vector3i insidePos = new Vector3i(20, 0, 0);
+        Vector3i outsidePos = new Vector3i(40, 0, 0);
+        RenderableChunk inside = chunkAt(insidePos);
+        RenderableChunk outside = chunkAt(outsidePos);
+        updateManager.queueChunkUpdate(inside);
+        updateManager.queueChunkUpdate(outside);
+
+        updateManager.cancelUpdatesOutside(Region3i.createFromMinMax(new Vector3i(-30, -30, -30), new Vector3i(30, 30, 30)));
+        release.countDown();
+
+        List<RenderableChunk> completed = Lists.newArrayList();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (completed.size() < BLOCKING_CHUNKS + 2 && System.currentTimeMillis() < deadline) {
+            completed.addAll(updateManager.availableChunksForUpdate());
+            Thread.sleep(1);
+        }
+        assertEquals(BLOCKING_CHUNKS + 2, completed.size());
+        assertTrue(completed.contains(outside));
+        verify(worldProvider).getLocalView(insidePos);
+        verify(worldProvider, never()).getLocalView(outsidePos);
+        verify(outside, never()).setDirty(false);
+
+        // The chunk is no longer processing, so it can be updated once it comes back into view
+        assertTrue(updateManager.queueChunkUpdate(outside));
+        verify(worldProvider, timeout((int) TIMEOUT_MILLIS)).getLocalView(outsidePos);
+    }
+
+    private static RenderableChunk chunkAt(Vector3i pos) {
+        RenderableChunk chunk = mock(RenderableChunk.class);
+        when(chunk.getPosition()).thenReturn(pos);
+        return chunk;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.terasology.math.Rect2i;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.procedural.BrownianNoise;
+import org.terasology.utilities.procedural.Noise;
+import org.terasology.utilities.procedural.PerlinNoise;
+import org.terasology.utilities.procedural.SimplexNoise;
+import org.terasology.utilities.procedural.WhiteNoise;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that filling a region with {@link Noise#fill} yields the values of the single position noise methods.
+ */
+@RunWith(Parameterized.class)
+public class NoiseFillTest {
+
+    private static final float SCALE_X = 0.013f;
+    private static final float SCALE_Y = 0.021f;
+    private static final float SCALE_Z = 0.0071f;
+    // allows for the different rounding of octave positions in the brownian noise
+    private static final float EPSILON = 0.0001f;
+
+    private final Noise noiseGen;
+
+    public NoiseFillTest(Noise noiseGen) {
+        this.noiseGen = noiseGen;
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Noise[]> data() {
+        return Arrays.asList(new Noise[][]{
+                {new WhiteNoise(0xCAFE)},
+                {new SimplexNoise(0xCAFE)},
+                {new PerlinNoise(0xCAFE)},
+                {new BrownianNoise(new PerlinNoise(0xCAFE), 8)},
+                {new BrownianNoise(new SimplexNoise(0xCAFE), 3)}
+        });
+    }
+
+    @Test
+    public void fill2DMatchesNoise() {
+        Rect2i region = Rect2i.createFromMinAndSize(-40, 17, 34, 21);
+        float[] values = new float[region.area()];
+        noiseGen.fill(values, region, SCALE_X, SCALE_Y);
+
+        int index = 0;
+        for (int y = region.minY(); y <= region.maxY(); y++) {
+            for (int x = region.minX(); x <= region.maxX(); x++) {
+                assertEquals(noiseGen.noise(x * SCALE_X, y * SCALE_Y), values[index++], EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void fill3DMatchesNoise() {
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(-20, 5, 300), new Vector3i(17, 9, 13));
+        float[] values = new float[region.sizeX() * region.sizeY() * region.sizeZ()];
+        noiseGen.fill(values, region, SCALE_X, SCALE_Y, SCALE_Z);
+
+        int index = 0;
+        for (int z = region.minZ(); z <= region.maxZ(); z++) {
+            for (int y = region.minY(); y <= region.maxY(); y++) {
+                for (int x = region.minX(); x <= region.maxX(); x++) {
+                    assertEquals(noiseGen.noise(x * SCALE_X, y * SCALE_Y, z * SCALE_Z), values[index++], EPSILON);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.concurrency;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ReprioritizingTaskQueueTest {
+
+    private final ReprioritizingTaskQueue<TestTask> queue = new ReprioritizingTaskQueue<>(new Comparator<TestTask>() {
+        @Override
+        public int compare(TestTask o1, TestTask o2) {
+            return Integer.compare(o1.priority, o2.priority);
+        }
+    });
+
+    @Test
+    public void tasksAreTakenInPriorityOrder() throws Exception {
+        TestTask second = new TestTask(5);
+        TestTask first = new TestTask(1);
+        TestTask third = new TestTask(9);
+        queue.offer(second);
+        queue.offer(first);
+        queue.offer(third);
+
+        assertSame(first, queue.take());
+        assertSame(second, queue.take());
+        assertSame(third, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void changedPrioritiesApplyAfterReprioritize() throws Exception {
+        List<TestTask> tasks = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            TestTask task = new TestTask(i);
+            tasks.add(task);
+            queue.offer(task);
+        }
+        for (TestTask task : tasks) {
+            task.priority = -task.priority;
+        }
+        queue.reprioritize();
+
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            assertSame(tasks.get(i), queue.take());
+        }
+    }
+
+    @Test
+    public void batchedTasksCanBeStolenByOtherConsumers() throws Exception {
+        List<TestTask> tasks = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            TestTask task = new TestTask(i);
+            tasks.add(task);
+            queue.offer(task);
+        }
+        // takes a batch, as many tasks are queued
+        assertSame(tasks.get(0), queue.poll());
+        assertEquals(99, queue.size());
+
+        final List<TestTask> taken = Lists.newArrayList();
+        Thread otherConsumer = new Thread() {
+            @Override
+            public void run() {
+                TestTask task = queue.poll();
+                while (task != null) {
+                    taken.add(task);
+                    task = queue.poll();
+                }
+            }
+        };
+        otherConsumer.start();
+        otherConsumer.join();
+
+        assertEquals(99, taken.size());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void terminateSignalsAreNotBatched() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            queue.offer(new TestTask(i));
+        }
+        queue.drainTo(Lists.newArrayList());
+        for (int i = 0; i < 100; i++) {
+            queue.offer(new TestTask(-1, true));
+        }
+        assertEquals(true, queue.take().isTerminateSignal());
+        assertEquals(99, queue.size());
+
+        final AtomicReference<TestTask> taken = new AtomicReference<>();
+        Thread otherConsumer = new Thread() {
+            @Override
+            public void run() {
+                taken.set(queue.poll());
+            }
+        };
+        otherConsumer.start();
+        otherConsumer.join();
+        assertEquals(true, taken.get().isTerminateSignal());
+        assertEquals(98, queue.size());
+    }
+
+    @Test
+    public void iteratorIncludesBatchedTasks() throws Exception {
+        List<TestTask> tasks = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            TestTask task = new TestTask(i);
+            tasks.add(task);
+            queue.offer(task);
+        }
+        queue.poll();
+
+        assertEquals(Sets.newHashSet(tasks.subList(1, 100)), Sets.newHashSet(queue));
+    }
+
+    @Test
+    public void tasksCanBeRemovedFromHeapAndBatches() throws Exception {
+        List<TestTask> tasks = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            TestTask task = new TestTask(i);
+            tasks.add(task);
+            queue.offer(task);
+        }
+        assertSame(tasks.get(0), queue.poll());
+
+        // The next tasks are batched, the later ones are still in the heap
+        assertTrue(queue.remove(tasks.get(1)));
+        assertTrue(queue.remove(tasks.get(50)));
+        assertFalse(queue.remove(tasks.get(0)));
+        Iterator<TestTask> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().priority % 2 == 1) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals(48, queue.size());
+        TestTask previous = queue.take();
+        assertEquals(2, previous.priority);
+        for (TestTask task = queue.poll(); task != null; task = queue.poll()) {
+            assertEquals(0, task.priority % 2);
+            assertTrue(task.priority > previous.priority);
+            assertFalse(task == tasks.get(50));
+            previous = task;
+        }
+    }
+
+    @Test
+    public void waitingConsumerReceivesOfferedTask() throws Exception {
+        final AtomicReference<TestTask> taken = new AtomicReference<>();
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    taken.set(queue.poll(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        consumer.start();
+        while (consumer.getState() != Thread.State.TIMED_WAITING && consumer.isAlive()) {
+            Thread.yield();
+        }
+        TestTask task = new TestTask(1);
+        queue.offer(task);
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertSame(task, taken.get());
+    }
+
+    private static class TestTask implements Task {
+        private int priority;
+        private final boolean terminateSignal;
+
+        TestTask(int priority) {
+            this(priority, false);
+        }
+
+        TestTask(int priority, boolean terminateSignal) {
+            this.priority = priority;
+            this.terminateSignal = terminateSignal;
+        }
+
+        @Override
+        public String getName() {
+            return "Test task";
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public boolean isTerminateSignal() {
+            return terminateSignal;
+        }
+    }
+}
@@ -18,6 +18,7 @@
 
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.junit.Before;
 import org.junit.Test;
 import org.terasology.TerasologyTestingEnvironment;
@@ -58,6 +59,7 @@
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -241,6 +243,23 @@ public void testPrefabUpdatedWhenBlockChanged() {
         assertEquals(blockWithDifferentString.getPrefab().get().getName(), worldProvider.getBlockEntityAt(new Vector3i(0, 0, 0)).getParentPrefab().getName());
     }
 
+    @Test
+    public void testSetBlocksUpdatesEachBlockEntity() {
+        Vector3i first = new Vector3i(0, 0, 0);
+        Vector3i second = new Vector3i(1, 0, 0);
+        worldProvider.setBlock(first, blockWithString);
+
+        Map<Vector3i, Block> blocks = Maps.newHashMap();
+        blocks.put(first, blockWithDifferentString);
+        blocks.put(second, blockWithString);
+        Map<Vector3i, Block> oldBlocks = worldProvider.setBlocks(blocks);
+
+        assertEquals(blockWithString, oldBlocks.get(first));
+        assertEquals(airBlock, oldBlocks.get(second));
+        assertEquals(blockWithDifferentString.getPrefab().get().getName(), worldProvider.getBlockEntityAt(first).getParentPrefab().getName());
+        assertEquals(blockWithString.getPrefab().get().getName(), worldProvider.getBlockEntityAt(second).getParentPrefab().getName());
+    }
+
     @Test
     public void testEntityNotRemovedIfForceBlockActiveComponentAdded() {
         EntityRef blockEntity = worldProvider.getBlockEntityAt(new Vector3i(0, 0, 0));
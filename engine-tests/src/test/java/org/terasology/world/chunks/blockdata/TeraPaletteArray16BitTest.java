@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.blockdata;
+
+import org.junit.Test;
+import org.terasology.utilities.random.FastRandom;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TeraPaletteArray16BitTest {
+
+    private static final int SIZE_X = 16;
+    private static final int SIZE_Y = 32;
+    private static final int SIZE_Z = 8;
+
+    @Test
+    public void newArrayIsUniform() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        assertEquals(0, array.getBitsPerElement());
+        assertEquals(0, array.get(3, 4, 5));
+    }
+
+    @Test
+    public void packingGrowsWithDistinctValues() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        int[] expectedBits = {1, 2, 4, 4, 8, 8, 16};
+        int[] distinctValues = {2, 3, 5, 16, 17, 256, 257};
+        int value = 0;
+        for (int i = 0; i < distinctValues.length; i++) {
+            while (value < distinctValues[i] - 1) {
+                value++;
+                array.set(value % SIZE_X, value / SIZE_X, 0, value * 100);
+            }
+            assertEquals(expectedBits[i], array.getBitsPerElement());
+        }
+        for (int i = 1; i <= value; i++) {
+            assertEquals((short) (i * 100), array.get(i % SIZE_X, i / SIZE_X, 0));
+        }
+        assertEquals(0, array.get(SIZE_X - 1, SIZE_Y - 1, SIZE_Z - 1));
+    }
+
+    @Test
+    public void behavesLikeDenseArray() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        TeraDenseArray16Bit expected = new TeraDenseArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        FastRandom random = new FastRandom(7);
+        for (int i = 0; i < 20000; i++) {
+            int x = random.nextInt(SIZE_X);
+            int y = random.nextInt(SIZE_Y);
+            int z = random.nextInt(SIZE_Z);
+            int value = random.nextInt(i < 10000 ? 10 : 1000) - 5;
+            assertEquals(expected.set(x, y, z, value), array.set(x, y, z, value));
+        }
+        assertEqualContent(expected, array);
+        assertTrue(array.set(0, 0, 0, 42, array.get(0, 0, 0)));
+        assertEquals(42, array.get(0, 0, 0));
+        assertTrue(!array.set(0, 0, 0, 43, 41));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        array.set(1, 2, 3, 5);
+        TeraArray copy = array.copy();
+        array.set(1, 2, 3, 6);
+        assertEquals(5, copy.get(1, 2, 3));
+        assertEquals(6, array.get(1, 2, 3));
+    }
+
+    @Test
+    public void deflateRemovesOverwrittenValues() {
+        TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+        for (int i = 1; i < 20; i++) {
+            array.set(0, 0, 0, i);
+        }
+        assertEquals(8, array.getBitsPerElement());
+        TeraArray deflated = array.deflate(null);
+        assertNotNull(deflated);
+        assertEquals(1, ((TeraPaletteArray16Bit) deflated).getBitsPerElement());
+        assertEqualContent(array, deflated);
+        assertNull(new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z).deflate(null));
+    }
+
+    @Test
+    public void survivesSerialization() {
+        TeraPaletteArray16Bit.SerializationHandler handler = new TeraPaletteArray16Bit.SerializationHandler();
+        FastRandom random = new FastRandom(3);
+        for (int distinctValues : new int[]{1, 4, 300}) {
+            TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+            for (int i = 0; i < 5000; i++) {
+                array.set(random.nextInt(SIZE_X), random.nextInt(SIZE_Y), random.nextInt(SIZE_Z), random.nextInt(distinctValues));
+            }
+            ByteBuffer buffer = handler.serialize(array);
+            buffer.rewind();
+            TeraPaletteArray16Bit restored = handler.deserialize(buffer);
+            assertEqualContent(array, restored);
+            restored.set(0, 0, 0, 12345);
+            assertEquals(12345, restored.get(0, 0, 0));
+        }
+    }
+
+    @Test
+    public void concurrentReaderNeverSeesUnsetValues() throws InterruptedException {
+        final int elementCount = SIZE_X * SIZE_Y * SIZE_Z;
+        final AtomicReference<TeraPaletteArray16Bit> current = new AtomicReference<>();
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicBoolean inconsistent = new AtomicBoolean();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    TeraPaletteArray16Bit array = current.get();
+                    if (array == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < elementCount; i++) {
+                        int value = array.get(i % SIZE_X, i / (SIZE_X * SIZE_Z), (i / SIZE_X) % SIZE_Z);
+                        if (value != 0 && value != i + 1) {
+                            inconsistent.set(true);
+                        }
+                    }
+                }
+            }
+        });
+        reader.start();
+        try {
+            for (int round = 0; round < 100 && !inconsistent.get(); round++) {
+                TeraPaletteArray16Bit array = new TeraPaletteArray16Bit(SIZE_X, SIZE_Y, SIZE_Z);
+                current.set(array);
+                // Every element gets its own value, so that every set appends to the palette until it is full
+                for (int i = 0; i < elementCount; i++) {
+                    array.set(i % SIZE_X, i / (SIZE_X * SIZE_Z), (i / SIZE_X) % SIZE_Z, i + 1);
+                }
+            }
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+        assertFalse(inconsistent.get());
+    }
+
+    private static void assertEqualContent(TeraArray expected, TeraArray actual) {
+        for (int y = 0; y < SIZE_Y; y++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int x = 0; x < SIZE_X; x++) {
+                    assertEquals(expected.get(x, y, z), actual.get(x, y, z));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.codec;
+
+import org.junit.Test;
+import org.terasology.utilities.random.FastRandom;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkCodecsTest {
+
+    @Test
+    public void allCodecsRoundTrip() throws IOException {
+        for (ChunkCodec codec : ChunkCodecs.getAll()) {
+            for (byte[] data : createTestData()) {
+                byte[] compressed = codec.compress(data, 0, data.length);
+                assertArrayEquals(codec.getId(), data, codec.decompress(compressed, 0, compressed.length));
+            }
+        }
+    }
+
+    @Test
+    public void compressionRespectsOffsetAndLength() throws IOException {
+        byte[] data = {9, 9, 1, 2, 3, 4, 5, 9};
+        for (ChunkCodec codec : ChunkCodecs.getAll()) {
+            byte[] compressed = codec.compress(data, 2, 5);
+            assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, codec.decompress(compressed, 0, compressed.length));
+        }
+    }
+
+    @Test
+    public void lzCompressesRuns() {
+        byte[] data = new byte[100000];
+        assertTrue(ChunkCodecs.LZ.compress(data, 0, data.length).length < 1000);
+    }
+
+    @Test
+    public void codecIsDetectedFromCompressedData() {
+        byte[] data = createTestData()[2];
+        for (ChunkCodec codec : ChunkCodecs.getAll()) {
+            assertSame(codec, ChunkCodecs.detect(codec.compress(data, 0, data.length)));
+        }
+    }
+
+    @Test
+    public void codecsAreLookedUpById() {
+        assertSame(ChunkCodecs.LZ, ChunkCodecs.get(LZChunkCodec.ID));
+        assertSame(ChunkCodecs.DEFLATE, ChunkCodecs.get(DeflateChunkCodec.ID));
+        assertNull(ChunkCodecs.get("unknown"));
+        assertEquals(ChunkCodecs.DEFLATE, ChunkCodecs.getOrDefault("unknown"));
+    }
+
+    @Test(expected = IOException.class)
+    public void lzRejectsTruncatedData() throws IOException {
+        byte[] data = createTestData()[2];
+        byte[] compressed = ChunkCodecs.LZ.compress(data, 0, data.length);
+        ChunkCodecs.LZ.decompress(compressed, 0, compressed.length - 10);
+    }
+
+    @Test(expected = IOException.class)
+    public void lzRejectsLengthBeyondMaximum() throws IOException {
+        byte[] data = createTestData()[1];
+        byte[] compressed = ChunkCodecs.LZ.compress(data, 0, data.length);
+        setUncompressedLength(compressed, Integer.MAX_VALUE);
+        ChunkCodecs.LZ.decompress(compressed, 0, compressed.length);
+    }
+
+    @Test(expected = IOException.class)
+    public void lzRejectsLengthTheDataCantExpandTo() throws IOException {
+        byte[] data = {1, 2, 3};
+        byte[] compressed = ChunkCodecs.LZ.compress(data, 0, data.length);
+        setUncompressedLength(compressed, 10000);
+        ChunkCodecs.LZ.decompress(compressed, 0, compressed.length);
+    }
+
+    private static void setUncompressedLength(byte[] compressed, int length) {
+        // the length follows the 4 byte magic, in big endian order
+        compressed[4] = (byte) (length >>> 24);
+        compressed[5] = (byte) (length >>> 16);
+        compressed[6] = (byte) (length >>> 8);
+        compressed[7] = (byte) length;
+    }
+
+    private static byte[][] createTestData() {
+        FastRandom random = new FastRandom(1);
+        byte[] empty = new byte[0];
+        byte[] randomData = new byte[20000];
+        for (int i = 0; i < randomData.length; i++) {
+            randomData[i] = (byte) random.nextInt(256);
+        }
+        byte[] chunkLike = new byte[70000];
+        for (int i = 0; i < chunkLike.length; i++) {
+            chunkLike[i] = (byte) (random.nextInt(20) == 0 ? random.nextInt(4) : (i / 1000) % 3);
+        }
+        byte[] runs = new byte[300];
+        Arrays.fill(runs, 100, 300, (byte) 7);
+        return new byte[][]{empty, randomData, chunkLike, runs};
+    }
+}
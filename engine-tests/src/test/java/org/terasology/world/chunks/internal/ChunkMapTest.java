@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import com.google.common.collect.Maps;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class ChunkMapTest {
+
+    private final ChunkMap chunkMap = new ChunkMap();
+
+    @Test
+    public void storedChunkCanBeRetrieved() {
+        Chunk chunk = mock(Chunk.class);
+        Vector3i pos = new Vector3i(-5, 3, 1000);
+        assertNull(chunkMap.put(pos, chunk));
+
+        assertSame(chunk, chunkMap.get(pos));
+        assertSame(chunk, chunkMap.get(-5, 3, 1000));
+        assertNull(chunkMap.get(-5, 3, 999));
+        assertEquals(1, chunkMap.size());
+    }
+
+    @Test
+    public void coordinatesDoNotCollideAtRangeLimits() {
+        Chunk first = mock(Chunk.class);
+        Chunk second = mock(Chunk.class);
+        chunkMap.put(new Vector3i(-(1 << 21), -(1 << 18), (1 << 21) - 1), first);
+        chunkMap.put(new Vector3i((1 << 21) - 1, (1 << 18) - 1, -(1 << 21)), second);
+
+        assertSame(first, chunkMap.get(-(1 << 21), -(1 << 18), (1 << 21) - 1));
+        assertSame(second, chunkMap.get((1 << 21) - 1, (1 << 18) - 1, -(1 << 21)));
+        assertNull(chunkMap.get(1 << 21, 0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void positionOutOfRangeIsRejected() {
+        chunkMap.put(new Vector3i(0, 1 << 18, 0), mock(Chunk.class));
+    }
+
+    @Test
+    public void removedChunkIsGoneAndSlotCanBeReused() {
+        Chunk chunk = mock(Chunk.class);
+        Vector3i pos = new Vector3i(1, 2, 3);
+        chunkMap.put(pos, chunk);
+        assertSame(chunk, chunkMap.remove(pos));
+        assertNull(chunkMap.get(pos));
+        assertTrue(chunkMap.isEmpty());
+
+        Chunk newChunk = mock(Chunk.class);
+        assertNull(chunkMap.put(pos, newChunk));
+        assertSame(newChunk, chunkMap.get(pos));
+        assertEquals(1, chunkMap.size());
+    }
+
+    @Test
+    public void behavesLikeHashMapForRandomOperations() {
+        Chunk[] chunks = new Chunk[8];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = mock(Chunk.class);
+        }
+        Map<Vector3i, Chunk> expected = Maps.newHashMap();
+        FastRandom random = new FastRandom(7);
+        for (int i = 0; i < 20000; i++) {
+            Vector3i pos = new Vector3i(random.nextInt(-20, 20), random.nextInt(-4, 4), random.nextInt(-20, 20));
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(pos), chunkMap.remove(pos));
+            } else {
+                Chunk chunk = chunks[random.nextInt(chunks.length)];
+                assertSame(expected.put(pos, chunk), chunkMap.put(pos, chunk));
+            }
+        }
+
+        assertEquals(expected.size(), chunkMap.size());
+        assertEquals(expected.size(), chunkMap.values().size());
+        for (Map.Entry<Vector3i, Chunk> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), chunkMap.get(entry.getKey()));
+        }
+    }
+}
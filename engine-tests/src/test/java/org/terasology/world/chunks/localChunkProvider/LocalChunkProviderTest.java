@@ -0,0 +1,340 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.terasology.config.Config;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.entitySystem.entity.EntityManager;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.persistence.ChunkStore;
+import org.terasology.persistence.StorageManager;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkBlockIterator;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ReadyChunkInfo;
+import org.terasology.world.generator.WorldGenerator;
+import org.terasology.world.propagation.light.LightMerger;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LocalChunkProviderTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final Set<Vector3i> finishedMerges = Sets.newConcurrentHashSet();
+    private final List<Vector3i> begunMerges = Lists.newArrayList();
+    private final List<Vector3i> integratedChunks = Lists.newArrayList();
+    private final CountDownLatch mergeRelease = new CountDownLatch(1);
+    private volatile boolean mergesHeld;
+    private volatile boolean mergerOpen = true;
+
+    private Config config;
+    private StorageManager storageManager;
+    private LocalChunkProvider chunkProvider;
+    private LightMerger<ReadyChunkInfo> lightMerger;
+
+    @Before
+    public void setup() {
+        config = new Config();
+        CoreRegistry.setContext(new ContextImpl());
+        CoreRegistry.put(Config.class, config);
+        CoreRegistry.put(BlockManager.class, mock(BlockManager.class));
+
+        storageManager = mock(StorageManager.class);
+        chunkProvider = new LocalChunkProvider(storageManager, mock(EntityManager.class), mock(WorldGenerator.class));
+        lightMerger = new LightMerger<ReadyChunkInfo>(chunkProvider) {
+            @Override
+            public boolean hasCapacity() {
+                return mergerOpen && super.hasCapacity();
+            }
+
+            @Override
+            public boolean beginMerge(Chunk chunk, ReadyChunkInfo data) {
+                boolean begun = super.beginMerge(chunk, data);
+                if (begun) {
+                    begunMerges.add(chunk.getPosition());
+                }
+                return begun;
+            }
+
+            @Override
+            protected void merge(Chunk chunk) {
+                if (mergesHeld) {
+                    try {
+                        mergeRelease.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                finishedMerges.add(chunk.getPosition());
+            }
+        };
+        chunkProvider.setLightMerger(lightMerger);
+    }
+
+    @After
+    public void teardown() {
+        mergeRelease.countDown();
+        chunkProvider.shutdown();
+    }
+
+    @Test
+    public void exhaustedBudgetLeavesFinishedMergesForLaterUpdates() throws Exception {
+        config.getSystem().setChunkIntegrationBudgetMs(0);
+        readyChunkRow(11);
+
+        chunkProvider.beginUpdate();
+        int merges = begunMerges.size();
+        assertTrue(merges > 1);
+        awaitFinishedMerges(merges);
+        for (int i = 1; i <= merges; i++) {
+            chunkProvider.completeUpdate();
+            assertEquals(i, integratedChunks.size());
+        }
+        chunkProvider.completeUpdate();
+        assertEquals(merges, integratedChunks.size());
+
+        // The merges next to the integrated chunks can begin now
+        chunkProvider.beginUpdate();
+        int moreMerges = begunMerges.size();
+        assertTrue(moreMerges > merges);
+        awaitFinishedMerges(moreMerges);
+        for (int i = merges + 1; i <= moreMerges; i++) {
+            chunkProvider.completeUpdate();
+            assertEquals(i, integratedChunks.size());
+        }
+    }
+
+    @Test
+    public void allFinishedMergesAreIntegratedWithinBudget() throws Exception {
+        config.getSystem().setChunkIntegrationBudgetMs(10000);
+        readyChunkRow(11);
+
+        chunkProvider.beginUpdate();
+        int merges = begunMerges.size();
+        assertTrue(merges > 1);
+        awaitFinishedMerges(merges);
+        chunkProvider.completeUpdate();
+        assertEquals(merges, integratedChunks.size());
+    }
+
+    @Test
+    public void fullMergerPostponesReadyChunksWithoutLosingThem() throws Exception {
+        mergesHeld = true;
+        // 100 chunks with a complete neighbourhood, more than the merger can take at once in any order
+        readyChunkRow(102);
+
+        chunkProvider.beginUpdate();
+        int pendingMerges = begunMerges.size();
+        assertFalse(lightMerger.hasCapacity());
+
+        chunkProvider.beginUpdate();
+        chunkProvider.completeUpdate();
+        assertEquals(pendingMerges, begunMerges.size());
+        assertTrue(integratedChunks.isEmpty());
+
+        mergeRelease.countDown();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (integratedChunks.size() < 100 && System.currentTimeMillis() < deadline) {
+            chunkProvider.beginUpdate();
+            chunkProvider.completeUpdate();
+            Thread.sleep(1);
+        }
+        assertEquals(100, integratedChunks.size());
+        assertEquals(100, Sets.newHashSet(integratedChunks).size());
+    }
+
+    @Test
+    public void readyChunksAreReorderedWhenRelevanceChanges() {
+        mergerOpen = false;
+        readyChunkRow(22);
+        chunkProvider.beginUpdate();
+        assertTrue(begunMerges.isEmpty());
+
+        chunkProvider.addRelevanceEntity(entityInChunk(new Vector3i(21, 0, 0)), Vector3i.one());
+
+        mergerOpen = true;
+        chunkProvider.beginUpdate();
+        List<Vector3i> expected = Lists.newArrayList();
+        for (int x = 20; x > 0; x -= 2) {
+            expected.add(new Vector3i(x, 0, 0));
+        }
+        assertEquals(expected, begunMerges);
+    }
+
+    @Test
+    public void cancelledChunkIsRequestedAgainWhenRelevantAgain() throws Exception {
+        Vector3i pos = new Vector3i(0, 0, 0);
+        EntityRef entity = entityInChunk(pos);
+        HeldChunkLoad firstLoad = holdChunkLoad(pos);
+        chunkProvider.addRelevanceEntity(entity, Vector3i.one());
+        firstLoad.awaitStarted();
+
+        chunkProvider.removeRelevanceEntity(entity);
+        // The chunk is still being prepared, so it isn't requested again right away
+        chunkProvider.addRelevanceEntity(entity, Vector3i.one());
+        HeldChunkLoad secondLoad = holdChunkLoad(pos);
+        firstLoad.finish();
+        verify(firstLoad.chunk, timeout((int) TIMEOUT_MILLIS)).dispose();
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (secondLoad.started.getCount() > 0 && System.currentTimeMillis() < deadline) {
+            chunkProvider.beginUpdate();
+            Thread.sleep(1);
+        }
+        secondLoad.awaitStarted();
+        verify(storageManager, times(2)).loadChunkStore(pos);
+
+        chunkProvider.removeRelevanceEntity(entity);
+        secondLoad.finish();
+        verify(secondLoad.chunk, timeout((int) TIMEOUT_MILLIS)).dispose();
+    }
+
+    @Test
+    public void cancelledChunkIsNotRequestedAgainWhileIrrelevant() throws Exception {
+        Vector3i pos = new Vector3i(0, 0, 0);
+        EntityRef entity = entityInChunk(pos);
+        HeldChunkLoad load = holdChunkLoad(pos);
+        chunkProvider.addRelevanceEntity(entity, Vector3i.one());
+        load.awaitStarted();
+
+        chunkProvider.removeRelevanceEntity(entity);
+        load.finish();
+        verify(load.chunk, timeout((int) TIMEOUT_MILLIS)).dispose();
+        // Give the cancelled task time to hand the position back
+        Thread.sleep(50);
+        chunkProvider.beginUpdate();
+        verify(storageManager, times(1)).loadChunkStore(pos);
+
+        // The cancelled chunk is no longer being prepared, so a new request creates it
+        HeldChunkLoad secondLoad = holdChunkLoad(pos);
+        chunkProvider.addRelevanceEntity(entity, Vector3i.one());
+        secondLoad.awaitStarted();
+        chunkProvider.removeRelevanceEntity(entity);
+        secondLoad.finish();
+        verify(secondLoad.chunk, timeout((int) TIMEOUT_MILLIS)).dispose();
+    }
+
+    /**
+     * Makes a row of chunks along the x axis ready, with a 3x3 cross section so that all chunks at y = 0 and z = 0,
+     * except the ones at the ends, have their complete neighbourhood.
+     */
+    private void readyChunkRow(int length) {
+        for (int x = 0; x < length; x++) {
+            for (int y = -1; y <= 1; y++) {
+                for (int z = -1; z <= 1; z++) {
+                    chunkProvider.onChunkIsReady(chunkAt(new Vector3i(x, y, z)));
+                }
+            }
+        }
+    }
+
+    private Chunk chunkAt(final Vector3i pos) {
+        Chunk chunk = mock(Chunk.class);
+        when(chunk.getPosition()).thenReturn(pos);
+        when(chunk.getBlockIterator()).thenReturn(mock(ChunkBlockIterator.class));
+        // Locked chunks don't get unloaded, which keeps them loaded without relevance regions
+        when(chunk.isLocked()).thenReturn(true);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                integratedChunks.add(pos);
+                return null;
+            }
+        }).when(chunk).markReady();
+        return chunk;
+    }
+
+    private static EntityRef entityInChunk(Vector3i chunkPos) {
+        EntityRef entity = mock(EntityRef.class);
+        when(entity.exists()).thenReturn(true);
+        when(entity.hasComponent(LocationComponent.class)).thenReturn(true);
+        Vector3f worldPos = new Vector3f(chunkPos.x * ChunkConstants.SIZE_X + 1, chunkPos.y * ChunkConstants.SIZE_Y + 1,
+                chunkPos.z * ChunkConstants.SIZE_Z + 1);
+        when(entity.getComponent(LocationComponent.class)).thenReturn(new LocationComponent(worldPos));
+        return entity;
+    }
+
+    /**
+     * Makes the next load of the chunk wait until {@link HeldChunkLoad#finish()} gets called.
+     */
+    private HeldChunkLoad holdChunkLoad(Vector3i pos) {
+        final HeldChunkLoad load = new HeldChunkLoad(pos);
+        doAnswer(new Answer<ChunkStore>() {
+            @Override
+            public ChunkStore answer(InvocationOnMock invocation) throws Throwable {
+                load.started.countDown();
+                load.finished.await();
+                return load.chunkStore;
+            }
+        }).when(storageManager).loadChunkStore(pos);
+        return load;
+    }
+
+    private void awaitFinishedMerges(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (finishedMerges.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        // Give the merge threads time to complete the futures of the finished merges
+        Thread.sleep(50);
+    }
+
+    private static final class HeldChunkLoad {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final Chunk chunk = mock(Chunk.class);
+        private final ChunkStore chunkStore = mock(ChunkStore.class);
+
+        private HeldChunkLoad(Vector3i pos) {
+            when(chunk.getPosition()).thenReturn(pos);
+            when(chunkStore.getChunk()).thenReturn(chunk);
+        }
+
+        private void awaitStarted() throws InterruptedException {
+            assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+
+        private void finish() {
+            finished.countDown();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.pipeline;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkGenerationPipelineTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch done = new CountDownLatch(4);
+    private final ChunkGenerationPipeline pipeline = new ChunkGenerationPipeline(new Comparator<ChunkTask>() {
+        @Override
+        public int compare(ChunkTask o1, ChunkTask o2) {
+            return Boolean.compare(o2.isTerminateSignal(), o1.isTerminateSignal());
+        }
+    });
+
+    @After
+    public void teardown() {
+        release.countDown();
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void onlyUnfinishedTasksOfIrrelevantPositionsGetCancelled() throws Exception {
+        List<ChunkTask> tasks = Lists.newArrayList();
+        for (int x = 0; x < 4; x++) {
+            ChunkTask task = new HeldChunkTask(new Vector3i(x, 0, 0));
+            tasks.add(task);
+            pipeline.doTask(task);
+        }
+
+        assertEquals(2, pipeline.cancelTasks(new Predicate<Vector3i>() {
+            @Override
+            public boolean apply(Vector3i pos) {
+                return pos.x < 2;
+            }
+        }));
+        assertFalse(tasks.get(0).isCancelled());
+        assertFalse(tasks.get(1).isCancelled());
+        assertTrue(tasks.get(2).isCancelled());
+        assertTrue(tasks.get(3).isCancelled());
+
+        // Already cancelled tasks don't count again
+        assertEquals(0, pipeline.cancelTasks(new Predicate<Vector3i>() {
+            @Override
+            public boolean apply(Vector3i pos) {
+                return pos.x < 2;
+            }
+        }));
+
+        release.countDown();
+        assertTrue(done.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        awaitNoUnfinishedTasks();
+        assertEquals(0, pipeline.cancelTasks(new Predicate<Vector3i>() {
+            @Override
+            public boolean apply(Vector3i pos) {
+                return false;
+            }
+        }));
+        assertFalse(tasks.get(0).isCancelled());
+        assertFalse(tasks.get(1).isCancelled());
+    }
+
+    private void awaitNoUnfinishedTasks() throws InterruptedException {
+        final Set<Vector3i> unfinished = Sets.newHashSet();
+        Predicate<Vector3i> collector = new Predicate<Vector3i>() {
+            @Override
+            public boolean apply(Vector3i pos) {
+                unfinished.add(pos);
+                return true;
+            }
+        };
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        do {
+            unfinished.clear();
+            pipeline.cancelTasks(collector);
+            Thread.sleep(1);
+        } while (!unfinished.isEmpty() && System.currentTimeMillis() < deadline);
+    }
+
+    private class HeldChunkTask extends AbstractChunkTask {
+
+        HeldChunkTask(Vector3i position) {
+            super(position);
+        }
+
+        @Override
+        public String getName() {
+            return "Held task";
+        }
+
+        @Override
+        public void run() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        }
+    }
+}
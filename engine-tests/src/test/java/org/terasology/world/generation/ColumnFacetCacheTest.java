@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.generation;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.monitoring.chunk.ChunkMonitor;
+import org.terasology.world.generation.facets.base.BaseFacet2D;
+import org.terasology.world.generation.facets.base.BaseFacet3D;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ColumnFacetCacheTest {
+
+    private static final Vector3i REGION_SIZE = new Vector3i(4, 4, 4);
+
+    private ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains = ArrayListMultimap.create();
+    private Map<Class<? extends WorldFacet>, Border3D> borders = Maps.newHashMap();
+    private HeightProvider heightProvider = new HeightProvider();
+    private DensityProvider densityProvider = new DensityProvider();
+
+    @Before
+    public void setup() {
+        providerChains.put(HeightFacet.class, heightProvider);
+        providerChains.put(DensityFacet.class, heightProvider);
+        providerChains.put(DensityFacet.class, densityProvider);
+    }
+
+    @Test
+    public void stackedRegionsShareColumnFacets() {
+        ColumnFacetCache cache = new ColumnFacetCache(providerChains, borders);
+        RegionImpl lower = createRegion(0, cache);
+        RegionImpl upper = createRegion(1, cache);
+
+        HeightFacet lowerHeight = lower.getFacet(HeightFacet.class);
+        HeightFacet upperHeight = upper.getFacet(HeightFacet.class);
+
+        assertSame(lowerHeight, upperHeight);
+        assertEquals(1, heightProvider.processCount);
+    }
+
+    @Test
+    public void providersOfSharedFacetsAreNotProcessedPerRegion() {
+        ColumnFacetCache cache = new ColumnFacetCache(providerChains, borders);
+        RegionImpl lower = createRegion(0, cache);
+        RegionImpl upper = createRegion(1, cache);
+
+        lower.getFacet(DensityFacet.class);
+        upper.getFacet(DensityFacet.class);
+
+        assertSame(lower.getRegionFacet(HeightFacet.class), upper.getRegionFacet(HeightFacet.class));
+        assertEquals(1, heightProvider.processCount);
+        assertEquals(2, densityProvider.processCount);
+    }
+
+    @Test
+    public void facetsUpdatedFrom3DFacetsAreNotShared() {
+        NoiseProvider noiseProvider = new NoiseProvider();
+        HeightFromNoiseProvider heightFromNoiseProvider = new HeightFromNoiseProvider();
+        providerChains.clear();
+        providerChains.putAll(HeightFacet.class, Arrays.asList(heightProvider, noiseProvider, heightFromNoiseProvider));
+        providerChains.put(NoiseFacet.class, noiseProvider);
+        ColumnFacetCache cache = new ColumnFacetCache(providerChains, borders);
+
+        HeightFacet lowerHeight = createRegion(0, cache).getFacet(HeightFacet.class);
+        HeightFacet upperHeight = createRegion(1, cache).getFacet(HeightFacet.class);
+
+        assertNotSame(lowerHeight, upperHeight);
+        assertEquals(2, heightProvider.processCount);
+        assertEquals(2, heightFromNoiseProvider.processCount);
+    }
+
+    @Test
+    public void cacheHitsAndMissesAreCountedOncePerRegion() {
+        ColumnFacetCache cache = new ColumnFacetCache(providerChains, borders);
+        long hits = ChunkMonitor.getColumnFacetCacheHitCount();
+        long misses = ChunkMonitor.getColumnFacetCacheMissCount();
+
+        for (int y = 0; y < 3; y++) {
+            RegionImpl region = createRegion(y, cache);
+            region.getFacet(HeightFacet.class);
+            region.getFacet(DensityFacet.class);
+        }
+
+        assertEquals(2, ChunkMonitor.getColumnFacetCacheHitCount() - hits);
+        assertEquals(1, ChunkMonitor.getColumnFacetCacheMissCount() - misses);
+    }
+
+    private RegionImpl createRegion(int y, ColumnFacetCache cache) {
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(0, y * REGION_SIZE.y, 0), REGION_SIZE);
+        return new RegionImpl(region, providerChains, borders, cache, null);
+    }
+
+    public static class HeightFacet extends BaseFacet2D {
+        public HeightFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    public static class DensityFacet extends BaseFacet3D {
+        public DensityFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    public static class NoiseFacet extends BaseFacet3D {
+        public NoiseFacet(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    @Produces(HeightFacet.class)
+    public static class HeightProvider implements FacetProvider {
+        private int processCount;
+
+        @Override
+        public void process(GeneratingRegion region) {
+            processCount++;
+            region.setRegionFacet(HeightFacet.class, new HeightFacet(region.getRegion(), region.getBorderForFacet(HeightFacet.class)));
+        }
+    }
+
+    @Produces(DensityFacet.class)
+    @Requires(@Facet(HeightFacet.class))
+    public static class DensityProvider implements FacetProvider {
+        private int processCount;
+
+        @Override
+        public void process(GeneratingRegion region) {
+            processCount++;
+            region.setRegionFacet(DensityFacet.class, new DensityFacet(region.getRegion(), region.getBorderForFacet(DensityFacet.class)));
+        }
+    }
+
+    @Produces(NoiseFacet.class)
+    public static class NoiseProvider implements FacetProvider {
+        @Override
+        public void process(GeneratingRegion region) {
+            region.setRegionFacet(NoiseFacet.class, new NoiseFacet(region.getRegion(), region.getBorderForFacet(NoiseFacet.class)));
+        }
+    }
+
+    @Updates(@Facet(HeightFacet.class))
+    @Requires(@Facet(NoiseFacet.class))
+    public static class HeightFromNoiseProvider implements FacetProvider {
+        private int processCount;
+
+        @Override
+        public void process(GeneratingRegion region) {
+            processCount++;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.generation;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Test;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.generation.facets.base.BaseFacet3D;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+public class ParallelFacetProcessorTest {
+
+    private ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void independentProvidersRunConcurrently() {
+        // both providers wait for each other, which only works if they run at the same time
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        FacetAProvider providerA = new FacetAProvider(barrier);
+        FacetBProvider providerB = new FacetBProvider(barrier);
+        CombinedProvider combinedProvider = new CombinedProvider();
+
+        ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains = ArrayListMultimap.create();
+        providerChains.put(FacetA.class, providerA);
+        providerChains.put(FacetB.class, providerB);
+        providerChains.putAll(CombinedFacet.class, Arrays.asList(providerA, providerB, combinedProvider));
+        Map<Class<? extends WorldFacet>, Border3D> borders = Maps.newHashMap();
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(0, 0, 0), new Vector3i(4, 4, 4));
+        RegionImpl regionImpl = new RegionImpl(region, providerChains, borders, null, new ParallelFacetProcessor(pool));
+
+        CombinedFacet combinedFacet = regionImpl.getFacet(CombinedFacet.class);
+
+        assertNotNull(combinedFacet);
+        assertSame(regionImpl.getFacet(FacetA.class), combinedFacet.facetA);
+        assertSame(regionImpl.getFacet(FacetB.class), combinedFacet.facetB);
+    }
+
+    public static class FacetA extends BaseFacet3D {
+        public FacetA(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    public static class FacetB extends BaseFacet3D {
+        public FacetB(Region3i targetRegion, Border3D border) {
+            super(targetRegion, border);
+        }
+    }
+
+    public static class CombinedFacet extends BaseFacet3D {
+        private final FacetA facetA;
+        private final FacetB facetB;
+
+        public CombinedFacet(Region3i targetRegion, Border3D border, FacetA facetA, FacetB facetB) {
+            super(targetRegion, border);
+            this.facetA = facetA;
+            this.facetB = facetB;
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Providers did not run concurrently", e);
+        }
+    }
+
+    @Produces(FacetA.class)
+    public static class FacetAProvider implements FacetProvider {
+        private final CyclicBarrier barrier;
+
+        public FacetAProvider(CyclicBarrier barrier) {
+            this.barrier = barrier;
+        }
+
+        @Override
+        public void process(GeneratingRegion region) {
+            await(barrier);
+            region.setRegionFacet(FacetA.class, new FacetA(region.getRegion(), region.getBorderForFacet(FacetA.class)));
+        }
+    }
+
+    @Produces(FacetB.class)
+    public static class FacetBProvider implements FacetProvider {
+        private final CyclicBarrier barrier;
+
+        public FacetBProvider(CyclicBarrier barrier) {
+            this.barrier = barrier;
+        }
+
+        @Override
+        public void process(GeneratingRegion region) {
+            await(barrier);
+            region.setRegionFacet(FacetB.class, new FacetB(region.getRegion(), region.getBorderForFacet(FacetB.class)));
+        }
+    }
+
+    @Produces(CombinedFacet.class)
+    @Requires({@Facet(FacetA.class), @Facet(FacetB.class)})
+    public static class CombinedProvider implements FacetProvider {
+        @Override
+        public void process(GeneratingRegion region) {
+            FacetA facetA = region.getRegionFacet(FacetA.class);
+            FacetB facetB = region.getRegionFacet(FacetB.class);
+            assertNotNull(facetA);
+            assertNotNull(facetB);
+            region.setRegionFacet(CombinedFacet.class, new CombinedFacet(region.getRegion(), region.getBorderForFacet(CombinedFacet.class), facetA, facetB));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.SymmetricBlockFamilyFactory;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.BlockFamilyDefinition;
+import org.terasology.world.block.loader.BlockFamilyDefinitionData;
+import org.terasology.world.block.shapes.BlockShape;
+import org.terasology.world.block.tiles.NullWorldAtlas;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.ChunkProvider;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncBlockChangePropagatorTest extends TerasologyTestingEnvironment {
+
+    private final Map<Vector3i, Chunk> chunks = Maps.newConcurrentMap();
+
+    private Block air;
+    private Block torch;
+    private Chunk chunk;
+    private Chunk adjacentChunk;
+    private AsyncBlockChangePropagator propagator;
+
+    @Before
+    public void setup() throws Exception {
+        super.setup();
+        AssetManager assetManager = CoreRegistry.get(AssetManager.class);
+        BlockManagerImpl blockManager = new BlockManagerImpl(new NullWorldAtlas(), assetManager, true);
+        CoreRegistry.put(BlockManager.class, blockManager);
+        BlockFamilyDefinitionData torchData = new BlockFamilyDefinitionData();
+        torchData.getBaseSection().setDisplayName("Torch");
+        torchData.getBaseSection().setShape(assetManager.getAsset("engine:cube", BlockShape.class).get());
+        torchData.getBaseSection().setLuminance(ChunkConstants.MAX_LIGHT);
+        torchData.getBaseSection().setTranslucent(true);
+        torchData.setFamilyFactory(new SymmetricBlockFamilyFactory());
+        assetManager.loadAsset(new ResourceUrn("engine:torch"), torchData, BlockFamilyDefinition.class);
+        torch = blockManager.getBlock(new BlockUri(new ResourceUrn("engine:torch")));
+        air = blockManager.getBlock(BlockManager.AIR_ID);
+
+        chunk = addReadyChunk(new Vector3i(0, 0, 0));
+        adjacentChunk = addReadyChunk(new Vector3i(1, 0, 0));
+
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getChunk(anyInt(), anyInt(), anyInt())).thenAnswer(new Answer<Chunk>() {
+            @Override
+            public Chunk answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                return chunks.get(new Vector3i((Integer) args[0], (Integer) args[1], (Integer) args[2]));
+            }
+        });
+        when(chunkProvider.getChunk(any(Vector3i.class))).thenAnswer(new Answer<Chunk>() {
+            @Override
+            public Chunk answer(InvocationOnMock invocation) throws Throwable {
+                return chunks.get(invocation.getArguments()[0]);
+            }
+        });
+        List<BatchPropagator> worldPropagators = Lists.newArrayList();
+        propagator = new AsyncBlockChangePropagator(chunkProvider, worldPropagators);
+    }
+
+    @After
+    public void teardown() {
+        propagator.dispose();
+    }
+
+    private Chunk addReadyChunk(Vector3i chunkPos) {
+        Chunk result = new ChunkImpl(chunkPos);
+        result.markReady();
+        result.setDirty(false);
+        chunks.put(chunkPos, result);
+        return result;
+    }
+
+    private BlockChange placeTorch(Vector3i worldPos) {
+        Block previous = chunk.setBlock(worldPos, torch);
+        return new BlockChange(worldPos, previous, torch);
+    }
+
+    @Test
+    public void lightGetsCommittedAfterPropagationFinished() throws Exception {
+        Vector3i torchPos = new Vector3i(30, 10, 10);
+        propagator.process(Collections.singletonList(placeTorch(torchPos)));
+        propagator.awaitRunningBatch();
+        assertEquals(0, chunk.getLight(torchPos));
+
+        propagator.process(Collections.<BlockChange>emptyList());
+        assertEquals(ChunkConstants.MAX_LIGHT, chunk.getLight(torchPos));
+        assertEquals(ChunkConstants.MAX_LIGHT - 3, adjacentChunk.getLight(new Vector3i(1, 10, 10)));
+        assertTrue(chunk.isDirty());
+        assertTrue(adjacentChunk.isDirty());
+    }
+
+    @Test
+    public void conflictingChangePropagatesAgain() throws Exception {
+        Vector3i firstTorchPos = new Vector3i(30, 10, 10);
+        Vector3i secondTorchPos = new Vector3i(5, 40, 20);
+        propagator.process(Collections.singletonList(placeTorch(firstTorchPos)));
+        propagator.awaitRunningBatch();
+
+        // modifies a chunk the running batch read, so that its result is outdated
+        propagator.process(Collections.singletonList(placeTorch(secondTorchPos)));
+        assertEquals(0, chunk.getLight(firstTorchPos));
+
+        propagator.awaitRunningBatch();
+        propagator.process(Collections.<BlockChange>emptyList());
+        assertEquals(ChunkConstants.MAX_LIGHT, chunk.getLight(firstTorchPos));
+        assertEquals(ChunkConstants.MAX_LIGHT, chunk.getLight(secondTorchPos));
+        assertEquals(ChunkConstants.MAX_LIGHT - 1, chunk.getLight(new Vector3i(5, 41, 20)));
+    }
+
+    @Test
+    public void removedLightGetsCommitted() throws Exception {
+        Vector3i torchPos = new Vector3i(30, 10, 10);
+        propagator.process(Collections.singletonList(placeTorch(torchPos)));
+        propagator.awaitRunningBatch();
+        propagator.process(Collections.<BlockChange>emptyList());
+
+        chunk.setBlock(torchPos, air);
+        propagator.process(Collections.singletonList(new BlockChange(torchPos, torch, air)));
+        propagator.awaitRunningBatch();
+        propagator.process(Collections.<BlockChange>emptyList());
+        assertEquals(0, chunk.getLight(torchPos));
+        assertEquals(0, adjacentChunk.getLight(new Vector3i(1, 10, 10)));
+    }
+}
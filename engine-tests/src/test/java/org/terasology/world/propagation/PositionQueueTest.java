@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PositionQueueTest {
+
+    @Test
+    public void duplicatesKeepTheirPlace() {
+        PositionQueue queue = new PositionQueue();
+        assertTrue(queue.add(1, 2, 3));
+        assertTrue(queue.add(-4, 5, -6));
+        assertFalse(queue.add(1, 2, 3));
+
+        assertEquals(2, queue.entryCount());
+        assertEquals(1, queue.getX(0));
+        assertEquals(-4, queue.getX(1));
+        assertEquals(-6, queue.getZ(1));
+    }
+
+    @Test
+    public void removedPositionIsQueuedAgainAtTheEnd() {
+        PositionQueue queue = new PositionQueue();
+        queue.add(1, 2, 3);
+        queue.add(4, 5, 6);
+        assertTrue(queue.remove(1, 2, 3));
+        assertFalse(queue.remove(1, 2, 3));
+        assertTrue(queue.isRemoved(0));
+
+        assertTrue(queue.add(1, 2, 3));
+        assertEquals(3, queue.entryCount());
+        assertEquals(1, queue.getX(2));
+        assertFalse(queue.isRemoved(2));
+    }
+
+    @Test
+    public void growsAndClears() {
+        PositionQueue queue = new PositionQueue();
+        for (int i = 0; i < 1000; ++i) {
+            assertTrue(queue.add(i, -i, i % 7));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertTrue(queue.remove(i, -i, i % 7));
+        }
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(i % 2 == 0, queue.add(i, -i, i % 7));
+        }
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.entryCount());
+        assertTrue(queue.add(0, 0, 0));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import com.google.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.SymmetricBlockFamilyFactory;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.BlockFamilyDefinition;
+import org.terasology.world.block.loader.BlockFamilyDefinitionData;
+import org.terasology.world.block.shapes.BlockShape;
+import org.terasology.world.block.tiles.NullWorldAtlas;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.propagation.light.LightPropagationRules;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link StandardBatchPropagator} propagates exactly like the {@link LinkedHashSetBatchPropagator} it replaced.
+ */
+public class StandardBatchPropagatorEquivalenceTest extends TerasologyTestingEnvironment {
+
+    private static final int STEPS = 40;
+
+    private Region3i testingRegion = Region3i.createFromMinMax(new Vector3i(-8, -8, -8), new Vector3i(23, 23, 23));
+
+    private Block[] blocks;
+    private LightPropagationRules lightRules;
+
+    @Before
+    public void setup() throws Exception {
+        super.setup();
+        lightRules = new LightPropagationRules();
+        AssetManager assetManager = CoreRegistry.get(AssetManager.class);
+        BlockManagerImpl blockManager = new BlockManagerImpl(new NullWorldAtlas(), assetManager, true);
+        CoreRegistry.put(BlockManager.class, blockManager);
+
+        Block air = blockManager.getBlock(BlockManager.AIR_ID);
+        Block torch = createBlock(assetManager, blockManager, "torch", ChunkConstants.MAX_LIGHT, true);
+        Block mediumLight = createBlock(assetManager, blockManager, "mediumLight", (byte) 5, true);
+        Block stone = createBlock(assetManager, blockManager, "stone", (byte) 0, false);
+        Block glowingStone = createBlock(assetManager, blockManager, "glowingStone", (byte) 8, false);
+        blocks = new Block[]{air, air, stone, stone, torch, mediumLight, glowingStone};
+    }
+
+    private Block createBlock(AssetManager assetManager, BlockManager blockManager, String name, byte luminance, boolean translucent) {
+        BlockFamilyDefinitionData data = new BlockFamilyDefinitionData();
+        data.getBaseSection().setDisplayName(name);
+        data.getBaseSection().setShape(assetManager.getAsset("engine:cube", BlockShape.class).get());
+        data.getBaseSection().setLuminance(luminance);
+        data.getBaseSection().setTranslucent(translucent);
+        data.setFamilyFactory(new SymmetricBlockFamilyFactory());
+        ResourceUrn urn = new ResourceUrn("engine:" + name);
+        assetManager.loadAsset(urn, data, BlockFamilyDefinition.class);
+        return blockManager.getBlock(new BlockUri(urn));
+    }
+
+    @Test
+    public void singleChanges() {
+        compareRandomChanges(1, 16, 1);
+    }
+
+    @Test
+    public void batchedChanges() {
+        compareRandomChanges(5, 16, 2);
+    }
+
+    @Test
+    public void batchedChangesInSmallArea() {
+        compareRandomChanges(8, 4, 3);
+    }
+
+    private void compareRandomChanges(int changesPerStep, int areaSize, long seed) {
+        FastRandom random = new FastRandom(seed);
+        Map<Vector3i, Block> expectedBlocks = Maps.newHashMap();
+        Map<Vector3i, Block> actualBlocks = Maps.newHashMap();
+        StubPropagatorWorldView expectedView = new StubPropagatorWorldView(testingRegion, blocks[0], expectedBlocks);
+        StubPropagatorWorldView actualView = new StubPropagatorWorldView(testingRegion, blocks[0], actualBlocks);
+        BatchPropagator expectedPropagator = new LinkedHashSetBatchPropagator(lightRules, expectedView);
+        BatchPropagator actualPropagator = new StandardBatchPropagator(lightRules, actualView);
+
+        // Light placed in the change area reaches the edges of the view, where propagation has to stop as well
+        for (int step = 0; step < STEPS; ++step) {
+            BlockChange[] changes = new BlockChange[changesPerStep];
+            for (int i = 0; i < changesPerStep; ++i) {
+                Vector3i pos = new Vector3i(random.nextInt(areaSize), random.nextInt(areaSize), random.nextInt(areaSize));
+                Block from = expectedView.getBlockAt(pos);
+                Block to = blocks[random.nextInt(blocks.length)];
+                expectedBlocks.put(pos, to);
+                actualBlocks.put(pos, to);
+                changes[i] = new BlockChange(pos, from, to);
+            }
+            expectedPropagator.process(changes);
+            actualPropagator.process(changes);
+
+            for (Vector3i pos : testingRegion) {
+                assertEquals("Step " + step + ", position " + pos, expectedView.getValueAt(pos), actualView.getValueAt(pos));
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation.light;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.internal.GeneratingChunkProvider;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LightMergerTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final int THREADS = 4;
+
+    private final Map<Vector3i, CountDownLatch> releases = Maps.newConcurrentMap();
+    private final Set<Vector3i> started = Sets.newConcurrentHashSet();
+    private final Set<Vector3i> finished = Sets.newConcurrentHashSet();
+    private final LightMerger<Vector3i> merger = new LightMerger<Vector3i>(mock(GeneratingChunkProvider.class), THREADS) {
+        @Override
+        protected void merge(Chunk chunk) {
+            started.add(chunk.getPosition());
+            CountDownLatch release = releases.get(chunk.getPosition());
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            finished.add(chunk.getPosition());
+        }
+    };
+
+    @After
+    public void teardown() {
+        for (CountDownLatch release : releases.values()) {
+            release.countDown();
+        }
+        merger.shutdown();
+    }
+
+    @Test
+    public void mergeNextToPendingMergeIsRefused() {
+        Vector3i first = new Vector3i(0, 0, 0);
+        hold(first);
+        assertTrue(merger.beginMerge(chunkAt(first), first));
+
+        assertFalse(merger.beginMerge(chunkAt(new Vector3i(1, 1, -1)), new Vector3i(1, 1, -1)));
+        assertTrue(merger.beginMerge(chunkAt(new Vector3i(2, 0, 0)), new Vector3i(2, 0, 0)));
+    }
+
+    @Test
+    public void mergesWithOverlappingNeighbourhoodsDoNotRunAtOnce() throws Exception {
+        Vector3i first = new Vector3i(0, 0, 0);
+        Vector3i overlapping = new Vector3i(2, -2, 1);
+        Vector3i independent = new Vector3i(0, 3, 0);
+        hold(first);
+        merger.beginMerge(chunkAt(first), first);
+        merger.beginMerge(chunkAt(overlapping), overlapping);
+        merger.beginMerge(chunkAt(independent), independent);
+
+        assertEquals(independent, awaitCompletion());
+        assertFalse(started.contains(overlapping));
+
+        release(first);
+        assertEquals(first, awaitCompletion());
+        assertEquals(overlapping, awaitCompletion());
+    }
+
+    @Test
+    public void finishedMergesCompleteInStartOrderWithoutWaitingForRunningOnes() throws Exception {
+        Vector3i slow = new Vector3i(0, 0, 0);
+        Vector3i second = new Vector3i(10, 0, 0);
+        Vector3i third = new Vector3i(20, 0, 0);
+        hold(slow);
+        hold(second);
+        hold(third);
+        merger.beginMerge(chunkAt(slow), slow);
+        merger.beginMerge(chunkAt(second), second);
+        merger.beginMerge(chunkAt(third), third);
+
+        release(third);
+        assertEquals(third, awaitCompletion());
+        release(second);
+        release(slow);
+        awaitFinished(slow, second);
+        assertEquals(slow, awaitCompletion());
+        assertEquals(second, awaitCompletion());
+        assertNull(merger.completeMerge());
+    }
+
+    @Test
+    public void noMergeIsStartedWithoutCapacity() {
+        int count = 0;
+        while (merger.hasCapacity()) {
+            Vector3i pos = new Vector3i(3 * count++, 0, 0);
+            hold(pos);
+            assertTrue(merger.beginMerge(chunkAt(pos), pos));
+        }
+        Vector3i pos = new Vector3i(0, 10, 0);
+        assertFalse(merger.beginMerge(chunkAt(pos), pos));
+    }
+
+    private void hold(Vector3i pos) {
+        releases.put(pos, new CountDownLatch(1));
+    }
+
+    private void release(Vector3i pos) {
+        releases.get(pos).countDown();
+    }
+
+    private void awaitFinished(Vector3i... positions) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!finished.containsAll(Sets.newHashSet(positions)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        // Give the merge threads time to complete the futures of the finished merges
+        Thread.sleep(50);
+    }
+
+    private Vector3i awaitCompletion() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            Vector3i result = merger.completeMerge();
+            if (result != null) {
+                return result;
+            }
+            Thread.sleep(1);
+        }
+        return null;
+    }
+
+    private static Chunk chunkAt(Vector3i pos) {
+        Chunk chunk = mock(Chunk.class);
+        when(chunk.getPosition()).thenReturn(pos);
+        return chunk;
+    }
+}
@@ -15,50 +15,93 @@
  */
 package org.terasology.benchmark.chunks.cache;
 
-import org.terasology.benchmark.Benchmark;
-
-public class BenchmarkChunkCache implements Benchmark {
-
-    public BenchmarkChunkCache() {
-    }
-
-    @Override
-    public String getTitle() {
-        return null;
-    }
-
-    @Override
-    public int getWarmupRepetitions() {
-        return 1;
-    }
-
-    @Override
-    public int[] getRepetitions() {
-        return new int[]{1, 10};
+import com.google.common.collect.Maps;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.internal.ChunkMap;
+
+import java.util.Map;
+
+/**
+ * Measures random chunk lookups by coordinates, like the world provider does them for every block access.
+ * The lookups either go to a {@link ChunkMap} or to a concurrent map keyed by {@link Vector3i}, which the chunk
+ * providers used before.
+ */
+public class BenchmarkChunkCache extends AbstractBenchmark {
+
+    private static final int LOOKUPS_PER_RUN = 1000000;
+
+    private final boolean useChunkMap;
+    private final Vector3i extents;
+
+    private ChunkMap chunkMap;
+    private Map<Vector3i, Chunk> concurrentMap;
+    private int[] lookups;
+    private int found;
+
+    /**
+     * @param extents the chunks get stored for all positions from -extents to +extents.
+     */
+    public BenchmarkChunkCache(boolean useChunkMap, Vector3i extents) {
+        super((useChunkMap ? "ChunkMap" : "ConcurrentHashMap") + " chunk lookups (" + LOOKUPS_PER_RUN + " per run)",
+                10, new int[]{10, 20, 50});
+        this.useChunkMap = useChunkMap;
+        this.extents = extents;
     }
 
     @Override
     public void setup() {
-
-    }
-
-    @Override
-    public void prerun() {
-
+        // the value does not matter for lookups, so all positions can share one chunk
+        Chunk chunk = new ChunkImpl(0, 0, 0);
+        chunkMap = new ChunkMap();
+        concurrentMap = Maps.newConcurrentMap();
+        for (int x = -extents.x; x <= extents.x; x++) {
+            for (int y = -extents.y; y <= extents.y; y++) {
+                for (int z = -extents.z; z <= extents.z; z++) {
+                    chunkMap.put(new Vector3i(x, y, z), chunk);
+                    concurrentMap.put(new Vector3i(x, y, z), chunk);
+                }
+            }
+        }
+
+        // some lookups miss by querying positions just outside of the stored area
+        FastRandom random = new FastRandom(42);
+        lookups = new int[LOOKUPS_PER_RUN * 3];
+        for (int i = 0; i < lookups.length; i += 3) {
+            lookups[i] = random.nextInt(-extents.x - 1, extents.x + 1);
+            lookups[i + 1] = random.nextInt(-extents.y - 1, extents.y + 1);
+            lookups[i + 2] = random.nextInt(-extents.z - 1, extents.z + 1);
+        }
+        found = 0;
     }
 
     @Override
     public void run() {
-    }
-
-    @Override
-    public void postrun() {
-
+        if (useChunkMap) {
+            for (int i = 0; i < lookups.length; i += 3) {
+                if (chunkMap.get(lookups[i], lookups[i + 1], lookups[i + 2]) != null) {
+                    found++;
+                }
+            }
+        } else {
+            for (int i = 0; i < lookups.length; i += 3) {
+                if (concurrentMap.get(new Vector3i(lookups[i], lookups[i + 1], lookups[i + 2])) != null) {
+                    found++;
+                }
+            }
+        }
     }
 
     @Override
     public void finish(boolean aborted) {
-
+        if (!aborted) {
+            // prints the result of the lookups, so that they can't be optimized away
+            System.out.println(getTitle() + ": " + found + " chunks found");
+        }
+        chunkMap = null;
+        concurrentMap = null;
     }
-
 }
@@ -15,13 +15,31 @@
  */
 package org.terasology.benchmark.chunks.cache;
 
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.math.geom.Vector3i;
+
+import java.util.List;
+
+/**
+ * Compares the chunk lookups of the chunk providers' {@link org.terasology.world.chunks.internal.ChunkMap} with a
+ * concurrent map keyed by chunk position.
+ */
 public final class ChunkCachesBenchmark {
 
     private ChunkCachesBenchmark() {
     }
 
     public static void main(String[] args) {
+        // the loaded area of a local player with a view distance of 16 chunks
+        Vector3i extents = new Vector3i(17, 4, 17);
 
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new BenchmarkChunkCache(false, extents));
+        benchmarks.add(new BenchmarkChunkCache(true, extents));
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
     }
 
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.codecs;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.world.chunks.codec.ChunkCodec;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Measures how fast a {@link ChunkCodec} compresses or decompresses encoded chunks and how well it compresses them.
+ */
+public class BenchmarkChunkCodec extends AbstractBenchmark {
+
+    private final ChunkCodec codec;
+    private final List<byte[]> encodedChunks;
+    private final boolean decompress;
+
+    private byte[][] compressedChunks;
+    private long uncompressedBytes;
+    private long compressedBytes;
+    private long processedBytes;
+    private long startTime;
+
+    public BenchmarkChunkCodec(ChunkCodec codec, List<byte[]> encodedChunks, boolean decompress) {
+        super("Chunk codec " + codec.getId() + (decompress ? " decompression" : " compression")
+                + " of " + encodedChunks.size() + " chunks", 10, new int[]{50, 100, 200});
+        this.codec = codec;
+        this.encodedChunks = encodedChunks;
+        this.decompress = decompress;
+    }
+
+    @Override
+    public void setup() {
+        compressedChunks = new byte[encodedChunks.size()][];
+        uncompressedBytes = 0;
+        compressedBytes = 0;
+        for (int i = 0; i < compressedChunks.length; i++) {
+            byte[] encodedChunk = encodedChunks.get(i);
+            compressedChunks[i] = codec.compress(encodedChunk, 0, encodedChunk.length);
+            uncompressedBytes += encodedChunk.length;
+            compressedBytes += compressedChunks[i].length;
+        }
+        processedBytes = 0;
+        startTime = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < compressedChunks.length; i++) {
+                if (decompress) {
+                    codec.decompress(compressedChunks[i], 0, compressedChunks[i].length);
+                } else {
+                    byte[] encodedChunk = encodedChunks.get(i);
+                    codec.compress(encodedChunk, 0, encodedChunk.length);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decompress chunk", e);
+        }
+        processedBytes += uncompressedBytes;
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted) {
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.out.println(String.format("%s: ratio %.3f, %.1f MB/s (uncompressed)", getTitle(),
+                    (double) compressedBytes / uncompressedBytes, processedBytes / seconds / (1024 * 1024)));
+        }
+    }
+}
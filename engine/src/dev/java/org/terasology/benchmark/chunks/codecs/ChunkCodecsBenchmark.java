@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.codecs;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
+import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
+import org.terasology.world.chunks.codec.ChunkCodec;
+import org.terasology.world.chunks.codec.ChunkCodecs;
+import org.terasology.world.chunks.internal.ChunkSerializer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Compares the available chunk codecs.
+ * <br><br>
+ * If the world directory of a save game (stored with chunk files or region files) is given as argument, its chunks
+ * get used. Otherwise terrain like chunks get generated.
+ */
+public final class ChunkCodecsBenchmark {
+
+    private static final int GENERATED_CHUNKS = 64;
+
+    private ChunkCodecsBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<byte[]> encodedChunks = args.length > 0 ? loadChunks(Paths.get(args[0])) : generateChunks();
+
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        for (ChunkCodec codec : ChunkCodecs.getAll()) {
+            benchmarks.add(new BenchmarkChunkCodec(codec, encodedChunks, false));
+            benchmarks.add(new BenchmarkChunkCodec(codec, encodedChunks, true));
+        }
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    /**
+     * Loads the stored chunk files of a world directory. Region files and chunk zips get skipped.
+     */
+    private static List<byte[]> loadChunks(Path worldPath) throws IOException {
+        List<byte[]> encodedChunks = Lists.newArrayList();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(worldPath, "*.chunk")) {
+            for (Path chunkPath : stream) {
+                byte[] compressedChunk = Files.readAllBytes(chunkPath);
+                encodedChunks.add(ChunkCodecs.detect(compressedChunk).decompress(compressedChunk, 0, compressedChunk.length));
+            }
+        }
+        if (encodedChunks.isEmpty()) {
+            throw new IOException("No chunk files found in " + worldPath);
+        }
+        return encodedChunks;
+    }
+
+    private static List<byte[]> generateChunks() {
+        FastRandom random = new FastRandom(42);
+        List<byte[]> encodedChunks = Lists.newArrayList();
+        for (int i = 0; i < GENERATED_CHUNKS; i++) {
+            TeraArray blocks = new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+            TeraArray liquid = new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+            TeraArray biome = new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+            int baseHeight = random.nextInt(ChunkConstants.SIZE_Y);
+            for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+                for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                    int height = baseHeight + (x + z) / 4 + random.nextInt(3);
+                    for (int y = 0; y < Math.min(height, ChunkConstants.SIZE_Y); y++) {
+                        // stone with some ores, dirt and grass on top
+                        int block = y < height - 4 ? (random.nextInt(50) == 0 ? 5 : 1) : (y < height - 1 ? 2 : 3);
+                        blocks.set(x, y, z, block);
+                    }
+                    for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+                        biome.set(x, y, z, 1);
+                    }
+                }
+            }
+            encodedChunks.add(ChunkSerializer.encode(new Vector3i(i, 0, 0), blocks, liquid, biome).build().toByteArray());
+        }
+        return encodedChunks;
+    }
+}
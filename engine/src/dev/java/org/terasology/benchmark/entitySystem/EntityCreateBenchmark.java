@@ -33,10 +33,16 @@
  */
 public class EntityCreateBenchmark extends AbstractBenchmark {
 
+    private final boolean archetypeStorage;
     private List<List<Component>> rawEntityData;
 
     public EntityCreateBenchmark() {
-        super("Create Entities", 10000, new int[]{10000});
+        this(false);
+    }
+
+    public EntityCreateBenchmark(boolean archetypeStorage) {
+        super(archetypeStorage ? "Create Entities (archetype storage)" : "Create Entities", 10000, new int[]{10000});
+        this.archetypeStorage = archetypeStorage;
     }
 
     @Override
@@ -63,7 +69,7 @@ public void setup() {
 
     @Override
     public void run() {
-        PojoEntityManager entityManager = new PojoEntityManager();
+        PojoEntityManager entityManager = new PojoEntityManager(archetypeStorage);
         for (List<Component> rawEntity : rawEntityData) {
             entityManager.create(rawEntity);
         }
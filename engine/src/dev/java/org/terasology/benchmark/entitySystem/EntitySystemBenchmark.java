@@ -38,8 +38,10 @@ public static void main(String[] args) {
         final List<Benchmark> benchmarks = Lists.newArrayList();
 
         benchmarks.add(new EntityCreateBenchmark());
+        benchmarks.add(new EntityCreateBenchmark(true));
         benchmarks.add(new IterateSingleComponentBenchmark());
         benchmarks.add(new IterateMultipleComponentBenchmark());
+        benchmarks.add(new IterateMultipleComponentBenchmark(true));
         Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
 
     }
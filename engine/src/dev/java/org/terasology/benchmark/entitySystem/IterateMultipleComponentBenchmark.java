@@ -34,11 +34,18 @@
  */
 public class IterateMultipleComponentBenchmark extends AbstractBenchmark {
 
+    private final boolean archetypeStorage;
     private List<List<Component>> rawEntityData;
     private PojoEntityManager entityManager;
 
     public IterateMultipleComponentBenchmark() {
-        super("Iterate entities by multiple components", 10000, new int[]{10000});
+        this(false);
+    }
+
+    public IterateMultipleComponentBenchmark(boolean archetypeStorage) {
+        super(archetypeStorage ? "Iterate entities by multiple components (archetype storage)" : "Iterate entities by multiple components",
+                10000, new int[]{10000});
+        this.archetypeStorage = archetypeStorage;
     }
 
     @Override
@@ -62,7 +69,7 @@ public void setup() {
             rawEntityData.add(entityData);
         }
 
-        entityManager = new PojoEntityManager();
+        entityManager = new PojoEntityManager(archetypeStorage);
         for (List<Component> rawEntity : rawEntityData) {
             entityManager.create(rawEntity);
         }
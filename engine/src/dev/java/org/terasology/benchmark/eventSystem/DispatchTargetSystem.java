@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.eventSystem;
+
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.logic.location.LocationComponent;
+
+/**
+ * The event handler the dispatch benchmarks invoke.
+ */
+public class DispatchTargetSystem {
+    private int received;
+
+    public void onEvent(DispatchEvent event, EntityRef entity, LocationComponent location) {
+        received++;
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public static class DispatchEvent implements Event {
+    }
+}
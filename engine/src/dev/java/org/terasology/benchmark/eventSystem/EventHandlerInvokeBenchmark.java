@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.eventSystem;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.entitySystem.event.internal.EventHandlerInvoker;
+import org.terasology.logic.location.LocationComponent;
+
+/**
+ * Measures invoking an event handler method that takes a component parameter.
+ */
+public class EventHandlerInvokeBenchmark extends AbstractBenchmark {
+
+    private final EventHandlerInvoker invoker;
+    private DispatchTargetSystem handler;
+    private DispatchTargetSystem.DispatchEvent event;
+    private EntityRef entity;
+
+    public EventHandlerInvokeBenchmark(String invokerName, EventHandlerInvoker invoker) {
+        super("Event handler invocation via " + invokerName, 1000000, new int[]{10000000, 10000000});
+        this.invoker = invoker;
+    }
+
+    @Override
+    public void setup() {
+        handler = new DispatchTargetSystem();
+        event = new DispatchTargetSystem.DispatchEvent();
+        entity = new PojoEntityManager().create(new LocationComponent());
+    }
+
+    @Override
+    public void run() {
+        invoker.invoke(handler, event, entity);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.eventSystem;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.internal.EventHandlerInvokerFactory;
+import org.terasology.entitySystem.event.internal.ReflectionEventHandlerInvoker;
+import org.terasology.logic.location.LocationComponent;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Compares the ways of invoking event handler methods.
+ */
+public final class EventSystemBenchmark {
+
+    private EventSystemBenchmark() {
+    }
+
+    public static void main(String[] args) throws NoSuchMethodException {
+        Method method = DispatchTargetSystem.class.getMethod("onEvent", DispatchTargetSystem.DispatchEvent.class,
+                EntityRef.class, LocationComponent.class);
+        List<Class<? extends Component>> componentParams = ImmutableList.<Class<? extends Component>>of(LocationComponent.class);
+
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new EventHandlerInvokeBenchmark("reflection", new ReflectionEventHandlerInvoker(method, componentParams)));
+        benchmarks.add(new EventHandlerInvokeBenchmark("reflectasm",
+                new MethodAccessEventHandlerInvoker(DispatchTargetSystem.class, method, componentParams)));
+        benchmarks.add(new EventHandlerInvokeBenchmark("generated invoker",
+                new EventHandlerInvokerFactory().createInvoker(DispatchTargetSystem.class, method, componentParams)));
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.eventSystem;
+
+import com.esotericsoftware.reflectasm.MethodAccess;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.entitySystem.event.internal.EventHandlerInvoker;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Invokes the handler method via reflectasm, the way the event system did before generating invokers.
+ */
+public class MethodAccessEventHandlerInvoker implements EventHandlerInvoker {
+    private final MethodAccess methodAccess;
+    private final int methodIndex;
+    private final List<Class<? extends Component>> componentParams;
+
+    public MethodAccessEventHandlerInvoker(Class<?> handlerType, Method method, List<Class<? extends Component>> componentParams) {
+        this.methodAccess = MethodAccess.get(handlerType);
+        this.methodIndex = methodAccess.getIndex(method.getName(), method.getParameterTypes());
+        this.componentParams = componentParams;
+    }
+
+    @Override
+    public void invoke(Object handler, Event event, EntityRef entity) {
+        Object[] params = new Object[2 + componentParams.size()];
+        params[0] = event;
+        params[1] = entity;
+        for (int i = 0; i < componentParams.size(); ++i) {
+            params[i + 2] = entity.getComponent(componentParams.get(i));
+        }
+        methodAccess.invoke(handler, methodIndex, params);
+    }
+}
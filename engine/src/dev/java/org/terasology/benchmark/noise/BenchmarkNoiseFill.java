@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.noise;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.math.Rect2i;
+import org.terasology.utilities.procedural.Noise;
+
+/**
+ * Evaluates a noise for the 2D facet area of a chunk column (chunk plus border), either with one
+ * {@link Noise#noise(float, float)} call per position or with a single {@link Noise#fill(float[], Rect2i, float, float)}.
+ */
+public class BenchmarkNoiseFill extends AbstractBenchmark {
+
+    private static final int AREAS_PER_RUN = 200;
+    private static final int AREA_SIZE = 34;
+    private static final float SCALE = 0.004f;
+
+    private final Noise noise;
+    private final boolean useFill;
+
+    private float[] values;
+    private float checksum;
+
+    public BenchmarkNoiseFill(String noiseName, Noise noise, boolean useFill) {
+        super(noiseName + (useFill ? " region fill" : " per position") + " (" + AREAS_PER_RUN + " areas per run)",
+                10, new int[]{10, 20, 50});
+        this.noise = noise;
+        this.useFill = useFill;
+    }
+
+    @Override
+    public void setup() {
+        values = new float[AREA_SIZE * AREA_SIZE];
+        checksum = 0;
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < AREAS_PER_RUN; i++) {
+            // neighbouring areas, like the columns that get generated while a player walks along the x-axis
+            Rect2i area = Rect2i.createFromMinAndSize(i * AREA_SIZE, 0, AREA_SIZE, AREA_SIZE);
+            if (useFill) {
+                noise.fill(values, area, SCALE, SCALE);
+            } else {
+                int index = 0;
+                for (int y = area.minY(); y <= area.maxY(); y++) {
+                    for (int x = area.minX(); x <= area.maxX(); x++) {
+                        values[index++] = noise.noise(x * SCALE, y * SCALE);
+                    }
+                }
+            }
+            checksum += values[i % values.length];
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted) {
+            // prints the checksum of the values, so that they can't be optimized away
+            System.out.println(getTitle() + ": checksum " + checksum);
+        }
+        values = null;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.noise;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.utilities.procedural.BrownianNoise;
+import org.terasology.utilities.procedural.PerlinNoise;
+import org.terasology.utilities.procedural.SimplexNoise;
+
+import java.util.List;
+
+/**
+ * Compares evaluating noise per position with filling whole regions via
+ * {@link org.terasology.utilities.procedural.Noise#fill}.
+ */
+public final class NoiseBenchmark {
+
+    private NoiseBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new BenchmarkNoiseFill("Perlin", new PerlinNoise(42), false));
+        benchmarks.add(new BenchmarkNoiseFill("Perlin", new PerlinNoise(42), true));
+        benchmarks.add(new BenchmarkNoiseFill("Simplex", new SimplexNoise(42), false));
+        benchmarks.add(new BenchmarkNoiseFill("Simplex", new SimplexNoise(42), true));
+        // the surface height of the perlin world generator uses 8 octaves
+        benchmarks.add(new BenchmarkNoiseFill("Brownian Perlin", new BrownianNoise(new PerlinNoise(42), 8), false));
+        benchmarks.add(new BenchmarkNoiseFill("Brownian Perlin", new BrownianNoise(new PerlinNoise(42), 8), true));
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+}
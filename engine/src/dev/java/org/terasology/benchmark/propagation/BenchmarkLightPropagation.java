@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.propagation;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.math.Region3i;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.propagation.BatchPropagator;
+import org.terasology.world.propagation.BlockChange;
+import org.terasology.world.propagation.PropagatorWorldView;
+import org.terasology.world.propagation.StandardBatchPropagator;
+import org.terasology.world.propagation.light.LightPropagationRules;
+
+/**
+ * Places and removes torches in a chunk sized area with some stone pillars, like a player breaking and placing lit
+ * blocks, and propagates the light changes with a {@link StandardBatchPropagator}.
+ */
+public class BenchmarkLightPropagation extends AbstractBenchmark {
+
+    private static final int TORCHES_PER_RUN = 20;
+
+    private Block air;
+    private Block stone;
+    private Block torch;
+
+    private ArrayWorldView worldView;
+    private BatchPropagator propagator;
+    private long checksum;
+
+    public BenchmarkLightPropagation() {
+        super("Light propagation (" + TORCHES_PER_RUN + " torches placed and removed per run)", 10, new int[]{20, 50, 100});
+    }
+
+    @Override
+    public void setup() {
+        air = new Block();
+        air.setTranslucent(true);
+        stone = new Block();
+        for (Side side : Side.values()) {
+            stone.setFullSide(side, true);
+        }
+        torch = new Block();
+        torch.setTranslucent(true);
+        torch.setLuminance(ChunkConstants.MAX_LIGHT);
+
+        worldView = new ArrayWorldView(ChunkConstants.CHUNK_REGION, air);
+        for (int x = 2; x < ChunkConstants.SIZE_X; x += 5) {
+            for (int z = 3; z < ChunkConstants.SIZE_Z; z += 7) {
+                for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+                    worldView.setBlockAt(new Vector3i(x, y, z), stone);
+                }
+            }
+        }
+        propagator = new StandardBatchPropagator(new LightPropagationRules(), worldView);
+        checksum = 0;
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < TORCHES_PER_RUN; i++) {
+            Vector3i pos = new Vector3i(1 + (i * 7) % (ChunkConstants.SIZE_X - 2), 10 + (i * 13) % 40, 1 + (i * 11) % (ChunkConstants.SIZE_Z - 2));
+            Block previous = worldView.getBlockAt(pos);
+            worldView.setBlockAt(pos, torch);
+            propagator.process(new BlockChange(pos, previous, torch));
+            checksum += worldView.getValueAt(pos);
+            worldView.setBlockAt(pos, previous);
+            propagator.process(new BlockChange(pos, torch, previous));
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted) {
+            // prints the checksum of the values, so that they can't be optimized away
+            System.out.println(getTitle() + ": checksum " + checksum);
+        }
+        worldView = null;
+        propagator = null;
+    }
+
+    /**
+     * Keeps values and blocks in flat arrays, so that the benchmark measures the propagator rather than the world.
+     */
+    private static final class ArrayWorldView implements PropagatorWorldView {
+        private final Region3i region;
+        private final byte[] values;
+        private final Block[] blocks;
+
+        ArrayWorldView(Region3i region, Block defaultBlock) {
+            this.region = region;
+            int volume = region.sizeX() * region.sizeY() * region.sizeZ();
+            this.values = new byte[volume];
+            this.blocks = new Block[volume];
+            for (int i = 0; i < volume; i++) {
+                blocks[i] = defaultBlock;
+            }
+        }
+
+        private int index(Vector3i pos) {
+            return (pos.x - region.minX()) + region.sizeX() * ((pos.y - region.minY()) + region.sizeY() * (pos.z - region.minZ()));
+        }
+
+        @Override
+        public byte getValueAt(Vector3i pos) {
+            if (!region.encompasses(pos)) {
+                return UNAVAILABLE;
+            }
+            return values[index(pos)];
+        }
+
+        @Override
+        public void setValueAt(Vector3i pos, byte value) {
+            values[index(pos)] = value;
+        }
+
+        @Override
+        public Block getBlockAt(Vector3i pos) {
+            if (!region.encompasses(pos)) {
+                return null;
+            }
+            return blocks[index(pos)];
+        }
+
+        public void setBlockAt(Vector3i pos, Block block) {
+            blocks[index(pos)] = block;
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.terasology.config;
 
+import org.terasology.world.chunks.codec.DeflateChunkCodec;
+
 /**
  * @author Immortius
  */
@@ -26,6 +28,12 @@ public class SystemConfig {
     private int maxUnloadedChunksPercentageTillSave = 40;
     private boolean debugEnabled;
     private boolean monitoringEnabled;
+    private boolean storeChunksInRegionFiles;
+    private String chunkCodec = DeflateChunkCodec.ID;
+    private int chunkIntegrationBudgetMs = 4;
+    private boolean parallelFacetProcessing;
+    private boolean asyncLightPropagation;
+    private boolean archetypeEntityStorage;
 
     public long getDayNightLengthInMs() {
         return dayNightLengthInMs;
@@ -74,4 +82,76 @@ public boolean isMonitoringEnabled() {
     public void setMonitoringEnabled(boolean monitoringEnabled) {
         this.monitoringEnabled = monitoringEnabled;
     }
+
+    /**
+     * @return whether save games that store chunks in chunk zips get migrated to region files when they get loaded.
+     * Save games that already use region files keep using them regardless of this option.
+     */
+    public boolean isStoreChunksInRegionFiles() {
+        return storeChunksInRegionFiles;
+    }
+
+    public void setStoreChunksInRegionFiles(boolean storeChunksInRegionFiles) {
+        this.storeChunksInRegionFiles = storeChunksInRegionFiles;
+    }
+
+    /**
+     * @return the id of the codec with which chunks get compressed for storage and for clients that support it.
+     */
+    public String getChunkCodec() {
+        return chunkCodec;
+    }
+
+    public void setChunkCodec(String chunkCodec) {
+        this.chunkCodec = chunkCodec;
+    }
+
+    /**
+     * @return the time in milliseconds that may be spent per frame to make generated or loaded chunks available to
+     * the game. At least one chunk gets made available per frame, even if that takes longer.
+     */
+    public int getChunkIntegrationBudgetMs() {
+        return chunkIntegrationBudgetMs;
+    }
+
+    public void setChunkIntegrationBudgetMs(int chunkIntegrationBudgetMs) {
+        this.chunkIntegrationBudgetMs = chunkIntegrationBudgetMs;
+    }
+
+    /**
+     * @return whether faceted world generators process the independent facet providers of a chunk concurrently. This
+     * reduces the time until a single chunk is generated, at the cost of some overhead per chunk.
+     */
+    public boolean isParallelFacetProcessing() {
+        return parallelFacetProcessing;
+    }
+
+    public void setParallelFacetProcessing(boolean parallelFacetProcessing) {
+        this.parallelFacetProcessing = parallelFacetProcessing;
+    }
+
+    /**
+     * @return whether the light changes caused by block changes get propagated on a worker thread. The new light
+     * values then become visible a few frames later, but large edits don't stall the frame.
+     */
+    public boolean isAsyncLightPropagation() {
+        return asyncLightPropagation;
+    }
+
+    public void setAsyncLightPropagation(boolean asyncLightPropagation) {
+        this.asyncLightPropagation = asyncLightPropagation;
+    }
+
+    /**
+     * @return whether the entity manager groups entities with the same component types, see
+     * {@link org.terasology.entitySystem.entity.internal.PojoEntityManager#PojoEntityManager(boolean)}.
+     * Takes effect when the next game gets loaded.
+     */
+    public boolean isArchetypeEntityStorage() {
+        return archetypeEntityStorage;
+    }
+
+    public void setArchetypeEntityStorage(boolean archetypeEntityStorage) {
+        this.archetypeEntityStorage = archetypeEntityStorage;
+    }
 }
@@ -33,7 +33,9 @@
 import org.terasology.logic.players.LocalPlayer;
 import org.terasology.logic.players.LocalPlayerSystem;
 import org.terasology.module.ModuleEnvironment;
+import org.terasology.persistence.ChunkStorageFormat;
 import org.terasology.persistence.StorageManager;
+import org.terasology.persistence.internal.AbstractStorageManager;
 import org.terasology.persistence.internal.ReadOnlyStorageManager;
 import org.terasology.persistence.internal.ReadWriteStorageManager;
 import org.terasology.rendering.backdrop.BackdropProvider;
@@ -45,6 +47,7 @@
 import org.terasology.world.BlockEntityRegistry;
 import org.terasology.world.WorldProvider;
 import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.codec.ChunkCodecs;
 import org.terasology.world.chunks.localChunkProvider.LocalChunkProvider;
 import org.terasology.world.chunks.localChunkProvider.RelevanceSystem;
 import org.terasology.world.generator.UnresolvedWorldGeneratorException;
@@ -116,17 +119,21 @@ public boolean step() {
         // Init. a new world
         EngineEntityManager entityManager = (EngineEntityManager) context.get(EntityManager.class);
         boolean writeSaveGamesEnabled = context.get(Config.class).getTransients().isWriteSaveGamesEnabled();
+        // Save games that use region files must keep using them, the config only decides about migrating chunk zips
+        boolean storeChunksInRegionFiles = gameManifest.getChunkStorageFormat() == ChunkStorageFormat.REGION_FILES
+                || (writeSaveGamesEnabled && context.get(Config.class).getSystem().isStoreChunksInRegionFiles());
         Path savePath = PathManager.getInstance().getSavePath(gameManifest.getTitle());
-        StorageManager storageManager;
+        AbstractStorageManager storageManager;
         try {
             storageManager = writeSaveGamesEnabled
-                    ? new ReadWriteStorageManager(savePath, environment, entityManager)
-                    : new ReadOnlyStorageManager(savePath, environment, entityManager);
+                    ? new ReadWriteStorageManager(savePath, environment, entityManager, true, storeChunksInRegionFiles)
+                    : new ReadOnlyStorageManager(savePath, environment, entityManager, true, storeChunksInRegionFiles);
         } catch (IOException e) {
             logger.error("Unable to create storage manager!", e);
             context.get(GameEngine.class).changeState(new StateMainMenu("Unable to create storage manager!"));
             return true; // We need to return true, otherwise the loading state will just call us again immediately
         }
+        storageManager.setChunkCodec(ChunkCodecs.getOrDefault(context.get(Config.class).getSystem().getChunkCodec()));
         context.put(StorageManager.class, storageManager);
         LocalChunkProvider chunkProvider = new LocalChunkProvider(storageManager, entityManager, worldGenerator);
         context.get(ComponentSystemManager.class).register(new RelevanceSystem(chunkProvider), "engine:relevanceSystem");
@@ -145,6 +145,7 @@ private void setupSandbox() {
         permissionProviderFactory.getBasePermissionSet().addAPIPackage("com.bulletphysics.linearmath");
         permissionProviderFactory.getBasePermissionSet().addAPIPackage("sun.reflect");
         permissionProviderFactory.getBasePermissionSet().addAPIClass(com.esotericsoftware.reflectasm.MethodAccess.class);
+        permissionProviderFactory.getBasePermissionSet().addAPIClass(org.terasology.entitySystem.event.internal.EventHandlerInvoker.class);
         permissionProviderFactory.getBasePermissionSet().addAPIClass(IOException.class);
         permissionProviderFactory.getBasePermissionSet().addAPIClass(InvocationTargetException.class);
         permissionProviderFactory.getBasePermissionSet().addAPIClass(LoggerFactory.class);
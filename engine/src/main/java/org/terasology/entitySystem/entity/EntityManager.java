@@ -136,6 +136,19 @@ public interface EntityManager {
      */
     Iterable<EntityRef> getEntitiesWith(Class<? extends Component>... componentClasses);
 
+    /**
+     * Registers a query for the entities with all of the provided component types. Unlike
+     * {@link #getEntitiesWith(Class[])} the result is a live view that gets updated as components are added and
+     * removed, so systems can keep it and iterate it every frame without a scan over all components.
+     * <br><br>
+     * Entities may be changed or destroyed while iterating. Entities that gain the components during an iteration are
+     * only visited by the next one. Registering the same component types again returns the same view.
+     *
+     * @param componentClasses
+     * @return A live iterable over all entities with the provided component types.
+     */
+    Iterable<EntityRef> registerQuery(Class<? extends Component>... componentClasses);
+
     /**
      * @param componentClasses
      * @return A count of entities with the provided component types
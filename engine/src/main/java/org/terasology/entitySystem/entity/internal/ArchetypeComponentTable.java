@@ -0,0 +1,404 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.terasology.entitySystem.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A component store that groups entities by their set of component types. Each group (archetype) stores its
+ * components in one dense array per component type, with one row per entity.
+ * <br><br>
+ * Iterating over the entities with multiple components only needs to walk the rows of the matching archetypes, and
+ * getting all components of an entity only needs to look at the components of its own archetype. In exchange, adding
+ * or removing a component moves the entity into another archetype.
+ * <br><br>
+ * Removing a row moves the last row of the archetype into its place. Component iterators therefore fail with a
+ * {@link ConcurrentModificationException} once entities gained or lost components, instead of skipping entities.
+ * Like the other stores, this one is not thread safe.
+ */
+class ArchetypeComponentTable implements ComponentStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<Set<Class<? extends Component>>, Archetype> archetypes = Maps.newHashMap();
+    private final Map<Class<? extends Component>, List<Archetype>> archetypesByType = Maps.newHashMap();
+    private final TLongObjectMap<Archetype> entityArchetypes = new TLongObjectHashMap<>();
+    private final TLongIntMap entityRows = new TLongIntHashMap();
+    // Counts the changes that moved rows, so that iterators can detect them
+    private int modCount;
+
+    @Override
+    public <T extends Component> T get(long entityId, Class<T> componentClass) {
+        Archetype archetype = entityArchetypes.get(entityId);
+        if (archetype != null) {
+            int column = archetype.getColumn(componentClass);
+            if (column >= 0) {
+                return componentClass.cast(archetype.components[column][entityRows.get(entityId)]);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Component put(long entityId, Component component) {
+        Class<? extends Component> componentClass = component.getClass();
+        Archetype archetype = entityArchetypes.get(entityId);
+        if (archetype != null) {
+            int column = archetype.getColumn(componentClass);
+            if (column >= 0) {
+                int row = entityRows.get(entityId);
+                Component oldComponent = archetype.components[column][row];
+                archetype.components[column][row] = component;
+                return oldComponent;
+            }
+        }
+
+        Archetype target = (archetype == null) ? getArchetype(ImmutableSet.<Class<? extends Component>>of(componentClass))
+                : archetype.withType(componentClass);
+        int row = moveEntity(entityId, archetype, target);
+        target.components[target.getColumn(componentClass)][row] = component;
+        return null;
+    }
+
+    @Override
+    public <T extends Component> Component remove(long entityId, Class<T> componentClass) {
+        Archetype archetype = entityArchetypes.get(entityId);
+        if (archetype == null) {
+            return null;
+        }
+        int column = archetype.getColumn(componentClass);
+        if (column < 0) {
+            return null;
+        }
+        Component component = archetype.components[column][entityRows.get(entityId)];
+        if (archetype.types.size() == 1) {
+            remove(entityId);
+        } else {
+            moveEntity(entityId, archetype, archetype.withoutType(componentClass));
+        }
+        return component;
+    }
+
+    @Override
+    public List<Component> removeAndReturnComponentsOf(long entityId) {
+        List<Component> components = getComponentsInNewList(entityId);
+        remove(entityId);
+        return components;
+    }
+
+    @Override
+    public void remove(long entityId) {
+        Archetype archetype = entityArchetypes.remove(entityId);
+        if (archetype != null) {
+            removeRow(archetype, entityRows.remove(entityId));
+            modCount++;
+        }
+    }
+
+    @Override
+    public void clear() {
+        archetypes.clear();
+        archetypesByType.clear();
+        entityArchetypes.clear();
+        entityRows.clear();
+        modCount++;
+    }
+
+    @Override
+    public int getComponentCount(Class<? extends Component> componentClass) {
+        int count = 0;
+        for (Archetype archetype : getArchetypesWith(componentClass)) {
+            count += archetype.size;
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<Component> iterateComponents(long entityId) {
+        return getComponentsInNewList(entityId);
+    }
+
+    @Override
+    public List<Component> getComponentsInNewList(long entityId) {
+        Archetype archetype = entityArchetypes.get(entityId);
+        if (archetype == null) {
+            return Lists.newArrayList();
+        }
+        int row = entityRows.get(entityId);
+        List<Component> components = Lists.newArrayListWithCapacity(archetype.components.length);
+        for (Component[] column : archetype.components) {
+            components.add(column[row]);
+        }
+        return components;
+    }
+
+    @Override
+    public <T extends Component> TLongObjectIterator<T> componentIterator(Class<T> componentClass) {
+        List<Archetype> matching = getArchetypesWith(componentClass);
+        if (matching.isEmpty()) {
+            return null;
+        }
+        return new ComponentIterator<>(componentClass, matching);
+    }
+
+    @Override
+    public TLongList getEntityIdsWith(Class<? extends Component>... componentClasses) {
+        TLongList idList = new TLongArrayList();
+        for (Archetype archetype : getArchetypesWith(componentClasses[0])) {
+            if (archetype.hasTypes(componentClasses)) {
+                idList.add(archetype.entityIds, 0, archetype.size);
+            }
+        }
+        return idList;
+    }
+
+    @Override
+    public TLongIterator entityIdIterator() {
+        return new TLongArrayList(entityArchetypes.keys()).iterator();
+    }
+
+    @Override
+    public int numEntities() {
+        return entityArchetypes.size();
+    }
+
+    private List<Archetype> getArchetypesWith(Class<? extends Component> componentClass) {
+        List<Archetype> result = archetypesByType.get(componentClass);
+        return (result == null) ? Collections.<Archetype>emptyList() : result;
+    }
+
+    private Archetype getArchetype(Set<Class<? extends Component>> types) {
+        Archetype archetype = archetypes.get(types);
+        if (archetype == null) {
+            archetype = new Archetype(types);
+            archetypes.put(types, archetype);
+            for (Class<? extends Component> type : types) {
+                List<Archetype> archetypesWithType = archetypesByType.get(type);
+                if (archetypesWithType == null) {
+                    archetypesWithType = Lists.newArrayList();
+                    archetypesByType.put(type, archetypesWithType);
+                }
+                archetypesWithType.add(archetype);
+            }
+        }
+        return archetype;
+    }
+
+    /**
+     * Moves the entity with all components that both archetypes have into the target archetype.
+     *
+     * @param source the current archetype of the entity, or null if it has no components yet
+     * @return the row of the entity in the target archetype
+     */
+    private int moveEntity(long entityId, Archetype source, Archetype target) {
+        int targetRow = target.addRow(entityId);
+        if (source != null) {
+            int sourceRow = entityRows.get(entityId);
+            for (int column = 0; column < target.columnTypes.length; column++) {
+                int sourceColumn = source.getColumn(target.columnTypes[column]);
+                if (sourceColumn >= 0) {
+                    target.components[column][targetRow] = source.components[sourceColumn][sourceRow];
+                }
+            }
+            removeRow(source, sourceRow);
+        }
+        entityArchetypes.put(entityId, target);
+        entityRows.put(entityId, targetRow);
+        modCount++;
+        return targetRow;
+    }
+
+    private void removeRow(Archetype archetype, int row) {
+        archetype.removeRow(row);
+        if (row < archetype.size) {
+            entityRows.put(archetype.entityIds[row], row);
+        }
+    }
+
+    /**
+     * The entities that have exactly a certain set of component types.
+     */
+    private final class Archetype {
+        private final Set<Class<? extends Component>> types;
+        private final Class<? extends Component>[] columnTypes;
+        private final TObjectIntMap<Class<?>> columns;
+        private final Map<Class<? extends Component>, Archetype> withType = Maps.newHashMap();
+        private final Map<Class<? extends Component>, Archetype> withoutType = Maps.newHashMap();
+
+        private long[] entityIds = new long[INITIAL_CAPACITY];
+        private Component[][] components;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        Archetype(Set<Class<? extends Component>> types) {
+            this.types = types;
+            this.columnTypes = types.toArray(new Class[types.size()]);
+            this.columns = new TObjectIntHashMap<>(columnTypes.length * 2, 0.5f, -1);
+            this.components = new Component[columnTypes.length][INITIAL_CAPACITY];
+            for (int i = 0; i < columnTypes.length; i++) {
+                columns.put(columnTypes[i], i);
+            }
+        }
+
+        int getColumn(Class<?> type) {
+            return columns.get(type);
+        }
+
+        boolean hasTypes(Class<? extends Component>[] requiredTypes) {
+            for (Class<? extends Component> type : requiredTypes) {
+                if (columns.get(type) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Archetype withType(Class<? extends Component> type) {
+            Archetype result = withType.get(type);
+            if (result == null) {
+                result = getArchetype(ImmutableSet.<Class<? extends Component>>builder().addAll(types).add(type).build());
+                withType.put(type, result);
+            }
+            return result;
+        }
+
+        Archetype withoutType(Class<? extends Component> type) {
+            Archetype result = withoutType.get(type);
+            if (result == null) {
+                ImmutableSet.Builder<Class<? extends Component>> remainingTypes = ImmutableSet.builder();
+                for (Class<? extends Component> remainingType : types) {
+                    if (remainingType != type) {
+                        remainingTypes.add(remainingType);
+                    }
+                }
+                result = getArchetype(remainingTypes.build());
+                withoutType.put(type, result);
+            }
+            return result;
+        }
+
+        int addRow(long entityId) {
+            if (size == entityIds.length) {
+                int capacity = size * 2;
+                entityIds = Arrays.copyOf(entityIds, capacity);
+                for (int i = 0; i < components.length; i++) {
+                    components[i] = Arrays.copyOf(components[i], capacity);
+                }
+            }
+            entityIds[size] = entityId;
+            return size++;
+        }
+
+        /**
+         * Removes the row by moving the last row into its place.
+         */
+        void removeRow(int row) {
+            size--;
+            entityIds[row] = entityIds[size];
+            for (Component[] column : components) {
+                column[row] = column[size];
+                column[size] = null;
+            }
+        }
+    }
+
+    private final class ComponentIterator<T extends Component> implements TLongObjectIterator<T> {
+        private final Class<T> componentClass;
+        private final List<Archetype> archetypes;
+        private final int expectedModCount = modCount;
+        private int archetypeIndex;
+        private int row = -1;
+        private Archetype current;
+
+        ComponentIterator(Class<T> componentClass, List<Archetype> archetypes) {
+            this.componentClass = componentClass;
+            this.archetypes = archetypes;
+            this.current = archetypes.get(0);
+        }
+
+        @Override
+        public long key() {
+            return current.entityIds[row];
+        }
+
+        @Override
+        public T value() {
+            return componentClass.cast(current.components[current.getColumn(componentClass)][row]);
+        }
+
+        @Override
+        public T setValue(T val) {
+            T oldValue = value();
+            current.components[current.getColumn(componentClass)][row] = val;
+            return oldValue;
+        }
+
+        @Override
+        public void advance() {
+            checkForComodification();
+            row++;
+            while (row >= current.size) {
+                archetypeIndex++;
+                current = archetypes.get(archetypeIndex);
+                row = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            if (row + 1 < current.size) {
+                return true;
+            }
+            for (int i = archetypeIndex + 1; i < archetypes.size(); i++) {
+                if (archetypes.get(i).size > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A live set of the entities that have all components of a query. It gets maintained by the {@link EntityQueryCache}
+ * of the entity manager.
+ * <br><br>
+ * Removed entities leave a gap that iterations skip, so that entities can be changed or destroyed while iterating.
+ * The gaps get closed when the next iteration starts. Entities added during an iteration are not visited by it.
+ */
+final class CachedEntityQuery implements Iterable<EntityRef> {
+    private static final int NO_INDEX = -1;
+
+    private final Class<? extends Component>[] componentClasses;
+    private final TLongIntMap indices = new TLongIntHashMap(16, 0.5f, PojoEntityManager.NULL_ID, NO_INDEX);
+    private EntityRef[] entities = new EntityRef[16];
+    private int size;
+    private int gaps;
+
+    CachedEntityQuery(Class<? extends Component>[] componentClasses) {
+        this.componentClasses = componentClasses;
+    }
+
+    Class<? extends Component>[] getComponentClasses() {
+        return componentClasses;
+    }
+
+    boolean matches(ComponentStore store, long entityId) {
+        for (Class<? extends Component> componentClass : componentClasses) {
+            if (store.get(entityId, componentClass) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void add(EntityRef entity) {
+        if (indices.containsKey(entity.getId())) {
+            return;
+        }
+        if (size == entities.length) {
+            entities = Arrays.copyOf(entities, size * 2);
+        }
+        indices.put(entity.getId(), size);
+        entities[size++] = entity;
+    }
+
+    void remove(long entityId) {
+        int index = indices.remove(entityId);
+        if (index != NO_INDEX) {
+            entities[index] = null;
+            gaps++;
+        }
+    }
+
+    void clear() {
+        // A new array, so that running iterations keep their entities
+        entities = new EntityRef[16];
+        indices.clear();
+        size = 0;
+        gaps = 0;
+    }
+
+    @Override
+    public Iterator<EntityRef> iterator() {
+        if (gaps > 0) {
+            compact();
+        }
+        return new QueryIterator(entities, size);
+    }
+
+    /**
+     * Closes the gaps of removed entities. The entities get copied into a new array, so that iterations that are
+     * still running are not affected.
+     */
+    private void compact() {
+        EntityRef[] compacted = new EntityRef[Math.max(16, entities.length)];
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (entities[i] != null) {
+                compacted[newSize] = entities[i];
+                indices.put(entities[i].getId(), newSize);
+                newSize++;
+            }
+        }
+        entities = compacted;
+        size = newSize;
+        gaps = 0;
+    }
+
+    private static final class QueryIterator implements Iterator<EntityRef> {
+        private final EntityRef[] entities;
+        private final int size;
+        private int index = -1;
+
+        QueryIterator(EntityRef[] entities, int size) {
+            this.entities = entities;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (int i = index + 1; i < size; i++) {
+                if (entities[i] != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public EntityRef next() {
+            for (index++; index < size; index++) {
+                if (entities[index] != null) {
+                    return entities[index];
+                }
+            }
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
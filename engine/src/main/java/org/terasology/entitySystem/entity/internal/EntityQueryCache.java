@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.entity.internal;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the registered queries of a {@link PojoEntityManager} up to date. The entity manager informs it about every
+ * component that gets added to or removed from the component store, including the changes made without lifecycle
+ * events.
+ */
+class EntityQueryCache {
+    private final ComponentStore store;
+    private final Map<Set<Class<? extends Component>>, CachedEntityQuery> queries = Maps.newHashMap();
+    private final Map<Class<? extends Component>, List<CachedEntityQuery>> queriesByComponent = Maps.newHashMap();
+
+    EntityQueryCache(ComponentStore store) {
+        this.store = store;
+    }
+
+    /**
+     * @return the query for the given components, or null if they haven't been queried before.
+     */
+    CachedEntityQuery getQuery(Class<? extends Component>[] componentClasses) {
+        return queries.get(ImmutableSet.copyOf(componentClasses));
+    }
+
+    /**
+     * Registers a new, empty query for the given components. It needs to be filled by the caller.
+     */
+    @SuppressWarnings("unchecked")
+    CachedEntityQuery createQuery(Class<? extends Component>[] componentClasses) {
+        Set<Class<? extends Component>> key = ImmutableSet.copyOf(componentClasses);
+        CachedEntityQuery query = new CachedEntityQuery(key.toArray(new Class[key.size()]));
+        queries.put(key, query);
+        for (Class<? extends Component> componentClass : key) {
+            List<CachedEntityQuery> componentQueries = queriesByComponent.get(componentClass);
+            if (componentQueries == null) {
+                componentQueries = Lists.newArrayList();
+                queriesByComponent.put(componentClass, componentQueries);
+            }
+            componentQueries.add(query);
+        }
+        return query;
+    }
+
+    void onComponentAdded(EntityRef entity, Class<? extends Component> componentClass) {
+        for (CachedEntityQuery query : getQueriesWith(componentClass)) {
+            if (query.matches(store, entity.getId())) {
+                query.add(entity);
+            }
+        }
+    }
+
+    void onComponentRemoved(long entityId, Class<? extends Component> componentClass) {
+        for (CachedEntityQuery query : getQueriesWith(componentClass)) {
+            query.remove(entityId);
+        }
+    }
+
+    void onEntityRemoved(long entityId) {
+        for (CachedEntityQuery query : queries.values()) {
+            query.remove(entityId);
+        }
+    }
+
+    /**
+     * Empties all queries, but keeps them registered.
+     */
+    void clear() {
+        for (CachedEntityQuery query : queries.values()) {
+            query.clear();
+        }
+    }
+
+    private List<CachedEntityQuery> getQueriesWith(Class<? extends Component> componentClass) {
+        List<CachedEntityQuery> result = queriesByComponent.get(componentClass);
+        return (result == null) ? Collections.<CachedEntityQuery>emptyList() : result;
+    }
+}
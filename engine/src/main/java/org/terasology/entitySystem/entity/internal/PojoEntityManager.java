@@ -71,7 +71,8 @@ public class PojoEntityManager implements LowLevelEntityManager, EngineEntityMan
     private long nextEntityId = 1;
     private TLongSet loadedIds = new TLongHashSet();
     private Map<Long, BaseEntityRef> entityCache = new MapMaker().weakValues().concurrencyLevel(4).initialCapacity(1000).makeMap();
-    private ComponentTable store = new ComponentTable();
+    private final ComponentStore store;
+    private final EntityQueryCache queryCache;
 
     private Set<EntityChangeSubscriber> subscribers = Sets.newLinkedHashSet();
     private Set<EntityDestroySubscriber> destroySubscribers = Sets.newLinkedHashSet();
@@ -84,6 +85,17 @@ public class PojoEntityManager implements LowLevelEntityManager, EngineEntityMan
     private TypeSerializationLibrary typeSerializerLibrary;
 
     public PojoEntityManager() {
+        this(false);
+    }
+
+    /**
+     * @param archetypeStorage whether entities with the same set of component types should share dense component
+     *                         arrays. This speeds up iterating over entities with multiple components and getting all
+     *                         components of an entity, but makes adding and removing components more expensive.
+     */
+    public PojoEntityManager(boolean archetypeStorage) {
+        store = archetypeStorage ? new ArchetypeComponentTable() : new ComponentTable();
+        queryCache = new EntityQueryCache(store);
     }
 
     public void setTypeSerializerLibrary(TypeSerializationLibrary serializerLibrary) {
@@ -104,6 +116,7 @@ public void clear() {
             entityRef.invalidate();
         }
         store.clear();
+        queryCache.clear();
         nextEntityId = 1;
         loadedIds.clear();
         entityCache.clear();
@@ -206,7 +219,11 @@ private EntityRef createEntity(Iterable<Component> components) {
         for (Component c : finalComponents) {
             store.put(entityId, c);
         }
-        return createEntityRef(entityId);
+        EntityRef entityRef = createEntityRef(entityId);
+        for (Component c : finalComponents) {
+            queryCache.onComponentAdded(entityRef, c.getClass());
+        }
+        return entityRef;
     }
 
     @Override
@@ -316,27 +333,26 @@ public final Iterable<EntityRef> getEntitiesWith(Class<? extends Component>... c
         if (componentClasses.length == 1) {
             return iterateEntities(componentClasses[0]);
         }
-        TLongList idList = new TLongArrayList();
-        TLongObjectIterator<? extends Component> primeIterator = store.componentIterator(componentClasses[0]);
-        if (primeIterator == null) {
+        TLongList idList = store.getEntityIdsWith(componentClasses);
+        if (idList.isEmpty()) {
             return Collections.emptyList();
         }
+        return new EntityIterable(idList);
+    }
 
-        while (primeIterator.hasNext()) {
-            primeIterator.advance();
-            long id = primeIterator.key();
-            boolean discard = false;
-            for (int i = 1; i < componentClasses.length; ++i) {
-                if (store.get(id, componentClasses[i]) == null) {
-                    discard = true;
-                    break;
-                }
-            }
-            if (!discard) {
-                idList.add(primeIterator.key());
+    @SafeVarargs
+    @Override
+    public final Iterable<EntityRef> registerQuery(Class<? extends Component>... componentClasses) {
+        Preconditions.checkArgument(componentClasses.length > 0, "A query needs at least one component class");
+        CachedEntityQuery query = queryCache.getQuery(componentClasses);
+        if (query == null) {
+            query = queryCache.createQuery(componentClasses);
+            TLongList idList = store.getEntityIdsWith(query.getComponentClasses());
+            for (int i = 0; i < idList.size(); i++) {
+                query.add(createEntityRef(idList.get(i)));
             }
         }
-        return new EntityIterable(idList);
+        return query;
     }
 
     private Iterable<EntityRef> iterateEntities(Class<? extends Component> componentClass) {
@@ -430,6 +446,9 @@ public EntityRef createEntityWithId(long id, Iterable<Component> components) {
         }
         loadedIds.add(id);
         EntityRef entity = createEntityRef(id);
+        for (Component c : components) {
+            queryCache.onComponentAdded(entity, c.getClass());
+        }
         if (eventSystem != null) {
             eventSystem.send(entity, OnActivatedComponent.newInstance());
         }
@@ -477,6 +496,7 @@ public void deactivateForStorage(EntityRef entity) {
             for (Component component: components) {
                 store.remove(entityId, component.getClass());
             }
+            queryCache.onEntityRemoved(entityId);
             loadedIds.remove(entityId);
         }
     }
@@ -563,6 +583,7 @@ private void destroy(EntityRef ref) {
             ((PojoEntityRef) ref).invalidate();
         }
         store.remove(entityId);
+        queryCache.onEntityRemoved(entityId);
     }
 
     /**
@@ -591,6 +612,8 @@ public <T extends Component> T addComponent(long entityId, T component) {
         Component oldComponent = store.put(entityId, component);
         if (oldComponent != null) {
             logger.error("Adding a component ({}) over an existing component for entity {}", component.getClass(), entityId);
+        } else {
+            queryCache.onComponentAdded(createEntityRef(entityId), component.getClass());
         }
         if (eventSystem != null) {
             EntityRef entityRef = createEntityRef(entityId);
@@ -626,6 +649,7 @@ public <T extends Component> T removeComponent(long entityId, Class<T> component
             }
             notifyComponentRemoved(getEntity(entityId), componentClass);
             store.remove(entityId, componentClass);
+            queryCache.onComponentRemoved(entityId, componentClass);
         }
         return component;
     }
@@ -641,6 +665,7 @@ public void saveComponent(long entityId, Component component) {
         Component oldComponent = store.put(entityId, component);
         if (oldComponent == null) {
             logger.error("Saving a component ({}) that doesn't belong to this entity {}", component.getClass(), entityId);
+            queryCache.onComponentAdded(createEntityRef(entityId), component.getClass());
         }
         if (eventSystem != null) {
             EntityRef entityRef = createEntityRef(entityId);
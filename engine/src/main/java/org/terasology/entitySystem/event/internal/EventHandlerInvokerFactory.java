@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.event.internal;
+
+import com.google.common.collect.Sets;
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Generates an {@link EventHandlerInvoker} class per event handler method. The generated invoker calls the method
+ * directly with typed arguments, fetching each component parameter from the entity.
+ * <br><br>
+ * Falls back on a {@link ReflectionEventHandlerInvoker} if no invoker can be generated for a method.
+ */
+public class EventHandlerInvokerFactory {
+    private static final Logger logger = LoggerFactory.getLogger(EventHandlerInvokerFactory.class);
+
+    private final ClassPool pool;
+    private final CtClass invokerInterface;
+    private final Set<ClassLoader> knownClassLoaders = Sets.newHashSet();
+
+    public EventHandlerInvokerFactory() {
+        pool = new ClassPool(true);
+        addClassLoader(EventHandlerInvoker.class.getClassLoader());
+        try {
+            invokerInterface = pool.get(EventHandlerInvoker.class.getName());
+        } catch (NotFoundException e) {
+            throw new RuntimeException("Error establishing event handler invoker factory", e);
+        }
+    }
+
+    /**
+     * @param handlerType     the type of the handler objects the invoker will be used with.
+     * @param method          a public method of the handler type, taking the event, the entity and the component parameters.
+     * @param componentParams the types of the component parameters of the method.
+     * @return an invoker for the method.
+     */
+    public synchronized EventHandlerInvoker createInvoker(Class<?> handlerType, Method method,
+                                                          List<Class<? extends Component>> componentParams) {
+        ClassLoader classLoader = handlerType.getClassLoader();
+        if (classLoader == null || !canAccessParameters(handlerType, method)) {
+            return new ReflectionEventHandlerInvoker(method, componentParams);
+        }
+
+        String invokerClassName = handlerType.getName() + "_" + method.getName() + "_"
+                + Integer.toHexString(method.toString().hashCode()) + "_EventHandlerInvoker";
+        try {
+            return (EventHandlerInvoker) classLoader.loadClass(invokerClassName).getConstructor().newInstance();
+        } catch (ClassNotFoundException ignored) {
+            try {
+                addClassLoader(classLoader);
+                CtClass invokerClass = pool.makeClass(invokerClassName);
+                invokerClass.setInterfaces(new CtClass[]{invokerInterface});
+                invokerClass.addMethod(CtNewMethod.make(createInvokeMethodSource(handlerType, method, componentParams), invokerClass));
+                Class<?> generatedClass = invokerClass.toClass(classLoader, handlerType.getProtectionDomain());
+                invokerClass.detach();
+                return (EventHandlerInvoker) generatedClass.getConstructor().newInstance();
+            } catch (CannotCompileException | ReflectiveOperationException e) {
+                logger.error("Error generating invoker for event handler '{}', falling back on reflection", method, e);
+                return new ReflectionEventHandlerInvoker(method, componentParams);
+            }
+        } catch (ReflectiveOperationException e) {
+            logger.error("Error instantiating invoker for event handler '{}', falling back on reflection", method, e);
+            return new ReflectionEventHandlerInvoker(method, componentParams);
+        }
+    }
+
+    private void addClassLoader(ClassLoader classLoader) {
+        if (knownClassLoaders.add(classLoader)) {
+            pool.appendClassPath(new LoaderClassPath(classLoader));
+        }
+    }
+
+    /**
+     * The invoker gets generated next to the handler type, so it can only use parameter types that are visible there.
+     */
+    private static boolean canAccessParameters(Class<?> handlerType, Method method) {
+        for (Class<?> type : method.getParameterTypes()) {
+            boolean samePackage = getPackageName(type).equals(getPackageName(handlerType))
+                    && Objects.equals(type.getClassLoader(), handlerType.getClassLoader());
+            if (!samePackage && !Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getPackageName(Class<?> type) {
+        int packageEnd = type.getName().lastIndexOf('.');
+        return (packageEnd >= 0) ? type.getName().substring(0, packageEnd) : "";
+    }
+
+    private static String createInvokeMethodSource(Class<?> handlerType, Method method, List<Class<? extends Component>> componentParams) {
+        Class<?>[] paramTypes = method.getParameterTypes();
+        StringBuilder source = new StringBuilder();
+        source.append("public void invoke(Object handler, ").append(Event.class.getName()).append(" event, ")
+                .append(EntityRef.class.getName()).append(" entity) {");
+        source.append("((").append(handlerType.getName()).append(") handler).").append(method.getName()).append('(');
+        source.append('(').append(paramTypes[0].getName()).append(") event, ");
+        source.append('(').append(paramTypes[1].getName()).append(") entity");
+        for (Class<? extends Component> componentParam : componentParams) {
+            source.append(", (").append(componentParam.getName()).append(") entity.getComponent(")
+                    .append(componentParam.getName()).append(".class)");
+        }
+        source.append(");}");
+        return source.toString();
+    }
+}
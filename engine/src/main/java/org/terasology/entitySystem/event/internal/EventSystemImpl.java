@@ -15,7 +15,6 @@
  */
 package org.terasology.entitySystem.event.internal;
 
-import com.esotericsoftware.reflectasm.MethodAccess;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicates;
 import com.google.common.collect.BiMap;
@@ -52,12 +51,10 @@
 import org.terasology.network.ServerEvent;
 import org.terasology.world.block.BlockComponent;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
@@ -78,6 +75,10 @@ public class EventSystemImpl implements EventSystem {
     private SetMultimap<Class<? extends Event>, EventHandlerInfo> generalHandlers = HashMultimap.create();
     private Comparator<EventHandlerInfo> priorityComparator = new EventHandlerPriorityComparator();
 
+    // Handlers per event type, sorted by priority. Rebuilt on demand after any handler changes.
+    private Map<Class<? extends Event>, DispatchTable> dispatchTables = Maps.newHashMap();
+    private Map<Class<? extends Event>, Map<Class<? extends Component>, EventHandlerInfo[]>> componentDispatchTables = Maps.newHashMap();
+
     // Event metadata
     private BiMap<SimpleUri, Class<? extends Event>> eventIdMap = HashBiMap.create();
     private SetMultimap<Class<? extends Event>, Class<? extends Event>> childEvents = HashMultimap.create();
@@ -87,6 +88,7 @@ public class EventSystemImpl implements EventSystem {
 
     private EventLibrary eventLibrary;
     private NetworkSystem networkSystem;
+    private EventHandlerInvokerFactory invokerFactory = new EventHandlerInvokerFactory();
 
     public EventSystemImpl(EventLibrary eventLibrary, NetworkSystem networkSystem) {
         this.mainThread = Thread.currentThread();
@@ -106,6 +108,7 @@ public void process() {
 
     @Override
     public void registerEvent(SimpleUri uri, Class<? extends Event> eventType) {
+        invalidateDispatchTables();
         eventIdMap.put(uri, eventType);
         logger.debug("Registering event {}", eventType.getSimpleName());
         for (Class parent : ReflectionUtils.getAllSuperTypes(eventType, Predicates.assignableFrom(Event.class))) {
@@ -139,6 +142,7 @@ public void registerEventHandler(ComponentSystem handler) {
         }
 
         logger.debug("Registering event handler " + handlerClass.getName());
+        invalidateDispatchTables();
         for (Method method : handlerClass.getMethods()) {
             ReceiveEvent receiveEventAnnotation = method.getAnnotation(ReceiveEvent.class);
             if (receiveEventAnnotation != null) {
@@ -166,8 +170,9 @@ public void registerEventHandler(ComponentSystem handler) {
                     componentParams.add((Class<? extends Component>) types[i]);
                 }
 
-                ByteCodeEventHandlerInfo handlerInfo = new ByteCodeEventHandlerInfo(handler, method, receiveEventAnnotation.priority(),
-                        receiveEventAnnotation.activity(), requiredComponents, componentParams);
+                EventHandlerInvoker invoker = invokerFactory.createInvoker(handlerClass, method, componentParams);
+                ByteCodeEventHandlerInfo handlerInfo = new ByteCodeEventHandlerInfo(handler, invoker, receiveEventAnnotation.priority(),
+                        receiveEventAnnotation.activity(), requiredComponents);
                 addEventHandler((Class<? extends Event>) types[0], handlerInfo, requiredComponents);
             }
         }
@@ -175,6 +180,7 @@ public void registerEventHandler(ComponentSystem handler) {
 
     @Override
     public void unregisterEventHandler(ComponentSystem handler) {
+        invalidateDispatchTables();
         for (SetMultimap<Class<? extends Component>, EventHandlerInfo> eventHandlers : componentSpecificHandlers.values()) {
             Iterator<EventHandlerInfo> eventHandlerIterator = eventHandlers.values().iterator();
             while (eventHandlerIterator.hasNext()) {
@@ -228,10 +234,12 @@ public <T extends Event> void registerEventReceiver(EventReceiver<T> eventReceiv
     public <T extends Event> void registerEventReceiver(EventReceiver<T> eventReceiver, Class<T> eventClass, int priority, Class<? extends Component>... componentTypes) {
         EventHandlerInfo info = new ReceiverEventHandlerInfo<T>(eventReceiver, priority, componentTypes);
         addEventHandler(eventClass, info, Arrays.asList(componentTypes));
+        invalidateDispatchTables();
     }
 
     @Override
     public <T extends Event> void unregisterEventReceiver(EventReceiver<T> eventReceiver, Class<T> eventClass, Class<? extends Component>... componentTypes) {
+        invalidateDispatchTables();
         SetMultimap<Class<? extends Component>, EventHandlerInfo> eventHandlerMap = componentSpecificHandlers.get(eventClass);
         if (eventHandlerMap != null) {
             ReceiverEventHandlerInfo testReceiver = new ReceiverEventHandlerInfo<T>(eventReceiver, 0, componentTypes);
@@ -251,33 +259,34 @@ public void send(EntityRef entity, Event event) {
         } else {
             networkReplicate(entity, event);
 
-            Set<EventHandlerInfo> selectedHandlersSet = selectEventHandlers(event.getClass(), entity);
-            List<EventHandlerInfo> selectedHandlers = Lists.newArrayList(selectedHandlersSet);
-            Collections.sort(selectedHandlers, priorityComparator);
-
+            DispatchTable dispatchTable = getDispatchTable(event.getClass());
             if (event instanceof ConsumableEvent) {
-                sendConsumableEvent(entity, event, selectedHandlers);
+                sendConsumableEvent(entity, event, dispatchTable);
             } else {
-                sendStandardEvent(entity, event, selectedHandlers);
+                sendStandardEvent(entity, event, dispatchTable);
             }
         }
     }
 
-    private void sendStandardEvent(EntityRef entity, Event event, List<EventHandlerInfo> selectedHandlers) {
-        for (EventHandlerInfo handler : selectedHandlers) {
+    private void sendStandardEvent(EntityRef entity, Event event, DispatchTable dispatchTable) {
+        EventHandlerInfo[] handlers = dispatchTable.handlers;
+        long componentMask = dispatchTable.getComponentMask(entity);
+        for (int i = 0; i < handlers.length; i++) {
             // Check isValid at each stage in case components were removed.
-            if (handler.isValidFor(entity)) {
-                handler.invoke(entity, event);
+            if (dispatchTable.isSelected(i, componentMask) && handlers[i].isValidFor(entity)) {
+                handlers[i].invoke(entity, event);
             }
         }
     }
 
-    private void sendConsumableEvent(EntityRef entity, Event event, List<EventHandlerInfo> selectedHandlers) {
+    private void sendConsumableEvent(EntityRef entity, Event event, DispatchTable dispatchTable) {
         ConsumableEvent consumableEvent = (ConsumableEvent) event;
-        for (EventHandlerInfo handler : selectedHandlers) {
+        EventHandlerInfo[] handlers = dispatchTable.handlers;
+        long componentMask = dispatchTable.getComponentMask(entity);
+        for (int i = 0; i < handlers.length; i++) {
             // Check isValid at each stage in case components were removed.
-            if (handler.isValidFor(entity)) {
-                handler.invoke(entity, event);
+            if (dispatchTable.isSelected(i, componentMask) && handlers[i].isValidFor(entity)) {
+                handlers[i].invoke(entity, event);
                 if (consumableEvent.isConsumed()) {
                     return;
                 }
@@ -335,7 +344,7 @@ private void broadcastEvent(EntityRef entity, Event event, EventMetadata metadat
                 if (metadata.isSkipInstigator() && event instanceof NetworkEvent) {
                     instigatorClient = networkSystem.getOwner(((NetworkEvent) event).getInstigator());
                 }
-                for (Client client : networkSystem.getPlayers()) {
+                for (Client client : networkSystem.getPlayersInterestedIn(entity)) {
                     if (!client.equals(instigatorClient)) {
                         client.send(event, entity);
                     }
@@ -349,37 +358,106 @@ public void send(EntityRef entity, Event event, Component component) {
         if (Thread.currentThread() != mainThread) {
             pendingEvents.offer(new PendingEvent(entity, event, component));
         } else {
-            SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(event.getClass());
-            if (handlers != null) {
-                List<EventHandlerInfo> eventHandlers = Lists.newArrayList(handlers.get(component.getClass()));
-                Collections.sort(eventHandlers, priorityComparator);
-                for (EventHandlerInfo eventHandler : eventHandlers) {
-                    if (eventHandler.isValidFor(entity)) {
-                        eventHandler.invoke(entity, event);
-                    }
+            for (EventHandlerInfo eventHandler : getComponentDispatchTable(event.getClass(), component.getClass())) {
+                if (eventHandler.isValidFor(entity)) {
+                    eventHandler.invoke(entity, event);
                 }
             }
         }
     }
 
-    private Set<EventHandlerInfo> selectEventHandlers(Class<? extends Event> eventType, EntityRef entity) {
-        Set<EventHandlerInfo> result = Sets.newHashSet();
-        result.addAll(generalHandlers.get(eventType));
-        SetMultimap<Class<? extends Component>, EventHandlerInfo> handlers = componentSpecificHandlers.get(eventType);
+    private void invalidateDispatchTables() {
+        dispatchTables.clear();
+        componentDispatchTables.clear();
+    }
+
+    private DispatchTable getDispatchTable(Class<? extends Event> eventType) {
+        DispatchTable dispatchTable = dispatchTables.get(eventType);
+        if (dispatchTable == null) {
+            Set<EventHandlerInfo> handlers = Sets.newLinkedHashSet(generalHandlers.get(eventType));
+            SetMultimap<Class<? extends Component>, EventHandlerInfo> specificHandlers = componentSpecificHandlers.get(eventType);
+            if (specificHandlers != null) {
+                handlers.addAll(specificHandlers.values());
+            }
+            dispatchTable = new DispatchTable(sortByPriority(handlers));
+            dispatchTables.put(eventType, dispatchTable);
+        }
+        return dispatchTable;
+    }
+
+    private EventHandlerInfo[] getComponentDispatchTable(Class<? extends Event> eventType, Class<? extends Component> componentType) {
+        Map<Class<? extends Component>, EventHandlerInfo[]> tablesByComponent = componentDispatchTables.get(eventType);
+        if (tablesByComponent == null) {
+            tablesByComponent = Maps.newHashMap();
+            componentDispatchTables.put(eventType, tablesByComponent);
+        }
+        EventHandlerInfo[] handlers = tablesByComponent.get(componentType);
         if (handlers == null) {
-            return result;
+            SetMultimap<Class<? extends Component>, EventHandlerInfo> specificHandlers = componentSpecificHandlers.get(eventType);
+            if (specificHandlers != null) {
+                handlers = sortByPriority(specificHandlers.get(componentType));
+            } else {
+                handlers = new EventHandlerInfo[0];
+            }
+            tablesByComponent.put(componentType, handlers);
         }
+        return handlers;
+    }
+
+    private EventHandlerInfo[] sortByPriority(Collection<EventHandlerInfo> handlers) {
+        EventHandlerInfo[] result = handlers.toArray(new EventHandlerInfo[handlers.size()]);
+        Arrays.sort(result, priorityComparator);
+        return result;
+    }
 
-        for (Class<? extends Component> compClass : handlers.keySet()) {
-            if (entity.hasComponent(compClass)) {
-                for (EventHandlerInfo eventHandler : handlers.get(compClass)) {
-                    if (eventHandler.isValidFor(entity)) {
-                        result.add(eventHandler);
+    /**
+     * The handlers of an event type, sorted by priority. Each handler has a bit mask of the components it requires,
+     * so that the handlers that apply to an entity can be selected after checking each of the relevant components once.
+     */
+    private static final class DispatchTable {
+        private final EventHandlerInfo[] handlers;
+        private final Class<? extends Component>[] maskComponents;
+        private final long[] handlerMasks;
+
+        @SuppressWarnings("unchecked")
+        DispatchTable(EventHandlerInfo[] handlers) {
+            this.handlers = handlers;
+            Map<Class<? extends Component>, Integer> componentBits = Maps.newLinkedHashMap();
+            for (EventHandlerInfo handler : handlers) {
+                for (Class<? extends Component> component : handler.getFilterComponents()) {
+                    if (!componentBits.containsKey(component)) {
+                        componentBits.put(component, componentBits.size());
                     }
                 }
             }
+            if (componentBits.size() > Long.SIZE) {
+                // Too many components for the mask, each handler checks its own components instead
+                maskComponents = new Class[0];
+                handlerMasks = new long[handlers.length];
+                return;
+            }
+            maskComponents = componentBits.keySet().toArray(new Class[componentBits.size()]);
+            handlerMasks = new long[handlers.length];
+            for (int i = 0; i < handlers.length; i++) {
+                for (Class<? extends Component> component : handlers[i].getFilterComponents()) {
+                    handlerMasks[i] |= 1L << componentBits.get(component);
+                }
+            }
+        }
+
+        long getComponentMask(EntityRef entity) {
+            long mask = 0;
+            for (int i = 0; i < maskComponents.length; i++) {
+                if (entity.hasComponent(maskComponents[i])) {
+                    mask |= 1L << i;
+                }
+            }
+            return mask;
+        }
+
+        boolean isSelected(int handlerIndex, long componentMask) {
+            return (handlerMasks[handlerIndex] & componentMask) == handlerMasks[handlerIndex];
         }
-        return result;
     }
 
     private static class EventHandlerPriorityComparator implements Comparator<EventHandlerInfo> {
@@ -393,6 +471,8 @@ public int compare(EventHandlerInfo o1, EventHandlerInfo o2) {
     private interface EventHandlerInfo {
         boolean isValidFor(EntityRef entity);
 
+        Collection<Class<? extends Component>> getFilterComponents();
+
         void invoke(EntityRef entity, Event event);
 
         int getPriority();
@@ -400,85 +480,22 @@ private interface EventHandlerInfo {
         Object getHandler();
     }
 
-    private static class ReflectedEventHandlerInfo implements EventHandlerInfo {
-        private ComponentSystem handler;
-        private Method method;
-        private ImmutableList<Class<? extends Component>> filterComponents;
-        private ImmutableList<Class<? extends Component>> componentParams;
-        private int priority;
-
-        public ReflectedEventHandlerInfo(ComponentSystem handler,
-                                         Method method,
-                                         int priority,
-                                         Collection<Class<? extends Component>> filterComponents,
-                                         Collection<Class<? extends Component>> componentParams) {
-            this.handler = handler;
-            this.method = method;
-            this.filterComponents = ImmutableList.copyOf(filterComponents);
-            this.componentParams = ImmutableList.copyOf(componentParams);
-            this.priority = priority;
-        }
-
-        public boolean isValidFor(EntityRef entity) {
-            for (Class<? extends Component> component : filterComponents) {
-                if (!entity.hasComponent(component)) {
-                    return false;
-                }
-            }
-            return true;
-        }
-
-        public void invoke(EntityRef entity, Event event) {
-            try {
-                Object[] params = new Object[2 + componentParams.size()];
-                params[0] = event;
-                params[1] = entity;
-                for (int i = 0; i < componentParams.size(); ++i) {
-                    params[i + 2] = entity.getComponent(componentParams.get(i));
-                }
-                method.invoke(handler, params);
-            } catch (IllegalAccessException ex) {
-                logger.error("Failed to invoke event", ex);
-            } catch (IllegalArgumentException ex) {
-                logger.error("Failed to invoke event", ex);
-            } catch (InvocationTargetException ex) {
-                logger.error("Failed to invoke event", ex);
-            }
-        }
-
-        public int getPriority() {
-            return priority;
-        }
-
-        @Override
-        public ComponentSystem getHandler() {
-            return handler;
-        }
-    }
-
     private static class ByteCodeEventHandlerInfo implements EventHandlerInfo {
         private ComponentSystem handler;
         private String activity;
-        private MethodAccess methodAccess;
-        private int methodIndex;
+        private EventHandlerInvoker invoker;
         private ImmutableList<Class<? extends Component>> filterComponents;
-        private ImmutableList<Class<? extends Component>> componentParams;
         private int priority;
 
         public ByteCodeEventHandlerInfo(ComponentSystem handler,
-                                        Method method,
+                                        EventHandlerInvoker invoker,
                                         int priority,
                                         String activity,
-                                        Collection<Class<? extends Component>> filterComponents,
-                                        Collection<Class<? extends Component>> componentParams) {
-
-
+                                        Collection<Class<? extends Component>> filterComponents) {
             this.handler = handler;
             this.activity = activity;
-            this.methodAccess = MethodAccess.get(handler.getClass());
-            methodIndex = methodAccess.getIndex(method.getName(), method.getParameterTypes());
+            this.invoker = invoker;
             this.filterComponents = ImmutableList.copyOf(filterComponents);
-            this.componentParams = ImmutableList.copyOf(componentParams);
             this.priority = priority;
         }
 
@@ -492,25 +509,17 @@ public boolean isValidFor(EntityRef entity) {
         }
 
         public void invoke(EntityRef entity, Event event) {
+            if (!activity.isEmpty()) {
+                PerformanceMonitor.startActivity(activity);
+            }
             try {
-                Object[] params = new Object[2 + componentParams.size()];
-                params[0] = event;
-                params[1] = entity;
-                for (int i = 0; i < componentParams.size(); ++i) {
-                    params[i + 2] = entity.getComponent(componentParams.get(i));
-                }
-                if (!activity.isEmpty()) {
-                    PerformanceMonitor.startActivity(activity);
-                }
-                try {
-                    methodAccess.invoke(handler, methodIndex, params);
-                } finally {
-                    if (!activity.isEmpty()) {
-                        PerformanceMonitor.endActivity();
-                    }
-                }
+                invoker.invoke(handler, event, entity);
             } catch (IllegalArgumentException ex) {
                 logger.error("Failed to invoke event", ex);
+            } finally {
+                if (!activity.isEmpty()) {
+                    PerformanceMonitor.endActivity();
+                }
             }
         }
 
@@ -518,6 +527,11 @@ public int getPriority() {
             return priority;
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return filterComponents;
+        }
+
         @Override
         public ComponentSystem getHandler() {
             return handler;
@@ -555,6 +569,11 @@ public int getPriority() {
             return priority;
         }
 
+        @Override
+        public Collection<Class<? extends Component>> getFilterComponents() {
+            return Arrays.asList(components);
+        }
+
         @Override
         public boolean equals(Object obj) {
             if (obj == this) {
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.event.internal;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Invokes an event handler method via reflection. Used when no invoker can be generated for the method.
+ * <br><br>
+ * Exceptions thrown by the handler are rethrown unwrapped, the same as with a generated invoker.
+ */
+public class ReflectionEventHandlerInvoker implements EventHandlerInvoker {
+    private static final Logger logger = LoggerFactory.getLogger(ReflectionEventHandlerInvoker.class);
+
+    private final Method method;
+    private final ImmutableList<Class<? extends Component>> componentParams;
+
+    public ReflectionEventHandlerInvoker(Method method, List<Class<? extends Component>> componentParams) {
+        this.method = method;
+        this.componentParams = ImmutableList.copyOf(componentParams);
+        method.setAccessible(true);
+    }
+
+    @Override
+    public void invoke(Object handler, Event event, EntityRef entity) {
+        try {
+            Object[] params = new Object[2 + componentParams.size()];
+            params[0] = event;
+            params[1] = entity;
+            for (int i = 0; i < componentParams.size(); ++i) {
+                params[i + 2] = entity.getComponent(componentParams.get(i));
+            }
+            method.invoke(handler, params);
+        } catch (IllegalAccessException ex) {
+            logger.error("Failed to invoke event", ex);
+        } catch (InvocationTargetException ex) {
+            throw Throwables.propagate(ex.getCause());
+        }
+    }
+}
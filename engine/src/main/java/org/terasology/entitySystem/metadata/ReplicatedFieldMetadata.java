@@ -15,15 +15,21 @@
  */
 package org.terasology.entitySystem.metadata;
 
+import com.google.common.collect.ImmutableSet;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.reflection.metadata.ClassMetadata;
 import org.terasology.reflection.metadata.FieldMetadata;
 import org.terasology.reflection.copy.CopyStrategy;
 import org.terasology.reflection.reflect.InaccessibleFieldException;
 import org.terasology.reflection.reflect.ReflectFactory;
 import org.terasology.network.NoReplicate;
+import org.terasology.network.Quantized;
 import org.terasology.network.Replicate;
 
 import java.lang.reflect.Field;
+import java.util.Set;
 
 /**
  * An extended FieldMetadata that provides information on whether a the field should be replicated, and under what conditions
@@ -32,8 +38,11 @@
  */
 public class ReplicatedFieldMetadata<T, U> extends FieldMetadata<T, U> {
 
+    private static final Set<Class<?>> QUANTIZABLE_TYPES = ImmutableSet.<Class<?>>of(float.class, Float.class, Vector2f.class, Vector3f.class, Quat4f.class);
+
     private boolean replicated;
     private Replicate replicationInfo;
+    private float quantizationPrecision;
 
     public ReplicatedFieldMetadata(ClassMetadata<T, ?> owner, Field field, CopyStrategy<U> copyStrategy, ReflectFactory factory, boolean replicatedByDefault)
             throws InaccessibleFieldException {
@@ -46,6 +55,10 @@ public ReplicatedFieldMetadata(ClassMetadata<T, ?> owner, Field field, CopyStrat
             replicated = true;
         }
         this.replicationInfo = field.getAnnotation(Replicate.class);
+        Quantized quantized = field.getAnnotation(Quantized.class);
+        if (quantized != null && quantized.value() > 0 && QUANTIZABLE_TYPES.contains(field.getType())) {
+            this.quantizationPrecision = quantized.value();
+        }
     }
 
     /**
@@ -61,4 +74,18 @@ public boolean isReplicated() {
     public Replicate getReplicationInfo() {
         return replicationInfo;
     }
+
+    /**
+     * @return Whether the field gets replicated with the reduced precision of its Quantized annotation
+     */
+    public boolean isQuantized() {
+        return quantizationPrecision > 0;
+    }
+
+    /**
+     * @return The precision the field gets replicated with, or 0 if it isn't quantized
+     */
+    public float getQuantizationPrecision() {
+        return quantizationPrecision;
+    }
 }
@@ -26,6 +26,7 @@
 import org.terasology.naming.Version;
 import org.terasology.naming.gson.NameTypeAdapter;
 import org.terasology.naming.gson.VersionTypeAdapter;
+import org.terasology.persistence.ChunkStorageFormat;
 import org.terasology.utilities.gson.CaseInsensitiveEnumTypeAdapterFactory;
 import org.terasology.utilities.gson.UriTypeAdapterFactory;
 import org.terasology.world.internal.WorldInfo;
@@ -52,6 +53,7 @@ public class GameManifest {
     private Map<String, Short> biomeIdMap = Maps.newHashMap();
     private Map<String, WorldInfo> worlds = Maps.newHashMap();
     private List<NameVersion> modules = Lists.newArrayList();
+    private ChunkStorageFormat chunkStorageFormat = ChunkStorageFormat.CHUNK_ZIPS;
 
     public GameManifest() {
     }
@@ -126,6 +128,18 @@ public void setBiomeIdMap(Map<String, Short> biomeIdMap) {
         this.biomeIdMap = biomeIdMap;
     }
 
+    /**
+     * @return the format in which the chunks of the save game are stored. Manifests of save games from before the
+     * format got recorded report chunk zips.
+     */
+    public ChunkStorageFormat getChunkStorageFormat() {
+        return chunkStorageFormat;
+    }
+
+    public void setChunkStorageFormat(ChunkStorageFormat chunkStorageFormat) {
+        this.chunkStorageFormat = chunkStorageFormat;
+    }
+
     public static void save(Path toFile, GameManifest gameManifest) throws IOException {
         try (Writer writer = Files.newBufferedWriter(toFile, TerasologyConstants.CHARSET)) {
             createGson().toJson(gameManifest, writer);
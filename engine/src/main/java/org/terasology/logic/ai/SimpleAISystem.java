@@ -48,10 +48,16 @@ public class SimpleAISystem extends BaseComponentSystem implements UpdateSubscri
     private Random random = new FastRandom();
     @In
     private Time time;
+    private Iterable<EntityRef> aiEntities;
+
+    @Override
+    public void initialise() {
+        aiEntities = entityManager.registerQuery(SimpleAIComponent.class, CharacterMovementComponent.class, LocationComponent.class);
+    }
 
     @Override
     public void update(float delta) {
-        for (EntityRef entity : entityManager.getEntitiesWith(SimpleAIComponent.class, CharacterMovementComponent.class, LocationComponent.class)) {
+        for (EntityRef entity : aiEntities) {
             LocationComponent location = entity.getComponent(LocationComponent.class);
             Vector3f worldPos = location.getWorldPosition();
 
@@ -25,6 +25,7 @@
 import org.terasology.math.geom.Vector3i;
 import org.terasology.network.BroadcastEvent;
 import org.terasology.network.NetworkEvent;
+import org.terasology.network.Quantized;
 import org.terasology.physics.engine.CharacterCollider;
 import org.terasology.physics.engine.PhysicsEngine;
 import org.terasology.registry.CoreRegistry;
@@ -36,10 +37,13 @@
 public class CharacterStateEvent extends NetworkEvent {
     private long time;
     private int sequenceNumber;
+    @Quantized(0.001f)
     private Vector3f position = new Vector3f();
+    @Quantized(0.001f)
     private Quat4f rotation = new Quat4f(0, 0, 0, 1);
     private MovementMode mode = MovementMode.WALKING;
     private boolean grounded;
+    @Quantized(0.001f)
     private Vector3f velocity = new Vector3f();
     private float yaw;
     private float pitch;
@@ -23,6 +23,7 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.math.geom.Quat4f;
 import org.terasology.math.geom.Vector3f;
+import org.terasology.network.Quantized;
 import org.terasology.network.Replicate;
 import org.terasology.network.ReplicationCheck;
 import org.terasology.rendering.nui.properties.TextField;
@@ -49,9 +50,11 @@ public final class LocationComponent implements Component, ReplicationCheck {
 
     // Standard position/rotation
     @Replicate
+    @Quantized(0.001f)
     @TextField
     Vector3f position = new Vector3f();
     @Replicate
+    @Quantized(0.001f)
     Quat4f rotation = new Quat4f(0, 0, 0, 1);
     @Replicate
     float scale = 1.0f;
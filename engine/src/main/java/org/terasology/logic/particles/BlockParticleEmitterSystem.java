@@ -106,8 +106,10 @@ public class BlockParticleEmitterSystem extends BaseComponentSystem implements U
     private Random random = new FastRandom();
     private NearestSortingList sorter = new NearestSortingList();
     private int displayList;
+    private Iterable<EntityRef> particleEntities;
 
     public void initialise() {
+        particleEntities = entityManager.registerQuery(BlockParticleEffectComponent.class, LocationComponent.class);
         if (displayList == 0) {
             displayList = glGenLists(1);
             glNewList(displayList, GL11.GL_COMPILE);
@@ -124,7 +126,7 @@ public void shutdown() {
     }
 
     public void update(float delta) {
-        for (EntityRef entity : entityManager.getEntitiesWith(BlockParticleEffectComponent.class, LocationComponent.class)) {
+        for (EntityRef entity : particleEntities) {
             BlockParticleEffectComponent particleEffect = entity.getComponent(BlockParticleEffectComponent.class);
             Iterator<Particle> iterator = particleEffect.particles.iterator();
             while (iterator.hasNext()) {
@@ -227,7 +229,7 @@ public void renderAlphaBlend() {
         if (config.getRendering().isRenderNearest()) {
             render(Arrays.asList(sorter.getNearest(config.getRendering().getParticleEffectLimit())));
         } else {
-            render(entityManager.getEntitiesWith(BlockParticleEffectComponent.class, LocationComponent.class));
+            render(particleEntities);
         }
     }
 
@@ -60,6 +60,18 @@ public static int calcChunkPosZ(int z, int chunkPowerZ) {
         return (z >> chunkPowerZ);
     }
 
+    public static int calcChunkPosX(int x) {
+        return calcChunkPosX(x, ChunkConstants.POWER_X);
+    }
+
+    public static int calcChunkPosY(int y) {
+        return calcChunkPosY(y, ChunkConstants.POWER_Y);
+    }
+
+    public static int calcChunkPosZ(int z) {
+        return calcChunkPosZ(z, ChunkConstants.POWER_Z);
+    }
+
     public static Vector3i calcChunkPos(Vector3i pos, Vector3i chunkPower) {
         return calcChunkPos(pos.x, pos.y, pos.z, chunkPower);
     }
@@ -131,6 +143,18 @@ public static int calcBlockPosZ(int blockZ, int chunkPosFilterZ) {
         return blockZ & chunkPosFilterZ;
     }
 
+    public static int calcBlockPosX(int blockX) {
+        return calcBlockPosX(blockX, ChunkConstants.INNER_CHUNK_POS_FILTER_X);
+    }
+
+    public static int calcBlockPosY(int blockY) {
+        return calcBlockPosY(blockY, ChunkConstants.INNER_CHUNK_POS_FILTER_Y);
+    }
+
+    public static int calcBlockPosZ(int blockZ) {
+        return calcBlockPosZ(blockZ, ChunkConstants.INNER_CHUNK_POS_FILTER_Z);
+    }
+
     public static Vector3i calcBlockPos(Vector3i worldPos) {
         return calcBlockPos(worldPos.x, worldPos.y, worldPos.z, ChunkConstants.INNER_CHUNK_POS_FILTER);
     }
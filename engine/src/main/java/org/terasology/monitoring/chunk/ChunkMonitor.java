@@ -25,11 +25,15 @@
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class ChunkMonitor {
 
     private static final EventBus EVENT_BUS = new EventBus("ChunkMonitor");
     private static final Map<Vector3i, ChunkMonitorEntry> CHUNKS = Maps.newConcurrentMap();
+    private static final AtomicLong CANCELLED_CHUNK_TASKS = new AtomicLong();
+    private static final AtomicLong COLUMN_FACET_CACHE_HITS = new AtomicLong();
+    private static final AtomicLong COLUMN_FACET_CACHE_MISSES = new AtomicLong();
 
     private ChunkMonitor() {
     }
@@ -92,6 +96,42 @@ public static void fireChunkTessellated(Vector3i chunkPos, ChunkMesh mesh) {
         post(new ChunkMonitorEvent.Tessellated(chunkPos, mesh));
     }
 
+    /**
+     * Counts a chunk task that stopped early, because its chunk was no longer relevant.
+     */
+    public static void fireChunkTaskCancelled() {
+        CANCELLED_CHUNK_TASKS.incrementAndGet();
+    }
+
+    /**
+     * @return the number of chunk generation and meshing tasks that got cancelled before they finished their work.
+     */
+    public static long getCancelledChunkTaskCount() {
+        return CANCELLED_CHUNK_TASKS.get();
+    }
+
+    /**
+     * Counts a region whose column of shared world generation facets was already cached.
+     */
+    public static void fireColumnFacetCacheHit() {
+        COLUMN_FACET_CACHE_HITS.incrementAndGet();
+    }
+
+    /**
+     * Counts a region whose column of shared world generation facets had to be generated.
+     */
+    public static void fireColumnFacetCacheMiss() {
+        COLUMN_FACET_CACHE_MISSES.incrementAndGet();
+    }
+
+    public static long getColumnFacetCacheHitCount() {
+        return COLUMN_FACET_CACHE_HITS.get();
+    }
+
+    public static long getColumnFacetCacheMissCount() {
+        return COLUMN_FACET_CACHE_MISSES.get();
+    }
+
     public static synchronized void getChunks(List<ChunkMonitorEntry> output) {
         Preconditions.checkNotNull(output, "The parameter 'output' must not be null");
         output.addAll(CHUNKS.values());
@@ -722,6 +722,14 @@ private void render(Graphics2D g, int offsetx, int offsety, int width, int heigh
             renderChunks(g, offsetx, offsety, chunkEntries);
             renderBox(g, offsetx, offsety, box);
             renderSelectedChunk(g, offsetx, offsety, selectedChunk);
+            renderStatistics(g);
+        }
+
+        private void renderStatistics(Graphics2D g) {
+            g.setColor(Color.white);
+            g.drawString("Cancelled chunk tasks: " + ChunkMonitor.getCancelledChunkTaskCount(), 5, 15);
+            g.drawString("Column facet cache: " + ChunkMonitor.getColumnFacetCacheHitCount() + " hits, "
+                    + ChunkMonitor.getColumnFacetCacheMissCount() + " misses", 5, 30);
         }
 
         private void render() {
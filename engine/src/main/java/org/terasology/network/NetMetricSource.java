@@ -43,4 +43,14 @@ public interface NetMetricSource {
      * @return The amount of bytes sent since last time this method was called
      */
     int getSentBytesSinceLastCall();
+
+    /**
+     * @return The amount of chunks sent since last time this method was called
+     */
+    int getSentChunksSinceLastCall();
+
+    /**
+     * @return The amount of sent chunks whose encoding got reused from other clients since last time this method was called
+     */
+    int getCachedChunksSentSinceLastCall();
 }
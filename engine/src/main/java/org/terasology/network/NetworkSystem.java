@@ -50,6 +50,14 @@ public interface NetworkSystem extends BlockRegistrationListener {
 
     Iterable<Client> getPlayers();
 
+    /**
+     * On a server, the events of blocks and of entities replicated by relevance only go to the players near them and to
+     * their owner. The events of any other entity go to all players, which only send them on if they replicate the entity.
+     *
+     * @return the players that need to know about events of the entity.
+     */
+    Iterable<Client> getPlayersInterestedIn(EntityRef entity);
+
     Client getOwner(EntityRef entity);
 
     EntityRef getOwnerEntity(EntityRef entity);
@@ -66,5 +74,9 @@ public interface NetworkSystem extends BlockRegistrationListener {
 
     int getOutgoingBytesDelta();
 
+    int getOutgoingChunksDelta();
+
+    int getOutgoingCachedChunksDelta();
+
     void forceDisconnect(Client client);
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.oneone.OneToOneDecoder;
+import org.terasology.world.chunks.codec.ChunkCodec;
+
+/**
+ * Decompresses the frames written by a {@link ChunkCodecEncoder}. Replaces the inflate decoder of the client
+ * pipeline once the server confirmed the handshake.
+ */
+public class ChunkCodecDecoder extends OneToOneDecoder {
+    public static final String NAME = "chunkCodecDecoder";
+
+    private final ChunkCodec codec;
+
+    public ChunkCodecDecoder(ChunkCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, Object msg) throws Exception {
+        if (!(msg instanceof ChannelBuffer)) {
+            return msg;
+        }
+        ChannelBuffer buffer = (ChannelBuffer) msg;
+        byte[] data = new byte[buffer.readableBytes()];
+        buffer.readBytes(data);
+        return ChannelBuffers.wrappedBuffer(codec.decompress(data, 0, data.length));
+    }
+}
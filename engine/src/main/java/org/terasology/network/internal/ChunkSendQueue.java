@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Maps;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The chunks that are ready to be sent to a client, ordered by their distance to the chunk the client's character is in.
+ * <br><br>
+ * The order only gets rebuilt when the character enters another chunk, so that taking the nearest chunk stays cheap
+ * for large numbers of ready chunks. Removed chunks stay in the order until they get polled or the order gets rebuilt.
+ */
+final class ChunkSendQueue {
+    private final Map<Vector3i, Chunk> chunks = Maps.newHashMap();
+    private final Vector3i center = new Vector3i();
+    private final PriorityQueue<Vector3i> order = new PriorityQueue<>(16, new Comparator<Vector3i>() {
+        @Override
+        public int compare(Vector3i o1, Vector3i o2) {
+            return Integer.compare(o1.distanceSquared(center), o2.distanceSquared(center));
+        }
+    });
+
+    public void add(Vector3i pos, Chunk chunk) {
+        if (chunks.put(pos, chunk) == null) {
+            order.add(pos);
+        }
+    }
+
+    public void remove(Vector3i pos) {
+        chunks.remove(pos);
+    }
+
+    public boolean isEmpty() {
+        return chunks.isEmpty();
+    }
+
+    public int size() {
+        return chunks.size();
+    }
+
+    /**
+     * Removes the chunk nearest to the given chunk position.
+     *
+     * @return the removed chunk, or null if there are no ready chunks.
+     */
+    public Chunk pollNearest(Vector3i centerChunkPos) {
+        if (!center.equals(centerChunkPos) || order.size() > 2 * chunks.size()) {
+            center.set(centerChunkPos);
+            order.clear();
+            order.addAll(chunks.keySet());
+        }
+        while (!order.isEmpty()) {
+            Chunk chunk = chunks.remove(order.poll());
+            if (chunk != null) {
+                return chunk;
+            }
+        }
+        return null;
+    }
+}
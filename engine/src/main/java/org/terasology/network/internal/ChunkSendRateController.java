@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+/**
+ * Decides how many chunks get sent to a client per net tick, based on the throughput the client's channel actually
+ * achieves.
+ * <br><br>
+ * The throughput is measured as the bytes of all messages whose write completed per tick, and converted into chunks per
+ * tick using the average size of the sent chunks. While the whole allowance gets used and the channel keeps up, the rate probes
+ * for more throughput, but never gets far ahead of the measured one. When the channel falls behind, no chunks get sent
+ * and the rate gets halved. The rate never exceeds the given maximum, e.g. the client's share of the upstream bandwidth.
+ */
+final class ChunkSendRateController {
+    static final float MIN_CHUNKS_PER_TICK = 0.125f;
+    static final float CHUNKS_PER_TICK_INCREASE = 0.25f;
+    /**
+     * How far the rate may get ahead of the measured throughput, to allow for the delay of the measurement
+     */
+    static final float THROUGHPUT_HEADROOM = 2.0f;
+    private static final float SMOOTHING = 0.5f;
+
+    private float chunksPerTick = 1.0f;
+    private float allowance = 1.0f;
+    private float flushedBytesPerTick;
+    private float bytesPerChunk;
+
+    /**
+     * Starts a tick in which chunks are waiting to be sent.
+     *
+     * @param flushedBytes     the bytes whose write completed since the last tick
+     * @param backlogged       whether previously sent messages still wait to be written
+     * @param maxChunksPerTick the upper bound for the rate
+     * @return the number of chunks to send in this tick
+     */
+    public int beginTick(int flushedBytes, boolean backlogged, float maxChunksPerTick) {
+        recordFlushedBytes(flushedBytes);
+        float minChunksPerTick = Math.min(MIN_CHUNKS_PER_TICK, maxChunksPerTick);
+        if (backlogged) {
+            chunksPerTick = Math.max(minChunksPerTick, Math.min(chunksPerTick, getMeasuredChunksPerTick()) / 2);
+            return 0;
+        }
+        chunksPerTick = Math.max(minChunksPerTick, Math.min(chunksPerTick, maxChunksPerTick));
+        allowance = Math.min(allowance + chunksPerTick, Math.max(1.0f, chunksPerTick));
+        int chunks = (int) allowance;
+        allowance -= chunks;
+        return chunks;
+    }
+
+    /**
+     * Starts a tick in which no chunks are waiting to be sent.
+     */
+    public void idleTick(int flushedBytes) {
+        recordFlushedBytes(flushedBytes);
+        allowance = 1.0f;
+    }
+
+    public void chunkSent(int bytes) {
+        bytesPerChunk = (bytesPerChunk == 0) ? bytes : bytesPerChunk + SMOOTHING * (bytes - bytesPerChunk);
+    }
+
+    /**
+     * Ends a tick in which the whole allowance got used while more chunks were waiting, to probe for more throughput.
+     */
+    public void allowanceUsed(float maxChunksPerTick) {
+        float reachable = Math.min(chunksPerTick, THROUGHPUT_HEADROOM * getMeasuredChunksPerTick());
+        chunksPerTick = Math.min(reachable + CHUNKS_PER_TICK_INCREASE, maxChunksPerTick);
+    }
+
+    public float getChunksPerTick() {
+        return chunksPerTick;
+    }
+
+    /**
+     * @return the measured throughput in chunks per tick, or infinity while the size of chunks is not known yet.
+     */
+    public float getMeasuredChunksPerTick() {
+        if (bytesPerChunk == 0) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return flushedBytesPerTick / bytesPerChunk;
+    }
+
+    private void recordFlushedBytes(int flushedBytes) {
+        flushedBytesPerTick += SMOOTHING * (flushedBytes - flushedBytesPerTick);
+    }
+}
@@ -31,6 +31,9 @@
 import org.terasology.identity.PrivateIdentityCertificate;
 import org.terasology.identity.PublicIdentityCertificate;
 import org.terasology.protobuf.NetData;
+import org.terasology.world.chunks.codec.ChunkCodec;
+import org.terasology.world.chunks.codec.ChunkCodecs;
+import org.terasology.world.chunks.codec.DeflateChunkCodec;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -62,6 +65,7 @@ public class ClientHandshakeHandler extends SimpleChannelUpstreamHandler {
     private boolean requestedCertificate;
     private ClientIdentity identity;
     private PublicIdentityCertificate serverCertificate;
+    private ChunkCodec chunkCodec;
 
     public ClientHandshakeHandler(JoinStatusImpl joinStatus) {
         this.joinStatus = joinStatus;
@@ -102,6 +106,7 @@ private void processHandshakeVerification(NetData.HandshakeVerification handshak
         }
 
         // And we're authenticated.
+        switchToChunkCodec(ctx);
         ctx.getPipeline().remove(this);
         channelAuthenticated(ctx);
     }
@@ -150,6 +155,7 @@ private void processNewIdentity(NetData.ProvisionIdentity provisionIdentity, Cha
             config.save();
 
             // And we're authenticated.
+            switchToChunkCodec(ctx);
             ctx.getPipeline().remove(this);
             channelAuthenticated(ctx);
         } catch (InvalidProtocolBufferException e) {
@@ -181,6 +187,7 @@ private void processServerHello(NetData.HandshakeHello helloMessage, ChannelHand
             }
 
             clientRandom = new byte[IdentityConstants.SERVER_CLIENT_RANDOM_LENGTH];
+            chunkCodec = chooseChunkCodec(helloMessage);
 
             identity = config.getSecurity().getIdentity(serverCertificate);
             if (identity == null) {
@@ -205,6 +212,7 @@ private void sendCertificate(NetData.HandshakeHello helloMessage, ChannelHandler
                 .setRandom(ByteString.copyFrom(clientRandom))
                 .setCertificate(NetMessageUtil.convert(pubClientCert))
                 .setTimestamp(System.currentTimeMillis())
+                .setChunkCodec(chunkCodec.getId())
                 .build();
 
         byte[] dataToSign = Bytes.concat(helloMessage.toByteArray(), clientHello.toByteArray());
@@ -229,10 +237,35 @@ private void requestIdentity(ChannelHandlerContext ctx) {
         ctx.getChannel().write(NetData.NetMessage.newBuilder()
                 .setNewIdentityRequest(NetData.NewIdentityRequest.newBuilder()
                         .setPreMasterSecret(ByteString.copyFrom(encryptedPreMasterSecret))
-                        .setRandom(ByteString.copyFrom(clientRandom)))
+                        .setRandom(ByteString.copyFrom(clientRandom))
+                        .setChunkCodec(chunkCodec.getId()))
                 .build());
         requestedCertificate = true;
     }
 
+    /**
+     * @return the codec the server prefers most among the ones known to this client. Deflate if the server does not
+     * know about codecs.
+     */
+    private ChunkCodec chooseChunkCodec(NetData.HandshakeHello helloMessage) {
+        for (String codecId : helloMessage.getSupportedChunkCodecList()) {
+            ChunkCodec codec = ChunkCodecs.get(codecId);
+            if (codec != null) {
+                return codec;
+            }
+        }
+        return ChunkCodecs.DEFLATE;
+    }
+
+    /**
+     * The server switches to the chosen codec right after the message that completes the handshake.
+     */
+    private void switchToChunkCodec(ChannelHandlerContext ctx) {
+        if (!DeflateChunkCodec.ID.equals(chunkCodec.getId())) {
+            logger.info("Decompressing messages with chunk codec {}", chunkCodec.getId());
+            ctx.getPipeline().replace("inflateDecoder", ChunkCodecDecoder.NAME, new ChunkCodecDecoder(chunkCodec));
+        }
+    }
+
 
 }
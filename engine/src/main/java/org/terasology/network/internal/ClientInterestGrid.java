@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import org.terasology.math.geom.Vector3i;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Keeps track of which clients are interested in which chunks, so that world related messages only need to be
+ * considered for the clients near their origin instead of for every client.
+ * <br><br>
+ * A client is interested in the chunks it received and that were not invalidated since. The grid also defines the
+ * update tiers, which make changes of far away entities get sent less often.
+ */
+class ClientInterestGrid {
+    /**
+     * The highest chunk distance of each update tier. Entities beyond the last tier use {@link #OUTSIDE_UPDATE_INTERVAL}.
+     */
+    private static final int[] TIER_DISTANCES = {1, 3, 6};
+    /**
+     * The number of network ticks between updates of an entity, for each tier.
+     */
+    private static final int[] TIER_UPDATE_INTERVALS = {1, 2, 4};
+    private static final int OUTSIDE_UPDATE_INTERVAL = 8;
+
+    private final SetMultimap<Vector3i, NetClient> clientsByChunk = HashMultimap.create();
+
+    public void addInterest(Vector3i chunkPos, NetClient client) {
+        clientsByChunk.put(chunkPos, client);
+    }
+
+    public void removeInterest(Vector3i chunkPos, NetClient client) {
+        clientsByChunk.remove(chunkPos, client);
+    }
+
+    public void removeInterests(Collection<Vector3i> chunkPositions, NetClient client) {
+        for (Vector3i chunkPos : chunkPositions) {
+            clientsByChunk.remove(chunkPos, client);
+        }
+    }
+
+    /**
+     * @return the clients interested in the chunk. The returned set must not be modified.
+     */
+    public Set<NetClient> getInterestedClients(Vector3i chunkPos) {
+        return Collections.unmodifiableSet(clientsByChunk.get(chunkPos));
+    }
+
+    public void clear() {
+        clientsByChunk.clear();
+    }
+
+    /**
+     * @param chunkPos the chunk an entity is in.
+     * @param center   the chunk the client's character is in.
+     * @return the number of network ticks between two updates of the entity for the client.
+     */
+    public static int getUpdateInterval(Vector3i chunkPos, Vector3i center) {
+        int distance = Math.max(Math.abs(chunkPos.x - center.x), Math.max(Math.abs(chunkPos.y - center.y), Math.abs(chunkPos.z - center.z)));
+        for (int i = 0; i < TIER_DISTANCES.length; ++i) {
+            if (distance <= TIER_DISTANCES[i]) {
+                return TIER_UPDATE_INTERVALS[i];
+            }
+        }
+        return OUTSIDE_UPDATE_INTERVAL;
+    }
+}
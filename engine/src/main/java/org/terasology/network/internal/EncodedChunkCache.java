@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.world.WorldChangeListener;
+import org.terasology.world.biomes.Biome;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.propagation.BlockChange;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+
+/**
+ * Shares the encoded form of chunks between all clients of a server, so that a chunk that gets sent to several clients
+ * only gets encoded once as long as it does not change.
+ * <br><br>
+ * An entry is only used for the chunk instance and change version it got encoded from. Block and biome changes also
+ * drop the entry of the affected chunk right away. Entries only hold weak references to their chunks, so that unloaded
+ * chunks do not stay in memory until their entry gets evicted. The cache can be used by several threads at once.
+ */
+final class EncodedChunkCache implements WorldChangeListener {
+    private static final int MAX_CHUNKS = 1024;
+
+    private final Cache<Vector3i, EncodedChunk> encodedChunks = CacheBuilder.newBuilder().maximumSize(MAX_CHUNKS).build();
+
+    /**
+     * @return the cached encoding of the chunk, or null if there is no up to date one.
+     */
+    public EntityData.ChunkStore get(Chunk chunk) {
+        EncodedChunk encodedChunk = encodedChunks.getIfPresent(chunk.getPosition());
+        if (encodedChunk != null && encodedChunk.isUpToDate(chunk)) {
+            return encodedChunk.data;
+        }
+        return null;
+    }
+
+    /**
+     * Encodes the chunk and caches the result for later calls of {@link #get(Chunk)}.
+     */
+    public EntityData.ChunkStore encode(Chunk chunk) {
+        // Read before encoding, so that a change made while encoding leaves the entry outdated
+        int changeVersion = chunk.getChangeVersion();
+        EntityData.ChunkStore data = chunk.encode().build();
+        encodedChunks.put(chunk.getPosition(), new EncodedChunk(chunk, changeVersion, data));
+        return data;
+    }
+
+    public void clear() {
+        encodedChunks.invalidateAll();
+    }
+
+    @Override
+    public void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock) {
+        encodedChunks.invalidate(ChunkMath.calcChunkPos(pos));
+    }
+
+    @Override
+    public void onBlocksChanged(Vector3i chunkPos, Collection<BlockChange> changes) {
+        encodedChunks.invalidate(chunkPos);
+    }
+
+    @Override
+    public void onBiomeChanged(Vector3i pos, Biome newBiome, Biome originalBiome) {
+        encodedChunks.invalidate(ChunkMath.calcChunkPos(pos));
+    }
+
+    private static final class EncodedChunk {
+        private final WeakReference<Chunk> chunk;
+        private final int changeVersion;
+        private final EntityData.ChunkStore data;
+
+        private EncodedChunk(Chunk chunk, int changeVersion, EntityData.ChunkStore data) {
+            this.chunk = new WeakReference<>(chunk);
+            this.changeVersion = changeVersion;
+            this.data = data;
+        }
+
+        public boolean isUpToDate(Chunk currentChunk) {
+            // Reloaded chunks are new instances and their change version starts again at 0:
+            return currentChunk == chunk.get() && currentChunk.getChangeVersion() == changeVersion;
+        }
+    }
+}
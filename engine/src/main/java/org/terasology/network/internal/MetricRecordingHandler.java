@@ -37,6 +37,8 @@ public class MetricRecordingHandler extends SimpleChannelHandler implements NetM
     private AtomicInteger receivedBytes = new AtomicInteger();
     private AtomicInteger sentMessages = new AtomicInteger();
     private AtomicInteger sentBytes = new AtomicInteger();
+    private AtomicInteger sentChunks = new AtomicInteger();
+    private AtomicInteger cachedChunksSent = new AtomicInteger();
 
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
@@ -54,6 +56,18 @@ public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exc
         ctx.sendDownstream(e);
     }
 
+    /**
+     * Records that a chunk got sent over the channel.
+     *
+     * @param cached whether the chunk's encoding was taken from the shared chunk cache
+     */
+    public void recordSentChunk(boolean cached) {
+        sentChunks.incrementAndGet();
+        if (cached) {
+            cachedChunksSent.incrementAndGet();
+        }
+    }
+
     @Override
     public int getReceivedMessagesSinceLastCall() {
         return receivedMessages.getAndSet(0);
@@ -73,4 +87,14 @@ public int getSentMessagesSinceLastCall() {
     public int getSentBytesSinceLastCall() {
         return sentBytes.getAndSet(0);
     }
+
+    @Override
+    public int getSentChunksSinceLastCall() {
+        return sentChunks.getAndSet(0);
+    }
+
+    @Override
+    public int getCachedChunksSentSinceLastCall() {
+        return cachedChunksSent.getAndSet(0);
+    }
 }
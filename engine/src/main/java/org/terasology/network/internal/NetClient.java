@@ -19,14 +19,17 @@
 import com.google.common.base.Objects;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.engine.Time;
@@ -50,6 +53,7 @@
 import org.terasology.network.NetMetricSource;
 import org.terasology.network.NetworkComponent;
 import org.terasology.network.serialization.ServerComponentFieldCheck;
+import org.terasology.persistence.serializers.EntityReplicationBaseline;
 import org.terasology.persistence.serializers.EventSerializer;
 import org.terasology.persistence.serializers.NetworkEntitySerializer;
 import org.terasology.persistence.typeHandling.DeserializationException;
@@ -67,13 +71,15 @@
 import org.terasology.world.block.BlockComponent;
 import org.terasology.world.block.family.BlockFamily;
 import org.terasology.world.chunks.Chunk;
+import org.terasology.world.propagation.BlockChange;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -91,7 +97,7 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private NetworkEntitySerializer entitySerializer;
     private EventSerializer eventSerializer;
     private EventLibrary eventLibrary;
-    private NetMetricSource metricSource;
+    private MetricRecordingHandler metricSource;
     private BiomeManager biomeManager;
 
     // Relevance
@@ -105,23 +111,28 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private SetMultimap<Integer, Class<? extends Component>> dirtyComponents = LinkedHashMultimap.create();
     private SetMultimap<Integer, Class<? extends Component>> addedComponents = LinkedHashMultimap.create();
     private SetMultimap<Integer, Class<? extends Component>> removedComponents = LinkedHashMultimap.create();
+    private TIntObjectMap<EntityReplicationBaseline> replicationBaselines = new TIntObjectHashMap<>();
+    // Entities targeted by events queued this tick, whose pending updates need to be sent along with the events
+    private TIntSet eventTargets = new TIntHashSet();
 
     private String preferredName = "Player";
     private long lastReceivedTime;
     private ViewDistance viewDistance = ViewDistance.NEAR;
-    private float chunkSendCounter = 1.0f;
+    private final ChunkSendRateController chunkRateController = new ChunkSendRateController();
+    private final AtomicInteger flushedBytes = new AtomicInteger();
+    private int netTickCount;
 
     private float chunkSendRate = 0.05469f;
 
     private PublicIdentityCertificate identity;
 
     // Outgoing messages
-    private BlockingQueue<NetData.BlockChangeMessage> queuedOutgoingBlockChanges = Queues.newLinkedBlockingQueue();
+    private BlockingQueue<NetData.ChunkBlockChangesMessage> queuedOutgoingBlockChanges = Queues.newLinkedBlockingQueue();
     private BlockingQueue<NetData.BiomeChangeMessage> queuedOutgoingBiomeChanges = Queues.newLinkedBlockingQueue();
     private List<NetData.EventMessage> queuedOutgoingEvents = Lists.newArrayList();
     private final List<BlockFamily> newlyRegisteredFamilies = Lists.newArrayList();
 
-    private Map<Vector3i, Chunk> readyChunks = Maps.newLinkedHashMap();
+    private ChunkSendQueue readyChunks = new ChunkSendQueue();
     private Set<Vector3i> invalidatedChunks = Sets.newLinkedHashSet();
 
 
@@ -133,12 +144,15 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private AtomicInteger receivedBytes = new AtomicInteger();
     private AtomicInteger sentMessages = new AtomicInteger();
     private AtomicInteger sentBytes = new AtomicInteger();
+    private final AtomicInteger pendingMessages = new AtomicInteger();
+    private final SerialExecutor messageWriter;
     private Color color;
 
     public NetClient(Channel channel, NetworkSystemImpl networkSystem, PublicIdentityCertificate identity) {
         this.channel = channel;
-        metricSource = (NetMetricSource) channel.getPipeline().get(MetricRecordingHandler.NAME);
+        metricSource = (MetricRecordingHandler) channel.getPipeline().get(MetricRecordingHandler.NAME);
         this.networkSystem = networkSystem;
+        this.messageWriter = new SerialExecutor(networkSystem.getMessageWriterPool());
         this.time = CoreRegistry.get(Time.class);
         this.identity = identity;
         this.biomeManager = CoreRegistry.get(BiomeManager.class);
@@ -210,11 +224,17 @@ public void disconnect() {
         if (worldProvider != null) {
             worldProvider.unregisterListener(this);
         }
+        networkSystem.getInterestGrid().removeInterests(relevantChunks, this);
     }
 
+    /**
+     * On a net tick the message for the client gets assembled from the changes since the last tick. Building, serializing
+     * and compressing it happens on the message writer threads, in the order the messages got sent.
+     */
     @Override
     public void update(boolean netTick) {
         if (netTick) {
+            netTickCount++;
             NetData.NetMessage.Builder message = NetData.NetMessage.newBuilder();
             message.setTime(time.getGameTimeInMs());
             sendRegisteredBlocks(message);
@@ -224,7 +244,7 @@ public void update(boolean netTick) {
             sendInitialEntities(message);
             sendDirtyEntities(message);
             sendEvents(message);
-            send(message.build());
+            send(message);
         }
         processReceivedMessages();
     }
@@ -243,40 +263,61 @@ private void sendRegisteredBlocks(NetData.NetMessage.Builder message) {
         }
     }
 
+    /**
+     * Sends the ready chunks nearest to the character. The number of chunks per tick follows the throughput the channel
+     * achieves, as decided by the {@link ChunkSendRateController}, up to the client's share of the configured upstream
+     * bandwidth. No chunks get sent while the channel's write buffer is full or the previous message still waits to be
+     * written.
+     */
     private void sendNewChunks(NetData.NetMessage.Builder message) {
-        if (!readyChunks.isEmpty()) {
-            chunkSendCounter += chunkSendRate * NET_TICK_RATE * networkSystem.getBandwidthPerClient();
-            if (chunkSendCounter > 1.0f) {
-                chunkSendCounter -= 1.0f;
-                Vector3i center = new Vector3i();
-                LocationComponent loc = getEntity().getComponent(ClientComponent.class).character.getComponent(LocationComponent.class);
-                if (loc != null) {
-                    center.set(ChunkMath.calcChunkPos(new Vector3i(loc.getWorldPosition(), 0.5f)));
-                }
-                Vector3i pos = null;
-                int distance = Integer.MAX_VALUE;
-                for (Vector3i chunkPos : readyChunks.keySet()) {
-                    int chunkDistance = chunkPos.distanceSquared(center);
-                    if (pos == null || chunkDistance < distance) {
-                        pos = chunkPos;
-                        distance = chunkDistance;
-                    }
-                }
-                Chunk chunk = readyChunks.remove(pos);
-                relevantChunks.add(pos);
-                message.addChunkInfo(chunk.encode());
+        if (readyChunks.isEmpty()) {
+            chunkRateController.idleTick(flushedBytes.getAndSet(0));
+            return;
+        }
+        boolean backlogged = !channel.isWritable() || pendingMessages.get() > 0;
+        float maxChunksPerTick = chunkSendRate * NET_TICK_RATE * networkSystem.getBandwidthPerClient();
+        int chunks = chunkRateController.beginTick(flushedBytes.getAndSet(0), backlogged, maxChunksPerTick);
+        if (chunks == 0) {
+            return;
+        }
+
+        Vector3i center = getCharacterChunkPos();
+        EncodedChunkCache encodedChunkCache = networkSystem.getEncodedChunkCache();
+        ClientInterestGrid interestGrid = networkSystem.getInterestGrid();
+        for (int i = 0; i < chunks && !readyChunks.isEmpty(); i++) {
+            Chunk chunk = readyChunks.pollNearest(center);
+            relevantChunks.add(chunk.getPosition());
+            interestGrid.addInterest(chunk.getPosition(), this);
+            EntityData.ChunkStore encodedChunk = encodedChunkCache.get(chunk);
+            metricSource.recordSentChunk(encodedChunk != null);
+            if (encodedChunk == null) {
+                encodedChunk = encodedChunkCache.encode(chunk);
             }
-        } else {
-            chunkSendCounter = 1.0f;
+            chunkRateController.chunkSent(encodedChunk.getSerializedSize());
+            message.addChunkInfo(encodedChunk);
+        }
+        if (!readyChunks.isEmpty()) {
+            chunkRateController.allowanceUsed(maxChunksPerTick);
+        }
+    }
+
+    private Vector3i getCharacterChunkPos() {
+        Vector3i center = new Vector3i();
+        LocationComponent loc = getEntity().getComponent(ClientComponent.class).character.getComponent(LocationComponent.class);
+        if (loc != null) {
+            center.set(ChunkMath.calcChunkPos(new Vector3i(loc.getWorldPosition(), 0.5f)));
         }
+        return center;
     }
 
     private void sendChunkInvalidations(NetData.NetMessage.Builder message) {
+        ClientInterestGrid interestGrid = networkSystem.getInterestGrid();
         Iterator<Vector3i> i = invalidatedChunks.iterator();
         while (i.hasNext()) {
             Vector3i pos = i.next();
             i.remove();
             relevantChunks.remove(pos);
+            interestGrid.removeInterest(pos, this);
             message.addInvalidateChunk(NetData.InvalidateChunkMessage.newBuilder().setPos(NetMessageUtil.convert(pos)));
         }
         invalidatedChunks.clear();
@@ -295,6 +336,7 @@ public void setNetRemoved(int netId) {
         removedComponents.keySet().remove(netId);
         netDirty.remove(netId);
         netRelevant.remove(netId);
+        replicationBaselines.remove(netId);
     }
 
     public void setComponentAdded(int networkId, Class<? extends Component> component) {
@@ -339,21 +381,23 @@ public void connected(EntityManager entityManager, NetworkEntitySerializer newEn
     public void send(Event event, EntityRef target) {
         try {
             BlockComponent blockComp = target.getComponent(BlockComponent.class);
+            NetworkComponent networkComponent = target.getComponent(NetworkComponent.class);
             if (blockComp != null) {
                 if (relevantChunks.contains(ChunkMath.calcChunkPos(blockComp.getPosition()))) {
                     queuedOutgoingEvents.add(NetData.EventMessage.newBuilder()
                             .setTargetBlockPos(NetMessageUtil.convert(blockComp.getPosition()))
                             .setEvent(eventSerializer.serialize(event)).build());
-                }
-            } else {
-                NetworkComponent networkComponent = target.getComponent(NetworkComponent.class);
-                if (networkComponent != null) {
-                    if (netRelevant.contains(networkComponent.getNetworkId()) || netInitial.contains(networkComponent.getNetworkId())) {
-                        queuedOutgoingEvents.add(NetData.EventMessage.newBuilder()
-                                .setTargetId(networkComponent.getNetworkId())
-                                .setEvent(eventSerializer.serialize(event)).build());
+                    if (networkComponent != null) {
+                        eventTargets.add(networkComponent.getNetworkId());
                     }
                 }
+            } else if (networkComponent != null) {
+                if (netRelevant.contains(networkComponent.getNetworkId()) || netInitial.contains(networkComponent.getNetworkId())) {
+                    queuedOutgoingEvents.add(NetData.EventMessage.newBuilder()
+                            .setTargetId(networkComponent.getNetworkId())
+                            .setEvent(eventSerializer.serialize(event)).build());
+                    eventTargets.add(networkComponent.getNetworkId());
+                }
             }
         } catch (SerializationException e) {
             logger.error("Failed to serialize event", e);
@@ -370,17 +414,69 @@ public boolean isLocal() {
         return false;
     }
 
-    void send(NetData.NetMessage data) {
+    void send(final NetData.NetMessage data) {
+        queueWrite(new Runnable() {
+            @Override
+            public void run() {
+                write(data);
+            }
+        });
+    }
+
+    /**
+     * Builds and sends the message on the message writer threads. The builder must not be used afterwards.
+     */
+    private void send(final NetData.NetMessage.Builder message) {
+        queueWrite(new Runnable() {
+            @Override
+            public void run() {
+                write(message.build());
+            }
+        });
+    }
+
+    private void queueWrite(final Runnable write) {
+        pendingMessages.incrementAndGet();
+        try {
+            messageWriter.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        write.run();
+                    } finally {
+                        pendingMessages.decrementAndGet();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingMessages.decrementAndGet();
+            logger.warn("Dropped message to {}, the network system is shutting down", getName());
+        }
+    }
+
+    /**
+     * Writes the message to the channel. Serializing and compressing it happens as part of the write, on the calling
+     * thread.
+     */
+    private void write(NetData.NetMessage data) {
         logger.trace("Sending packet with size {}", data.getSerializedSize());
         sentMessages.incrementAndGet();
-        sentBytes.addAndGet(data.getSerializedSize());
-        channel.write(data);
+        final int size = data.getSerializedSize();
+        sentBytes.addAndGet(size);
+        channel.write(data).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (future.isSuccess()) {
+                    flushedBytes.addAndGet(size);
+                }
+            }
+        });
     }
 
     @Override
     public void onChunkRelevant(Vector3i pos, Chunk chunk) {
         invalidatedChunks.remove(pos);
-        readyChunks.put(pos, chunk);
+        readyChunks.add(pos, chunk);
     }
 
     @Override
@@ -393,13 +489,27 @@ public void onChunkIrrelevant(Vector3i pos) {
     public void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock) {
         Vector3i chunkPos = ChunkMath.calcChunkPos(pos);
         if (relevantChunks.contains(chunkPos)) {
-            queuedOutgoingBlockChanges.add(NetData.BlockChangeMessage.newBuilder()
-                    .setPos(NetMessageUtil.convert(pos))
-                    .setNewBlock(newBlock.getId())
+            queuedOutgoingBlockChanges.add(NetData.ChunkBlockChangesMessage.newBuilder()
+                    .setChunkPos(NetMessageUtil.convert(chunkPos))
+                    .addBlockIndex(NetMessageUtil.toChunkBlockIndex(pos))
+                    .addNewBlock(newBlock.getId())
                     .build());
         }
     }
 
+    @Override
+    public void onBlocksChanged(Vector3i chunkPos, Collection<BlockChange> changes) {
+        if (relevantChunks.contains(chunkPos)) {
+            NetData.ChunkBlockChangesMessage.Builder message = NetData.ChunkBlockChangesMessage.newBuilder()
+                    .setChunkPos(NetMessageUtil.convert(chunkPos));
+            for (BlockChange change : changes) {
+                message.addBlockIndex(NetMessageUtil.toChunkBlockIndex(change.getPosition()));
+                message.addNewBlock(change.getTo().getId());
+            }
+            queuedOutgoingBlockChanges.add(message.build());
+        }
+    }
+
     @Override
     public void onBiomeChanged(Vector3i pos, Biome newBiome, Biome originalBiome) {
         Vector3i chunkPos = ChunkMath.calcChunkPos(pos);
@@ -425,9 +535,9 @@ private void processReceivedMessages() {
     }
 
     private void sendEvents(NetData.NetMessage.Builder message) {
-        List<NetData.BlockChangeMessage> blockChanges = Lists.newArrayListWithExpectedSize(queuedOutgoingBlockChanges.size());
+        List<NetData.ChunkBlockChangesMessage> blockChanges = Lists.newArrayListWithExpectedSize(queuedOutgoingBlockChanges.size());
         queuedOutgoingBlockChanges.drainTo(blockChanges);
-        message.addAllBlockChange(blockChanges);
+        message.addAllChunkBlockChanges(blockChanges);
 
         List<NetData.BiomeChangeMessage> biomeChanges = Lists.newArrayListWithExpectedSize(queuedOutgoingBiomeChanges.size());
         queuedOutgoingBiomeChanges.drainTo(biomeChanges);
@@ -447,7 +557,14 @@ private void processEntityUpdates(NetData.NetMessage message) {
         }
     }
 
+    /**
+     * Sends the changes of the dirty entities. Changes of entities far away from the character that only modify
+     * existing components get sent less often, as determined by {@link ClientInterestGrid#getUpdateInterval}.
+     * Until then the entities stay dirty, unless an event targeting them gets sent in this tick, so that the client
+     * receives the event after the state it refers to.
+     */
     private void sendDirtyEntities(NetData.NetMessage.Builder message) {
+        Vector3i center = getCharacterChunkPos();
         TIntIterator dirtyIterator = netDirty.iterator();
         while (dirtyIterator.hasNext()) {
             int netId = dirtyIterator.next();
@@ -456,16 +573,38 @@ private void sendDirtyEntities(NetData.NetMessage.Builder message) {
                 logger.error("Sending non-existent entity update for netId {}", netId);
             }
             boolean isOwner = networkSystem.getOwner(entity) == this;
+            if (!isOwner && !isUpdateDue(netId, entity, center)) {
+                continue;
+            }
+            dirtyIterator.remove();
+            EntityReplicationBaseline baseline = replicationBaselines.get(netId);
+            if (baseline == null) {
+                baseline = new EntityReplicationBaseline();
+                replicationBaselines.put(netId, baseline);
+            }
             EntityData.PackedEntity entityData = entitySerializer.serialize(entity, addedComponents.get(netId), dirtyComponents.get(netId), removedComponents.get(netId),
-                    new ServerComponentFieldCheck(isOwner, false));
+                    new ServerComponentFieldCheck(isOwner, false), baseline);
             if (entityData != null) {
                 message.addUpdateEntity(NetData.UpdateEntityMessage.newBuilder().setEntity(entityData).setNetId(netId));
             }
+            addedComponents.removeAll(netId);
+            removedComponents.removeAll(netId);
+            dirtyComponents.removeAll(netId);
+        }
+        eventTargets.clear();
+    }
+
+    private boolean isUpdateDue(int netId, EntityRef entity, Vector3i center) {
+        if (eventTargets.contains(netId) || addedComponents.containsKey(netId) || removedComponents.containsKey(netId)) {
+            return true;
+        }
+        LocationComponent loc = entity.getComponent(LocationComponent.class);
+        if (loc == null) {
+            return true;
         }
-        netDirty.clear();
-        addedComponents.clear();
-        removedComponents.clear();
-        dirtyComponents.clear();
+        Vector3i chunkPos = ChunkMath.calcChunkPos(new Vector3i(loc.getWorldPosition(), 0.5f));
+        // Offset by the net id, so that the updates of far entities are spread over the ticks
+        return (netTickCount + netId) % ClientInterestGrid.getUpdateInterval(chunkPos, center) == 0;
     }
 
     private void sendRemovedEntities(NetData.NetMessage.Builder message) {
@@ -483,6 +622,7 @@ private void sendInitialEntities(NetData.NetMessage.Builder message) {
         Arrays.sort(initial);
         for (int netId : initial) {
             netRelevant.add(netId);
+            replicationBaselines.remove(netId);
             EntityRef entity = networkSystem.getEntity(netId);
             if (!entity.hasComponent(NetworkComponent.class)) {
                 logger.error("Sending net entity with no network component: {} - {}", netId, entity);
@@ -490,7 +630,9 @@ private void sendInitialEntities(NetData.NetMessage.Builder message) {
             }
             // Note: Send owner->server fields on initial create
             Client owner = networkSystem.getOwner(entity);
-            EntityData.PackedEntity entityData = entitySerializer.serialize(entity, true, new ServerComponentFieldCheck(owner == this, true)).build();
+            EntityReplicationBaseline baseline = new EntityReplicationBaseline();
+            replicationBaselines.put(netId, baseline);
+            EntityData.PackedEntity entityData = entitySerializer.serialize(entity, true, new ServerComponentFieldCheck(owner == this, true), baseline).build();
             NetData.CreateEntityMessage.Builder createMessage = NetData.CreateEntityMessage.newBuilder().setEntity(entityData);
             BlockComponent blockComponent = entity.getComponent(BlockComponent.class);
             if (blockComponent != null) {
@@ -23,6 +23,7 @@
 import com.google.common.collect.Queues;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
 import gnu.trove.map.TIntLongMap;
 import gnu.trove.map.hash.TIntLongHashMap;
@@ -56,6 +57,9 @@
 import org.terasology.entitySystem.metadata.ComponentMetadata;
 import org.terasology.entitySystem.metadata.EventLibrary;
 import org.terasology.entitySystem.metadata.EventMetadata;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.geom.Vector3i;
 import org.terasology.module.Module;
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.network.Client;
@@ -86,6 +90,7 @@
 import org.terasology.world.WorldProvider;
 import org.terasology.world.biomes.Biome;
 import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.BlockComponent;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.block.family.BlockFamily;
 import org.terasology.world.chunks.remoteChunkProvider.RemoteChunkProvider;
@@ -103,7 +108,11 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of the Network System using Netty and TCP/IP
@@ -114,6 +123,10 @@ public class NetworkSystemImpl implements EntityChangeSubscriber, NetworkSystem
     private static final Logger logger = LoggerFactory.getLogger(NetworkSystemImpl.class);
     private static final int OWNER_DEPTH_LIMIT = 50;
     private static final int NET_TICK_RATE = 50;
+    private static final int MESSAGE_WRITER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int MESSAGE_WRITER_SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final ThreadFactory MESSAGE_WRITER_THREAD_FACTORY = new ThreadFactoryBuilder()
+            .setNameFormat("Network-Writer-%d").setDaemon(true).build();
     private static final int NULL_NET_ID = 0;
 
     // Shared
@@ -142,6 +155,7 @@ public class NetworkSystemImpl implements EntityChangeSubscriber, NetworkSystem
     private int nextNetId = 1;
     private final Set<Client> clientList = Sets.newLinkedHashSet();
     private final Set<NetClient> netClientList = Sets.newLinkedHashSet();
+    private final List<Client> localClientList = Lists.newArrayList();
     private Map<EntityRef, Client> clientPlayerLookup = Maps.newHashMap();
     private Map<EntityRef, EntityRef> ownerLookup = Maps.newHashMap();
     private SetMultimap<EntityRef, EntityRef> ownedLookup = HashMultimap.create();
@@ -150,6 +164,11 @@ public class NetworkSystemImpl implements EntityChangeSubscriber, NetworkSystem
     // Client only
     private ServerImpl server;
 
+    // Server only
+    private final EncodedChunkCache encodedChunkCache = new EncodedChunkCache();
+    private final ClientInterestGrid interestGrid = new ClientInterestGrid();
+    private ExecutorService messageWriterPool;
+
     public NetworkSystemImpl(EngineTime time, Context context) {
         this.time = time;
         this.config = context.get(Config.class).getNetwork();
@@ -160,10 +179,15 @@ public void host(int port, boolean dedicatedServer) throws HostingFailedExceptio
         if (mode == NetworkMode.NONE) {
             try {
                 mode = dedicatedServer ? NetworkMode.DEDICATED_SERVER : NetworkMode.LISTEN_SERVER;
+                WorldProvider worldProvider = CoreRegistry.get(WorldProvider.class);
+                if (worldProvider != null) {
+                    worldProvider.registerListener(encodedChunkCache);
+                }
                 for (EntityRef entity : entityManager.getEntitiesWith(NetworkComponent.class)) {
                     registerNetworkEntity(entity);
                 }
                 generateSerializationTables();
+                messageWriterPool = Executors.newFixedThreadPool(MESSAGE_WRITER_THREADS, MESSAGE_WRITER_THREAD_FACTORY);
 
                 factory = new NioServerSocketChannelFactory(Executors.newCachedThreadPool(), Executors.newCachedThreadPool());
                 ServerBootstrap bootstrap = new ServerBootstrap(factory);
@@ -245,8 +269,17 @@ public JoinStatus join(String address, int port) throws InterruptedException {
     public void shutdown() {
         if (mode != NetworkMode.NONE) {
             allChannels.close().awaitUninterruptibly();
+            // The queued writes use the channels of the factory, so they have to finish before it gets released
+            shutdownMessageWriterPool();
             factory.releaseExternalResources();
         }
+        if (mode.isServer()) {
+            WorldProvider worldProvider = CoreRegistry.get(WorldProvider.class);
+            if (worldProvider != null) {
+                worldProvider.unregisterListener(encodedChunkCache);
+            }
+            encodedChunkCache.clear();
+        }
         processPendingDisconnects();
         for (Client client : clientList) {
             processRemovedClient(client);
@@ -272,6 +305,8 @@ public void shutdown() {
         entitySerializer = null;
         clientList.clear();
         netClientList.clear();
+        localClientList.clear();
+        interestGrid.clear();
         blockManager = null;
         biomeManager = null;
         ownerLookup.clear();
@@ -281,10 +316,29 @@ public void shutdown() {
         logger.info("Network shutdown");
     }
 
+    private void shutdownMessageWriterPool() {
+        if (messageWriterPool == null) {
+            return;
+        }
+        messageWriterPool.shutdown();
+        try {
+            if (!messageWriterPool.awaitTermination(MESSAGE_WRITER_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Timed out awaiting the message writer threads");
+                messageWriterPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted awaiting the message writer threads");
+            messageWriterPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        messageWriterPool = null;
+    }
+
     @Override
     public Client joinLocal(String preferredName, Color color) {
         Client localClient = new LocalClient(preferredName, color, entityManager);
         clientList.add(localClient);
+        localClientList.add(localClient);
         clientPlayerLookup.put(localClient.getEntity(), localClient);
         connectClient(localClient);
         return localClient;
@@ -349,6 +403,44 @@ public Iterable<Client> getPlayers() {
         return this.clientList;
     }
 
+    @Override
+    public Iterable<Client> getPlayersInterestedIn(EntityRef entity) {
+        Vector3i chunkPos = getInterestChunk(entity);
+        if (!mode.isServer() || chunkPos == null) {
+            return clientList;
+        }
+        Set<NetClient> interestedClients = interestGrid.getInterestedClients(chunkPos);
+        List<Client> result = Lists.newArrayListWithCapacity(localClientList.size() + interestedClients.size() + 1);
+        result.addAll(localClientList);
+        result.addAll(interestedClients);
+        NetClient owner = getNetOwner(entity);
+        if (owner != null && !interestedClients.contains(owner)) {
+            result.add(owner);
+        }
+        return result;
+    }
+
+    /**
+     * @return the chunk whose interested clients get the events of the entity, or null if all clients do. This is the
+     * case for entities without a position in the world, and for entities that are replicated regardless of where
+     * they are, such as player characters.
+     */
+    private Vector3i getInterestChunk(EntityRef entity) {
+        BlockComponent blockComp = entity.getComponent(BlockComponent.class);
+        if (blockComp != null) {
+            return ChunkMath.calcChunkPos(blockComp.getPosition());
+        }
+        NetworkComponent netComp = entity.getComponent(NetworkComponent.class);
+        if (netComp == null || netComp.replicateMode != NetworkComponent.ReplicateMode.RELEVANT) {
+            return null;
+        }
+        LocationComponent loc = entity.getComponent(LocationComponent.class);
+        if (loc != null) {
+            return ChunkMath.calcChunkPos(new Vector3i(loc.getWorldPosition(), 0.5f));
+        }
+        return null;
+    }
+
     @Override
     public Client getOwner(EntityRef entity) {
         EntityRef owner = getOwnerEntity(entity);
@@ -716,6 +808,43 @@ public int getOutgoingBytesDelta() {
         }
     }
 
+    @Override
+    public int getOutgoingChunksDelta() {
+        int total = 0;
+        if (mode.isServer()) {
+            for (NetClient client : netClientList) {
+                total += client.getMetrics().getSentChunksSinceLastCall();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public int getOutgoingCachedChunksDelta() {
+        int total = 0;
+        if (mode.isServer()) {
+            for (NetClient client : netClientList) {
+                total += client.getMetrics().getCachedChunksSentSinceLastCall();
+            }
+        }
+        return total;
+    }
+
+    EncodedChunkCache getEncodedChunkCache() {
+        return encodedChunkCache;
+    }
+
+    ClientInterestGrid getInterestGrid() {
+        return interestGrid;
+    }
+
+    /**
+     * @return the threads on which the messages to clients get built, serialized and compressed.
+     */
+    Executor getMessageWriterPool() {
+        return messageWriterPool;
+    }
+
     long getEntityId(int netId) {
         return netIdToEntityId.get(netId);
     }
@@ -762,6 +891,7 @@ private void processRemovedClient(Client client) {
             netClientList.remove(netClient);
         }
         clientList.remove(client);
+        localClientList.remove(client);
         clientPlayerLookup.remove(client.getEntity());
         logger.info("Client disconnected: " + client.getName());
         storageManager.deactivatePlayer(client);
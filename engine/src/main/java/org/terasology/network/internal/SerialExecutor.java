@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks one after another in the order they got submitted, using the threads of a shared executor. At most one
+ * task of a SerialExecutor runs at a time, while the tasks of different SerialExecutors can run in parallel.
+ */
+final class SerialExecutor implements Executor {
+    private static final Logger logger = LoggerFactory.getLogger(SerialExecutor.class);
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private boolean scheduled;
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            runQueuedTasks();
+        }
+    };
+
+    SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @throws java.util.concurrent.RejectedExecutionException if the shared executor rejects the task.
+     */
+    @Override
+    public void execute(Runnable task) {
+        synchronized (tasks) {
+            tasks.add(task);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        try {
+            executor.execute(drainTask);
+        } catch (RuntimeException e) {
+            synchronized (tasks) {
+                tasks.clear();
+                scheduled = false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * If a task throws an Error, the remaining tasks run once the next task gets submitted.
+     */
+    private void runQueuedTasks() {
+        boolean drained = false;
+        try {
+            while (true) {
+                Runnable task;
+                synchronized (tasks) {
+                    task = tasks.poll();
+                    if (task == null) {
+                        // Must happen while holding the lock, or a task submitted right now would not get run
+                        scheduled = false;
+                        drained = true;
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("Serial task failed", e);
+                }
+            }
+        } finally {
+            if (!drained) {
+                synchronized (tasks) {
+                    scheduled = false;
+                }
+            }
+        }
+    }
+}
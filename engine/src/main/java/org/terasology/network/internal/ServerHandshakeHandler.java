@@ -30,6 +30,9 @@
 import org.terasology.identity.IdentityConstants;
 import org.terasology.identity.PublicIdentityCertificate;
 import org.terasology.protobuf.NetData;
+import org.terasology.world.chunks.codec.ChunkCodec;
+import org.terasology.world.chunks.codec.ChunkCodecs;
+import org.terasology.world.chunks.codec.DeflateChunkCodec;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -64,11 +67,19 @@ public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) thr
         PublicIdentityCertificate serverPublicCert = config.getSecurity().getServerPublicCertificate();
         new SecureRandom().nextBytes(serverRandom);
 
-        serverHello = NetData.HandshakeHello.newBuilder()
+        NetData.HandshakeHello.Builder serverHelloBuilder = NetData.HandshakeHello.newBuilder()
                 .setRandom(ByteString.copyFrom(serverRandom))
                 .setCertificate(NetMessageUtil.convert(serverPublicCert))
-                .setTimestamp(System.currentTimeMillis())
-                .build();
+                .setTimestamp(System.currentTimeMillis());
+        // Preferred codec first
+        ChunkCodec preferredCodec = ChunkCodecs.getOrDefault(config.getSystem().getChunkCodec());
+        serverHelloBuilder.addSupportedChunkCodec(preferredCodec.getId());
+        for (ChunkCodec codec : ChunkCodecs.getAll()) {
+            if (codec != preferredCodec) {
+                serverHelloBuilder.addSupportedChunkCodec(codec.getId());
+            }
+        }
+        serverHello = serverHelloBuilder.build();
 
         e.getChannel().write(NetData.NetMessage.newBuilder()
                 .setHandshakeHello(serverHello)
@@ -108,6 +119,7 @@ private void processClientHandshake(NetData.HandshakeHello clientHello, NetData.
         ctx.getChannel().write(NetData.NetMessage.newBuilder()
                 .setHandshakeVerification(NetData.HandshakeVerification.newBuilder()
                         .setSignature(ByteString.copyFrom(serverSignature))).build());
+        switchToChunkCodec(clientHello.getChunkCodec(), ctx);
 
         // Identity has been established, inform the server handler and withdraw from the pipeline
         ctx.getPipeline().remove(this);
@@ -144,6 +156,7 @@ private void processNewIdentityRequest(NetData.NewIdentityRequest newIdentityReq
                     .setProvisionIdentity(NetData.ProvisionIdentity.newBuilder()
                             .setEncryptedCertificates(ByteString.copyFrom(encryptedCert)))
                     .build());
+            switchToChunkCodec(newIdentityRequest.getChunkCodec(), ctx);
 
             // Identity has been established, inform the server handler and withdraw from the pipeline
             ctx.getPipeline().remove(this);
@@ -153,4 +166,17 @@ private void processNewIdentityRequest(NetData.NewIdentityRequest newIdentityReq
             ctx.getChannel().close();
         }
     }
+
+    /**
+     * Replaces the deflate stream with the codec chosen by the client. Must be called right after the last handshake
+     * message got written, as the client switches to the codec once it received that message.
+     * Clients that do not know about codecs choose none and keep using deflate.
+     */
+    private void switchToChunkCodec(String chunkCodecId, ChannelHandlerContext ctx) {
+        ChunkCodec codec = ChunkCodecs.get(chunkCodecId);
+        if (codec != null && !DeflateChunkCodec.ID.equals(codec.getId())) {
+            logger.info("Compressing messages with chunk codec {}", codec.getId());
+            ctx.getPipeline().replace("deflateEncoder", ChunkCodecEncoder.NAME, new ChunkCodecEncoder(codec));
+        }
+    }
 }
@@ -97,7 +97,7 @@ public class ServerImpl implements Server {
     private BlockingQueue<Chunk> chunkQueue = Queues.newLinkedBlockingQueue();
     private TIntSet netDirty = new TIntHashSet();
     private SetMultimap<Integer, Class<? extends Component>> changedComponents = HashMultimap.create();
-    private ListMultimap<Vector3i, NetData.BlockChangeMessage> awaitingChunkReadyBlockUpdates = ArrayListMultimap.create();
+    private Map<Vector3i, Map<Vector3i, Block>> awaitingChunkReadyBlockUpdates = Maps.newHashMap();
     private ListMultimap<Vector3i, NetData.BiomeChangeMessage> awaitingChunkReadyBiomeUpdates = ArrayListMultimap.create();
 
     private EngineTime time;
@@ -289,18 +289,43 @@ private void processRemoveEntities(NetData.NetMessage message) {
     }
 
     private void processBlockChanges(NetData.NetMessage message) {
+        if (message.getBlockChangeCount() == 0 && message.getChunkBlockChangesCount() == 0) {
+            return;
+        }
+        WorldProvider worldProvider = CoreRegistry.get(WorldProvider.class);
+        Map<Vector3i, Block> relevantChanges = Maps.newLinkedHashMap();
         for (NetData.BlockChangeMessage blockChange : message.getBlockChangeList()) {
-            Block newBlock = blockManager.getBlock((short) blockChange.getNewBlock());
-            logger.debug("Received block change to {}", newBlock);
-            // TODO: Store changes to blocks that aren't ready to be modified (the surrounding chunks aren't available)
-            WorldProvider worldProvider = CoreRegistry.get(WorldProvider.class);
             Vector3i pos = NetMessageUtil.convert(blockChange.getPos());
-            if (worldProvider.isBlockRelevant(pos)) {
-                worldProvider.setBlock(pos, newBlock);
-            } else {
-                awaitingChunkReadyBlockUpdates.put(ChunkMath.calcChunkPos(pos), blockChange);
+            queueBlockChange(worldProvider, relevantChanges, pos, blockChange.getNewBlock());
+        }
+        for (NetData.ChunkBlockChangesMessage chunkChanges : message.getChunkBlockChangesList()) {
+            Vector3i chunkPos = NetMessageUtil.convert(chunkChanges.getChunkPos());
+            int count = Math.min(chunkChanges.getBlockIndexCount(), chunkChanges.getNewBlockCount());
+            for (int i = 0; i < count; ++i) {
+                Vector3i pos = NetMessageUtil.fromChunkBlockIndex(chunkPos, chunkChanges.getBlockIndex(i));
+                queueBlockChange(worldProvider, relevantChanges, pos, chunkChanges.getNewBlock(i));
             }
         }
+        if (!relevantChanges.isEmpty()) {
+            worldProvider.setBlocks(relevantChanges);
+        }
+    }
+
+    private void queueBlockChange(WorldProvider worldProvider, Map<Vector3i, Block> relevantChanges, Vector3i pos, int blockId) {
+        Block newBlock = blockManager.getBlock((short) blockId);
+        logger.debug("Received block change to {}", newBlock);
+        // TODO: Store changes to blocks that aren't ready to be modified (the surrounding chunks aren't available)
+        if (worldProvider.isBlockRelevant(pos)) {
+            relevantChanges.put(pos, newBlock);
+        } else {
+            Vector3i chunkPos = ChunkMath.calcChunkPos(pos);
+            Map<Vector3i, Block> awaitingChanges = awaitingChunkReadyBlockUpdates.get(chunkPos);
+            if (awaitingChanges == null) {
+                awaitingChanges = Maps.newLinkedHashMap();
+                awaitingChunkReadyBlockUpdates.put(chunkPos, awaitingChanges);
+            }
+            awaitingChanges.put(pos, newBlock);
+        }
     }
 
     private void processBiomeChanges(NetData.NetMessage message) {
@@ -322,7 +347,7 @@ private void processInvalidatedChunks(NetData.NetMessage message) {
         for (NetData.InvalidateChunkMessage chunk : message.getInvalidateChunkList()) {
             Vector3i chunkPos = NetMessageUtil.convert(chunk.getPos());
             remoteWorldProvider.invalidateChunks(chunkPos);
-            awaitingChunkReadyBlockUpdates.removeAll(chunkPos);
+            awaitingChunkReadyBlockUpdates.remove(chunkPos);
             awaitingChunkReadyBiomeUpdates.removeAll(chunkPos);
         }
     }
@@ -406,11 +431,9 @@ public NetMetricSource getMetrics() {
     public void onChunkReady(Vector3i chunkPos) {
         WorldProvider worldProvider = CoreRegistry.get(WorldProvider.class);
 
-        List<NetData.BlockChangeMessage> updateBlockMessages = awaitingChunkReadyBlockUpdates.removeAll(chunkPos);
-        for (NetData.BlockChangeMessage message : updateBlockMessages) {
-            Vector3i pos = NetMessageUtil.convert(message.getPos());
-            Block newBlock = blockManager.getBlock((short) message.getNewBlock());
-            worldProvider.setBlock(pos, newBlock);
+        Map<Vector3i, Block> updateBlocks = awaitingChunkReadyBlockUpdates.remove(chunkPos);
+        if (updateBlocks != null) {
+            worldProvider.setBlocks(updateBlocks);
         }
 
         List<NetData.BiomeChangeMessage> updateBiomeMessages = awaitingChunkReadyBiomeUpdates.removeAll(chunkPos);
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence;
+
+/**
+ * The way the chunks of a save game are stored. It gets recorded in the game manifest, as chunks can only be loaded
+ * from the format they got stored in.
+ */
+public enum ChunkStorageFormat {
+    /**
+     * One file per chunk. Only used by tests.
+     */
+    CHUNK_FILES,
+    /**
+     * Zip files that contain the chunk files of 32x32x32 chunks.
+     */
+    CHUNK_ZIPS,
+    /**
+     * Region files, see {@link org.terasology.persistence.internal.RegionFile}. Chunks that have not been migrated yet
+     * can still be in chunk zips.
+     */
+    REGION_FILES
+}
@@ -27,15 +27,17 @@
 import org.terasology.math.geom.Vector3i;
 import org.terasology.module.ModuleEnvironment;
 import org.terasology.network.ClientComponent;
+import org.terasology.persistence.ChunkStorageFormat;
 import org.terasology.persistence.ChunkStore;
 import org.terasology.persistence.PlayerStore;
 import org.terasology.persistence.StorageManager;
 import org.terasology.persistence.serializers.PrefabSerializer;
 import org.terasology.protobuf.EntityData;
 import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.codec.ChunkCodec;
+import org.terasology.world.chunks.codec.ChunkCodecs;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.FileSystem;
@@ -44,7 +46,6 @@
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
 
 /**
  * An abstract implementation of {@link StorageManager} that is able
@@ -65,15 +66,29 @@ public abstract class AbstractStorageManager implements StorageManager {
     private final PrefabSerializer prefabSerializer;
     private final OwnershipHelper helper;
 
+    private final RegionFileCache regionFileCache;
+
     private boolean storeChunksInZips = true;
+    private boolean storeChunksInRegionFiles;
+    private volatile ChunkCodec chunkCodec = ChunkCodecs.DEFLATE;
 
     public AbstractStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager, boolean storeChunksInZips) {
+        this(savePath, environment, entityManager, storeChunksInZips, false);
+    }
+
+    /**
+     * @param storeChunksInRegionFiles if true chunks get stored in region files. Takes precedence over storeChunksInZips.
+     */
+    public AbstractStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager, boolean storeChunksInZips,
+                                  boolean storeChunksInRegionFiles) {
         this.entityManager = entityManager;
         this.environment = environment;
         this.storeChunksInZips = storeChunksInZips;
+        this.storeChunksInRegionFiles = storeChunksInRegionFiles;
         this.prefabSerializer = new PrefabSerializer(entityManager.getComponentLibrary(), entityManager.getTypeSerializerLibrary());
 
         this.storagePathProvider = new StoragePathProvider(savePath);
+        this.regionFileCache = new RegionFileCache(storagePathProvider);
         this.helper = new OwnershipHelper(entityManager.getComponentLibrary());
     }
 
@@ -103,9 +118,11 @@ public ChunkStore loadChunkStore(Vector3i chunkPos) {
         byte[] chunkData = loadCompressedChunk(chunkPos);
         ChunkStore store = null;
         if (chunkData != null) {
-            ByteArrayInputStream bais = new ByteArrayInputStream(chunkData);
-            try (GZIPInputStream gzipIn = new GZIPInputStream(bais)) {
-                EntityData.ChunkStore storeData = EntityData.ChunkStore.parseFrom(gzipIn);
+            // chunks stored before the codec got changed must stay readable
+            ChunkCodec codec = ChunkCodecs.detect(chunkData);
+            try {
+                byte[] encodedChunk = codec.decompress(chunkData, 0, chunkData.length);
+                EntityData.ChunkStore storeData = EntityData.ChunkStore.parseFrom(encodedChunk);
                 store = new ChunkStoreInternal(storeData, this, entityManager);
             } catch (IOException e) {
                 logger.error("Failed to read existing saved chunk {}", chunkPos);
@@ -131,6 +148,23 @@ protected byte[] loadChunkZip(Vector3i chunkPos) {
         return chunkData;
     }
 
+    protected byte[] loadChunkFromRegionFile(Vector3i chunkPos) {
+        try {
+            RegionFile regionFile = regionFileCache.getRegionFileOfChunk(chunkPos);
+            if (regionFile != null) {
+                byte[] chunkData = regionFile.read(chunkPos);
+                if (chunkData != null) {
+                    return chunkData;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to load chunk {} from region file", chunkPos, e);
+            return null;
+        }
+        // The chunk zip might not have been migrated yet (e.g. when the save game is opened read only)
+        return loadChunkZip(chunkPos);
+    }
+
     @Override
     public void update() {
     }
@@ -146,8 +180,45 @@ void setStoreChunksInZips(boolean storeChunksInZips) {
         this.storeChunksInZips = storeChunksInZips;
     }
 
+    public boolean isStoreChunksInRegionFiles() {
+        return storeChunksInRegionFiles;
+    }
+
+    /**
+     * For tests only
+     */
+    void setStoreChunksInRegionFiles(boolean storeChunksInRegionFiles) {
+        this.storeChunksInRegionFiles = storeChunksInRegionFiles;
+    }
+
+    /**
+     * @return the format the chunks get stored in, as it gets recorded in the game manifest.
+     */
+    public ChunkStorageFormat getChunkStorageFormat() {
+        if (storeChunksInRegionFiles) {
+            return ChunkStorageFormat.REGION_FILES;
+        } else if (storeChunksInZips) {
+            return ChunkStorageFormat.CHUNK_ZIPS;
+        }
+        return ChunkStorageFormat.CHUNK_FILES;
+    }
+
+    public ChunkCodec getChunkCodec() {
+        return chunkCodec;
+    }
+
+    /**
+     * @param chunkCodec the codec with which chunks get compressed from now on. Chunks get read with the codec they
+     *                   got stored with, so it can be changed for existing save games.
+     */
+    public void setChunkCodec(ChunkCodec chunkCodec) {
+        this.chunkCodec = chunkCodec;
+    }
+
     protected byte[] loadCompressedChunk(Vector3i chunkPos) {
-        if (isStoreChunksInZips()) {
+        if (isStoreChunksInRegionFiles()) {
+            return loadChunkFromRegionFile(chunkPos);
+        } else if (isStoreChunksInZips()) {
             return loadChunkZip(chunkPos);
         } else {
             Path chunkPath = storagePathProvider.getChunkPath(chunkPos);
@@ -213,6 +284,10 @@ protected StoragePathProvider getStoragePathProvider() {
         return storagePathProvider;
     }
 
+    RegionFileCache getRegionFileCache() {
+        return regionFileCache;
+    }
+
     protected ModuleEnvironment getEnvironment() {
         return environment;
     }
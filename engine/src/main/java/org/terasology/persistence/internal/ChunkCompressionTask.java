@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.terasology.utilities.concurrency.AbstractTask;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Encodes and compresses a chunk for a {@link SaveTransaction}, so that the transaction only needs to write the result.
+ */
+class ChunkCompressionTask extends AbstractTask {
+    private final CompressedChunkBuilder compressedChunkBuilder;
+    private final CountDownLatch doneSignal;
+    private final AtomicReference<Throwable> failure;
+
+    /**
+     * @param doneSignal gets counted down once the task finished, even if it failed.
+     * @param failure    gets set to the throwable that caused the task to fail, unless another task failed before.
+     */
+    ChunkCompressionTask(CompressedChunkBuilder compressedChunkBuilder, CountDownLatch doneSignal,
+                         AtomicReference<Throwable> failure) {
+        this.compressedChunkBuilder = compressedChunkBuilder;
+        this.doneSignal = doneSignal;
+        this.failure = failure;
+    }
+
+    @Override
+    public String getName() {
+        return "Compressing chunk";
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (failure.get() == null) {
+                compressedChunkBuilder.buildEncodedChunk();
+            }
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        } finally {
+            doneSignal.countDown();
+        }
+    }
+}
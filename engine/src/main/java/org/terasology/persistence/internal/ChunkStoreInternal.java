@@ -62,6 +62,20 @@ public Chunk getChunk() {
         return chunk;
     }
 
+    /**
+     * @return the chunk without preparing it for reactivation.
+     */
+    Chunk getLoadedChunk() {
+        return chunk;
+    }
+
+    /**
+     * @return the stored entities or null if the store has not been loaded from encoded data.
+     */
+    EntityData.EntityStore getEntityStore() {
+        return entityStore;
+    }
+
     @Override
     public void restoreEntities() {
         new EntityRestorer(entityManager).restore(entityStore);
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+/**
+ * Converts the chunk zips of a save game into region files. The conversion happens one chunk zip at a time and a chunk
+ * zip gets only deleted after its chunks got written to region files. If the conversion gets interrupted it can thus
+ * simply be started again.
+ * <br><br>
+ * The world directory must not be used by anything else during the migration.
+ */
+class ChunkZipToRegionFileMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkZipToRegionFileMigrator.class);
+
+    private final StoragePathProvider storagePathProvider;
+
+    ChunkZipToRegionFileMigrator(StoragePathProvider storagePathProvider) {
+        this.storagePathProvider = storagePathProvider;
+    }
+
+    public boolean isMigrationNecessary() throws IOException {
+        Path worldPath = storagePathProvider.getWorldPath();
+        if (!Files.isDirectory(worldPath)) {
+            return false;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(worldPath)) {
+            for (Path path : stream) {
+                if (storagePathProvider.isChunkZipFilename(path.getFileName().toString())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void migrate() throws IOException {
+        Path worldPath = storagePathProvider.getWorldPath();
+        int migratedZips = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(worldPath)) {
+            for (Path chunkZipPath : stream) {
+                if (storagePathProvider.isChunkZipFilename(chunkZipPath.getFileName().toString())) {
+                    migrateChunkZip(chunkZipPath);
+                    migratedZips++;
+                }
+            }
+        }
+        logger.info("Migrated {} chunk zips to region files", migratedZips);
+    }
+
+    private void migrateChunkZip(Path chunkZipPath) throws IOException {
+        final Map<Vector3i, RegionFile> regionFiles = Maps.newHashMap();
+        try (FileSystem chunkZip = FileSystems.newFileSystem(chunkZipPath, null)) {
+            for (Path root : chunkZip.getRootDirectories()) {
+                Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        Vector3i chunkPos = storagePathProvider.getChunkPositionFromFilename(file.getFileName().toString());
+                        if (chunkPos == null) {
+                            logger.warn("Skipping unexpected file {} in chunk zip", file);
+                            return FileVisitResult.CONTINUE;
+                        }
+                        Vector3i regionPos = RegionFile.getRegionPosition(chunkPos);
+                        RegionFile regionFile = regionFiles.get(regionPos);
+                        if (regionFile == null) {
+                            Path indexPath = storagePathProvider.getRegionIndexPath(regionPos);
+                            regionFile = RegionFile.openForWriting(regionPos, indexPath,
+                                    storagePathProvider.getRegionDataPath(regionPos), indexPath);
+                            regionFiles.put(regionPos, regionFile);
+                        }
+                        regionFile.write(chunkPos, Files.readAllBytes(file));
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+        } finally {
+            for (RegionFile regionFile : regionFiles.values()) {
+                regionFile.close();
+            }
+        }
+        Files.delete(chunkZipPath);
+    }
+}
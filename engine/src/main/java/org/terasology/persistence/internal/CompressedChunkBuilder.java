@@ -18,13 +18,11 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.protobuf.EntityData;
+import org.terasology.world.chunks.codec.ChunkCodec;
 import org.terasology.world.chunks.internal.ChunkImpl;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collection;
 import java.util.Set;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * Provides an easy to get a compressed version of a chunk. Either the chunk most have a snapshot of it's state
@@ -36,6 +34,8 @@ public class CompressedChunkBuilder {
     private EntityData.EntityStore entityStore;
     private ChunkImpl chunk;
     private boolean viaSnapshot;
+    private ChunkCodec codec;
+    private int persistedDataVersion;
     private byte[] result;
     private Set<EntityRef> storedEntities;
 
@@ -45,10 +45,11 @@ public class CompressedChunkBuilder {
      * @param chunkUnloaded if true the chunk data will be used directly.  If deactivate is false then the chunk will be
      *                      but in snapshot mode so that concurrent modifications (and possibly future unload) is
      *                      possible.
+     * @param codec         the codec with which the encoded chunk gets compressed.
      */
     public CompressedChunkBuilder(EngineEntityManager entityManager, ChunkImpl chunk,
                                   Collection<EntityRef> entitiesToSave,
-                                  boolean chunkUnloaded) {
+                                  boolean chunkUnloaded, ChunkCodec codec) {
         EntityStorer storer = new EntityStorer(entityManager);
         for (EntityRef entityRef : entitiesToSave) {
             if (entityRef.isPersistent()) {
@@ -60,6 +61,8 @@ public CompressedChunkBuilder(EngineEntityManager entityManager, ChunkImpl chunk
 
         this.chunk = chunk;
         this.viaSnapshot = !chunkUnloaded;
+        this.codec = codec;
+        this.persistedDataVersion = chunk.getPersistedDataVersion();
         if (viaSnapshot) {
             this.chunk.createSnapshot();
         }
@@ -70,11 +73,15 @@ public CompressedChunkBuilder(EngineEntityManager entityManager, ChunkImpl chunk
      * @param entityStore encoded entities to be stored.
      * @param chunk       chunk for which {@link ChunkImpl#createSnapshot()} has been called.
      * @param viaSnapshot specifies if the previously taken snapshot will be encoded or if
+     * @param codec       the codec with which the encoded chunk gets compressed.
      */
-    public CompressedChunkBuilder(EntityData.EntityStore entityStore, ChunkImpl chunk, boolean viaSnapshot) {
+    public CompressedChunkBuilder(EntityData.EntityStore entityStore, ChunkImpl chunk, boolean viaSnapshot,
+                                  ChunkCodec codec) {
         this.entityStore = entityStore;
         this.chunk = chunk;
         this.viaSnapshot = viaSnapshot;
+        this.codec = codec;
+        this.persistedDataVersion = chunk.getPersistedDataVersion();
     }
 
     public synchronized byte[] buildEncodedChunk() {
@@ -88,23 +95,37 @@ public synchronized byte[] buildEncodedChunk() {
             }
             encoded.setStore(entityStore);
             EntityData.ChunkStore store = encoded.build();
-            result = compressChunkStore(store);
+            byte[] encodedChunk = store.toByteArray();
+            result = codec.compress(encodedChunk, 0, encodedChunk.length);
         }
         return result;
     }
 
-    private byte[] compressChunkStore(EntityData.ChunkStore store) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
-            store.writeTo(gzipOut);
-        } catch (IOException e) {
-            // as no real IO is involved this should not happen
-            throw new RuntimeException(e);
-        }
-        return baos.toByteArray();
-    }
-
     public Set<EntityRef> getStoredEntities() {
         return storedEntities;
     }
+
+    public ChunkImpl getChunk() {
+        return chunk;
+    }
+
+    public EntityData.EntityStore getEntityStore() {
+        return entityStore;
+    }
+
+    /**
+     * @return the {@link ChunkImpl#getPersistedDataVersion()} of the chunk at the time this builder got created.
+     */
+    public int getPersistedDataVersion() {
+        return persistedDataVersion;
+    }
+
+    /**
+     * Discards the builder without building the encoded chunk. Releases the snapshot of the chunk if one got taken.
+     */
+    public synchronized void discard() {
+        if (viaSnapshot && result == null) {
+            chunk.releaseSnapshot();
+        }
+    }
 }
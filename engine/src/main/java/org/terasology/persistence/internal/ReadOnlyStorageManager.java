@@ -41,6 +41,11 @@ public ReadOnlyStorageManager(Path savePath, ModuleEnvironment environment, Engi
         super(savePath, environment, entityManager, storeChunksInZips);
     }
 
+    public ReadOnlyStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager, boolean storeChunksInZips,
+                                  boolean storeChunksInRegionFiles) {
+        super(savePath, environment, entityManager, storeChunksInZips, storeChunksInRegionFiles);
+    }
+
     @Override
     public void finishSavingAndShutdown() {
         // don't care
@@ -41,6 +41,8 @@
 import org.terasology.network.Client;
 import org.terasology.network.ClientComponent;
 import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.ChunkStorageFormat;
+import org.terasology.persistence.ChunkStore;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
 import org.terasology.protobuf.EntityData;
 import org.terasology.reflection.copy.CopyStrategyLibrary;
@@ -63,6 +65,7 @@
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -81,6 +84,8 @@ public final class ReadWriteStorageManager extends AbstractStorageManager implem
     private static final Logger logger = LoggerFactory.getLogger(ReadWriteStorageManager.class);
 
     private final TaskMaster<Task> saveThreadManager;
+    private final TaskMaster<Task> chunkCompressionThreadManager;
+    private boolean compressChunksInParallel = true;
     private final SaveTransactionHelper saveTransactionHelper;
 
     /**
@@ -107,6 +112,10 @@ public final class ReadWriteStorageManager extends AbstractStorageManager implem
     private ConcurrentMap<Vector3i, CompressedChunkBuilder> unloadedAndSavingChunkMap = Maps.newConcurrentMap();
     private ConcurrentMap<String, EntityData.PlayerStore> unloadedAndUnsavedPlayerMap = Maps.newConcurrentMap();
     private ConcurrentMap<String, EntityData.PlayerStore> unloadedAndSavingPlayerMap = Maps.newConcurrentMap();
+    /**
+     * The states in which the loaded chunks got saved last, used to skip unchanged chunks when auto saving.
+     */
+    private ConcurrentMap<Vector3i, SavedChunkState> savedChunkStates = Maps.newConcurrentMap();
 
 
     private EngineEntityManager privateEntityManager;
@@ -122,7 +131,12 @@ public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, Eng
     }
 
     public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager, boolean storeChunksInZips) throws IOException {
-        super(savePath, environment, entityManager, storeChunksInZips);
+        this(savePath, environment, entityManager, storeChunksInZips, false);
+    }
+
+    public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager, boolean storeChunksInZips,
+                                   boolean storeChunksInRegionFiles) throws IOException {
+        super(savePath, environment, entityManager, storeChunksInZips, storeChunksInRegionFiles);
 
         entityManager.subscribeForDestruction(this);
         entityManager.subscribeForChanges(this);
@@ -131,6 +145,8 @@ public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, Eng
         Files.createDirectories(getStoragePathProvider().getStoragePathDirectory());
         this.saveTransactionHelper = new SaveTransactionHelper(getStoragePathProvider());
         this.saveThreadManager = TaskMaster.createFIFOTaskMaster("Saving", 1);
+        int compressionThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.chunkCompressionThreadManager = TaskMaster.createFIFOTaskMaster("Chunk-Compressing", compressionThreads);
         this.config = CoreRegistry.get(Config.class);
         this.entityRefReplacingComponentLibrary = privateEntityManager.getComponentLibrary()
                 .createCopyUsingCopyStrategy(EntityRef.class, new DelayedEntityRefCopyStrategy(this));
@@ -145,9 +161,17 @@ private static EngineEntityManager createPrivateEntityManager(ComponentLibrary c
         return pojoEntityManager;
     }
 
+    /**
+     * @param compressChunksInParallel if false, the saving thread compresses the chunks itself while writing them.
+     */
+    void setCompressChunksInParallel(boolean compressChunksInParallel) {
+        this.compressChunksInParallel = compressChunksInParallel;
+    }
+
     @Override
     public void finishSavingAndShutdown() {
         saveThreadManager.shutdown(new ShutdownTask(), true);
+        chunkCompressionThreadManager.shutdown(new ShutdownTask(), true);
         checkSaveTransactionAndClearUpIfItIsDone();
     }
 
@@ -159,6 +183,12 @@ private void checkSaveTransactionAndClearUpIfItIsDone() {
                 if (t != null) {
                     throw new RuntimeException("Saving failed", t);
                 }
+                for (Map.Entry<Vector3i, SavedChunkState> entry : saveTransaction.getNewSavedChunkStates().entrySet()) {
+                    // Chunks that got unloaded during the save got queued for saving on their own
+                    if (!entry.getValue().getChunk().isDisposed()) {
+                        savedChunkStates.put(entry.getKey(), entry.getValue());
+                    }
+                }
                 saveTransaction = null;
             }
             unloadedAndSavingChunkMap.clear();
@@ -236,7 +266,7 @@ public void requestSaving() {
     @Override
     public void waitForCompletionOfPreviousSaveAndStartSaving() {
         waitForCompletionOfPreviousSave();
-        startSaving();
+        startSaving(false);
     }
 
     private void waitForCompletionOfPreviousSave() {
@@ -247,9 +277,17 @@ private void waitForCompletionOfPreviousSave() {
         checkSaveTransactionAndClearUpIfItIsDone();
     }
 
-    private SaveTransaction createSaveTransaction() {
+    /**
+     * @param incremental if true, loaded chunks that did not change since they got saved last will not be saved.
+     */
+    private SaveTransaction createSaveTransaction(boolean incremental) {
         SaveTransactionBuilder saveTransactionBuilder = new SaveTransactionBuilder(privateEntityManager,
-                entitySetDeltaRecorder, isStoreChunksInZips(), getStoragePathProvider(), worldDirectoryWriteLock);
+                entitySetDeltaRecorder, isStoreChunksInZips(), isStoreChunksInRegionFiles(), getStoragePathProvider(),
+                getRegionFileCache(), compressChunksInParallel ? chunkCompressionThreadManager : null,
+                worldDirectoryWriteLock);
+        saveTransactionBuilder.setIncremental(incremental);
+        saveTransactionBuilder.setChunkCodec(getChunkCodec());
+        saveTransactionBuilder.setSavedChunkStates(Maps.newHashMap(savedChunkStates));
 
         ChunkProvider chunkProvider = CoreRegistry.get(ChunkProvider.class);
         NetworkSystem networkSystem = CoreRegistry.get(NetworkSystem.class);
@@ -311,14 +349,32 @@ private PlayerStoreBuilder createPlayerStore(Client client, EntityRef character)
     public void deactivateChunk(Chunk chunk) {
         Collection<EntityRef> entitiesOfChunk = getEntitiesOfChunk(chunk);
         ChunkImpl chunkImpl = (ChunkImpl) chunk; // storage manager only works with ChunkImpl
-        unloadedAndUnsavedChunkMap.put(chunk.getPosition(), new CompressedChunkBuilder(getEntityManager(), chunkImpl,
-                entitiesOfChunk, true));
+        CompressedChunkBuilder compressedChunkBuilder = new CompressedChunkBuilder(getEntityManager(), chunkImpl,
+                entitiesOfChunk, true, getChunkCodec());
+        SavedChunkState savedState = savedChunkStates.remove(chunk.getPosition());
+        if (savedState == null || !savedState.isUpToDate(compressedChunkBuilder)) {
+            unloadedAndUnsavedChunkMap.put(chunk.getPosition(), compressedChunkBuilder);
+        }
 
         for (EntityRef entity : entitiesOfChunk) {
             deactivateOrDestroyEntityRecursive(entity);
         }
     }
 
+    @Override
+    public ChunkStore loadChunkStore(Vector3i chunkPos) {
+        boolean unsaved = unloadedAndUnsavedChunkMap.containsKey(chunkPos) || unloadedAndSavingChunkMap.containsKey(chunkPos);
+        ChunkStore store = super.loadChunkStore(chunkPos);
+        if (store != null && !unsaved) {
+            // The chunk is in the state it got saved in:
+            ChunkStoreInternal storeInternal = (ChunkStoreInternal) store;
+            ChunkImpl chunk = (ChunkImpl) storeInternal.getLoadedChunk();
+            savedChunkStates.put(chunkPos, new SavedChunkState(chunk, chunk.getPersistedDataVersion(),
+                    storeInternal.getEntityStore()));
+        }
+        return store;
+    }
+
     @Override
     protected byte[] loadCompressedChunk(Vector3i chunkPos) {
         CompressedChunkBuilder disposedUnsavedChunk = unloadedAndUnsavedChunkMap.get(chunkPos);
@@ -369,6 +425,7 @@ private void addGameManifestToSaveTransaction(SaveTransactionBuilder saveTransac
         }
         gameManifest.setBiomeIdMap(biomeIdMap);
         gameManifest.addWorld(worldProvider.getWorldInfo());
+        gameManifest.setChunkStorageFormat(getChunkStorageFormat());
         saveTransactionBuilder.setGameManifest(gameManifest);
     }
 
@@ -382,8 +439,10 @@ public void update() {
         }
 
         checkSaveTransactionAndClearUpIfItIsDone();
-        if (saveRequested || isSavingNecessary()) {
-            startSaving();
+        if (saveRequested) {
+            startSaving(false);
+        } else if (isSavingNecessary()) {
+            startSaving(true);
         }
     }
 
@@ -392,7 +451,11 @@ private boolean isRunModeAllowSaving() {
         return networkSystem.getMode().isAuthority();
     }
 
-    private void startSaving() {
+    /**
+     * @param incremental true for auto saves, which skip unchanged chunks. A full save happens on shutdown and on
+     *                    request.
+     */
+    private void startSaving(boolean incremental) {
         logger.info("Saving - Creating game snapshot");
         PerformanceMonitor.startActivity("Auto Saving");
         ComponentSystemManager componentSystemManager = CoreRegistry.get(ComponentSystemManager.class);
@@ -401,7 +464,7 @@ private void startSaving() {
         }
 
         saveRequested = false;
-        saveTransaction = createSaveTransaction();
+        saveTransaction = createSaveTransaction(incremental);
         saveThreadManager.offer(saveTransaction);
 
         for (ComponentSystem sys : componentSystemManager.iterateAll()) {
@@ -444,10 +507,40 @@ public boolean isSaving() {
 
     @Override
     public void checkAndRepairSaveIfNecessary() throws IOException {
+        getRegionFileCache().closeAll();
         saveTransactionHelper.cleanupSaveTransactionDirectory();
         if (Files.exists(getStoragePathProvider().getUnmergedChangesPath())) {
             saveTransactionHelper.mergeChanges();
         }
+        if (isStoreChunksInRegionFiles()) {
+            ChunkZipToRegionFileMigrator migrator = new ChunkZipToRegionFileMigrator(getStoragePathProvider());
+            if (migrator.isMigrationNecessary() && recordRegionFileStorageInManifest()) {
+                logger.info("Migrating chunk zips to region files");
+                migrator.migrate();
+            }
+        }
+    }
+
+    /**
+     * Records in the game manifest that the chunks are stored in region files, before any chunk zip gets deleted.
+     * That way the region files keep being used even if region file storage gets disabled in the config later.
+     *
+     * @return false if there is no game manifest to record the format in.
+     */
+    private boolean recordRegionFileStorageInManifest() throws IOException {
+        Path manifestPath = getStoragePathProvider().getGameManifestPath();
+        if (!Files.isRegularFile(manifestPath)) {
+            logger.warn("Not migrating chunk zips to region files, as the save game has no manifest");
+            return false;
+        }
+        GameManifest gameManifest = GameManifest.load(manifestPath);
+        if (gameManifest.getChunkStorageFormat() != ChunkStorageFormat.REGION_FILES) {
+            gameManifest.setChunkStorageFormat(ChunkStorageFormat.REGION_FILES);
+            Path tempPath = manifestPath.resolveSibling(GameManifest.DEFAULT_FILE_NAME + ".tmp");
+            GameManifest.save(tempPath, gameManifest);
+            Files.move(tempPath, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return true;
     }
 
 
@@ -458,6 +551,8 @@ public void deleteWorld() {
         unloadedAndSavingChunkMap.clear();
         unloadedAndUnsavedPlayerMap.clear();
         unloadedAndSavingPlayerMap.clear();
+        savedChunkStates.clear();
+        getRegionFileCache().closeAll();
 
         try {
             FilesUtil.recursiveDelete(getStoragePathProvider().getWorldPath());
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.terasology.math.geom.Vector3i;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Stores the compressed chunks of a cubic region of {@link #REGION_DIM}^3 chunks in two files:
+ * <ul>
+ * <li>A data file that consists of fixed size sectors of {@link #SECTOR_SIZE} bytes. Each chunk occupies a run of
+ * consecutive sectors.</li>
+ * <li>An index file with a fixed size header that stores sector offset and byte length of every chunk. The index
+ * gets memory mapped.</li>
+ * </ul>
+ * A region file that got opened for writing never overwrites sectors that are referenced by the index it got opened
+ * with. Instead it writes a new index to a separate path. That way the index can be committed together with the
+ * rest of a {@link SaveTransaction} via the rename based merge, while the chunk data gets appended in place.
+ * <br><br>
+ * A region file can also be opened for writing in place, with the committed index as new index. Sectors of replaced
+ * chunks get reused right away then, which is only safe if the written chunks can be recovered from elsewhere after
+ * a crash.
+ * <br><br>
+ * Readers should only be used on committed region files, which do not change until a newer index gets merged.
+ */
+class RegionFile implements Closeable {
+    public static final int REGION_DIM = 32;
+    public static final int SECTOR_SIZE = 4096;
+
+    private static final int MAGIC = 0x54524731; // "TRG1"
+    private static final int HEADER_SIZE = 8;
+    private static final int ENTRY_SIZE = 8;
+    private static final int ENTRY_COUNT = REGION_DIM * REGION_DIM * REGION_DIM;
+    private static final int INDEX_SIZE = HEADER_SIZE + ENTRY_COUNT * ENTRY_SIZE;
+
+    private final Vector3i regionPos;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer index;
+    private final FileChannel dataChannel;
+    private final boolean writable;
+
+    /**
+     * Sectors referenced by the index the file got opened with, which must not be overwritten. Only used when
+     * writing, and empty when writing in place.
+     */
+    private BitSet committedSectors;
+    /**
+     * Sectors referenced by the index that is being written. Only used when writing.
+     */
+    private BitSet usedSectors;
+
+    private RegionFile(Vector3i regionPos, FileChannel indexChannel, MappedByteBuffer index, FileChannel dataChannel,
+                       boolean writable, boolean inPlace) throws IOException {
+        this.regionPos = new Vector3i(regionPos);
+        this.indexChannel = indexChannel;
+        this.index = index;
+        this.dataChannel = dataChannel;
+        this.writable = writable;
+        if (index.getInt(0) != MAGIC) {
+            index.putInt(0, MAGIC);
+        }
+        if (writable) {
+            usedSectors = new BitSet();
+            for (int i = 0; i < ENTRY_COUNT; ++i) {
+                int length = getLength(i);
+                if (length > 0) {
+                    int offset = getSectorOffset(i);
+                    usedSectors.set(offset, offset + sectorsFor(length));
+                }
+            }
+            committedSectors = inPlace ? new BitSet() : (BitSet) usedSectors.clone();
+        }
+    }
+
+    /**
+     * Opens a committed region file for reading.
+     *
+     * @return the region file or null if there is no such region file.
+     */
+    public static RegionFile openForReading(Vector3i regionPos, Path indexPath, Path dataPath) throws IOException {
+        if (!Files.isRegularFile(indexPath) || !Files.isRegularFile(dataPath)) {
+            return null;
+        }
+        FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ);
+        if (indexChannel.size() != INDEX_SIZE) {
+            indexChannel.close();
+            throw new IOException("Region index " + indexPath + " has an unexpected size of " + indexChannel.size());
+        }
+        MappedByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, INDEX_SIZE);
+        if (index.getInt(0) != MAGIC) {
+            indexChannel.close();
+            throw new IOException("Region index " + indexPath + " is not a valid region index");
+        }
+        FileChannel dataChannel = FileChannel.open(dataPath, StandardOpenOption.READ);
+        return new RegionFile(regionPos, indexChannel, index, dataChannel, false, false);
+    }
+
+    /**
+     * Opens a region file for writing. The data file gets modified in place, but only sectors that are not used by
+     * the committed index get written. The updated index gets written to newIndexPath.
+     *
+     * @param indexPath    the committed index, which might not exist yet.
+     * @param newIndexPath the path the updated index gets written to. If it is the committed index, the region file
+     *                     gets written in place and replaced chunks free their sectors immediately.
+     */
+    public static RegionFile openForWriting(Vector3i regionPos, Path indexPath, Path dataPath, Path newIndexPath)
+            throws IOException {
+        Files.createDirectories(newIndexPath.getParent());
+        Files.createDirectories(dataPath.getParent());
+        if (Files.isRegularFile(indexPath)) {
+            if (!indexPath.equals(newIndexPath)) {
+                Files.copy(indexPath, newIndexPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } else {
+            Files.deleteIfExists(newIndexPath);
+        }
+        FileChannel indexChannel = FileChannel.open(newIndexPath, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        MappedByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_SIZE);
+        FileChannel dataChannel = FileChannel.open(dataPath, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        return new RegionFile(regionPos, indexChannel, index, dataChannel, true, indexPath.equals(newIndexPath));
+    }
+
+    public static Vector3i getRegionPosition(Vector3i chunkPos) {
+        return new Vector3i(Math.floorDiv(chunkPos.x, REGION_DIM), Math.floorDiv(chunkPos.y, REGION_DIM),
+                Math.floorDiv(chunkPos.z, REGION_DIM));
+    }
+
+    public Vector3i getRegionPos() {
+        return regionPos;
+    }
+
+    public boolean contains(Vector3i chunkPos) {
+        return getLength(entryIndex(chunkPos)) > 0;
+    }
+
+    /**
+     * @return the compressed chunk or null if the region file does not contain the chunk.
+     */
+    public synchronized byte[] read(Vector3i chunkPos) throws IOException {
+        int entry = entryIndex(chunkPos);
+        int length = getLength(entry);
+        if (length <= 0) {
+            return null;
+        }
+        long position = (long) getSectorOffset(entry) * SECTOR_SIZE;
+        if (position + length > dataChannel.size()) {
+            throw new IOException("Region " + regionPos + " references chunk data beyond the end of the file");
+        }
+        byte[] result = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(result);
+        while (buffer.hasRemaining()) {
+            int read = dataChannel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of the data file of region " + regionPos);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the chunk to free sectors of the data file and updates the new index to reference them.
+     */
+    public synchronized void write(Vector3i chunkPos, byte[] compressedChunk) throws IOException {
+        if (!writable) {
+            throw new IllegalStateException("Region file got opened read only");
+        }
+        int entry = entryIndex(chunkPos);
+        int oldLength = getLength(entry);
+        if (oldLength > 0) {
+            int oldOffset = getSectorOffset(entry);
+            // Sectors of the committed index must stay intact till the new index got merged:
+            for (int sector = oldOffset; sector < oldOffset + sectorsFor(oldLength); ++sector) {
+                if (!committedSectors.get(sector)) {
+                    usedSectors.clear(sector);
+                }
+            }
+        }
+        int sectorCount = sectorsFor(compressedChunk.length);
+        int offset = findFreeSectors(sectorCount);
+        ByteBuffer buffer = ByteBuffer.wrap(compressedChunk);
+        long position = (long) offset * SECTOR_SIZE;
+        while (buffer.hasRemaining()) {
+            position += dataChannel.write(buffer, position);
+        }
+        usedSectors.set(offset, offset + sectorCount);
+        index.putInt(HEADER_SIZE + entry * ENTRY_SIZE, offset);
+        index.putInt(HEADER_SIZE + entry * ENTRY_SIZE + 4, compressedChunk.length);
+    }
+
+    /**
+     * Makes sure the chunk data is on disk before the new index gets committed.
+     */
+    public synchronized void flush() throws IOException {
+        if (writable) {
+            dataChannel.force(false);
+            index.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        try {
+            dataChannel.close();
+        } finally {
+            indexChannel.close();
+        }
+    }
+
+    private int findFreeSectors(int count) {
+        int start = usedSectors.nextClearBit(0);
+        while (true) {
+            int nextUsed = usedSectors.nextSetBit(start);
+            if (nextUsed == -1 || nextUsed - start >= count) {
+                return start;
+            }
+            start = usedSectors.nextClearBit(nextUsed);
+        }
+    }
+
+    private int entryIndex(Vector3i chunkPos) {
+        int x = chunkPos.x - regionPos.x * REGION_DIM;
+        int y = chunkPos.y - regionPos.y * REGION_DIM;
+        int z = chunkPos.z - regionPos.z * REGION_DIM;
+        if (x < 0 || y < 0 || z < 0 || x >= REGION_DIM || y >= REGION_DIM || z >= REGION_DIM) {
+            throw new IllegalArgumentException("Chunk " + chunkPos + " is not part of region " + regionPos);
+        }
+        return x + REGION_DIM * (y + REGION_DIM * z);
+    }
+
+    private int getSectorOffset(int entry) {
+        return index.getInt(HEADER_SIZE + entry * ENTRY_SIZE);
+    }
+
+    private int getLength(int entry) {
+        return index.getInt(HEADER_SIZE + entry * ENTRY_SIZE + 4);
+    }
+
+    private static int sectorsFor(int length) {
+        return (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    }
+}
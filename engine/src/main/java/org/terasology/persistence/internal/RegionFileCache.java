@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Keeps the committed region files open for reading, so that loading a chunk does not need to open any file.
+ * <br><br>
+ * The cached region files must be closed via {@link #closeAll()} before the world directory gets modified by a merge
+ * of a {@link SaveTransaction}, as the cached indices would be outdated afterwards.
+ */
+class RegionFileCache {
+    private static final Logger logger = LoggerFactory.getLogger(RegionFileCache.class);
+
+    private final StoragePathProvider storagePathProvider;
+    private final Map<Vector3i, RegionFile> openRegionFiles = Maps.newHashMap();
+
+    RegionFileCache(StoragePathProvider storagePathProvider) {
+        this.storagePathProvider = storagePathProvider;
+    }
+
+    /**
+     * @return the committed region file that contains the chunk or null if no such region file exists.
+     */
+    public synchronized RegionFile getRegionFileOfChunk(Vector3i chunkPos) throws IOException {
+        Vector3i regionPos = RegionFile.getRegionPosition(chunkPos);
+        RegionFile regionFile = openRegionFiles.get(regionPos);
+        if (regionFile == null && !openRegionFiles.containsKey(regionPos)) {
+            regionFile = RegionFile.openForReading(regionPos, storagePathProvider.getRegionIndexPath(regionPos),
+                    storagePathProvider.getRegionDataPath(regionPos));
+            // null gets cached too, to avoid file system lookups for regions that have not been saved yet
+            openRegionFiles.put(regionPos, regionFile);
+        }
+        return regionFile;
+    }
+
+    public synchronized void closeAll() {
+        for (RegionFile regionFile : openRegionFiles.values()) {
+            if (regionFile != null) {
+                try {
+                    regionFile.close();
+                } catch (IOException e) {
+                    logger.error("Failed to close region file {}", regionFile.getRegionPos(), e);
+                }
+            }
+        }
+        openRegionFiles.clear();
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.terasology.persistence.internal;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -33,6 +34,9 @@
 import org.terasology.network.ClientComponent;
 import org.terasology.protobuf.EntityData;
 import org.terasology.utilities.concurrency.AbstractTask;
+import org.terasology.utilities.concurrency.Task;
+import org.terasology.utilities.concurrency.TaskMaster;
+import org.terasology.world.chunks.codec.ChunkCodec;
 import org.terasology.world.chunks.internal.ChunkImpl;
 
 import java.io.BufferedOutputStream;
@@ -55,11 +59,17 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 
 /**
  * Task that writes a previously created memory snapshot of the game to the disk.
  * <br><br>
+ * The chunks get encoded and compressed in parallel on the chunk compression threads, if there are any. Everything
+ * else, including writing the files and merging them into the save game, happens on the thread running this task.
+ * <br><br>
  * The result of this task can be obtained via {@link #getResult()}.
  *
  * @author Florian
@@ -80,38 +90,56 @@ public class SaveTransaction extends AbstractTask {
     private final Map<Vector3i, CompressedChunkBuilder> unloadedChunks;
     private final Map<Vector3i, ChunkImpl> loadedChunks;
     private final GlobalStoreBuilder globalStoreBuilder;
+    private final Map<Vector3i, SavedChunkState> savedChunkStates;
 
     // processed data:
     private EntityData.GlobalStore globalStore;
     private Map<String, EntityData.PlayerStore> allPlayers;
     private Map<Vector3i, CompressedChunkBuilder> allChunks;
+    private final Map<Vector3i, SavedChunkState> newSavedChunkStates = Maps.newHashMap();
+    private int skippedChunkCount;
 
 
     // Save parameters:
+    private final boolean incremental;
     private final boolean storeChunksInZips;
+    private final boolean storeChunksInRegionFiles;
+    private final ChunkCodec chunkCodec;
 
     // utility classes for saving:
     private final StoragePathProvider storagePathProvider;
     private final SaveTransactionHelper saveTransactionHelper;
+    private final RegionFileCache regionFileCache;
+    private final TaskMaster<Task> chunkCompressionThreadManager;
+
+    private final Map<String, Long> stageDurations = Maps.newLinkedHashMap();
 
 
     public SaveTransaction(EngineEntityManager privateEntityManager, EntitySetDeltaRecorder deltaToSave,
                            Map<String, EntityData.PlayerStore> unloadedPlayers,
                            Map<String, PlayerStoreBuilder> loadedPlayers, GlobalStoreBuilder globalStoreBuilder,
                            Map<Vector3i, CompressedChunkBuilder> unloadedChunks, Map<Vector3i, ChunkImpl> loadedChunks,
-                           GameManifest gameManifest, boolean storeChunksInZips,
-                           StoragePathProvider storagePathProvider, Lock worldDirectoryWriteLock) {
+                           Map<Vector3i, SavedChunkState> savedChunkStates, boolean incremental,
+                           GameManifest gameManifest, boolean storeChunksInZips, boolean storeChunksInRegionFiles,
+                           ChunkCodec chunkCodec, StoragePathProvider storagePathProvider, RegionFileCache regionFileCache,
+                           TaskMaster<Task> chunkCompressionThreadManager, Lock worldDirectoryWriteLock) {
         this.privateEntityManager = privateEntityManager;
         this.deltaToSave = deltaToSave;
         this.unloadedPlayers = unloadedPlayers;
         this.loadedPlayers = loadedPlayers;
         this.unloadedChunks = unloadedChunks;
         this.loadedChunks = loadedChunks;
+        this.savedChunkStates = savedChunkStates;
+        this.incremental = incremental;
         this.globalStoreBuilder = globalStoreBuilder;
         this.gameManifest = gameManifest;
         this.storeChunksInZips = storeChunksInZips;
+        this.storeChunksInRegionFiles = storeChunksInRegionFiles;
+        this.chunkCodec = chunkCodec;
         this.storagePathProvider = storagePathProvider;
         this.saveTransactionHelper = new SaveTransactionHelper(storagePathProvider);
+        this.regionFileCache = regionFileCache;
+        this.chunkCompressionThreadManager = chunkCompressionThreadManager;
         this.worldDirectoryWriteLock = worldDirectoryWriteLock;
     }
 
@@ -127,24 +155,59 @@ public void run() {
                 // should not happen, as initialization should clean it up
                 throw new IOException("Save rand while there were unmerged changes");
             }
+            Stopwatch stopwatch = Stopwatch.createStarted();
             saveTransactionHelper.cleanupSaveTransactionDirectory();
             applyDeltaToPrivateEntityManager();
+            recordStageDuration("Applying entity deltas", stopwatch);
             prepareChunksPlayersAndGlobalStore();
+            recordStageDuration("Preparing stores", stopwatch);
+            compressChunks();
+            recordStageDuration("Compressing chunks", stopwatch);
             createSaveTransactionDirectory();
             writePlayerStores();
             writeGlobalStore();
             writeChunkStores();
             saveGameManifest();
+            recordStageDuration("Writing files", stopwatch);
             perpareChangesForMerge();
             mergeChanges();
+            recordStageDuration("Merging changes", stopwatch);
             result = SaveTransactionResult.createSuccessResult();
-            logger.info("Save game finished");
+            logger.info("Save game finished, {} chunks written, {} unchanged chunks skipped, stage durations in ms: {}",
+                    allChunks.size(), skippedChunkCount, stageDurations);
         } catch (Throwable t) {
             logger.error("Save game creation failed", t);
             result = SaveTransactionResult.createFailureResult(t);
         }
     }
 
+    private void recordStageDuration(String stage, Stopwatch stopwatch) {
+        stageDurations.put(stage, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        stopwatch.reset().start();
+    }
+
+    /**
+     * Encodes and compresses the chunks on the chunk compression threads. The chunk builders cache the result, so
+     * that writing them out afterwards is cheap.
+     */
+    private void compressChunks() throws InterruptedException {
+        if (chunkCompressionThreadManager == null) {
+            return;
+        }
+        CountDownLatch doneSignal = new CountDownLatch(allChunks.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (CompressedChunkBuilder compressedChunkBuilder : allChunks.values()) {
+            ChunkCompressionTask task = new ChunkCompressionTask(compressedChunkBuilder, doneSignal, failure);
+            if (!chunkCompressionThreadManager.offer(task)) {
+                task.run();
+            }
+        }
+        doneSignal.await();
+        if (failure.get() != null) {
+            throw new RuntimeException("Failed to compress chunk", failure.get());
+        }
+    }
+
     private void prepareChunksPlayersAndGlobalStore() {
         /**
          * Currently loaded persistent entities without owner that have not been saved yet.
@@ -162,6 +225,9 @@ private void prepareChunksPlayersAndGlobalStore() {
 
 
     /**
+     * Loaded chunks that have not changed since they got saved last are skipped when the save is incremental. Their
+     * entities still count as saved, as the chunk store on disk contains them already.
+     *
      * @param unsavedEntities currently loaded persistent entities without owner that have not been saved yet.
      *                        This method removes entities it saves.
      */
@@ -178,9 +244,16 @@ private void prepareCompressedChunkBuilders(Set<EntityRef> unsavedEntities) {
             ChunkImpl chunk = chunkEntry.getValue();
             unsavedEntities.removeAll(entitiesToStore);
             CompressedChunkBuilder compressedChunkBuilder = new CompressedChunkBuilder(privateEntityManager, chunk,
-                    entitiesToStore, false);
+                    entitiesToStore, false, chunkCodec);
             unsavedEntities.removeAll(compressedChunkBuilder.getStoredEntities());
-            allChunks.put(chunkEntry.getKey(), compressedChunkBuilder);
+            SavedChunkState savedState = savedChunkStates.get(chunkEntry.getKey());
+            if (incremental && savedState != null && savedState.isUpToDate(compressedChunkBuilder)) {
+                compressedChunkBuilder.discard();
+                skippedChunkCount++;
+            } else {
+                allChunks.put(chunkEntry.getKey(), compressedChunkBuilder);
+                newSavedChunkStates.put(chunkEntry.getKey(), SavedChunkState.createFrom(compressedChunkBuilder));
+            }
         }
     }
 
@@ -371,7 +444,9 @@ private void writeChunkStores() throws IOException {
 
         Path chunksPath = storagePathProvider.getWorldTempPath();
         Files.createDirectories(chunksPath);
-        if (storeChunksInZips) {
+        if (storeChunksInRegionFiles) {
+            writeChunkStoresToRegionFiles();
+        } else if (storeChunksInZips) {
             Map<Vector3i, FileSystem> newChunkZips = Maps.newHashMap();
             for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : allChunks.entrySet()) {
                 Vector3i chunkPos = entry.getKey();
@@ -426,6 +501,32 @@ public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
         }
     }
 
+    /**
+     * Appends the chunks to the data files of their regions. The updated region indices get written to the save
+     * transaction directory, so that the new chunk data becomes only visible once the changes got merged.
+     */
+    private void writeChunkStoresToRegionFiles() throws IOException {
+        Map<Vector3i, RegionFile> regionFiles = Maps.newHashMap();
+        try {
+            for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : allChunks.entrySet()) {
+                Vector3i chunkPos = entry.getKey();
+                Vector3i regionPos = RegionFile.getRegionPosition(chunkPos);
+                RegionFile regionFile = regionFiles.get(regionPos);
+                if (regionFile == null) {
+                    regionFile = RegionFile.openForWriting(regionPos, storagePathProvider.getRegionIndexPath(regionPos),
+                            storagePathProvider.getRegionDataPath(regionPos),
+                            storagePathProvider.getRegionIndexTempPath(regionPos));
+                    regionFiles.put(regionPos, regionFile);
+                }
+                regionFile.write(chunkPos, entry.getValue().buildEncodedChunk());
+            }
+        } finally {
+            for (RegionFile regionFile : regionFiles.values()) {
+                regionFile.close();
+            }
+        }
+    }
+
     private FileSystemProvider getZipFileSystemProvider() throws IOException {
         // This is a little bit of a hack to get around a JAVA 7 bug (hopefully fixed in JAVA 8
         FileSystemProvider zipProvider = null;
@@ -442,6 +543,22 @@ private FileSystemProvider getZipFileSystemProvider() throws IOException {
     }
 
 
+    /**
+     * @return the duration of each stage of the transaction in milliseconds, in the order the stages got executed.
+     * Must only be used once the transaction finished.
+     */
+    public Map<String, Long> getStageDurations() {
+        return stageDurations;
+    }
+
+    /**
+     * @return the states of the loaded chunks that got written by this transaction. Must only be used once the
+     * transaction finished successfully.
+     */
+    public Map<Vector3i, SavedChunkState> getNewSavedChunkStates() {
+        return newSavedChunkStates;
+    }
+
     /**
      * @return the result if there is one yet or null. This method returns the value of a volatile variable and
      * can thus be used even from another thread.
@@ -462,6 +579,8 @@ private void saveGameManifest() {
     private void mergeChanges() throws IOException {
         worldDirectoryWriteLock.lock();
         try {
+            // the indices of open region files are outdated after the merge:
+            regionFileCache.closeAll();
             saveTransactionHelper.mergeChanges();
         } finally {
             worldDirectoryWriteLock.unlock();
@@ -20,6 +20,10 @@
 import org.terasology.game.GameManifest;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.concurrency.Task;
+import org.terasology.utilities.concurrency.TaskMaster;
+import org.terasology.world.chunks.codec.ChunkCodec;
+import org.terasology.world.chunks.codec.ChunkCodecs;
 import org.terasology.world.chunks.internal.ChunkImpl;
 
 import java.util.Map;
@@ -38,18 +42,28 @@ class SaveTransactionBuilder {
     private Map<String, PlayerStoreBuilder> loadedPlayers = Maps.newHashMap();
     private Map<Vector3i, CompressedChunkBuilder> unloadedChunks = Maps.newHashMap();
     private Map<Vector3i, ChunkImpl> loadedChunks = Maps.newHashMap();
+    private Map<Vector3i, SavedChunkState> savedChunkStates = Maps.newHashMap();
+    private boolean incremental;
     private GlobalStoreBuilder globalStoreBuilder;
     private final boolean storeChunksInZips;
+    private final boolean storeChunksInRegionFiles;
+    private ChunkCodec chunkCodec = ChunkCodecs.DEFLATE;
     private final StoragePathProvider storagePathProvider;
+    private final RegionFileCache regionFileCache;
+    private final TaskMaster<Task> chunkCompressionThreadManager;
     private GameManifest gameManifest;
 
     SaveTransactionBuilder(EngineEntityManager privateEntityManager, EntitySetDeltaRecorder deltaToSave,
-                           boolean storeChunksInZips, StoragePathProvider storagePathProvider,
-                           Lock worldDirectoryWriteLock) {
+                           boolean storeChunksInZips, boolean storeChunksInRegionFiles,
+                           StoragePathProvider storagePathProvider, RegionFileCache regionFileCache,
+                           TaskMaster<Task> chunkCompressionThreadManager, Lock worldDirectoryWriteLock) {
         this.privateEntityManager = privateEntityManager;
         this.deltaToSave = deltaToSave;
         this.storeChunksInZips = storeChunksInZips;
+        this.storeChunksInRegionFiles = storeChunksInRegionFiles;
         this.storagePathProvider = storagePathProvider;
+        this.regionFileCache = regionFileCache;
+        this.chunkCompressionThreadManager = chunkCompressionThreadManager;
         this.worldDirectoryWriteLock = worldDirectoryWriteLock;
     }
 
@@ -74,9 +88,31 @@ public void addLoadedChunk(final Vector3i chunkPosition, final ChunkImpl chunk)
         loadedChunks.put(chunkPosition, chunk);
     }
 
+    /**
+     * @param savedChunkStates the states of the loaded chunks as they got saved last.
+     */
+    public void setSavedChunkStates(Map<Vector3i, SavedChunkState> savedChunkStates) {
+        this.savedChunkStates = savedChunkStates;
+    }
+
+    /**
+     * @param incremental if true, loaded chunks that did not change since they got saved last are not saved again.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @param chunkCodec the codec with which the loaded chunks get compressed.
+     */
+    public void setChunkCodec(ChunkCodec chunkCodec) {
+        this.chunkCodec = chunkCodec;
+    }
+
     public SaveTransaction build() {
         return new SaveTransaction(privateEntityManager, deltaToSave, unloadedPlayers, loadedPlayers, globalStoreBuilder,
-                unloadedChunks, loadedChunks, gameManifest, storeChunksInZips, storagePathProvider,
+                unloadedChunks, loadedChunks, savedChunkStates, incremental, gameManifest, storeChunksInZips,
+                storeChunksInRegionFiles, chunkCodec, storagePathProvider, regionFileCache, chunkCompressionThreadManager,
                 worldDirectoryWriteLock);
 
     }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import org.terasology.protobuf.EntityData;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+/**
+ * Describes the state in which a loaded chunk got stored by the last successful save (or in which it got loaded).
+ * <br><br>
+ * A chunk does not need to be saved again as long as neither its persisted data version nor the entities that would be
+ * stored with it changed.
+ */
+final class SavedChunkState {
+    private final ChunkImpl chunk;
+    private final int persistedDataVersion;
+    private final EntityData.EntityStore entityStore;
+
+    SavedChunkState(ChunkImpl chunk, int persistedDataVersion, EntityData.EntityStore entityStore) {
+        this.chunk = chunk;
+        this.persistedDataVersion = persistedDataVersion;
+        this.entityStore = entityStore;
+    }
+
+    static SavedChunkState createFrom(CompressedChunkBuilder builder) {
+        return new SavedChunkState(builder.getChunk(), builder.getPersistedDataVersion(), builder.getEntityStore());
+    }
+
+    public ChunkImpl getChunk() {
+        return chunk;
+    }
+
+    /**
+     * @return true if the builder would store exactly what already got saved.
+     */
+    public boolean isUpToDate(CompressedChunkBuilder builder) {
+        // Reloaded chunks are new instances and their persisted data version starts again at 0:
+        return builder.getChunk() == chunk
+                && builder.getPersistedDataVersion() == persistedDataVersion
+                && builder.getEntityStore().equals(entityStore);
+    }
+}
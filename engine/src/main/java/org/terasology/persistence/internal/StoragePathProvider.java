@@ -20,6 +20,8 @@
 import org.terasology.math.geom.Vector3i;
 
 import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author Florian
@@ -31,7 +33,11 @@ public class StoragePathProvider {
     private static final String GLOBAL_ENTITY_STORE = "global.dat";
     private static final String UNFINISHED_SAVE_TRANSACTION = "unfinished-save-transaction";
     private static final String UNMERGED_CHANGED = "unmerged-changes";
+    private static final String CHUNK_ZIP_EXTENSION = ".chunks.zip";
+    private static final String REGION_INDEX_EXTENSION = ".idx";
+    private static final String REGION_DATA_EXTENSION = ".dat";
     private static final int CHUNK_ZIP_DIM = 32;
+    private static final Pattern CHUNK_FILENAME_PATTERN = Pattern.compile("(-?\\d+)\\.(-?\\d+)\\.(-?\\d+)\\.chunk");
 
     private final Path storagePathDirectory;
     private final Path playersPath;
@@ -103,11 +109,47 @@ public String getChunkFilename(Vector3i pos) {
         return String.format("%d.%d.%d.chunk", pos.x, pos.y, pos.z);
     }
 
+    /**
+     * @return the chunk position encoded in a filename created by {@link #getChunkFilename(Vector3i)} or null if the
+     * filename has not been created by that method.
+     */
+    public Vector3i getChunkPositionFromFilename(String filename) {
+        Matcher matcher = CHUNK_FILENAME_PATTERN.matcher(filename);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new Vector3i(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                Integer.parseInt(matcher.group(3)));
+    }
+
 
     private String getChunkZipFilename(Vector3i pos) {
         return String.format("%d.%d.%d.chunks.zip", pos.x, pos.y, pos.z);
     }
 
+    public boolean isChunkZipFilename(String filename) {
+        return filename.endsWith(CHUNK_ZIP_EXTENSION);
+    }
+
+    public Path getRegionIndexPath(Vector3i regionPos) {
+        return worldPath.resolve(getRegionFilename(regionPos) + REGION_INDEX_EXTENSION);
+    }
+
+    public Path getRegionIndexTempPath(Vector3i regionPos) {
+        return getWorldTempPath().resolve(getRegionFilename(regionPos) + REGION_INDEX_EXTENSION);
+    }
+
+    /**
+     * The data part of region files gets appended in place, so there is no temporary variant of this path.
+     */
+    public Path getRegionDataPath(Vector3i regionPos) {
+        return worldPath.resolve(getRegionFilename(regionPos) + REGION_DATA_EXTENSION);
+    }
+
+    private String getRegionFilename(Vector3i regionPos) {
+        return String.format("%d.%d.%d.region", regionPos.x, regionPos.y, regionPos.z);
+    }
+
     public Vector3i getChunkZipPosition(Vector3i chunkPos) {
         Vector3i result = new Vector3i(chunkPos);
         result.div(CHUNK_ZIP_DIM);
@@ -132,6 +174,10 @@ public Path getChunkTempPath(Vector3i chunkPos) {
     }
 
 
+    public Path getGameManifestPath() {
+        return storagePathDirectory.resolve(GameManifest.DEFAULT_FILE_NAME);
+    }
+
     public Path getGameManifestTempPath() {
         return unfinishedSaveTransactionPath.resolve(GameManifest.DEFAULT_FILE_NAME);
     }
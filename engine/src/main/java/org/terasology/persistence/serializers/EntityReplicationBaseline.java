@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import com.google.common.collect.Maps;
+import gnu.trove.map.TByteObjectMap;
+import gnu.trove.map.hash.TByteObjectHashMap;
+import org.terasology.entitySystem.Component;
+import org.terasology.protobuf.EntityData;
+
+import java.util.Map;
+
+/**
+ * The field values last sent to a client for the components of an entity. Updates serialized against the baseline
+ * only contain the fields whose serialized value changed since, and update the baseline in turn.
+ * <br><br>
+ * This relies on the sent updates reaching the client in order, which the network channel guarantees.
+ */
+public class EntityReplicationBaseline {
+    private final Map<Class<? extends Component>, TByteObjectMap<EntityData.Value>> sentFields = Maps.newHashMap();
+
+    /**
+     * @return the last sent values of the component's fields by field id, or null if the component was never sent.
+     */
+    TByteObjectMap<EntityData.Value> getSentFields(Class<? extends Component> componentType) {
+        return sentFields.get(componentType);
+    }
+
+    TByteObjectMap<EntityData.Value> getOrCreateSentFields(Class<? extends Component> componentType) {
+        TByteObjectMap<EntityData.Value> fields = sentFields.get(componentType);
+        if (fields == null) {
+            fields = new TByteObjectHashMap<>();
+            sentFields.put(componentType, fields);
+        }
+        return fields;
+    }
+
+    public void removeComponent(Class<? extends Component> componentType) {
+        sentFields.remove(componentType);
+    }
+
+    public void clear() {
+        sentFields.clear();
+    }
+}
@@ -111,7 +111,8 @@ private Event deserializeOnto(Event targetEvent, EntityData.Event eventData, Eve
                 continue;
             }
             if (fieldInfo.isReplicated()) {
-                serializer.deserializeOnto(targetEvent, fieldInfo, new ProtobufPersistedData(eventData.getFieldValue(i)), deserializationContext);
+                EntityData.Value value = QuantizedValues.dequantize(fieldInfo, eventData.getFieldValue(i));
+                serializer.deserializeOnto(targetEvent, fieldInfo, new ProtobufPersistedData(value), deserializationContext);
             }
         }
         return targetEvent;
@@ -140,7 +141,7 @@ public EntityData.Event serialize(Event event) {
             if (field.isReplicated()) {
                 EntityData.Value serializedValue = ((ProtobufPersistedData) eventSerializer.serialize(field, event, serializationContext)).getValue();
                 if (serializedValue != null) {
-                    eventData.addFieldValue(serializedValue);
+                    eventData.addFieldValue(QuantizedValues.quantize(field, serializedValue));
                     fieldIds.write(field.getId());
                 }
             }
@@ -23,6 +23,7 @@
 import com.google.common.collect.Sets;
 import com.google.common.primitives.UnsignedBytes;
 import com.google.protobuf.ByteString;
+import gnu.trove.map.TByteObjectMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.Component;
@@ -84,15 +85,32 @@ public void setIdMapping(Map<Class<? extends Component>, Integer> componentIdMap
     }
 
     public EntityData.PackedEntity.Builder serialize(EntityRef entity, boolean deltaAgainstPrefab, FieldSerializeCheck<Component> fieldCheck) {
+        return serialize(entity, deltaAgainstPrefab, fieldCheck, null);
+    }
+
+    /**
+     * Serializes the whole entity.
+     *
+     * @param baseline if not null, it gets reset to the field values the receiver has after deserializing the result.
+     */
+    public EntityData.PackedEntity.Builder serialize(EntityRef entity, boolean deltaAgainstPrefab, FieldSerializeCheck<Component> fieldCheck,
+                                                     EntityReplicationBaseline baseline) {
+        if (baseline != null) {
+            baseline.clear();
+        }
         Prefab prefab = entity.getParentPrefab();
         if (prefab != null && deltaAgainstPrefab) {
-            return serializeEntityDelta(entity, prefab, fieldCheck);
+            return serializeEntityDelta(entity, prefab, fieldCheck, baseline);
         } else {
-            return serializeEntityFull(entity, fieldCheck);
+            return serializeEntityFull(entity, fieldCheck, baseline);
         }
     }
 
-    private EntityData.PackedEntity.Builder serializeEntityFull(EntityRef entityRef, FieldSerializeCheck<Component> fieldCheck) {
+    private static TByteObjectMap<EntityData.Value> getSentFields(EntityReplicationBaseline baseline, Class<? extends Component> componentType) {
+        return (baseline != null) ? baseline.getOrCreateSentFields(componentType) : null;
+    }
+
+    private EntityData.PackedEntity.Builder serializeEntityFull(EntityRef entityRef, FieldSerializeCheck<Component> fieldCheck, EntityReplicationBaseline baseline) {
         EntityData.PackedEntity.Builder entity = EntityData.PackedEntity.newBuilder();
         ByteString.Output fieldIds = ByteString.newOutput();
         ByteString.Output componentFieldCounts = ByteString.newOutput();
@@ -101,7 +119,8 @@ private EntityData.PackedEntity.Builder serializeEntityFull(EntityRef entityRef,
                 continue;
             }
 
-            serializeComponentFull(component, false, fieldCheck, entity, fieldIds, componentFieldCounts, true);
+            serializeComponentFull(component, false, fieldCheck, entity, fieldIds, componentFieldCounts, true,
+                    getSentFields(baseline, component.getClass()));
         }
         entity.setFieldIds(fieldIds.toByteString());
         entity.setComponentFieldCounts(componentFieldCounts.toByteString());
@@ -109,7 +128,8 @@ private EntityData.PackedEntity.Builder serializeEntityFull(EntityRef entityRef,
         return entity;
     }
 
-    private EntityData.PackedEntity.Builder serializeEntityDelta(EntityRef entityRef, Prefab prefab, FieldSerializeCheck<Component> fieldCheck) {
+    private EntityData.PackedEntity.Builder serializeEntityDelta(EntityRef entityRef, Prefab prefab, FieldSerializeCheck<Component> fieldCheck,
+                                                              EntityReplicationBaseline baseline) {
         EntityData.PackedEntity.Builder entity = EntityData.PackedEntity.newBuilder();
         entity.setParentPrefabUri(prefab.getName());
         Set<Class<? extends Component>> presentClasses = Sets.newHashSet();
@@ -125,10 +145,11 @@ private EntityData.PackedEntity.Builder serializeEntityDelta(EntityRef entityRef
 
             Component prefabComponent = prefab.getComponent(component.getClass());
 
+            TByteObjectMap<EntityData.Value> sentFields = getSentFields(baseline, component.getClass());
             if (prefabComponent == null) {
-                serializeComponentFull(component, false, fieldCheck, entity, fieldIds, componentFieldCounts, true);
+                serializeComponentFull(component, false, fieldCheck, entity, fieldIds, componentFieldCounts, true, sentFields);
             } else {
-                serializeComponentDelta(prefabComponent, component, fieldCheck, entity, fieldIds, componentFieldCounts, true);
+                serializeComponentDelta(prefabComponent, component, fieldCheck, entity, fieldIds, componentFieldCounts, true, sentFields);
             }
         }
         entity.setFieldIds(fieldIds.toByteString());
@@ -142,9 +163,13 @@ private EntityData.PackedEntity.Builder serializeEntityDelta(EntityRef entityRef
         return entity;
     }
 
+    /**
+     * @param sentFields if not null, the values the receiver ends up with get recorded in it. This includes the values
+     *                   of unchanged fields, which the receiver gets from the old component.
+     */
     private void serializeComponentDelta(Component oldComponent, Component newComponent, FieldSerializeCheck<Component> fieldCheck,
                                          EntityData.PackedEntity.Builder entityData, ByteString.Output entityFieldIds, ByteString.Output componentFieldCounts,
-                                         boolean componentInitial) {
+                                         boolean componentInitial, TByteObjectMap<EntityData.Value> sentFields) {
         ComponentMetadata<?> componentMetadata = componentLibrary.getMetadata(oldComponent.getClass());
         if (componentMetadata == null) {
             logger.error("Unregistered component type: {}", oldComponent.getClass());
@@ -160,12 +185,21 @@ private void serializeComponentDelta(Component oldComponent, Component newCompon
                 if (!Objects.equal(oldValue, newValue)) {
                     PersistedData data = serializer.serializeValue(field, newValue, serializationContext);
                     if (!data.isNull()) {
+                        EntityData.Value value = QuantizedValues.quantize(field, ((ProtobufPersistedData) data).getValue());
                         entityFieldIds.write(field.getId());
-                        entityData.addFieldValue(((ProtobufPersistedData) data).getValue());
+                        entityData.addFieldValue(value);
+                        if (sentFields != null) {
+                            sentFields.put(field.getId(), value);
+                        }
                         fieldCount++;
                     } else {
                         logger.error("Exception serializing component type: {}, field: {} - returned null", componentMetadata, field);
                     }
+                } else if (sentFields != null) {
+                    PersistedData data = serializer.serializeValue(field, newValue, serializationContext);
+                    if (!data.isNull()) {
+                        sentFields.put(field.getId(), QuantizedValues.quantize(field, ((ProtobufPersistedData) data).getValue()));
+                    }
                 }
             }
         }
@@ -176,9 +210,12 @@ private void serializeComponentDelta(Component oldComponent, Component newCompon
         }
     }
 
+    /**
+     * @param sentFields if not null, the serialized field values get recorded in it.
+     */
     private void serializeComponentFull(Component component, boolean ignoreIfNoFields, FieldSerializeCheck<Component> fieldCheck,
                                         EntityData.PackedEntity.Builder entityData, ByteString.Output entityFieldIds, ByteString.Output componentFieldCounts,
-                                        boolean componentInitial) {
+                                        boolean componentInitial, TByteObjectMap<EntityData.Value> sentFields) {
         ComponentMetadata<?> componentMetadata = componentLibrary.getMetadata(component.getClass());
         if (componentMetadata == null) {
             logger.error("Unregistered component type: {}", component.getClass());
@@ -190,9 +227,12 @@ private void serializeComponentFull(Component component, boolean ignoreIfNoField
         for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
             if (fieldCheck.shouldSerializeField(field, component, componentInitial)) {
                 PersistedData fieldValue = serializer.serialize(field, component, serializationContext);
+                EntityData.Value value = QuantizedValues.quantize(field, ((ProtobufPersistedData) fieldValue).getValue());
                 entityFieldIds.write(field.getId());
-
-                entityData.addFieldValue(((ProtobufPersistedData) fieldValue).getValue());
+                entityData.addFieldValue(value);
+                if (sentFields != null) {
+                    sentFields.put(field.getId(), value);
+                }
                 fieldCount++;
             }
         }
@@ -203,6 +243,43 @@ private void serializeComponentFull(Component component, boolean ignoreIfNoField
         }
     }
 
+    /**
+     * Serializes the fields of the component whose values differ from the ones last sent, and records the new values.
+     * <br><br>
+     * The changed fields are identified by the same per-field id list that full updates use. A field id costs one
+     * byte per sent field, whereas a bitmask over all fields costs a byte per eight fields of the component whether
+     * they changed or not. Updates usually change few fields, so the id list is the smaller of the two.
+     */
+    private void serializeComponentChanges(Component component, FieldSerializeCheck<Component> fieldCheck, EntityData.PackedEntity.Builder entityData,
+                                           ByteString.Output entityFieldIds, ByteString.Output componentFieldCounts,
+                                           TByteObjectMap<EntityData.Value> sentFields) {
+        ComponentMetadata<?> componentMetadata = componentLibrary.getMetadata(component.getClass());
+        if (componentMetadata == null) {
+            logger.error("Unregistered component type: {}", component.getClass());
+            return;
+        }
+
+        Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        byte fieldCount = 0;
+        for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
+            if (fieldCheck.shouldSerializeField(field, component, false)) {
+                PersistedData fieldValue = serializer.serialize(field, component, serializationContext);
+                EntityData.Value value = QuantizedValues.quantize(field, ((ProtobufPersistedData) fieldValue).getValue());
+                if (!value.equals(sentFields.get(field.getId()))) {
+                    entityFieldIds.write(field.getId());
+                    entityData.addFieldValue(value);
+                    sentFields.put(field.getId(), value);
+                    fieldCount++;
+                }
+            }
+        }
+
+        if (fieldCount != 0) {
+            entityData.addComponentId(idTable.get(component.getClass()));
+            componentFieldCounts.write(fieldCount);
+        }
+    }
+
     public void deserializeOnto(MutableComponentContainer entity, EntityData.PackedEntity entityData) {
         deserializeOnto(entity, entityData, FieldSerializeCheck.NullCheck.<Component>newInstance());
     }
@@ -234,7 +311,8 @@ public void deserializeOnto(MutableComponentContainer entity, EntityData.PackedE
                 ReplicatedFieldMetadata fieldMetadata = metadata.getField(fieldId);
                 if (fieldMetadata != null && fieldCheck.shouldDeserialize(metadata, fieldMetadata)) {
                     logger.trace("Deserializing field {} of component {} as value {}", fieldMetadata, metadata, entityData.getFieldValue(fieldPos));
-                    serializer.deserializeOnto(component, fieldMetadata, new ProtobufPersistedData(entityData.getFieldValue(fieldPos)), deserializationContext);
+                    EntityData.Value value = QuantizedValues.dequantize(fieldMetadata, entityData.getFieldValue(fieldPos));
+                    serializer.deserializeOnto(component, fieldMetadata, new ProtobufPersistedData(value), deserializationContext);
                 }
                 fieldPos++;
             }
@@ -273,6 +351,19 @@ public EntityRef deserialize(EntityData.PackedEntity entityData) {
 
     public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extends Component>> added, Set<Class<? extends Component>> changed,
                                              Set<Class<? extends Component>> removed, FieldSerializeCheck<Component> fieldCheck) {
+        return serialize(entityRef, added, changed, removed, fieldCheck, null);
+    }
+
+    /**
+     * Serializes the changes of an entity.
+     *
+     * @param baseline if not null, changed components only contain the fields that differ from what was last sent
+     *                 according to the baseline, and the baseline gets updated with the serialized values.
+     * @return the serialized changes, or null if there are none.
+     */
+    public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extends Component>> added, Set<Class<? extends Component>> changed,
+                                             Set<Class<? extends Component>> removed, FieldSerializeCheck<Component> fieldCheck,
+                                             EntityReplicationBaseline baseline) {
         EntityData.PackedEntity.Builder entity = EntityData.PackedEntity.newBuilder();
 
         ByteString.Output fieldIds = ByteString.newOutput();
@@ -282,18 +373,28 @@ public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extend
             if (component == null) {
                 logger.error("Non-existent component marked as added: {}", componentType);
             }
-            serializeComponentFull(entityRef.getComponent(componentType), false, fieldCheck, entity, fieldIds, componentFieldCounts, true);
+            TByteObjectMap<EntityData.Value> sentFields = null;
+            if (baseline != null) {
+                baseline.removeComponent(componentType);
+                sentFields = baseline.getOrCreateSentFields(componentType);
+            }
+            serializeComponentFull(entityRef.getComponent(componentType), false, fieldCheck, entity, fieldIds, componentFieldCounts, true, sentFields);
         }
         for (Class<? extends Component> componentType : changed) {
             Component comp = entityRef.getComponent(componentType);
-            if (comp != null) {
-                serializeComponentFull(comp, true, fieldCheck, entity, fieldIds, componentFieldCounts, false);
-            } else {
+            if (comp == null) {
                 logger.error("Non-existent component marked as changed: {}", componentType);
+            } else if (baseline != null) {
+                serializeComponentChanges(comp, fieldCheck, entity, fieldIds, componentFieldCounts, baseline.getOrCreateSentFields(componentType));
+            } else {
+                serializeComponentFull(comp, true, fieldCheck, entity, fieldIds, componentFieldCounts, false, null);
             }
         }
         for (Class<? extends Component> componentType : removed) {
             entity.addRemovedComponent(idTable.get(componentType));
+            if (baseline != null) {
+                baseline.removeComponent(componentType);
+            }
         }
         entity.setFieldIds(fieldIds.toByteString());
         entity.setComponentFieldCounts(componentFieldCounts.toByteString());
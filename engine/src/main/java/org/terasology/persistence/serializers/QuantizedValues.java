@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import org.terasology.entitySystem.metadata.ReplicatedFieldMetadata;
+import org.terasology.protobuf.EntityData;
+
+/**
+ * Converts the floats of serialized {@link org.terasology.network.Quantized} fields to integer multiples of the
+ * field's precision and back. Protobuf encodes the integers with fewer bytes than floats as long as they are small.
+ * <br><br>
+ * Values that can't be represented that way are left unchanged, and stay recognizable by still containing floats.
+ */
+final class QuantizedValues {
+
+    private QuantizedValues() {
+    }
+
+    static EntityData.Value quantize(ReplicatedFieldMetadata<?, ?> field, EntityData.Value value) {
+        if (!field.isQuantized() || value.getFloatCount() == 0 || value.getIntegerCount() != 0) {
+            return value;
+        }
+        double precision = field.getQuantizationPrecision();
+        EntityData.Value.Builder result = EntityData.Value.newBuilder();
+        for (int i = 0; i < value.getFloatCount(); ++i) {
+            float floatValue = value.getFloat(i);
+            if (Float.isNaN(floatValue) || Float.isInfinite(floatValue)) {
+                return value;
+            }
+            long steps = Math.round(floatValue / precision);
+            if (steps > Integer.MAX_VALUE || steps < Integer.MIN_VALUE) {
+                return value;
+            }
+            result.addInteger((int) steps);
+        }
+        return result.build();
+    }
+
+    static EntityData.Value dequantize(ReplicatedFieldMetadata<?, ?> field, EntityData.Value value) {
+        if (!field.isQuantized() || value.getIntegerCount() == 0 || value.getFloatCount() != 0) {
+            return value;
+        }
+        double precision = field.getQuantizationPrecision();
+        EntityData.Value.Builder result = EntityData.Value.newBuilder();
+        for (int i = 0; i < value.getIntegerCount(); ++i) {
+            result.addFloat((float) (value.getInteger(i) * precision));
+        }
+        return result.build();
+    }
+}
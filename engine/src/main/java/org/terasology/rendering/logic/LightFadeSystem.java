@@ -34,6 +34,13 @@ public class LightFadeSystem extends BaseComponentSystem implements UpdateSubscr
     @In
     private EntityManager entityManager;
 
+    private Iterable<EntityRef> fadingLights;
+
+    @Override
+    public void initialise() {
+        fadingLights = entityManager.registerQuery(LightFadeComponent.class, LightComponent.class);
+    }
+
     @ReceiveEvent(components = LightFadeComponent.class)
     public void startLightFade(OnActivatedComponent event, EntityRef entity, LightComponent light) {
         light.simulateFading = true;
@@ -48,7 +55,7 @@ public void stopLightFade(BeforeDeactivateComponent event, EntityRef entity, Lig
 
     @Override
     public void update(float delta) {
-        for (EntityRef fadingLight : entityManager.getEntitiesWith(LightFadeComponent.class, LightComponent.class)) {
+        for (EntityRef fadingLight : fadingLights) {
             LightFadeComponent fade = fadingLight.getComponent(LightFadeComponent.class);
             LightComponent light = fadingLight.getComponent(LightComponent.class);
 
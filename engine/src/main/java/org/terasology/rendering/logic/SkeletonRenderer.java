@@ -83,6 +83,12 @@ public class SkeletonRenderer extends BaseComponentSystem implements RenderSyste
     private Config config;
 
     private Random random = new Random();
+    private Iterable<EntityRef> skeletons;
+
+    @Override
+    public void initialise() {
+        skeletons = entityManager.registerQuery(SkeletalMeshComponent.class, LocationComponent.class);
+    }
 
     @ReceiveEvent(components = {SkeletalMeshComponent.class, LocationComponent.class})
     public void newSkeleton(OnActivatedComponent event, EntityRef entity) {
@@ -112,7 +118,7 @@ public void newSkeleton(OnActivatedComponent event, EntityRef entity) {
 
     @Override
     public void update(float delta) {
-        for (EntityRef entity : entityManager.getEntitiesWith(SkeletalMeshComponent.class, LocationComponent.class)) {
+        for (EntityRef entity : skeletons) {
             updateSkeletalMeshOfEntity(entity, delta);
         }
     }
@@ -221,7 +227,7 @@ public void renderOpaque() {
         FloatBuffer tempMatrixBuffer44 = BufferUtils.createFloatBuffer(16);
         FloatBuffer tempMatrixBuffer33 = BufferUtils.createFloatBuffer(12);
 
-        for (EntityRef entity : entityManager.getEntitiesWith(SkeletalMeshComponent.class, LocationComponent.class)) {
+        for (EntityRef entity : skeletons) {
             SkeletalMeshComponent skeletalMesh = entity.getComponent(SkeletalMeshComponent.class);
             if (skeletalMesh.mesh == null || skeletalMesh.material == null || skeletalMesh.boneEntities == null || !skeletalMesh.material.isRenderable()) {
                 continue;
@@ -306,7 +312,7 @@ public void renderOverlay() {
             FloatBuffer tempMatrixBuffer44 = BufferUtils.createFloatBuffer(16);
             FloatBuffer tempMatrixBuffer33 = BufferUtils.createFloatBuffer(12);
 
-            for (EntityRef entity : entityManager.getEntitiesWith(SkeletalMeshComponent.class, LocationComponent.class)) {
+            for (EntityRef entity : skeletons) {
                 LocationComponent location = entity.getComponent(LocationComponent.class);
 
                 location.getWorldPosition(worldPos);
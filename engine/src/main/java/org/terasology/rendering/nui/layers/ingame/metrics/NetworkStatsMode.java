@@ -52,6 +52,8 @@ public String getMetrics() {
             builder.append(String.format("In Bytes: %d%n", networkSystem.getIncomingBytesDelta()));
             builder.append(String.format("Out Msg: %d%n", networkSystem.getOutgoingMessagesDelta()));
             builder.append(String.format("Out Bytes: %d%n", networkSystem.getOutgoingBytesDelta()));
+            builder.append(String.format("Out Chunks: %d (%d cached)%n", networkSystem.getOutgoingChunksDelta(),
+                    networkSystem.getOutgoingCachedChunksDelta()));
             if (lastTime != 0) {
                 // ignore the first update as it will not have useful data
                 lastMetric = builder.toString();
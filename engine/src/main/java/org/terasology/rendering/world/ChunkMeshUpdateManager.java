@@ -21,6 +21,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.math.ChunkMath;
+import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.monitoring.chunk.ChunkMonitor;
@@ -55,6 +56,8 @@ public final class ChunkMeshUpdateManager {
 
     private final BlockingDeque<RenderableChunk> chunksComplete = Queues.newLinkedBlockingDeque();
 
+    private final Set<ChunkUpdateTask> unfinishedTasks = Sets.newSetFromMap(new ConcurrentHashMap<ChunkUpdateTask, Boolean>());
+
     private TaskMaster<ChunkTask> chunkUpdater;
 
     private final ChunkTessellator tessellator;
@@ -95,13 +98,16 @@ public boolean queueChunkUpdate(RenderableChunk chunk) {
     /**
      * The method tells the chunk mesh update manager where the camera is, so that is able to prioritize chunks near the
      * camera. It stores the values in volatile variables so that the change is visible to the chunk updating threads
-     * immediately.
+     * immediately. The queued updates only get reordered when the camera entered another chunk.
      */
     public void setCameraPosition(Vector3f cameraPosition) {
         Vector3i chunkPos = ChunkMath.calcChunkPos(cameraPosition);
-        cameraChunkPosX = chunkPos.x;
-        cameraChunkPosY = chunkPos.y;
-        cameraChunkPosZ = chunkPos.z;
+        if (chunkPos.x != cameraChunkPosX || chunkPos.y != cameraChunkPosY || chunkPos.z != cameraChunkPosZ) {
+            cameraChunkPosX = chunkPos.x;
+            cameraChunkPosY = chunkPos.y;
+            cameraChunkPosZ = chunkPos.z;
+            chunkUpdater.reprioritize();
+        }
     }
 
     public List<RenderableChunk> availableChunksForUpdate() {
@@ -115,6 +121,7 @@ private void executeChunkUpdate(final RenderableChunk c) {
         chunksProcessing.add(c);
 
         ChunkUpdateTask task = new ChunkUpdateTask(c, tessellator, worldProvider, this);
+        unfinishedTasks.add(task);
         try {
             chunkUpdater.put(task);
         } catch (InterruptedException e) {
@@ -122,10 +129,23 @@ private void executeChunkUpdate(final RenderableChunk c) {
         }
     }
 
-    private void finishedProcessing(RenderableChunk c) {
+    private void finishedProcessing(ChunkUpdateTask task, RenderableChunk c) {
+        unfinishedTasks.remove(task);
         chunksComplete.add(c);
     }
 
+    /**
+     * Cancels the queued updates of chunks outside of the given region. The chunks get returned by
+     * {@link #availableChunksForUpdate()} without a pending mesh.
+     */
+    public void cancelUpdatesOutside(Region3i chunkRegion) {
+        for (ChunkUpdateTask task : unfinishedTasks) {
+            if (!chunkRegion.encompasses(task.getPosition())) {
+                task.cancel();
+            }
+        }
+    }
+
     public void shutdown() {
         chunkUpdater.shutdown(new ShutdownChunkTask(), false);
     }
@@ -137,17 +157,31 @@ private static class ChunkUpdateTask implements ChunkTask {
         private ChunkTessellator tessellator;
         private WorldProvider worldProvider;
         private ChunkMeshUpdateManager chunkMeshUpdateManager;
+        private final Vector3i position;
+        private volatile boolean cancelled;
 
         public ChunkUpdateTask(RenderableChunk chunk, ChunkTessellator tessellator, WorldProvider worldProvider, ChunkMeshUpdateManager chunkMeshUpdateManager) {
             this.chunkMeshUpdateManager = chunkMeshUpdateManager;
             this.c = chunk;
             this.tessellator = tessellator;
             this.worldProvider = worldProvider;
+            this.position = chunk.getPosition();
         }
 
         @Override
         public Vector3i getPosition() {
-            return c.getPosition();
+            // c gets cleared once the task finished
+            return position;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
         }
 
         @Override
@@ -163,16 +197,21 @@ public boolean isTerminateSignal() {
         @Override
         public void run() {
             ChunkMesh newMesh;
-            ChunkView chunkView = worldProvider.getLocalView(c.getPosition());
-            if (chunkView != null) {
-                c.setDirty(false);
-                newMesh = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
-
-                c.setPendingMesh(newMesh);
-                ChunkMonitor.fireChunkTessellated(c.getPosition(), newMesh);
-
+            if (cancelled) {
+                // the chunk stays dirty, so that it gets updated again once it is close enough
+                ChunkMonitor.fireChunkTaskCancelled();
+            } else {
+                ChunkView chunkView = worldProvider.getLocalView(c.getPosition());
+                if (chunkView != null) {
+                    c.setDirty(false);
+                    newMesh = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+
+                    c.setPendingMesh(newMesh);
+                    ChunkMonitor.fireChunkTessellated(c.getPosition(), newMesh);
+
+                }
             }
-            chunkMeshUpdateManager.finishedProcessing(c);
+            chunkMeshUpdateManager.finishedProcessing(this, c);
             // Clean these up because the task executor holds the object in memory.
             c = null;
             tessellator = null;
@@ -216,6 +216,7 @@ public boolean updateChunksInProximity(Region3i newRenderableRegion) {
                 Collections.sort(chunksInProximityOfCamera, new ChunkFrontToBackComparator());
             }
             renderableRegion = newRenderableRegion;
+            chunkMeshUpdateManager.cancelUpdatesOutside(renderableRegion);
             return true;
         }
         return false;
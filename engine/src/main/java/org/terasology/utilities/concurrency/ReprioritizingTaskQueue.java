@@ -0,0 +1,439 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.concurrency;
+
+import com.google.common.collect.Lists;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A blocking queue for tasks whose priority changes over time, e.g. because it depends on the position of the player.
+ * <br><br>
+ * The tasks are kept in a binary heap, so that taking the most important task costs O(log n). The comparator is
+ * expected to give a stable order until {@link #reprioritize()} gets called, e.g. when the player entered another
+ * chunk. The heap order only gets restored then, instead of comparing all tasks on every dequeue.
+ * <br><br>
+ * While many tasks are queued, a consumer thread takes a small batch of the most important tasks at once into its
+ * local queue, so that the consumers contend less for the heap. Consumers without work steal tasks from the local
+ * queues of the others, and a waiting consumer gets woken up for each batched task. Tasks that signal termination are
+ * never batched, so that each consumer receives one of them.
+ */
+public class ReprioritizingTaskQueue<T extends Task> extends AbstractQueue<T> implements BlockingQueue<T> {
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * Consumers only take batches of tasks while at least this many tasks are in the heap.
+     */
+    private static final int BATCH_THRESHOLD = 64;
+    private static final int BATCH_SIZE = 4;
+
+    private final Comparator<? super T> comparator;
+
+    /**
+     * Lock used for all operations on the heap
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Condition for blocking when neither the heap nor the local queues of other consumers hold a task
+     */
+    private final Condition notEmpty = lock.newCondition();
+
+    private Object[] heap = new Object[INITIAL_CAPACITY];
+    private int heapSize;
+    private volatile boolean reprioritizationNeeded;
+
+    private final List<LocalQueue<T>> localQueues = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<LocalQueue<T>> currentLocalQueue = new ThreadLocal<LocalQueue<T>>() {
+        @Override
+        protected LocalQueue<T> initialValue() {
+            LocalQueue<T> localQueue = new LocalQueue<>(Thread.currentThread());
+            localQueues.add(localQueue);
+            return localQueue;
+        }
+    };
+
+    public ReprioritizingTaskQueue(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Marks the priorities of the queued tasks as changed. The order of the tasks gets restored before the next task
+     * is taken from the queue. Tasks already batched by a consumer keep their order.
+     */
+    public void reprioritize() {
+        reprioritizationNeeded = true;
+    }
+
+    @Override
+    public boolean add(T t) {
+        return offer(t);
+    }
+
+    @Override
+    public void put(T t) throws InterruptedException {
+        offer(t);
+    }
+
+    @Override
+    public boolean offer(T t, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(t);
+    }
+
+    @Override
+    public boolean offer(T t) {
+        if (t == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heap.length * 2);
+            }
+            heap[heapSize] = t;
+            siftUp(heapSize++);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T poll() {
+        LocalQueue<T> localQueue = currentLocalQueue.get();
+        T result = localQueue.tasks.pollFirst();
+        if (result != null) {
+            return result;
+        }
+        lock.lock();
+        try {
+            result = dequeue(localQueue);
+        } finally {
+            lock.unlock();
+        }
+        return result != null ? result : steal(localQueue);
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        LocalQueue<T> localQueue = currentLocalQueue.get();
+        T result = localQueue.tasks.pollFirst();
+        if (result != null) {
+            return result;
+        }
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                result = dequeue(localQueue);
+                if (result == null) {
+                    result = steal(localQueue);
+                }
+                if (result != null) {
+                    return result;
+                }
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        LocalQueue<T> localQueue = currentLocalQueue.get();
+        T result = localQueue.tasks.pollFirst();
+        if (result != null) {
+            return result;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                result = dequeue(localQueue);
+                if (result == null) {
+                    result = steal(localQueue);
+                }
+                if (result != null || nanos <= 0) {
+                    return result;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the most important task of the heap, ignoring the tasks batched by consumers.
+     */
+    @Override
+    public T peek() {
+        lock.lock();
+        try {
+            restoreOrderIfNeeded();
+            return heapSize == 0 ? null : elementAt(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private T dequeue(LocalQueue<T> localQueue) {
+        if (heapSize == 0) {
+            return null;
+        }
+        restoreOrderIfNeeded();
+        T result = removeFirst();
+        if (!result.isTerminateSignal() && heapSize >= BATCH_THRESHOLD) {
+            for (int i = 1; i < BATCH_SIZE && !elementAt(0).isTerminateSignal(); i++) {
+                localQueue.tasks.addLast(removeFirst());
+                // Another consumer may be waiting while this one is still busy with the batch
+                notEmpty.signal();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Takes the least important task of another consumer's batch.
+     */
+    private T steal(LocalQueue<T> thief) {
+        for (LocalQueue<T> victim : localQueues) {
+            if (victim != thief) {
+                T result = victim.tasks.pollLast();
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void restoreOrderIfNeeded() {
+        if (reprioritizationNeeded) {
+            reprioritizationNeeded = false;
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+    }
+
+    private T removeFirst() {
+        return removeAt(0);
+    }
+
+    private T removeAt(int index) {
+        T result = elementAt(index);
+        heapSize--;
+        heap[index] = heap[heapSize];
+        heap[heapSize] = null;
+        if (index < heapSize) {
+            siftDown(index);
+            siftUp(index);
+        }
+        return result;
+    }
+
+    private void siftUp(int index) {
+        int current = index;
+        T element = elementAt(current);
+        while (current > 0) {
+            int parent = (current - 1) / 2;
+            if (comparator.compare(element, elementAt(parent)) >= 0) {
+                break;
+            }
+            heap[current] = heap[parent];
+            current = parent;
+        }
+        heap[current] = element;
+    }
+
+    private void siftDown(int index) {
+        int current = index;
+        T element = elementAt(current);
+        int half = heapSize / 2;
+        while (current < half) {
+            int child = 2 * current + 1;
+            if (child + 1 < heapSize && comparator.compare(elementAt(child + 1), elementAt(child)) < 0) {
+                child++;
+            }
+            if (comparator.compare(element, elementAt(child)) <= 0) {
+                break;
+            }
+            heap[current] = heap[child];
+            current = child;
+        }
+        heap[current] = element;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int index) {
+        return (T) heap[index];
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Drains the batched tasks of the consumers too. Local queues of terminated consumers get dropped.
+     */
+    @Override
+    public int drainTo(Collection<? super T> c, int maxElements) {
+        lock.lock();
+        try {
+            int count = 0;
+            for (LocalQueue<T> localQueue : localQueues) {
+                while (count < maxElements) {
+                    T task = localQueue.tasks.pollFirst();
+                    if (task == null) {
+                        break;
+                    }
+                    c.add(task);
+                    count++;
+                }
+                if (!localQueue.owner.isAlive() && localQueue.tasks.isEmpty()) {
+                    localQueues.remove(localQueue);
+                }
+            }
+            while (heapSize > 0 && count < maxElements) {
+                c.add(removeFirst());
+                count++;
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            int size = heapSize;
+            for (LocalQueue<T> localQueue : localQueues) {
+                size += localQueue.tasks.size();
+            }
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the task from the heap or from the batch of a consumer.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            for (int i = 0; i < heapSize; i++) {
+                if (o.equals(heap[i])) {
+                    removeAt(i);
+                    return true;
+                }
+            }
+            for (LocalQueue<T> localQueue : localQueues) {
+                if (localQueue.tasks.remove(o)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return an iterator over a snapshot of the queued tasks, including the tasks batched by consumers. The tasks are
+     * in no particular order.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        List<T> snapshot;
+        lock.lock();
+        try {
+            snapshot = Lists.newArrayListWithCapacity(heapSize);
+            for (int i = 0; i < heapSize; i++) {
+                snapshot.add(elementAt(i));
+            }
+            for (LocalQueue<T> localQueue : localQueues) {
+                snapshot.addAll(localQueue.tasks);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new SnapshotIterator(snapshot.iterator());
+    }
+
+    private final class SnapshotIterator implements Iterator<T> {
+        private final Iterator<T> snapshot;
+        private T last;
+
+        private SnapshotIterator(Iterator<T> snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return snapshot.hasNext();
+        }
+
+        @Override
+        public T next() {
+            last = snapshot.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            ReprioritizingTaskQueue.this.remove(last);
+            last = null;
+        }
+    }
+
+    private static final class LocalQueue<T> {
+        private final Thread owner;
+        private final Deque<T> tasks = new ConcurrentLinkedDeque<>();
+
+        private LocalQueue(Thread owner) {
+            this.owner = owner;
+        }
+    }
+}
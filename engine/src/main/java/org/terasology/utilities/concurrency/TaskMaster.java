@@ -64,8 +64,12 @@ public static <T extends Task> TaskMaster<T> createPriorityTaskMaster(String nam
         return new TaskMaster<>(name, threads, new PriorityBlockingQueue<T>(queueSize, comparator));
     }
 
+    /**
+     * Creates a task master whose tasks can change their priority. {@link #reprioritize()} must be called whenever the
+     * comparator would order the queued tasks differently.
+     */
     public static <T extends Task> TaskMaster<T> createDynamicPriorityTaskMaster(String name, int threads, Comparator<T> comparator) {
-        return new TaskMaster<>(name, threads, new DynamicPriorityBlockingQueue<T>(comparator));
+        return new TaskMaster<>(name, threads, new ReprioritizingTaskQueue<T>(comparator));
     }
 
     /**
@@ -87,6 +91,16 @@ public void put(T task) throws InterruptedException {
         taskQueue.put(task);
     }
 
+    /**
+     * Restores the order of the queued tasks after their priorities changed. This has only an effect for task masters
+     * created via {@link #createDynamicPriorityTaskMaster(String, int, Comparator)}.
+     */
+    public void reprioritize() {
+        if (taskQueue instanceof ReprioritizingTaskQueue) {
+            ((ReprioritizingTaskQueue<T>) taskQueue).reprioritize();
+        }
+    }
+
     public void shutdown(T shutdownTask, boolean awaitComplete) {
         if (!shutdownTask.isTerminateSignal()) {
             throw new IllegalArgumentException("Expected task to provide terminate signal");
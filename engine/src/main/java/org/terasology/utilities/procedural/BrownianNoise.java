@@ -16,6 +16,11 @@
 
 package org.terasology.utilities.procedural;
 
+import org.terasology.math.Rect2i;
+import org.terasology.math.Region3i;
+
+import java.util.Arrays;
+
 /**
  * Computes Brownian noise based on some noise generator.
  * Originally, Brown integrates white noise, but using other noises can be sometimes useful, too.
@@ -41,6 +46,9 @@ public class BrownianNoise extends AbstractNoise {
     private float scale;                // 1/sum of all weights
     private final Noise other;
 
+    // receives the values of one octave during a fill, per thread as the noise may be shared by generator threads
+    private final ThreadLocal<float[]> octaveBuffer = new ThreadLocal<>();
+
     /**
      * Initialize with 9 octaves - <b>this is quite expensive, but backwards compatible</b>
      * @param other the noise to use as a basis
@@ -108,6 +116,63 @@ public float noise(float x, float y, float z) {
         return result * scale;
     }
 
+    /**
+     * Fills the region one octave at a time, so that the base noise can fill whole regions too. The positions of the
+     * octaves are scaled in a different order than by {@link #noise(float, float)}, so the values can differ by float
+     * rounding. This is only noticeable for base noises that are not continuous, such as {@link WhiteNoise}.
+     */
+    @Override
+    public void fill(float[] out, Rect2i region, float scaleX, float scaleY) {
+        int size = region.area();
+        float[] octaveValues = getOctaveBuffer(size);
+        Arrays.fill(out, 0, size, 0.0f);
+        double frequency = 1.0;
+        for (int i = 0; i < getOctaves(); i++) {
+            other.fill(octaveValues, region, (float) (scaleX * frequency), (float) (scaleY * frequency));
+            addWeighted(out, octaveValues, size, spectralWeights[i]);
+            frequency *= getLacunarity();
+        }
+        multiply(out, size, scale);
+    }
+
+    /**
+     * Fills the region one octave at a time, see {@link #fill(float[], Rect2i, float, float)}.
+     */
+    @Override
+    public void fill(float[] out, Region3i region, float scaleX, float scaleY, float scaleZ) {
+        int size = region.sizeX() * region.sizeY() * region.sizeZ();
+        float[] octaveValues = getOctaveBuffer(size);
+        Arrays.fill(out, 0, size, 0.0f);
+        double frequency = 1.0;
+        for (int i = 0; i < getOctaves(); i++) {
+            other.fill(octaveValues, region, (float) (scaleX * frequency), (float) (scaleY * frequency), (float) (scaleZ * frequency));
+            addWeighted(out, octaveValues, size, spectralWeights[i]);
+            frequency *= getLacunarity();
+        }
+        multiply(out, size, scale);
+    }
+
+    private float[] getOctaveBuffer(int size) {
+        float[] buffer = octaveBuffer.get();
+        if (buffer == null || buffer.length < size) {
+            buffer = new float[size];
+            octaveBuffer.set(buffer);
+        }
+        return buffer;
+    }
+
+    private static void addWeighted(float[] target, float[] values, int size, float weight) {
+        for (int i = 0; i < size; i++) {
+            target[i] += values[i] * weight;
+        }
+    }
+
+    private static void multiply(float[] values, int size, float factor) {
+        for (int i = 0; i < size; i++) {
+            values[i] *= factor;
+        }
+    }
+
     private static float computeScale(float[] spectralWeights) {
         float sum = 0;
         for (float weight : spectralWeights) {
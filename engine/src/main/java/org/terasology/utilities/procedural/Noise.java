@@ -16,6 +16,9 @@
 
 package org.terasology.utilities.procedural;
 
+import org.terasology.math.Rect2i;
+import org.terasology.math.Region3i;
+
 /**
  * Provides or generates noise
  *
@@ -60,4 +63,53 @@ public interface Noise {
      * @return The noise value in the range [-1..1]
      */
     float noise(float x, float y, float z);
+
+    /**
+     * Fills the array with the noise values of all positions of the region. Each position gets multiplied with the
+     * scale before it is passed to {@link #noise(float, float)}. The x coordinate changes fastest, as in the 2D facets.
+     * <br><br>
+     * Implementations may process the region in bulk, but must return the same values as {@link #noise(float, float)}
+     * up to float rounding.
+     *
+     * @param out    receives the noise values, must be at least as long as the area of the region
+     * @param region the region to evaluate
+     * @param scaleX factor for the x coordinate
+     * @param scaleY factor for the y coordinate
+     */
+    default void fill(float[] out, Rect2i region, float scaleX, float scaleY) {
+        int index = 0;
+        for (int y = region.minY(); y <= region.maxY(); y++) {
+            float posY = y * scaleY;
+            for (int x = region.minX(); x <= region.maxX(); x++) {
+                out[index++] = noise(x * scaleX, posY);
+            }
+        }
+    }
+
+    /**
+     * Fills the array with the noise values of all positions of the region. Each position gets multiplied with the
+     * scale before it is passed to {@link #noise(float, float, float)}. The array index of a position is
+     * {@code x + sizeX * (y + sizeY * z)}, relative to the minimum of the region.
+     * <br><br>
+     * Implementations may process the region in bulk, but must return the same values as
+     * {@link #noise(float, float, float)} up to float rounding.
+     *
+     * @param out    receives the noise values, must be at least as long as the volume of the region
+     * @param region the region to evaluate
+     * @param scaleX factor for the x coordinate
+     * @param scaleY factor for the y coordinate
+     * @param scaleZ factor for the z coordinate
+     */
+    default void fill(float[] out, Region3i region, float scaleX, float scaleY, float scaleZ) {
+        int index = 0;
+        for (int z = region.minZ(); z <= region.maxZ(); z++) {
+            float posZ = z * scaleZ;
+            for (int y = region.minY(); y <= region.maxY(); y++) {
+                float posY = y * scaleY;
+                for (int x = region.minX(); x <= region.maxX(); x++) {
+                    out[index++] = noise(x * scaleX, posY, posZ);
+                }
+            }
+        }
+    }
 }
@@ -15,6 +15,8 @@
  */
 package org.terasology.utilities.procedural;
 
+import org.terasology.math.Rect2i;
+import org.terasology.math.Region3i;
 import org.terasology.math.TeraMath;
 import org.terasology.utilities.random.FastRandom;
 
@@ -107,6 +109,63 @@ public float noise(float posX, float posY, float posZ) {
         return TeraMath.lerp(val1, val2, w);
     }
 
+    @Override
+    public void fill(float[] out, Rect2i region, float scaleX, float scaleY) {
+        int index = 0;
+        for (int y = region.minY(); y <= region.maxY(); y++) {
+            fillRow(out, index, region.minX(), region.sizeX(), scaleX, y * scaleY, 0);
+            index += region.sizeX();
+        }
+    }
+
+    @Override
+    public void fill(float[] out, Region3i region, float scaleX, float scaleY, float scaleZ) {
+        int index = 0;
+        for (int z = region.minZ(); z <= region.maxZ(); z++) {
+            float posZ = z * scaleZ;
+            for (int y = region.minY(); y <= region.maxY(); y++) {
+                fillRow(out, index, region.minX(), region.sizeX(), scaleX, y * scaleY, posZ);
+                index += region.sizeX();
+            }
+        }
+    }
+
+    /**
+     * Computes the same values as {@link #noise(float, float, float)} for a row of positions along the x-axis, but
+     * calculates everything that only depends on y and z once per row.
+     */
+    private void fillRow(float[] out, int offset, int minX, int sizeX, float scaleX, float posY, float posZ) {
+        int yInt = (int) TeraMath.fastFloor(posY) & 255;
+        int zInt = (int) TeraMath.fastFloor(posZ) & 255;
+        float y = posY - TeraMath.fastFloor(posY);
+        float z = posZ - TeraMath.fastFloor(posZ);
+        float v = TeraMath.fadePerlin(y);
+        float w = TeraMath.fadePerlin(z);
+
+        for (int i = 0; i < sizeX; i++) {
+            float posX = (minX + i) * scaleX;
+            int xInt = (int) TeraMath.fastFloor(posX) & 255;
+            float x = posX - TeraMath.fastFloor(posX);
+            float u = TeraMath.fadePerlin(x);
+
+            int a = noisePermutations[xInt] + yInt;
+            int aa = noisePermutations[a] + zInt;
+            int ab = noisePermutations[(a + 1)] + zInt;
+            int b = noisePermutations[(xInt + 1)] + yInt;
+            int ba = noisePermutations[b] + zInt;
+            int bb = noisePermutations[(b + 1)] + zInt;
+
+            float val1 = TeraMath.lerp(
+                    TeraMath.lerp(grad(noisePermutations[aa], x, y, z), grad(noisePermutations[ba], x - 1, y, z), u),
+                    TeraMath.lerp(grad(noisePermutations[ab], x, y - 1, z), grad(noisePermutations[bb], x - 1, y - 1, z), u), v);
+            float val2 = TeraMath.lerp(
+                    TeraMath.lerp(grad(noisePermutations[(aa + 1)], x, y, z - 1), grad(noisePermutations[(ba + 1)], x - 1, y, z - 1), u),
+                    TeraMath.lerp(grad(noisePermutations[(ab + 1)], x, y - 1, z - 1), grad(noisePermutations[(bb + 1)], x - 1, y - 1, z - 1), u), v);
+
+            out[offset + i] = TeraMath.lerp(val1, val2, w);
+        }
+    }
+
     private static float grad(int hash, float x, float y, float z) {
         int h = hash & 15;
         float u = h < 8 ? x : y;
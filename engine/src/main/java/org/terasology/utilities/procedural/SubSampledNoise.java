@@ -111,14 +111,9 @@ private float[] getKeyValues(Rect2i fullRegion) {
         int xDim = fullRegion.sizeX() / sampleRate + 1;
         int yDim = fullRegion.sizeY() / sampleRate + 1;
         float[] fullData = new float[xDim * yDim];
-        for (int y = 0; y < yDim; y++) {
-            for (int x = 0; x < xDim; x++) {
-                int actualX = x * sampleRate + fullRegion.minX();
-                int actualY = y * sampleRate + fullRegion.minY();
-                fullData[x + y * xDim] = source.noise(zoom.x * actualX, zoom.y * actualY);
-            }
-        }
-
+        // the full region starts at a multiple of the sample rate, so the key positions form a scaled grid
+        Rect2i keyRegion = Rect2i.createFromMinAndSize(fullRegion.minX() / sampleRate, fullRegion.minY() / sampleRate, xDim, yDim);
+        source.fill(fullData, keyRegion, zoom.x * sampleRate, zoom.y * sampleRate);
         return fullData;
     }
 
@@ -214,16 +209,11 @@ private float[] getKeyValues(Region3i fullRegion) {
         int yDim = fullRegion.sizeY() / sampleRate + 1;
         int zDim = fullRegion.sizeZ() / sampleRate + 1;
         float[] fullData = new float[xDim * yDim * zDim];
-        for (int z = 0; z < zDim; z++) {
-            for (int y = 0; y < yDim; y++) {
-                for (int x = 0; x < xDim; x++) {
-                    int actualX = x * sampleRate + fullRegion.minX();
-                    int actualY = y * sampleRate + fullRegion.minY();
-                    int actualZ = z * sampleRate + fullRegion.minZ();
-                    fullData[x + xDim * (y + yDim * z)] = source.noise(zoom.x * actualX, zoom.y * actualY, zoom.z * actualZ);
-                }
-            }
-        }
+        // the full region starts at a multiple of the sample rate, so the key positions form a scaled grid
+        Region3i keyRegion = Region3i.createFromMinAndSize(
+                new Vector3i(fullRegion.minX() / sampleRate, fullRegion.minY() / sampleRate, fullRegion.minZ() / sampleRate),
+                new Vector3i(xDim, yDim, zDim));
+        source.fill(fullData, keyRegion, zoom.x * sampleRate, zoom.y * sampleRate, zoom.z * sampleRate);
         return fullData;
     }
 
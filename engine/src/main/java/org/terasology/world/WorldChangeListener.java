@@ -19,6 +19,9 @@
 import org.terasology.math.geom.Vector3i;
 import org.terasology.world.biomes.Biome;
 import org.terasology.world.block.Block;
+import org.terasology.world.propagation.BlockChange;
+
+import java.util.Collection;
 
 /**
  * @author Immortius
@@ -27,6 +30,20 @@ public interface WorldChangeListener {
 
     void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock);
 
+    /**
+     * Gets called once per chunk for blocks that got changed together, e.g. via
+     * {@link org.terasology.world.internal.WorldProviderCore#setBlocks(java.util.Map)}.
+     * By default each change gets passed on to {@link #onBlockChanged(Vector3i, Block, Block)}.
+     *
+     * @param chunkPos The position of the chunk that contains all the changed blocks
+     * @param changes  The changes made within the chunk
+     */
+    default void onBlocksChanged(Vector3i chunkPos, Collection<BlockChange> changes) {
+        for (BlockChange change : changes) {
+            onBlockChanged(change.getPosition(), change.getTo(), change.getFrom());
+        }
+    }
+
     void onBiomeChanged(Vector3i pos, Biome newBiome, Biome originalBiome);
 
 }
@@ -15,12 +15,15 @@
  */
 package org.terasology.world;
 
+import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.world.block.Block;
 import org.terasology.world.internal.WorldProviderCore;
 import org.terasology.world.liquid.LiquidData;
 
+import java.util.Map;
+
 /**
  * Provides the basic interface for all world providers.
  *
@@ -46,6 +49,15 @@ public interface WorldProvider extends WorldProviderCore {
      */
     boolean setLiquid(Vector3i pos, LiquidData state, LiquidData oldState);
 
+    /**
+     * Fills a region with a single block type, see {@link #setBlocks(Map)}.
+     *
+     * @param region The region to fill
+     * @param type   The type of the block to set
+     * @return The previous block types of the positions that could be changed
+     */
+    Map<Vector3i, Block> setBlocks(Region3i region, Block type);
+
     /**
      * Returns the liquid state at the given position.
      *
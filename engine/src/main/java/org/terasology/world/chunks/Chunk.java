@@ -23,4 +23,11 @@
  */
 @API
 public interface Chunk extends ManagedChunk, RenderableChunk {
+
+    /**
+     * @return a number that changes whenever a block, liquid, biome or light value of the chunk gets modified while
+     * the chunk is ready. Allows work done concurrently on ready chunks to detect conflicting modifications. Can be used from any
+     * thread.
+     */
+    int getChangeVersion();
 }
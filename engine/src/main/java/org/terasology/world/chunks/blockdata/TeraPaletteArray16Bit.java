@@ -0,0 +1,442 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.blockdata;
+
+import com.google.common.base.Preconditions;
+import gnu.trove.map.TShortIntMap;
+import gnu.trove.map.hash.TShortIntHashMap;
+import org.terasology.world.chunks.deflate.TeraVisitingDeflator;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TeraPaletteArray16Bit implements an array with elements of 16 bit size, that stores a palette of the distinct
+ * values it contains and for every element the index of its value within the palette.
+ * Its elements are in the range -32'768 through +32'767.
+ * <br><br>
+ * The indices are packed with 1, 2, 4 or 8 bits each, depending on the size of the palette. An array that contains
+ * only a single value needs no indices at all. The packing grows on demand when new values get set. Once there are
+ * more than 256 distinct values, the values get stored directly with 16 bits each.
+ * <br><br>
+ * Like with the dense arrays, a reader may see an outdated value for an element that gets set concurrently. It never
+ * sees the indices and the palette in an inconsistent state though: growing replaces both at once, and a new palette
+ * value is written before the index that refers to it gets published.
+ */
+public class TeraPaletteArray16Bit extends TeraArray {
+
+    private static final int MAX_PALETTE_BITS = 8;
+    private static final int DIRECT_BITS = 16;
+
+    private volatile Storage storage;
+
+    public TeraPaletteArray16Bit() {
+        super();
+    }
+
+    public TeraPaletteArray16Bit(int sizeX, int sizeY, int sizeZ) {
+        super(sizeX, sizeY, sizeZ, true);
+    }
+
+    public TeraPaletteArray16Bit(int sizeX, int sizeY, int sizeZ, short fill) {
+        super(sizeX, sizeY, sizeZ, false);
+        this.storage = Storage.createUniform(fill);
+    }
+
+    /**
+     * @param data the elements in the order y, z, x (like {@link TeraDenseArray16Bit}). They get packed with the
+     *             minimal number of bits.
+     */
+    public TeraPaletteArray16Bit(int sizeX, int sizeY, int sizeZ, short[] data) {
+        super(sizeX, sizeY, sizeZ, false);
+        Preconditions.checkNotNull(data);
+        Preconditions.checkArgument(data.length == getSizeXYZ(), "The length of parameter 'data' has to be " + getSizeXYZ() + " but is " + data.length);
+        this.storage = Storage.createFrom(data);
+    }
+
+    public TeraPaletteArray16Bit(TeraArray in) {
+        this(Preconditions.checkNotNull(in).getSizeX(), in.getSizeY(), in.getSizeZ(), toShortArray(in));
+    }
+
+    private TeraPaletteArray16Bit(int sizeX, int sizeY, int sizeZ, Storage storage) {
+        super(sizeX, sizeY, sizeZ, false);
+        this.storage = storage;
+    }
+
+    @Override
+    protected void initialize() {
+        this.storage = Storage.createUniform((short) 0);
+    }
+
+    @Override
+    public boolean isSparse() {
+        return false;
+    }
+
+    @Override
+    public TeraArray copy() {
+        return new TeraPaletteArray16Bit(getSizeX(), getSizeY(), getSizeZ(), storage.copy());
+    }
+
+    /**
+     * Values that got overwritten stay in the palette and might keep the entries bigger than necessary. Deflating
+     * removes them. This does not need the deflator, as the array knows best how to pack itself.
+     *
+     * @return a repacked copy if that needs less memory, otherwise null.
+     */
+    @Override
+    public TeraArray deflate(TeraVisitingDeflator deflator) {
+        if (storage.bits == 0) {
+            return null;
+        }
+        TeraPaletteArray16Bit repacked = new TeraPaletteArray16Bit(this);
+        if (repacked.getEstimatedMemoryConsumptionInBytes() < getEstimatedMemoryConsumptionInBytes()) {
+            return repacked;
+        }
+        return null;
+    }
+
+    @Override
+    public int getEstimatedMemoryConsumptionInBytes() {
+        Storage current = storage;
+        if (current == null) {
+            return 4;
+        }
+        int result = 24;
+        if (current.words != null) {
+            result += 16 + current.words.length() * 8;
+        }
+        if (current.palette != null) {
+            result += 16 + current.palette.length * 2;
+        }
+        return result;
+    }
+
+    @Override
+    public int getElementSizeInBits() {
+        return 16;
+    }
+
+    /**
+     * @return the number of bits every element currently uses: 0, 1, 2, 4 or 8 for palette indices and 16 if the
+     * values get stored directly.
+     */
+    public int getBitsPerElement() {
+        return storage.bits;
+    }
+
+    @Override
+    public int get(int x, int y, int z) {
+        return storage.getValue(pos(x, y, z));
+    }
+
+    @Override
+    public int set(int x, int y, int z, int value) {
+        int pos = pos(x, y, z);
+        int old = storage.getValue(pos);
+        if (old != (short) value) {
+            int entry = getOrAddEntry((short) value);
+            storage.setEntry(pos, entry);
+        }
+        return old;
+    }
+
+    @Override
+    public boolean set(int x, int y, int z, int value, int expected) {
+        int pos = pos(x, y, z);
+        int old = storage.getValue(pos);
+        if (old == expected) {
+            if (old != (short) value) {
+                int entry = getOrAddEntry((short) value);
+                storage.setEntry(pos, entry);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the entry that stands for the value in the (possibly grown) storage.
+     */
+    private int getOrAddEntry(short value) {
+        Storage current = storage;
+        if (current.palette == null) {
+            return value & 0xFFFF;
+        }
+        int entry = current.indexOf(value);
+        if (entry >= 0) {
+            return entry;
+        }
+        if (current.paletteSize == current.palette.length) {
+            current = current.grow(getSizeXYZ());
+            storage = current;
+            if (current.palette == null) {
+                return value & 0xFFFF;
+            }
+        }
+        entry = current.paletteSize;
+        current.palette[entry] = value;
+        current.paletteSize = entry + 1;
+        return entry;
+    }
+
+    private static short[] toShortArray(TeraArray in) {
+        short[] data = new short[in.getSizeXYZ()];
+        int index = 0;
+        for (int y = 0; y < in.getSizeY(); y++) {
+            for (int z = 0; z < in.getSizeZ(); z++) {
+                for (int x = 0; x < in.getSizeX(); x++) {
+                    data[index++] = (short) in.get(x, y, z);
+                }
+            }
+        }
+        return data;
+    }
+
+    private static int getBitsForPaletteSize(int paletteSize) {
+        if (paletteSize <= 1) {
+            return 0;
+        }
+        int bits = 1;
+        while (1 << bits < paletteSize) {
+            bits *= 2;
+        }
+        return bits > MAX_PALETTE_BITS ? DIRECT_BITS : bits;
+    }
+
+    /**
+     * The packed entries together with the palette they refer to. Storages only get replaced as a whole, when the
+     * number of bits per entry changes.
+     * <br><br>
+     * New palette values get appended in place. The words are written with release and read with acquire semantics,
+     * so a reader that sees an index also sees the palette value it refers to.
+     */
+    private static final class Storage {
+        private final int bits;
+        private final long mask;
+        /**
+         * null if bits is 0.
+         */
+        private final AtomicLongArray words;
+        /**
+         * null if the values get stored directly. Otherwise its length is the capacity for the current bits.
+         */
+        private final short[] palette;
+        private volatile int paletteSize;
+
+        private Storage(int bits, AtomicLongArray words, short[] palette, int paletteSize) {
+            this.bits = bits;
+            this.mask = (1L << bits) - 1;
+            this.words = words;
+            this.palette = palette;
+            this.paletteSize = paletteSize;
+        }
+
+        private Storage(int bits, int size, short[] palette, int paletteSize) {
+            this(bits, bits == 0 ? null : new AtomicLongArray(getWordCount(bits, size)), palette, paletteSize);
+        }
+
+        static Storage createUniform(short fill) {
+            return new Storage(0, null, new short[]{fill}, 1);
+        }
+
+        static Storage createFrom(short[] data) {
+            TShortIntMap entries = new TShortIntHashMap(16, 0.5f, (short) 0, -1);
+            for (short value : data) {
+                if (!entries.containsKey(value)) {
+                    entries.put(value, entries.size());
+                    if (entries.size() > 1 << MAX_PALETTE_BITS) {
+                        break;
+                    }
+                }
+            }
+            int bits = getBitsForPaletteSize(entries.size());
+            if (bits == DIRECT_BITS) {
+                Storage result = new Storage(DIRECT_BITS, data.length, null, 0);
+                for (int i = 0; i < data.length; i++) {
+                    result.setEntry(i, data[i] & 0xFFFF);
+                }
+                return result;
+            }
+            short[] palette = new short[1 << bits];
+            for (short value : entries.keys()) {
+                palette[entries.get(value)] = value;
+            }
+            Storage result = new Storage(bits, data.length, palette, entries.size());
+            if (bits > 0) {
+                for (int i = 0; i < data.length; i++) {
+                    result.setEntry(i, entries.get(data[i]));
+                }
+            }
+            return result;
+        }
+
+        static int getWordCount(int bits, int size) {
+            return (int) (((long) size * bits + 63) / 64);
+        }
+
+        int getEntry(int index) {
+            if (bits == 0) {
+                return 0;
+            }
+            int bitIndex = index * bits;
+            return (int) ((words.get(bitIndex >>> 6) >>> (bitIndex & 63)) & mask);
+        }
+
+        int getValue(int index) {
+            int entry = getEntry(index);
+            return palette == null ? (short) entry : palette[entry];
+        }
+
+        void setEntry(int index, int entry) {
+            int bitIndex = index * bits;
+            int wordIndex = bitIndex >>> 6;
+            int shift = bitIndex & 63;
+            words.lazySet(wordIndex, (words.get(wordIndex) & ~(mask << shift)) | ((entry & mask) << shift));
+        }
+
+        int indexOf(short value) {
+            for (int i = 0; i < paletteSize; i++) {
+                if (palette[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return a storage with twice the bits per entry (or direct values), containing the same elements.
+         */
+        Storage grow(int size) {
+            int newBits = bits == 0 ? 1 : bits * 2;
+            if (newBits > MAX_PALETTE_BITS) {
+                Storage result = new Storage(DIRECT_BITS, size, null, 0);
+                for (int i = 0; i < size; i++) {
+                    result.setEntry(i, palette[getEntry(i)] & 0xFFFF);
+                }
+                return result;
+            }
+            Storage result = new Storage(newBits, size, Arrays.copyOf(palette, 1 << newBits), paletteSize);
+            if (bits > 0) {
+                for (int i = 0; i < size; i++) {
+                    result.setEntry(i, getEntry(i));
+                }
+            }
+            return result;
+        }
+
+        long[] getWords() {
+            long[] result = new long[words.length()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = words.get(i);
+            }
+            return result;
+        }
+
+        Storage copy() {
+            return new Storage(bits, words == null ? null : new AtomicLongArray(getWords()), palette == null ? null : palette.clone(), paletteSize);
+        }
+    }
+
+    public static class SerializationHandler extends TeraArray.BasicSerializationHandler<TeraPaletteArray16Bit> {
+
+        @Override
+        public boolean canHandle(Class<?> clazz) {
+            return TeraPaletteArray16Bit.class.equals(clazz);
+        }
+
+        @Override
+        protected int internalComputeMinimumBufferSize(TeraPaletteArray16Bit array) {
+            final Storage storage = array.storage;
+            int result = 12 + storage.paletteSize * 2;
+            if (storage.words != null) {
+                result += storage.words.length() * 8;
+            }
+            return result;
+        }
+
+        @Override
+        protected void internalSerialize(TeraPaletteArray16Bit array, ByteBuffer buffer) {
+            final Storage storage = array.storage;
+            final int paletteSize = storage.paletteSize;
+            buffer.putInt(storage.bits);
+            buffer.putInt(paletteSize);
+            if (paletteSize > 0) {
+                final ShortBuffer sbuffer = buffer.asShortBuffer();
+                sbuffer.put(storage.palette, 0, paletteSize);
+                buffer.position(buffer.position() + paletteSize * 2);
+            }
+            if (storage.words == null) {
+                buffer.putInt(0);
+            } else {
+                final long[] words = storage.getWords();
+                buffer.putInt(words.length);
+                final LongBuffer lbuffer = buffer.asLongBuffer();
+                lbuffer.put(words);
+                buffer.position(buffer.position() + words.length * 8);
+            }
+        }
+
+        @Override
+        protected TeraPaletteArray16Bit internalDeserialize(int sizeX, int sizeY, int sizeZ, ByteBuffer buffer) {
+            final int bits = buffer.getInt();
+            final int paletteSize = buffer.getInt();
+            short[] palette = null;
+            if (bits != DIRECT_BITS) {
+                palette = new short[Math.max(1 << bits, paletteSize)];
+                final ShortBuffer sbuffer = buffer.asShortBuffer();
+                sbuffer.get(palette, 0, paletteSize);
+                buffer.position(buffer.position() + paletteSize * 2);
+            }
+            final int wordCount = buffer.getInt();
+            AtomicLongArray words = null;
+            if (wordCount > 0) {
+                long[] data = new long[wordCount];
+                final LongBuffer lbuffer = buffer.asLongBuffer();
+                lbuffer.get(data, 0, wordCount);
+                buffer.position(buffer.position() + wordCount * 8);
+                words = new AtomicLongArray(data);
+            }
+            return new TeraPaletteArray16Bit(sizeX, sizeY, sizeZ, new Storage(bits, words, palette, paletteSize));
+        }
+    }
+
+    public static class Factory implements TeraArray.Factory<TeraPaletteArray16Bit> {
+
+        @Override
+        public Class<TeraPaletteArray16Bit> getArrayClass() {
+            return TeraPaletteArray16Bit.class;
+        }
+
+        @Override
+        public SerializationHandler createSerializationHandler() {
+            return new SerializationHandler();
+        }
+
+        @Override
+        public TeraPaletteArray16Bit create() {
+            return new TeraPaletteArray16Bit();
+        }
+
+        @Override
+        public TeraPaletteArray16Bit create(int sizeX, int sizeY, int sizeZ) {
+            return new TeraPaletteArray16Bit(sizeX, sizeY, sizeZ);
+        }
+    }
+}
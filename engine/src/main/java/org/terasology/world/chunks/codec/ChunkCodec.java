@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.codec;
+
+import java.io.IOException;
+
+/**
+ * Compresses the encoded chunk data for storage and for sending it over the network.
+ * <br><br>
+ * The compressed data of every codec can be recognized by its first bytes, see {@link ChunkCodecs#detect(byte[])}.
+ * Implementations must be thread safe.
+ */
+public interface ChunkCodec {
+
+    /**
+     * @return the id under which the codec gets recorded in the game manifest and negotiated with clients.
+     */
+    String getId();
+
+    byte[] compress(byte[] data, int offset, int length);
+
+    /**
+     * @throws IOException if the data has not been compressed by this codec or is corrupt.
+     */
+    byte[] decompress(byte[] data, int offset, int length) throws IOException;
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.codec;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Provides access to the available {@link ChunkCodec}s.
+ */
+public final class ChunkCodecs {
+    public static final ChunkCodec DEFLATE = new DeflateChunkCodec();
+    public static final ChunkCodec LZ = new LZChunkCodec();
+
+    private static final List<ChunkCodec> ALL = ImmutableList.of(DEFLATE, LZ);
+
+    private ChunkCodecs() {
+    }
+
+    /**
+     * @return all available codecs.
+     */
+    public static List<ChunkCodec> getAll() {
+        return ALL;
+    }
+
+    /**
+     * @return the codec with the given id or null if there is no such codec.
+     */
+    public static ChunkCodec get(String id) {
+        for (ChunkCodec codec : ALL) {
+            if (codec.getId().equals(id)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the codec with the given id or {@link #DEFLATE} if there is no such codec.
+     */
+    public static ChunkCodec getOrDefault(String id) {
+        ChunkCodec codec = get(id);
+        return codec != null ? codec : DEFLATE;
+    }
+
+    /**
+     * Determines the codec that compressed the given data, so that chunks stored with different codecs can be read.
+     *
+     * @return the codec that compressed the data. Data of unknown format is assumed to be compressed by
+     * {@link #DEFLATE}, the codec used before codecs were introduced.
+     */
+    public static ChunkCodec detect(byte[] compressedData) {
+        if (LZChunkCodec.isCompressedBy(compressedData)) {
+            return LZ;
+        }
+        return DEFLATE;
+    }
+}
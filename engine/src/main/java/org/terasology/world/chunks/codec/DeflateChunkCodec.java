@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses chunks in the gzip format, which is what chunks got stored in before codecs could be chosen.
+ */
+public final class DeflateChunkCodec implements ChunkCodec {
+    public static final String ID = "deflate";
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(baos)) {
+            gzipOut.write(data, offset, length);
+        } catch (IOException e) {
+            // as no real IO is involved this should not happen
+            throw new RuntimeException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(length * 4);
+        try (GZIPInputStream gzipIn = new GZIPInputStream(new ByteArrayInputStream(data, offset, length))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzipIn.read(buffer)) != -1) {
+                baos.write(buffer, 0, read);
+            }
+        }
+        return baos.toByteArray();
+    }
+}
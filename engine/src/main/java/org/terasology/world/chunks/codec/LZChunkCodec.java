@@ -0,0 +1,244 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.codec;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A fast codec from the LZ family. The compressed data consists of a small header with the uncompressed length
+ * followed by a single block in the LZ4 block format.
+ * <br><br>
+ * The compression ratio is worse than the one of {@link DeflateChunkCodec}, but compression and decompression are
+ * several times faster, which matters more for chunks which are mostly long runs of the same block anyway.
+ */
+public final class LZChunkCodec implements ChunkCodec {
+    public static final String ID = "lz4";
+
+    private static final byte[] MAGIC = {'T', 'L', 'Z', '4'};
+    private static final int HEADER_SIZE = MAGIC.length + 4;
+
+    private static final int MIN_MATCH = 4;
+    /**
+     * The last literals of a block must have at least this length.
+     */
+    private static final int LAST_LITERALS = 5;
+    /**
+     * The last match must start at least this many bytes before the end of the block.
+     */
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int HASH_LOG = 12;
+    private static final int RUN_MASK = 0xF;
+    /**
+     * A compressed byte decompresses to at most this many bytes, which bounds the length the header may claim.
+     */
+    private static final int MAX_EXPANSION = 0xFF;
+    /**
+     * Far more than an encoded chunk with its entities, or a network frame, needs in practice.
+     */
+    private static final int MAX_UNCOMPRESSED_LENGTH = 64 * 1024 * 1024;
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] src, int offset, int length) {
+        byte[] dest = new byte[HEADER_SIZE + length + length / 255 + 16];
+        System.arraycopy(MAGIC, 0, dest, 0, MAGIC.length);
+        writeIntBE(dest, MAGIC.length, length);
+        int destPos = HEADER_SIZE;
+
+        int end = offset + length;
+        int anchor = offset;
+        if (length > MF_LIMIT) {
+            int[] hashTable = new int[1 << HASH_LOG];
+            Arrays.fill(hashTable, -1);
+            int matchLimit = end - LAST_LITERALS;
+            int lastMatchStart = end - MF_LIMIT;
+            int pos = offset;
+            while (pos < lastMatchStart) {
+                int sequence = readInt(src, pos);
+                int hash = hash(sequence);
+                int ref = hashTable[hash];
+                hashTable[hash] = pos;
+                if (ref < 0 || pos - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    pos++;
+                    continue;
+                }
+                while (pos > anchor && ref > offset && src[pos - 1] == src[ref - 1]) {
+                    pos--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (pos + matchLength < matchLimit && src[ref + matchLength] == src[pos + matchLength]) {
+                    matchLength++;
+                }
+                destPos = writeSequence(dest, destPos, src, anchor, pos - anchor, pos - ref, matchLength);
+                pos += matchLength;
+                anchor = pos;
+            }
+        }
+
+        int literalLength = end - anchor;
+        dest[destPos++] = (byte) (Math.min(literalLength, RUN_MASK) << 4);
+        if (literalLength >= RUN_MASK) {
+            destPos = writeLength(dest, destPos, literalLength - RUN_MASK);
+        }
+        System.arraycopy(src, anchor, dest, destPos, literalLength);
+        destPos += literalLength;
+        return Arrays.copyOf(dest, destPos);
+    }
+
+    @Override
+    public byte[] decompress(byte[] src, int offset, int length) throws IOException {
+        if (length < HEADER_SIZE || !hasMagic(src, offset)) {
+            throw new IOException("Data has not been compressed with the " + ID + " codec");
+        }
+        int uncompressedLength = readIntBE(src, offset + MAGIC.length);
+        // Checked before allocating, so corrupt or malicious data can't make us allocate arbitrary amounts of memory
+        if (uncompressedLength < 0 || uncompressedLength > MAX_UNCOMPRESSED_LENGTH
+                || uncompressedLength > (long) (length - HEADER_SIZE) * MAX_EXPANSION) {
+            throw new IOException("Invalid uncompressed length " + uncompressedLength);
+        }
+        byte[] dest = new byte[uncompressedLength];
+        int end = offset + length;
+        int pos = offset + HEADER_SIZE;
+        int destPos = 0;
+        while (pos < end) {
+            int token = src[pos++] & 0xFF;
+
+            int literalLength = token >>> 4;
+            if (literalLength == RUN_MASK) {
+                int lengthByte;
+                do {
+                    checkAvailable(pos, 1, end);
+                    lengthByte = src[pos++] & 0xFF;
+                    literalLength += lengthByte;
+                } while (lengthByte == 0xFF);
+            }
+            checkAvailable(pos, literalLength, end);
+            checkAvailable(destPos, literalLength, uncompressedLength);
+            System.arraycopy(src, pos, dest, destPos, literalLength);
+            pos += literalLength;
+            destPos += literalLength;
+            if (pos == end) {
+                break;
+            }
+
+            checkAvailable(pos, 2, end);
+            int matchOffset = (src[pos] & 0xFF) | ((src[pos + 1] & 0xFF) << 8);
+            pos += 2;
+            if (matchOffset == 0 || matchOffset > destPos) {
+                throw new IOException("Invalid match offset " + matchOffset);
+            }
+            int matchLength = token & RUN_MASK;
+            if (matchLength == RUN_MASK) {
+                int lengthByte;
+                do {
+                    checkAvailable(pos, 1, end);
+                    lengthByte = src[pos++] & 0xFF;
+                    matchLength += lengthByte;
+                } while (lengthByte == 0xFF);
+            }
+            matchLength += MIN_MATCH;
+            checkAvailable(destPos, matchLength, uncompressedLength);
+            int ref = destPos - matchOffset;
+            if (matchOffset >= matchLength) {
+                System.arraycopy(dest, ref, dest, destPos, matchLength);
+                destPos += matchLength;
+            } else {
+                // overlapping match, e.g. a run of the same byte
+                for (int i = 0; i < matchLength; ++i) {
+                    dest[destPos++] = dest[ref++];
+                }
+            }
+        }
+        if (destPos != uncompressedLength) {
+            throw new IOException("Compressed data is truncated");
+        }
+        return dest;
+    }
+
+    static boolean isCompressedBy(byte[] data) {
+        return data.length >= HEADER_SIZE && hasMagic(data, 0);
+    }
+
+    private static boolean hasMagic(byte[] data, int offset) {
+        for (int i = 0; i < MAGIC.length; ++i) {
+            if (data[offset + i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int writeSequence(byte[] dest, int destPos, byte[] src, int literalStart, int literalLength,
+                                     int matchOffset, int matchLength) {
+        int matchLengthCode = matchLength - MIN_MATCH;
+        dest[destPos++] = (byte) ((Math.min(literalLength, RUN_MASK) << 4) | Math.min(matchLengthCode, RUN_MASK));
+        if (literalLength >= RUN_MASK) {
+            destPos = writeLength(dest, destPos, literalLength - RUN_MASK);
+        }
+        System.arraycopy(src, literalStart, dest, destPos, literalLength);
+        destPos += literalLength;
+        dest[destPos++] = (byte) matchOffset;
+        dest[destPos++] = (byte) (matchOffset >>> 8);
+        if (matchLengthCode >= RUN_MASK) {
+            destPos = writeLength(dest, destPos, matchLengthCode - RUN_MASK);
+        }
+        return destPos;
+    }
+
+    private static int writeLength(byte[] dest, int destPos, int length) {
+        int remaining = length;
+        while (remaining >= 0xFF) {
+            dest[destPos++] = (byte) 0xFF;
+            remaining -= 0xFF;
+        }
+        dest[destPos++] = (byte) remaining;
+        return destPos;
+    }
+
+    private static void checkAvailable(int pos, int count, int end) throws IOException {
+        if (count < 0 || pos + count > end) {
+            throw new IOException("Compressed data is corrupt");
+        }
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int readInt(byte[] data, int pos) {
+        return (data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8) | ((data[pos + 2] & 0xFF) << 16)
+                | ((data[pos + 3] & 0xFF) << 24);
+    }
+
+    private static int readIntBE(byte[] data, int pos) {
+        return ((data[pos] & 0xFF) << 24) | ((data[pos + 1] & 0xFF) << 16) | ((data[pos + 2] & 0xFF) << 8)
+                | (data[pos + 3] & 0xFF);
+    }
+
+    private static void writeIntBE(byte[] data, int pos, int value) {
+        data[pos] = (byte) (value >>> 24);
+        data[pos + 1] = (byte) (value >>> 16);
+        data[pos + 2] = (byte) (value >>> 8);
+        data[pos + 3] = (byte) value;
+    }
+}
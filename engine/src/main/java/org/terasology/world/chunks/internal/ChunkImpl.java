@@ -35,8 +35,8 @@
 import org.terasology.world.chunks.ChunkBlockIterator;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.blockdata.TeraArray;
-import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
 import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
+import org.terasology.world.chunks.blockdata.TeraPaletteArray16Bit;
 import org.terasology.world.chunks.deflate.TeraDeflator;
 import org.terasology.world.chunks.deflate.TeraStandardDeflator;
 import org.terasology.world.liquid.LiquidData;
@@ -87,6 +87,16 @@ public class ChunkImpl implements Chunk {
     private boolean disposed;
     private boolean ready;
     private boolean dirty;
+    /**
+     * Gets increased with every modification of data that gets persisted (blocks, liquids and biomes). Unlike
+     * {@link #dirty} it does not get reset when the chunk gets tessellated.
+     */
+    private volatile int persistedDataVersion;
+    /**
+     * Only gets increased while the chunk is ready, as other threads can't access it before and generating or loading
+     * it would otherwise pay for the volatile writes.
+     */
+    private volatile int changeVersion;
     private boolean animated;
 
     // Rendering
@@ -99,7 +109,7 @@ public ChunkImpl(int x, int y, int z) {
     }
 
     public ChunkImpl(Vector3i chunkPos) {
-        this(chunkPos, new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z),
+        this(chunkPos, new TeraPaletteArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z),
                 new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z),
                 new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z));
     }
@@ -155,6 +165,26 @@ public void setDirty(boolean dirty) {
         }
     }
 
+    /**
+     * @return a number that changes whenever data of the chunk got modified that gets persisted. Can be used from any
+     * thread.
+     */
+    public int getPersistedDataVersion() {
+        return persistedDataVersion;
+    }
+
+    @Override
+    public int getChangeVersion() {
+        return changeVersion;
+    }
+
+    private boolean markChanged(boolean changed) {
+        if (changed && ready) {
+            changeVersion++;
+        }
+        return changed;
+    }
+
     @Override
     public int getEstimatedMemoryConsumptionInBytes() {
         return blockData.getEstimatedMemoryConsumptionInBytes()
@@ -184,6 +214,8 @@ public Block setBlock(int x, int y, int z, Block block) {
         }
         int oldValue = blockData.set(x, y, z, block.getId());
         if (oldValue != block.getId()) {
+            persistedDataVersion++;
+            markChanged(true);
             if (!block.isLiquid()) {
                 setLiquid(x, y, z, new LiquidData());
             }
@@ -214,7 +246,7 @@ public boolean setSunlight(Vector3i pos, byte amount) {
     @Override
     public boolean setSunlight(int x, int y, int z, byte amount) {
         Preconditions.checkArgument(amount >= 0 && amount <= ChunkConstants.MAX_SUNLIGHT);
-        return sunlightData.set(x, y, z, amount) != amount;
+        return markChanged(sunlightData.set(x, y, z, amount) != amount);
     }
 
     @Override
@@ -235,7 +267,7 @@ public boolean setSunlightRegen(Vector3i pos, byte amount) {
     @Override
     public boolean setSunlightRegen(int x, int y, int z, byte amount) {
         Preconditions.checkArgument(amount >= 0 && amount <= ChunkConstants.MAX_SUNLIGHT_REGEN);
-        return sunlightRegenData.set(x, y, z, amount) != amount;
+        return markChanged(sunlightRegenData.set(x, y, z, amount) != amount);
     }
 
     @Override
@@ -256,7 +288,7 @@ public boolean setLight(Vector3i pos, byte amount) {
     @Override
     public boolean setLight(int x, int y, int z, byte amount) {
         Preconditions.checkArgument(amount >= 0 && amount <= ChunkConstants.MAX_LIGHT);
-        return lightData.set(x, y, z, amount) != amount;
+        return markChanged(lightData.set(x, y, z, amount) != amount);
     }
 
     @Override
@@ -270,7 +302,10 @@ public void setLiquid(int x, int y, int z, LiquidData newState) {
         if (extraData == extraDataSnapshot) {
             extraData = extraData.copy();
         }
-        extraData.set(x, y, z, newValue);
+        if (extraData.set(x, y, z, newValue) != newValue) {
+            persistedDataVersion++;
+            markChanged(true);
+        }
     }
 
     @Override
@@ -295,6 +330,10 @@ public Biome setBiome(int x, int y, int z, Biome biome) {
         }
         short shortId = biomeManager.getBiomeShortId(biome);
         short previousShortId = (short) biomeData.set(x, y, z, shortId);
+        if (previousShortId != shortId) {
+            persistedDataVersion++;
+            markChanged(true);
+        }
         return biomeManager.getBiomeByShortId(previousShortId);
     }
 
@@ -614,4 +653,14 @@ public EntityData.ChunkStore.Builder encodeAndReleaseSnapshot() {
         return result;
     }
 
+    /**
+     * Releases a snapshot taken with {@link #createSnapshot()} without encoding it. The same threading rules as for
+     * {@link #encodeAndReleaseSnapshot()} apply.
+     */
+    public void releaseSnapshot() {
+        this.blockDataSnapshot = null;
+        this.extraDataSnapshot = null;
+        this.biomeDataSnapshot = null;
+    }
+
 }
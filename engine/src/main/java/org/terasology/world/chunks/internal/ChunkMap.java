@@ -0,0 +1,241 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps chunk positions to chunks. The positions get packed into a single long, so that looking up a chunk neither
+ * allocates nor hashes a {@link Vector3i}. The entries are stored in a hash table with open addressing.
+ * <br><br>
+ * Any thread can read from the map without locking, but only a single thread (usually the main thread) may modify it.
+ * A concurrent read sees the state before or after a modification, but never misses an entry that is not modified.
+ * This is why removed entries stay in the table as empty slots until the table gets rebuilt, as moving entries would
+ * hide them from concurrent readers.
+ * <br><br>
+ * Chunk positions are limited to 22 bits for x and z and 19 bits for y, which still allows worlds that extend over
+ * 64 million blocks horizontally and 16 million blocks vertically in each direction.
+ */
+public final class ChunkMap {
+    private static final int X_BITS = 22;
+    private static final int Y_BITS = 19;
+    private static final int Z_BITS = 22;
+    private static final long X_MASK = (1L << X_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+    private static final long Z_MASK = (1L << Z_BITS) - 1;
+    /**
+     * Set for every used slot, so that 0 can mark a slot that never got used.
+     */
+    private static final long USED_BIT = Long.MIN_VALUE;
+
+    private static final int MIN_CAPACITY = 64;
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private volatile int size;
+
+    public Chunk get(Vector3i pos) {
+        return get(pos.x, pos.y, pos.z);
+    }
+
+    public Chunk get(int x, int y, int z) {
+        if (!isInRange(x, y, z)) {
+            return null;
+        }
+        return table.get(pack(x, y, z));
+    }
+
+    public boolean containsKey(Vector3i pos) {
+        return get(pos) != null;
+    }
+
+    /**
+     * Must only be called by the thread that modifies the map.
+     *
+     * @return the chunk previously stored at the position or null.
+     */
+    public Chunk put(Vector3i pos, Chunk chunk) {
+        Preconditions.checkNotNull(chunk);
+        Preconditions.checkArgument(isInRange(pos.x, pos.y, pos.z), "Chunk position out of supported range: %s", pos);
+        long key = pack(pos.x, pos.y, pos.z);
+        Table current = table;
+        Chunk old = current.put(key, chunk);
+        if (old == null) {
+            size++;
+            if (current.usedSlots > current.capacity / 2) {
+                table = current.rebuild(size);
+            }
+        }
+        return old;
+    }
+
+    /**
+     * Must only be called by the thread that modifies the map.
+     *
+     * @return the removed chunk or null.
+     */
+    public Chunk remove(Vector3i pos) {
+        if (!isInRange(pos.x, pos.y, pos.z)) {
+            return null;
+        }
+        Chunk old = table.remove(pack(pos.x, pos.y, pos.z));
+        if (old != null) {
+            size--;
+        }
+        return old;
+    }
+
+    /**
+     * Must only be called by the thread that modifies the map.
+     */
+    public void clear() {
+        table = new Table(MIN_CAPACITY);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return a snapshot of the contained chunks, which does not change when the map gets modified.
+     */
+    public List<Chunk> values() {
+        Table current = table;
+        List<Chunk> result = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < current.capacity; i++) {
+            Chunk chunk = current.values.get(i);
+            if (chunk != null) {
+                result.add(chunk);
+            }
+        }
+        return result;
+    }
+
+    static boolean isInRange(int x, int y, int z) {
+        return x >> (X_BITS - 1) == x >> 31 && y >> (Y_BITS - 1) == y >> 31 && z >> (Z_BITS - 1) == z >> 31;
+    }
+
+    static long pack(int x, int y, int z) {
+        return USED_BIT | ((x & X_MASK) << (Y_BITS + Z_BITS)) | ((y & Y_MASK) << Z_BITS) | (z & Z_MASK);
+    }
+
+    private static final class Table {
+        private final int capacity;
+        private final int mask;
+        private final AtomicLongArray keys;
+        private final AtomicReferenceArray<Chunk> values;
+        /**
+         * Number of slots with a key, including the ones whose chunk got removed.
+         */
+        private int usedSlots;
+
+        Table(int capacity) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.keys = new AtomicLongArray(capacity);
+            this.values = new AtomicReferenceArray<>(capacity);
+        }
+
+        Chunk get(long key) {
+            int index = hash(key) & mask;
+            while (true) {
+                long slotKey = keys.get(index);
+                if (slotKey == key) {
+                    return values.get(index);
+                }
+                if (slotKey == 0) {
+                    return null;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        Chunk put(long key, Chunk chunk) {
+            int index = hash(key) & mask;
+            int freeIndex = -1;
+            while (true) {
+                long slotKey = keys.get(index);
+                if (slotKey == key) {
+                    // the slot might hold a removed chunk, which can be reused directly
+                    return values.getAndSet(index, chunk);
+                }
+                if (slotKey == 0) {
+                    break;
+                }
+                if (freeIndex < 0 && values.get(index) == null) {
+                    freeIndex = index;
+                }
+                index = (index + 1) & mask;
+            }
+            if (freeIndex >= 0) {
+                // Reuse the slot of a removed chunk. Readers looking for its old key just skip it.
+                keys.set(freeIndex, key);
+                values.set(freeIndex, chunk);
+            } else {
+                // The value gets set first, so that readers can only find the key together with the chunk
+                values.set(index, chunk);
+                keys.set(index, key);
+                usedSlots++;
+            }
+            return null;
+        }
+
+        Chunk remove(long key) {
+            int index = hash(key) & mask;
+            while (true) {
+                long slotKey = keys.get(index);
+                if (slotKey == key) {
+                    return values.getAndSet(index, null);
+                }
+                if (slotKey == 0) {
+                    return null;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        Table rebuild(int size) {
+            int newCapacity = MIN_CAPACITY;
+            while (newCapacity < size * 4) {
+                newCapacity *= 2;
+            }
+            Table result = new Table(newCapacity);
+            for (int i = 0; i < capacity; i++) {
+                Chunk chunk = values.get(i);
+                if (chunk != null) {
+                    result.put(keys.get(i), chunk);
+                }
+            }
+            return result;
+        }
+
+        private static int hash(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -26,6 +26,7 @@
 import org.terasology.world.chunks.blockdata.TeraArray;
 import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
 import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
+import org.terasology.world.chunks.blockdata.TeraPaletteArray16Bit;
 
 /**
  * @author Immortius
@@ -58,9 +59,12 @@ public static Chunk decode(EntityData.ChunkStore message) {
             throw new IllegalArgumentException("Ill-formed protobuf message. Missing liquid data.");
         }
 
-        final TeraArray blockData = runLengthDecode(message.getBlockData());
+        // Most chunks contain only a few distinct blocks, so the block data gets packed right away
+        final TeraArray blockData = new TeraPaletteArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z,
+                runLengthDecode(message.getBlockData()));
         final TeraArray liquidData = runLengthDecode(message.getLiquidData());
-        final TeraArray biomeData = runLengthDecode(message.getBiomeData());
+        final TeraArray biomeData = new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z,
+                runLengthDecode(message.getBiomeData()));
         return new ChunkImpl(pos, blockData, liquidData, biomeData);
     }
 
@@ -118,7 +122,7 @@ private static EntityData.RunLengthEncoding8 runLengthEncode8(TeraArray array) {
         return builder.build();
     }
 
-    private static TeraArray runLengthDecode(EntityData.RunLengthEncoding16 data) {
+    private static short[] runLengthDecode(EntityData.RunLengthEncoding16 data) {
         Preconditions.checkState(data.getValuesCount() == data.getRunLengthsCount(), "Expected same number of values as runs");
         short[] decodedData = new short[ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z];
         int index = 0;
@@ -129,7 +133,7 @@ private static TeraArray runLengthDecode(EntityData.RunLengthEncoding16 data) {
                 decodedData[index++] = value;
             }
         }
-        return new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, decodedData);
+        return decodedData;
     }
 
     private static TeraArray runLengthDecode(EntityData.RunLengthEncoding8 data) {
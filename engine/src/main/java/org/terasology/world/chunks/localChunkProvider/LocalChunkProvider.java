@@ -16,6 +16,7 @@
 
 package org.terasology.world.chunks.localChunkProvider;
 
+import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
@@ -38,6 +39,7 @@
 import org.terasology.monitoring.chunk.ChunkMonitor;
 import org.terasology.persistence.ChunkStore;
 import org.terasology.persistence.StorageManager;
+import org.terasology.config.Config;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.utilities.concurrency.TaskMaster;
 import org.terasology.world.BlockEntityRegistry;
@@ -56,6 +58,7 @@
 import org.terasology.world.chunks.event.OnChunkLoaded;
 import org.terasology.world.chunks.event.PurgeWorldEvent;
 import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.internal.ChunkMap;
 import org.terasology.world.chunks.internal.ChunkRelevanceRegion;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.chunks.internal.ReadyChunkInfo;
@@ -69,13 +72,14 @@
 import org.terasology.world.propagation.light.LightMerger;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -98,11 +102,18 @@ public class LocalChunkProvider implements ChunkProvider, GeneratingChunkProvide
 
     private Map<EntityRef, ChunkRelevanceRegion> regions = Maps.newHashMap();
 
-    private Map<Vector3i, Chunk> nearCache = Maps.newConcurrentMap();
+    private final ChunkMap nearCache = new ChunkMap();
 
     private final Set<Vector3i> preparingChunks = Sets.newHashSet();
     private final BlockingQueue<ReadyChunkInfo> readyChunks = Queues.newLinkedBlockingQueue();
-    private List<ReadyChunkInfo> sortedReadyChunks = Lists.newArrayList();
+    /**
+     * Positions of chunks whose creation got cancelled before they were ready.
+     */
+    private final BlockingQueue<Vector3i> cancelledChunks = Queues.newLinkedBlockingQueue();
+    /**
+     * The chunks whose light still needs to be merged with their neighbours, the most relevant first.
+     */
+    private PriorityQueue<ReadyChunkInfo> sortedReadyChunks = new PriorityQueue<>(11, new ReadyChunkRelevanceComparator());
     private final BlockingQueue<TShortObjectMap<TIntList>> deactivateBlocksQueue = Queues.newLinkedBlockingQueue();
 
     private EntityRef worldEntity = EntityRef.NULL;
@@ -113,9 +124,11 @@ public class LocalChunkProvider implements ChunkProvider, GeneratingChunkProvide
     private BlockEntityRegistry registry;
 
     private LightMerger<ReadyChunkInfo> lightMerger = new LightMerger<>(this);
+    private final Config config;
 
     public LocalChunkProvider(StorageManager storageManager, EntityManager entityManager, WorldGenerator generator) {
         this.blockManager = CoreRegistry.get(BlockManager.class);
+        this.config = CoreRegistry.get(Config.class);
         this.storageManager = storageManager;
         this.entityManager = entityManager;
         this.generator = generator;
@@ -128,6 +141,14 @@ public void setBlockEntityRegistry(BlockEntityRegistry value) {
         this.registry = value;
     }
 
+    /**
+     * Replaces the light merger, shutting down the current one.
+     */
+    void setLightMerger(LightMerger<ReadyChunkInfo> value) {
+        lightMerger.shutdown();
+        this.lightMerger = value;
+    }
+
     @Override
     public ChunkViewCore getLocalView(Vector3i centerChunkPos) {
         Region3i region = Region3i.createFromCenterExtents(centerChunkPos, ChunkConstants.LOCAL_REGION_EXTENTS);
@@ -154,14 +175,18 @@ public ChunkViewCore getSubviewAroundChunk(Vector3i chunkPos) {
 
     private ChunkViewCore createWorldView(Region3i region, Vector3i offset) {
         Chunk[] chunks = new Chunk[region.sizeX() * region.sizeY() * region.sizeZ()];
-        for (Vector3i chunkPos : region) {
-            Chunk chunk = nearCache.get(chunkPos);
-            if (chunk == null || !chunk.isReady()) {
-                return null;
+        Vector3i regionSize = region.size();
+        for (int z = region.minZ(); z <= region.maxZ(); z++) {
+            for (int y = region.minY(); y <= region.maxY(); y++) {
+                for (int x = region.minX(); x <= region.maxX(); x++) {
+                    Chunk chunk = nearCache.get(x, y, z);
+                    if (chunk == null || !chunk.isReady()) {
+                        return null;
+                    }
+                    int index = TeraMath.calculate3DArrayIndex(x - region.minX(), y - region.minY(), z - region.minZ(), regionSize);
+                    chunks[index] = chunk;
+                }
             }
-            chunkPos.sub(region.minX(), region.minY(), region.minZ());
-            int index = TeraMath.calculate3DArrayIndex(chunkPos, region.size());
-            chunks[index] = chunk;
         }
         return new ChunkViewCoreImpl(chunks, region, offset, blockManager.getBlock(BlockManager.AIR_ID));
     }
@@ -201,6 +226,7 @@ public void addRelevanceEntity(EntityRef entity, Vector3i distance, ChunkRegionL
         } finally {
             regionLock.writeLock().unlock();
         }
+        pipeline.reprioritizeTasks();
         for (Vector3i pos : region.getCurrentRegion()) {
             Chunk chunk = getChunk(pos);
             if (chunk != null) {
@@ -232,64 +258,80 @@ public void removeRelevanceEntity(EntityRef entity) {
         } finally {
             regionLock.writeLock().unlock();
         }
+        pipeline.reprioritizeTasks();
+        cancelIrrelevantTasks();
     }
 
+    /**
+     * Makes the chunks available whose light merge finished, as many as fit into the integration time budget.
+     */
     @Override
     public void completeUpdate() {
+        long budgetEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getSystem().getChunkIntegrationBudgetMs());
         ReadyChunkInfo readyChunkInfo = lightMerger.completeMerge();
-        if (readyChunkInfo != null) {
-            Chunk chunk = readyChunkInfo.getChunk();
-            chunk.lock();
-            try {
-                chunk.markReady();
-                updateAdjacentChunksReadyFieldOf(chunk);
-                updateAdjacentChunksReadyFieldOfAdjChunks(chunk);
-
-                if (!readyChunkInfo.isNewChunk()) {
-                    PerformanceMonitor.startActivity("Generating Block Entities");
-                    generateBlockEntities(chunk);
-                    PerformanceMonitor.endActivity();
-                }
-                if (readyChunkInfo.getChunkStore() != null) {
-                    readyChunkInfo.getChunkStore().restoreEntities();
-                }
+        while (readyChunkInfo != null) {
+            // the chunk might have been unloaded while its light got merged
+            if (nearCache.get(readyChunkInfo.getPos()) == readyChunkInfo.getChunk()) {
+                PerformanceMonitor.startActivity("Integrate Chunk");
+                integrateChunk(readyChunkInfo);
+                PerformanceMonitor.endActivity();
+            }
+            readyChunkInfo = System.nanoTime() < budgetEnd ? lightMerger.completeMerge() : null;
+        }
+    }
 
-                if (!readyChunkInfo.isNewChunk()) {
-                    PerformanceMonitor.startActivity("Sending OnAddedBlocks");
-                    readyChunkInfo.getBlockPositionMapppings().forEachEntry(new TShortObjectProcedure<TIntList>() {
-                        @Override
-                        public boolean execute(short id, TIntList positions) {
-                            if (positions.size() > 0) {
-                                blockManager.getBlock(id).getEntity().send(new OnAddedBlocks(positions, registry));
-                            }
-                            return true;
-                        }
-                    });
-                    PerformanceMonitor.endActivity();
-                }
+    private void integrateChunk(ReadyChunkInfo readyChunkInfo) {
+        Chunk chunk = readyChunkInfo.getChunk();
+        chunk.lock();
+        try {
+            chunk.markReady();
+            updateAdjacentChunksReadyFieldOf(chunk);
+            updateAdjacentChunksReadyFieldOfAdjChunks(chunk);
+
+            if (!readyChunkInfo.isNewChunk()) {
+                PerformanceMonitor.startActivity("Generating Block Entities");
+                generateBlockEntities(chunk);
+                PerformanceMonitor.endActivity();
+            }
+            if (readyChunkInfo.getChunkStore() != null) {
+                readyChunkInfo.getChunkStore().restoreEntities();
+            }
 
-                PerformanceMonitor.startActivity("Sending OnActivateBlocks");
+            if (!readyChunkInfo.isNewChunk()) {
+                PerformanceMonitor.startActivity("Sending OnAddedBlocks");
                 readyChunkInfo.getBlockPositionMapppings().forEachEntry(new TShortObjectProcedure<TIntList>() {
                     @Override
                     public boolean execute(short id, TIntList positions) {
                         if (positions.size() > 0) {
-                            blockManager.getBlock(id).getEntity().send(new OnActivatedBlocks(positions, registry));
+                            blockManager.getBlock(id).getEntity().send(new OnAddedBlocks(positions, registry));
                         }
                         return true;
                     }
                 });
                 PerformanceMonitor.endActivity();
+            }
 
-                if (!readyChunkInfo.isNewChunk()) {
-                    worldEntity.send(new OnChunkGenerated(readyChunkInfo.getPos()));
-                }
-                worldEntity.send(new OnChunkLoaded(readyChunkInfo.getPos()));
-                for (ChunkRelevanceRegion region : regions.values()) {
-                    region.chunkReady(chunk);
+            PerformanceMonitor.startActivity("Sending OnActivateBlocks");
+            readyChunkInfo.getBlockPositionMapppings().forEachEntry(new TShortObjectProcedure<TIntList>() {
+                @Override
+                public boolean execute(short id, TIntList positions) {
+                    if (positions.size() > 0) {
+                        blockManager.getBlock(id).getEntity().send(new OnActivatedBlocks(positions, registry));
+                    }
+                    return true;
                 }
-            } finally {
-                chunk.unlock();
+            });
+            PerformanceMonitor.endActivity();
+
+            if (!readyChunkInfo.isNewChunk()) {
+                worldEntity.send(new OnChunkGenerated(readyChunkInfo.getPos()));
+            }
+            worldEntity.send(new OnChunkLoaded(readyChunkInfo.getPos()));
+            for (ChunkRelevanceRegion region : regions.values()) {
+                region.chunkReady(chunk);
             }
+        } finally {
+            chunk.unlock();
         }
     }
 
@@ -300,6 +342,7 @@ public void beginUpdate() {
             updateRelevance();
             deactivateBlocks();
             checkForUnload();
+            processCancelledChunks();
             makeChunksAvailable();
         } finally {
             regionLock.readLock().unlock();
@@ -313,22 +356,27 @@ private void makeChunksAvailable() {
             nearCache.put(readyChunkInfo.getPos(), readyChunkInfo.getChunk());
             preparingChunks.remove(readyChunkInfo.getPos());
         }
-        if (!newReadyChunks.isEmpty()) {
-            sortedReadyChunks.addAll(newReadyChunks);
-            Collections.sort(sortedReadyChunks, new ReadyChunkRelevanceComparator());
-        }
-        if (!sortedReadyChunks.isEmpty()) {
-            boolean loaded = false;
-            for (int i = sortedReadyChunks.size() - 1; i >= 0 && !loaded; i--) {
-                ReadyChunkInfo chunkInfo = sortedReadyChunks.get(i);
-                PerformanceMonitor.startActivity("Make Chunk Available");
-                if (makeChunkAvailable(chunkInfo)) {
-                    sortedReadyChunks.remove(i);
-                    loaded = true;
-                }
-                PerformanceMonitor.endActivity();
+        sortedReadyChunks.addAll(newReadyChunks);
+
+        // Starts the light merges of as many chunks as possible, in the order of their relevance.
+        // Chunks whose neighbours are missing or still merging stay in the queue.
+        List<ReadyChunkInfo> postponedChunks = Lists.newArrayList();
+        while (lightMerger.hasCapacity() && !sortedReadyChunks.isEmpty()) {
+            ReadyChunkInfo chunkInfo = sortedReadyChunks.poll();
+            PerformanceMonitor.startActivity("Make Chunk Available");
+            if (!makeChunkAvailable(chunkInfo)) {
+                postponedChunks.add(chunkInfo);
             }
+            PerformanceMonitor.endActivity();
         }
+        sortedReadyChunks.addAll(postponedChunks);
+    }
+
+    private void reorderReadyChunks() {
+        PriorityQueue<ReadyChunkInfo> reorderedChunks = new PriorityQueue<>(Math.max(11, sortedReadyChunks.size()),
+                sortedReadyChunks.comparator());
+        reorderedChunks.addAll(sortedReadyChunks);
+        sortedReadyChunks = reorderedChunks;
     }
 
     private void deactivateBlocks() {
@@ -351,21 +399,13 @@ private void checkForUnload() {
         PerformanceMonitor.startActivity("Unloading irrelevant chunks");
         int unloaded = 0;
         logger.debug("Compacting cache");
-        Iterator<Vector3i> iterator = nearCache.keySet().iterator();
-        while (iterator.hasNext()) {
-            Vector3i pos = iterator.next();
-            boolean keep = false;
-            for (ChunkRelevanceRegion region : regions.values()) {
-                if (region.getCurrentRegion().expand(UNLOAD_LEEWAY).encompasses(pos)) {
-                    keep = true;
-                    break;
-                }
-            }
-            if (!keep) {
+        for (Chunk chunk : nearCache.values()) {
+            Vector3i pos = chunk.getPosition();
+            if (!isRelevant(pos)) {
                 // TODO: need some way to not dispose chunks being edited or processed (or do so safely)
                 // Note: Above won't matter if all changes are on the main thread
                 if (unloadChunkInternal(pos)) {
-                    iterator.remove();
+                    nearCache.remove(pos);
                     if (++unloaded >= UNLOAD_PER_FRAME) {
                         break;
                     }
@@ -375,6 +415,47 @@ private void checkForUnload() {
         PerformanceMonitor.endActivity();
     }
 
+    private boolean isRelevant(Vector3i chunkPos) {
+        for (ChunkRelevanceRegion region : regions.values()) {
+            if (region.getCurrentRegion().expand(UNLOAD_LEEWAY).encompasses(chunkPos)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancels the creation of chunks that would get unloaded right away, as they left all relevance regions.
+     */
+    private void cancelIrrelevantTasks() {
+        regionLock.readLock().lock();
+        try {
+            pipeline.cancelTasks(new Predicate<Vector3i>() {
+                @Override
+                public boolean apply(Vector3i chunkPos) {
+                    return isRelevant(chunkPos);
+                }
+            });
+        } finally {
+            regionLock.readLock().unlock();
+        }
+    }
+
+    private void processCancelledChunks() {
+        List<Vector3i> positions = Lists.newArrayListWithExpectedSize(cancelledChunks.size());
+        cancelledChunks.drainTo(positions);
+        for (Vector3i pos : positions) {
+            preparingChunks.remove(pos);
+            // the chunk might have become relevant again after its task got cancelled
+            for (ChunkRelevanceRegion region : regions.values()) {
+                if (region.getCurrentRegion().encompasses(pos)) {
+                    createOrLoadChunk(pos);
+                    break;
+                }
+            }
+        }
+    }
+
     private boolean unloadChunkInternal(Vector3i pos) {
         Chunk chunk = nearCache.get(pos);
         if (chunk.isLocked()) {
@@ -445,9 +526,11 @@ private void updateAdjacentChunksReadyFieldOfAdjChunks(Chunk chunkInCenter) {
 
 
     private void updateRelevance() {
+        boolean relevanceChanged = false;
         for (ChunkRelevanceRegion chunkRelevanceRegion : regions.values()) {
             chunkRelevanceRegion.update();
             if (chunkRelevanceRegion.isDirty()) {
+                relevanceChanged = true;
                 for (Vector3i pos : chunkRelevanceRegion.getNeededChunks()) {
                     Chunk chunk = nearCache.get(pos);
                     if (chunk != null && chunk.isReady()) {
@@ -459,6 +542,12 @@ private void updateRelevance() {
                 chunkRelevanceRegion.setUpToDate();
             }
         }
+        if (relevanceChanged) {
+            // the region centers moved, which changes the priority of the queued chunk tasks
+            pipeline.reprioritizeTasks();
+            cancelIrrelevantTasks();
+            reorderReadyChunks();
+        }
     }
 
     private boolean makeChunkAvailable(final ReadyChunkInfo readyChunkInfo) {
@@ -471,8 +560,7 @@ private boolean makeChunkAvailable(final ReadyChunkInfo readyChunkInfo) {
                 return false;
             }
         }
-        lightMerger.beginMerge(chunk, readyChunkInfo);
-        return true;
+        return lightMerger.beginMerge(chunk, readyChunkInfo);
     }
 
     // Generates all non-temporary block entities
@@ -515,7 +603,11 @@ private TShortObjectMap<TIntList> createBatchBlockEventMappings(Chunk chunk) {
 
     @Override
     public Chunk getChunk(int x, int y, int z) {
-        return getChunk(new Vector3i(x, y, z));
+        Chunk chunk = nearCache.get(x, y, z);
+        if (isChunkReady(chunk)) {
+            return chunk;
+        }
+        return null;
     }
 
     @Override
@@ -596,6 +688,7 @@ public void purgeWorld() {
         sortedReadyChunks.clear();
         storageManager.deleteWorld();
         preparingChunks.clear();
+        cancelledChunks.clear();
         worldEntity.send(new PurgeWorldEvent());
 
         pipeline = new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator());
@@ -624,6 +717,10 @@ public String getName() {
 
                 @Override
                 public void run() {
+                    if (isCancelled()) {
+                        cancelChunkCreation();
+                        return;
+                    }
                     ChunkStore chunkStore = storageManager.loadChunkStore(getPosition());
                     Chunk chunk;
                     if (chunkStore == null) {
@@ -633,10 +730,20 @@ public void run() {
                         chunk = chunkStore.getChunk();
                     }
 
+                    if (isCancelled()) {
+                        chunk.dispose();
+                        cancelChunkCreation();
+                        return;
+                    }
                     InternalLightProcessor.generateInternalLighting(chunk);
                     chunk.deflate();
                     readyChunks.offer(new ReadyChunkInfo(chunk, createBatchBlockEventMappings(chunk), chunkStore));
                 }
+
+                private void cancelChunkCreation() {
+                    ChunkMonitor.fireChunkTaskCancelled();
+                    cancelledChunks.offer(getPosition());
+                }
             });
         }
     }
@@ -701,7 +808,7 @@ private class ReadyChunkRelevanceComparator implements Comparator<ReadyChunkInfo
 
         @Override
         public int compare(ReadyChunkInfo o1, ReadyChunkInfo o2) {
-            return score(o2.getPos()) - score(o1.getPos());
+            return Integer.compare(score(o1.getPos()), score(o2.getPos()));
         }
 
         private int score(Vector3i chunk) {
@@ -23,6 +23,7 @@
  */
 public abstract class AbstractChunkTask implements ChunkTask {
     private final Vector3i position;
+    private volatile boolean cancelled;
 
     public AbstractChunkTask(Vector3i position) {
         this.position = new Vector3i(position);
@@ -33,6 +34,16 @@ public Vector3i getPosition() {
         return position;
     }
 
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
     @Override
     public boolean isTerminateSignal() {
         return false;
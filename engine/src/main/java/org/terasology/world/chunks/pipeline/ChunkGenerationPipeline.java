@@ -16,11 +16,15 @@
 
 package org.terasology.world.chunks.pipeline;
 
+import com.google.common.base.Predicate;
+import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3i;
 import org.terasology.utilities.concurrency.TaskMaster;
 
 import java.util.Comparator;
+import java.util.Set;
 
 /**
  * @author Immortius
@@ -30,25 +34,96 @@ public class ChunkGenerationPipeline {
     private static final Logger logger = LoggerFactory.getLogger(ChunkGenerationPipeline.class);
 
     private TaskMaster<ChunkTask> chunkGenerator;
+    private final Set<ChunkTask> unfinishedTasks = Sets.newConcurrentHashSet();
 
     public ChunkGenerationPipeline(Comparator<ChunkTask> taskComparator) {
         chunkGenerator = TaskMaster.createDynamicPriorityTaskMaster("Chunk-Generator", NUM_TASK_THREADS, taskComparator);
     }
 
     public void doTask(ChunkTask task) {
+        unfinishedTasks.add(task);
         try {
-            chunkGenerator.put(task);
+            chunkGenerator.put(new TrackedChunkTask(task));
         } catch (InterruptedException e) {
+            unfinishedTasks.remove(task);
             logger.error("Failed to enqueue task {}", task, e);
         }
     }
 
+    /**
+     * Cancels the queued and running tasks whose position is no longer relevant.
+     *
+     * @return the number of cancelled tasks
+     */
+    public int cancelTasks(Predicate<Vector3i> isRelevant) {
+        int cancelled = 0;
+        for (ChunkTask task : unfinishedTasks) {
+            if (!task.isCancelled() && !isRelevant.apply(task.getPosition())) {
+                task.cancel();
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Must be called when the comparator of the pipeline would order the queued tasks differently.
+     */
+    public void reprioritizeTasks() {
+        chunkGenerator.reprioritize();
+    }
+
     public void shutdown() {
         chunkGenerator.shutdown(new ShutdownChunkTask(), false);
+        unfinishedTasks.clear();
     }
 
     public void restart() {
         chunkGenerator.restart();
     }
 
+    /**
+     * Keeps track of the task until it finished, so that it can be cancelled.
+     */
+    private final class TrackedChunkTask implements ChunkTask {
+        private final ChunkTask task;
+
+        private TrackedChunkTask(ChunkTask task) {
+            this.task = task;
+        }
+
+        @Override
+        public String getName() {
+            return task.getName();
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                unfinishedTasks.remove(task);
+            }
+        }
+
+        @Override
+        public boolean isTerminateSignal() {
+            return task.isTerminateSignal();
+        }
+
+        @Override
+        public Vector3i getPosition() {
+            return task.getPosition();
+        }
+
+        @Override
+        public void cancel() {
+            task.cancel();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return task.isCancelled();
+        }
+    }
 }
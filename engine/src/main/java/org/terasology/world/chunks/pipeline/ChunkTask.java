@@ -26,4 +26,12 @@ public interface ChunkTask extends Task {
 
     Vector3i getPosition();
 
+    /**
+     * Marks the task as no longer needed. A queued task should then return immediately when it gets run, while a
+     * running task should stop at its next safe point.
+     */
+    void cancel();
+
+    boolean isCancelled();
+
 }
@@ -42,4 +42,14 @@ public Vector3i getPosition() {
         return Vector3i.zero();
     }
 
+    @Override
+    public void cancel() {
+        // the shutdown of the worker threads can't be cancelled
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
 }
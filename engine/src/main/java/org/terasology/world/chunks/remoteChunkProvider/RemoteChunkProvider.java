@@ -17,10 +17,10 @@
 package org.terasology.world.chunks.remoteChunkProvider;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.logic.players.LocalPlayer;
 import org.terasology.math.ChunkMath;
@@ -38,6 +38,7 @@
 import org.terasology.world.chunks.ChunkProvider;
 import org.terasology.world.chunks.ChunkRegionListener;
 import org.terasology.world.chunks.event.OnChunkLoaded;
+import org.terasology.world.chunks.internal.ChunkMap;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.chunks.pipeline.AbstractChunkTask;
 import org.terasology.world.chunks.pipeline.ChunkGenerationPipeline;
@@ -51,8 +52,8 @@
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Immortius
@@ -60,23 +61,24 @@
  */
 public class RemoteChunkProvider implements ChunkProvider, GeneratingChunkProvider {
 
-    private static final int LOAD_PER_FRAME = 1;
     private static final Logger logger = LoggerFactory.getLogger(RemoteChunkProvider.class);
-    private Map<Vector3i, Chunk> chunkCache = Maps.newHashMap();
+    private final ChunkMap chunkCache = new ChunkMap();
     private final BlockingQueue<Chunk> readyChunks = Queues.newLinkedBlockingQueue();
     private List<Chunk> sortedReadyChunks = Lists.newArrayList();
     private ChunkReadyListener listener;
     private EntityRef worldEntity = EntityRef.NULL;
 
     private BlockManager blockManager;
+    private final Config config = CoreRegistry.get(Config.class);
 
     private ChunkGenerationPipeline pipeline;
+    private final ChunkTaskRelevanceComparator taskComparator = new ChunkTaskRelevanceComparator();
 
     private LightMerger<Chunk> lightMerger = new LightMerger<>(this);
 
     public RemoteChunkProvider(BlockManager blockManager) {
         this.blockManager = blockManager;
-        pipeline = new ChunkGenerationPipeline(new ChunkTaskRelevanceComparator());
+        pipeline = new ChunkGenerationPipeline(taskComparator);
         ChunkMonitor.fireChunkProviderInitialized(this);
     }
 
@@ -110,6 +112,9 @@ public void invalidateChunks(Vector3i pos) {
 
     @Override
     public void beginUpdate() {
+        if (taskComparator.updatePlayerChunkPos()) {
+            pipeline.reprioritizeTasks();
+        }
         if (listener != null) {
             List<Chunk> newReadyChunks = Lists.newArrayList();
             readyChunks.drainTo(newReadyChunks);
@@ -124,17 +129,13 @@ public void beginUpdate() {
                     }
                 }
             }
-            if (!sortedReadyChunks.isEmpty()) {
-                int loaded = 0;
-                for (int i = sortedReadyChunks.size() - 1; i >= 0 && loaded < LOAD_PER_FRAME; i--) {
-                    Chunk chunkInfo = sortedReadyChunks.get(i);
-                    PerformanceMonitor.startActivity("Make Chunk Available");
-                    if (makeChunkAvailable(chunkInfo)) {
-                        sortedReadyChunks.remove(i);
-                        loaded++;
-                    }
-                    PerformanceMonitor.endActivity();
+            for (int i = sortedReadyChunks.size() - 1; i >= 0 && lightMerger.hasCapacity(); i--) {
+                Chunk chunkInfo = sortedReadyChunks.get(i);
+                PerformanceMonitor.startActivity("Make Chunk Available");
+                if (makeChunkAvailable(chunkInfo)) {
+                    sortedReadyChunks.remove(i);
                 }
+                PerformanceMonitor.endActivity();
             }
         }
     }
@@ -146,14 +147,17 @@ private boolean makeChunkAvailable(final Chunk chunk) {
             }
         }
 
-        lightMerger.beginMerge(chunk, chunk);
-        return true;
+        return lightMerger.beginMerge(chunk, chunk);
     }
 
 
     @Override
     public Chunk getChunk(int x, int y, int z) {
-        return getChunk(new Vector3i(x, y, z));
+        Chunk chunk = chunkCache.get(x, y, z);
+        if (chunk != null && chunk.isReady()) {
+            return chunk;
+        }
+        return null;
     }
 
     @Override
@@ -227,15 +231,19 @@ public ChunkViewCore getSubviewAroundChunk(Vector3i chunkPos) {
     }
 
     private ChunkViewCore createWorldView(Region3i region, Vector3i offset) {
-        Chunk[] chunks = new Chunk[region.size().x * region.size().y * region.size().z];
-        for (Vector3i chunkPos : region) {
-            Chunk chunk = chunkCache.get(chunkPos);
-            if (chunk == null || !chunk.isReady()) {
-                return null;
+        Vector3i regionSize = region.size();
+        Chunk[] chunks = new Chunk[regionSize.x * regionSize.y * regionSize.z];
+        for (int z = region.minZ(); z <= region.maxZ(); z++) {
+            for (int y = region.minY(); y <= region.maxY(); y++) {
+                for (int x = region.minX(); x <= region.maxX(); x++) {
+                    Chunk chunk = chunkCache.get(x, y, z);
+                    if (chunk == null || !chunk.isReady()) {
+                        return null;
+                    }
+                    int index = TeraMath.calculate3DArrayIndex(x - region.minX(), y - region.minY(), z - region.minZ(), regionSize);
+                    chunks[index] = chunk;
+                }
             }
-            chunkPos.sub(region.min());
-            int index = TeraMath.calculate3DArrayIndex(chunkPos, region.size());
-            chunks[index] = chunk;
         }
         return new ChunkViewCoreImpl(chunks, region, offset, blockManager.getBlock(BlockManager.AIR_ID));
     }
@@ -263,13 +271,18 @@ public void removeRelevanceEntity(EntityRef entity) {
 
     @Override
     public void completeUpdate() {
+        long budgetEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getSystem().getChunkIntegrationBudgetMs());
         Chunk chunk = lightMerger.completeMerge();
-        if (chunk != null) {
-            chunk.markReady();
-            updateAdjacentChunksReadyFieldOf(chunk);
-            updateAdjacentChunksReadyFieldOfAdjChunks(chunk);
-            listener.onChunkReady(chunk.getPosition());
-            worldEntity.send(new OnChunkLoaded(chunk.getPosition()));
+        while (chunk != null) {
+            // the chunk might have been invalidated while its light got merged
+            if (chunkCache.get(chunk.getPosition()) == chunk) {
+                chunk.markReady();
+                updateAdjacentChunksReadyFieldOf(chunk);
+                updateAdjacentChunksReadyFieldOfAdjChunks(chunk);
+                listener.onChunkReady(chunk.getPosition());
+                worldEntity.send(new OnChunkLoaded(chunk.getPosition()));
+            }
+            chunk = System.nanoTime() < budgetEnd ? lightMerger.completeMerge() : null;
         }
     }
 
@@ -318,6 +331,19 @@ private void updateAdjacentChunksReadyFieldOfAdjChunks(Chunk chunkInCenter) {
     private static class ChunkTaskRelevanceComparator implements Comparator<ChunkTask> {
 
         private LocalPlayer localPlayer = CoreRegistry.get(LocalPlayer.class);
+        private volatile Vector3i playerChunkPos = new Vector3i();
+
+        /**
+         * @return true if the player entered another chunk since the last call.
+         */
+        boolean updatePlayerChunkPos() {
+            Vector3i newPlayerChunkPos = ChunkMath.calcChunkPos(new Vector3i(localPlayer.getPosition(), 0.5f));
+            if (newPlayerChunkPos.equals(playerChunkPos)) {
+                return false;
+            }
+            playerChunkPos = newPlayerChunkPos;
+            return true;
+        }
 
         @Override
         public int compare(ChunkTask o1, ChunkTask o2) {
@@ -325,8 +351,7 @@ public int compare(ChunkTask o1, ChunkTask o2) {
         }
 
         private int score(Vector3i chunk) {
-            Vector3i playerChunk = ChunkMath.calcChunkPos(new Vector3i(localPlayer.getPosition(), 0.5f));
-            return playerChunk.distanceSquared(chunk);
+            return playerChunkPos.distanceSquared(chunk);
         }
     }
 
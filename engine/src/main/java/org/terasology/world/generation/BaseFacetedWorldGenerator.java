@@ -16,10 +16,12 @@
 package org.terasology.world.generation;
 
 import com.google.common.collect.Sets;
+import org.terasology.config.Config;
 import org.terasology.engine.SimpleUri;
 import org.terasology.math.Rect2i;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
 import org.terasology.rendering.nui.Color;
 import org.terasology.world.chunks.CoreChunk;
 import org.terasology.world.generation.facets.base.ColorSummaryFacet;
@@ -86,6 +88,8 @@ public WorldConfigurator getConfigurator() {
     public World getWorld() {
         // build the world as late as possible so that we can do configuration and 2d previews
         if (world == null) {
+            Config config = CoreRegistry.get(Config.class);
+            worldBuilder.setParallelFacetProcessing(config != null && config.getSystem().isParallelFacetProcessing());
             world = worldBuilder.build();
         }
         return world;
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.generation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.terasology.math.Rect2i;
+import org.terasology.math.Region3i;
+import org.terasology.monitoring.chunk.ChunkMonitor;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shares the 2D facets of a column of regions between all regions of that column, so that e.g. the surface height of
+ * vertically stacked chunks gets only calculated once.
+ * <br><br>
+ * Only facets which are 2D, and whose whole provider chain only requires, produces and updates 2D facets, are shared.
+ * These "column facets" get generated in a separate region per column, which is kept in a bounded cache that evicts
+ * the least recently used columns. The cache can be used by several threads at once.
+ */
+final class ColumnFacetCache {
+    private static final int MAX_COLUMNS = 1024;
+
+    private final ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains;
+    private final Map<Class<? extends WorldFacet>, Border3D> borders;
+    private final Set<Class<? extends WorldFacet>> columnFacets;
+    private final Set<FacetProvider> columnProviders;
+    private final Cache<Rect2i, RegionImpl> columns = CacheBuilder.newBuilder().maximumSize(MAX_COLUMNS).build();
+
+    ColumnFacetCache(ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains,
+                     Map<Class<? extends WorldFacet>, Border3D> borders) {
+        this.facetProviderChains = facetProviderChains;
+        this.borders = borders;
+        this.columnProviders = Sets.newHashSet();
+        for (FacetProvider provider : facetProviderChains.values()) {
+            if (involvesOnly2DFacets(provider)) {
+                columnProviders.add(provider);
+            }
+        }
+        this.columnFacets = Sets.newHashSet();
+        for (Class<? extends WorldFacet> facet : facetProviderChains.keySet()) {
+            if (WorldFacet2D.class.isAssignableFrom(facet)) {
+                columnFacets.add(facet);
+            }
+        }
+        removeFacetsAndProvidersDependingOnOthers();
+    }
+
+    /**
+     * @return true if the facet gets shared between all regions of a column.
+     */
+    public boolean isColumnFacet(Class<? extends WorldFacet> facet) {
+        return columnFacets.contains(facet);
+    }
+
+    /**
+     * @return true if the provider gets processed once per column instead of once per region.
+     */
+    public boolean isColumnProvider(FacetProvider provider) {
+        return columnProviders.contains(provider);
+    }
+
+    /**
+     * Looks up the column that contains the region, generating it if it isn't cached. Regions should look up their
+     * column once and keep it, so that the cache statistics count one hit or miss per region.
+     */
+    public RegionImpl getColumn(final Region3i region) {
+        Rect2i key = Rect2i.createFromMinAndSize(region.minX(), region.minZ(), region.sizeX(), region.sizeZ());
+        final boolean[] created = new boolean[1];
+        RegionImpl column;
+        try {
+            column = columns.get(key, new Callable<RegionImpl>() {
+                @Override
+                public RegionImpl call() {
+                    created[0] = true;
+                    // Column facets only depend on the x and z coordinates of the region
+                    return new RegionImpl(region, facetProviderChains, borders);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to create facet column for " + region, e);
+        }
+        if (created[0]) {
+            ChunkMonitor.fireColumnFacetCacheMiss();
+        } else {
+            ChunkMonitor.fireColumnFacetCacheHit();
+        }
+        return column;
+    }
+
+    /**
+     * @return the shared facet of the column. Must not be modified.
+     */
+    public <T extends WorldFacet> T getFacet(RegionImpl column, Class<T> type) {
+        synchronized (column) {
+            return column.getFacet(type);
+        }
+    }
+
+    /**
+     * Sets all facets that the column provider produces or updates to the shared facets of the column.
+     */
+    public void copyFacetsOf(FacetProvider columnProvider, RegionImpl column, RegionImpl target) {
+        for (Class<? extends WorldFacet> facet : getOutputFacets(columnProvider)) {
+            copyFacet(facet, column, target);
+        }
+    }
+
+    private <T extends WorldFacet> void copyFacet(Class<T> facet, RegionImpl column, RegionImpl target) {
+        target.setRegionFacet(facet, getFacet(column, facet));
+    }
+
+    public void clear() {
+        columns.invalidateAll();
+    }
+
+    /**
+     * A facet can only be shared if all providers of its chain are column providers, and a provider can only be
+     * processed per column if all its facets are shared. Removes facets and providers until both conditions hold.
+     */
+    private void removeFacetsAndProvidersDependingOnOthers() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Iterator<Class<? extends WorldFacet>> facetIterator = columnFacets.iterator();
+            while (facetIterator.hasNext()) {
+                if (!columnProviders.containsAll(facetProviderChains.get(facetIterator.next()))) {
+                    facetIterator.remove();
+                    changed = true;
+                }
+            }
+            Iterator<FacetProvider> providerIterator = columnProviders.iterator();
+            while (providerIterator.hasNext()) {
+                if (!columnFacets.containsAll(getInvolvedFacets(providerIterator.next()))) {
+                    providerIterator.remove();
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private static boolean involvesOnly2DFacets(FacetProvider provider) {
+        List<Class<? extends WorldFacet>> facets = getInvolvedFacets(provider);
+        for (Class<? extends WorldFacet> facet : facets) {
+            if (!WorldFacet2D.class.isAssignableFrom(facet)) {
+                return false;
+            }
+        }
+        return !facets.isEmpty();
+    }
+
+    private static List<Class<? extends WorldFacet>> getInvolvedFacets(FacetProvider provider) {
+        List<Class<? extends WorldFacet>> facets = getOutputFacets(provider);
+        Requires requires = provider.getClass().getAnnotation(Requires.class);
+        if (requires != null) {
+            for (Facet facet : requires.value()) {
+                facets.add(facet.value());
+            }
+        }
+        return facets;
+    }
+
+    private static List<Class<? extends WorldFacet>> getOutputFacets(FacetProvider provider) {
+        List<Class<? extends WorldFacet>> facets = Lists.newArrayList();
+        Produces produces = provider.getClass().getAnnotation(Produces.class);
+        if (produces != null) {
+            facets.addAll(Arrays.asList(produces.value()));
+        }
+        Updates updates = provider.getClass().getAnnotation(Updates.class);
+        if (updates != null) {
+            for (Facet facet : updates.value()) {
+                facets.add(facet.value());
+            }
+        }
+        return facets;
+    }
+}
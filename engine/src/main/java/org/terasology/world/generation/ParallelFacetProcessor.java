@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.generation;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Processes the facet providers of a region concurrently on a fork join pool.
+ * <br><br>
+ * A provider waits for every earlier provider that writes a facet it reads or writes, or that reads a facet it writes.
+ * All other providers run in parallel. The facets a provider reads and writes are determined by its {@link Requires},
+ * {@link Produces} and {@link Updates} annotations.
+ */
+final class ParallelFacetProcessor {
+
+    private final ForkJoinPool pool;
+
+    ParallelFacetProcessor(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Blocks until all providers got processed.
+     *
+     * @param providers in an order in which they could be processed one after another
+     */
+    public void process(final RegionImpl region, List<FacetProvider> providers) {
+        final List<ProviderTask> tasks = Lists.newArrayListWithCapacity(providers.size());
+        for (FacetProvider provider : providers) {
+            ProviderTask task = new ProviderTask(region, provider);
+            for (ProviderTask earlierTask : tasks) {
+                if (task.dependsOn(earlierTask)) {
+                    task.dependencies.add(earlierTask);
+                }
+            }
+            tasks.add(task);
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    private static Set<Class<? extends WorldFacet>> getReadFacets(FacetProvider provider) {
+        Set<Class<? extends WorldFacet>> facets = Sets.newHashSet();
+        Requires requires = provider.getClass().getAnnotation(Requires.class);
+        if (requires != null) {
+            for (Facet facet : requires.value()) {
+                facets.add(facet.value());
+            }
+        }
+        return facets;
+    }
+
+    private static Set<Class<? extends WorldFacet>> getWrittenFacets(FacetProvider provider) {
+        Set<Class<? extends WorldFacet>> facets = Sets.newHashSet();
+        Produces produces = provider.getClass().getAnnotation(Produces.class);
+        if (produces != null) {
+            for (Class<? extends WorldFacet> facet : produces.value()) {
+                facets.add(facet);
+            }
+        }
+        Updates updates = provider.getClass().getAnnotation(Updates.class);
+        if (updates != null) {
+            for (Facet facet : updates.value()) {
+                facets.add(facet.value());
+            }
+        }
+        return facets;
+    }
+
+    private static final class ProviderTask extends RecursiveAction {
+        private final RegionImpl region;
+        private final FacetProvider provider;
+        private final Set<Class<? extends WorldFacet>> readFacets;
+        private final Set<Class<? extends WorldFacet>> writtenFacets;
+        private final List<ProviderTask> dependencies = Lists.newArrayList();
+
+        private ProviderTask(RegionImpl region, FacetProvider provider) {
+            this.region = region;
+            this.provider = provider;
+            this.readFacets = getReadFacets(provider);
+            this.writtenFacets = getWrittenFacets(provider);
+        }
+
+        private boolean dependsOn(ProviderTask earlierTask) {
+            return !Sets.intersection(earlierTask.writtenFacets, readFacets).isEmpty()
+                    || !Sets.intersection(earlierTask.writtenFacets, writtenFacets).isEmpty()
+                    || !Sets.intersection(earlierTask.readFacets, writtenFacets).isEmpty();
+        }
+
+        @Override
+        protected void compute() {
+            for (ProviderTask dependency : dependencies) {
+                dependency.join();
+            }
+            region.processProvider(provider);
+        }
+    }
+}
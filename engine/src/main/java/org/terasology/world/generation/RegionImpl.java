@@ -16,10 +16,12 @@
 package org.terasology.world.generation;
 
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.terasology.math.Region3i;
 import org.terasology.utilities.collection.TypeMap;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,45 +33,95 @@ public class RegionImpl implements Region, GeneratingRegion {
     private final Region3i region;
     private final ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains;
     private final Map<Class<? extends WorldFacet>, Border3D> borders;
+    private final ColumnFacetCache columnFacetCache;
+    private final ParallelFacetProcessor parallelFacetProcessor;
+    private final Object columnLock = new Object();
+    private RegionImpl column;
 
     private final TypeMap<WorldFacet> generatingFacets = TypeMap.create();
     private final Set<FacetProvider> processedProviders = Sets.newHashSet();
     private final TypeMap<WorldFacet> generatedFacets = TypeMap.create();
 
     public RegionImpl(Region3i region, ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains, Map<Class<? extends WorldFacet>, Border3D> borders) {
+        this(region, facetProviderChains, borders, null, null);
+    }
+
+    /**
+     * @param columnFacetCache       provides the facets that are shared by all regions of a column, may be null.
+     * @param parallelFacetProcessor processes independent providers concurrently, may be null to process them on the
+     *                               calling thread.
+     */
+    RegionImpl(Region3i region, ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains, Map<Class<? extends WorldFacet>, Border3D> borders,
+               ColumnFacetCache columnFacetCache, ParallelFacetProcessor parallelFacetProcessor) {
         this.region = region;
         this.facetProviderChains = facetProviderChains;
         this.borders = borders;
+        this.columnFacetCache = columnFacetCache;
+        this.parallelFacetProcessor = parallelFacetProcessor;
     }
 
     @Override
     public <T extends WorldFacet> T getFacet(Class<T> dataType) {
         T facet = generatedFacets.get(dataType);
         if (facet == null) {
+            if (columnFacetCache != null && columnFacetCache.isColumnFacet(dataType)) {
+                facet = columnFacetCache.getFacet(getColumn(), dataType);
+                setRegionFacet(dataType, facet);
+                generatedFacets.put(dataType, facet);
+                return facet;
+            }
+            List<FacetProvider> providers = Lists.newArrayList();
             for (FacetProvider provider : facetProviderChains.get(dataType)) {
                 if (!processedProviders.contains(provider)) {
-                    provider.process(this);
-                    processedProviders.add(provider);
+                    providers.add(provider);
                 }
             }
-            facet = generatingFacets.get(dataType);
+            if (parallelFacetProcessor != null && providers.size() > 1) {
+                parallelFacetProcessor.process(this, providers);
+            } else {
+                for (FacetProvider provider : providers) {
+                    processProvider(provider);
+                }
+            }
+            processedProviders.addAll(providers);
+            facet = getRegionFacet(dataType);
             generatedFacets.put(dataType, facet);
         }
         return facet;
     }
 
+    /**
+     * Can be called by several threads at once, as long as the providers don't write the same facets.
+     */
+    void processProvider(FacetProvider provider) {
+        if (columnFacetCache != null && columnFacetCache.isColumnProvider(provider)) {
+            columnFacetCache.copyFacetsOf(provider, getColumn(), this);
+        } else {
+            provider.process(this);
+        }
+    }
+
+    private RegionImpl getColumn() {
+        synchronized (columnLock) {
+            if (column == null) {
+                column = columnFacetCache.getColumn(region);
+            }
+            return column;
+        }
+    }
+
     @Override
     public Region3i getRegion() {
         return region;
     }
 
     @Override
-    public <T extends WorldFacet> T getRegionFacet(Class<T> type) {
+    public synchronized <T extends WorldFacet> T getRegionFacet(Class<T> type) {
         return generatingFacets.get(type);
     }
 
     @Override
-    public <T extends WorldFacet> void setRegionFacet(Class<T> type, T facet) {
+    public synchronized <T extends WorldFacet> void setRegionFacet(Class<T> type, T facet) {
         generatingFacets.put(type, facet);
     }
 
@@ -42,6 +42,7 @@ public class WorldBuilder {
     private final List<WorldRasterizer> rasterizers = Lists.newArrayList();
     private int seaLevel = 32;
     private Long seed;
+    private boolean parallelFacetProcessing;
 
     private WorldGeneratorPluginLibrary pluginLibrary;
 
@@ -79,6 +80,16 @@ public void setSeed(long seed) {
         this.seed = seed;
     }
 
+    /**
+     * @param parallelFacetProcessing whether the facet providers that don't depend on each other get processed
+     *                                concurrently when a chunk gets generated. Off by default.
+     * @return this
+     */
+    public WorldBuilder setParallelFacetProcessing(boolean parallelFacetProcessing) {
+        this.parallelFacetProcessing = parallelFacetProcessing;
+        return this;
+    }
+
     public World build() {
         // TODO: ensure the required providers are present
 
@@ -89,7 +100,7 @@ public World build() {
             provider.setSeed(seed);
         }
         ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains = determineProviderChains();
-        return new WorldImpl(providerChains, rasterizers, determineBorders(providerChains), seaLevel);
+        return new WorldImpl(providerChains, rasterizers, determineBorders(providerChains), seaLevel, parallelFacetProcessing);
     }
 
     private Map<Class<? extends WorldFacet>, Border3D> determineBorders(ListMultimap<Class<? extends WorldFacet>, FacetProvider> providerChains) {
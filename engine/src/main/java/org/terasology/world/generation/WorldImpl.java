@@ -20,6 +20,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.terasology.math.Region3i;
 import org.terasology.world.chunks.CoreChunk;
@@ -36,15 +37,30 @@ public class WorldImpl implements World {
     private final List<WorldRasterizer> worldRasterizers;
     private final Map<Class<? extends WorldFacet>, Border3D> borders;
     private final int seaLevel;
+    private final ColumnFacetCache columnFacetCache;
+    private final ParallelFacetProcessor parallelFacetProcessor;
 
     public WorldImpl(ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains,
                      List<WorldRasterizer> worldRasterizers,
                      Map<Class<? extends WorldFacet>, Border3D> borders,
                      int seaLevel) {
+        this(facetProviderChains, worldRasterizers, borders, seaLevel, false);
+    }
+
+    /**
+     * @param parallelFacetProcessing whether independent facet providers of a chunk get processed concurrently
+     */
+    public WorldImpl(ListMultimap<Class<? extends WorldFacet>, FacetProvider> facetProviderChains,
+                     List<WorldRasterizer> worldRasterizers,
+                     Map<Class<? extends WorldFacet>, Border3D> borders,
+                     int seaLevel,
+                     boolean parallelFacetProcessing) {
         this.facetProviderChains = facetProviderChains;
         this.worldRasterizers = worldRasterizers;
         this.borders = borders;
         this.seaLevel = seaLevel;
+        this.columnFacetCache = new ColumnFacetCache(facetProviderChains, borders);
+        this.parallelFacetProcessor = parallelFacetProcessing ? new ParallelFacetProcessor(ForkJoinPool.commonPool()) : null;
     }
 
     @Override
@@ -59,7 +75,7 @@ public int getSeaLevel() {
 
     @Override
     public void rasterizeChunk(CoreChunk chunk) {
-        Region chunkRegion = getWorldData(chunk.getRegion());
+        Region chunkRegion = new RegionImpl(chunk.getRegion(), facetProviderChains, borders, columnFacetCache, parallelFacetProcessor);
         for (WorldRasterizer rasterizer : worldRasterizers) {
             rasterizer.generateChunk(chunk, chunkRegion);
         }
@@ -86,6 +102,8 @@ public Set<Class<? extends WorldFacet>> getAllFacets() {
 
     @Override
     public void initialize() {
+        columnFacetCache.clear();
+
         // throw them all in a set to remove duplicates
         Collection<FacetProvider> facetProviders = new LinkedHashSet<>(facetProviderChains.values());
 
@@ -25,6 +25,7 @@
 import org.terasology.world.time.WorldTime;
 
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * Provides the basic interface for all world providers.
@@ -105,6 +106,16 @@ public interface WorldProviderCore {
      */
     Block setBlock(Vector3i pos, Block type);
 
+    /**
+     * Places multiple blocks at once. The changes get grouped by chunk, so that each chunk is locked only once and
+     * listeners get notified once per chunk.
+     *
+     * @param blocks The block types to set, by world position
+     * @return The previous block types of the positions that could be changed. Positions in chunks that are not
+     * loaded are left out.
+     */
+    Map<Vector3i, Block> setBlocks(Map<Vector3i, Block> blocks);
+
     /**
      * Changes the biome at the given position.
      *
@@ -21,8 +21,10 @@
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
 import org.terasology.engine.SimpleUri;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
@@ -42,6 +44,7 @@
 import org.terasology.world.chunks.RenderableChunk;
 import org.terasology.world.chunks.internal.GeneratingChunkProvider;
 import org.terasology.world.liquid.LiquidData;
+import org.terasology.world.propagation.AsyncBlockChangePropagator;
 import org.terasology.world.propagation.BatchPropagator;
 import org.terasology.world.propagation.BiomeChange;
 import org.terasology.world.propagation.BlockChange;
@@ -59,9 +62,11 @@
 import org.terasology.world.time.WorldTimeImpl;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Immortius
@@ -81,6 +86,8 @@ public class WorldProviderCoreImpl implements WorldProviderCore {
     private Map<Vector3i, BlockChange> blockChanges = Maps.newHashMap();
     private Map<Vector3i, BiomeChange> biomeChanges = Maps.newHashMap();
     private List<BatchPropagator> propagators = Lists.newArrayList();
+    // null if block changes get propagated on the main thread
+    private AsyncBlockChangePropagator asyncPropagator;
 
     private Block defaultBlock;
 
@@ -102,6 +109,11 @@ public WorldProviderCoreImpl(String title, String seed, long time, SimpleUri wor
         BatchPropagator sunlightPropagator = new StandardBatchPropagator(sunlightRules, sunlightWorldView);
         propagators.add(new SunlightRegenBatchPropagator(new SunlightRegenPropagationRules(), regenWorldView, sunlightPropagator, sunlightWorldView));
         propagators.add(sunlightPropagator);
+
+        Config config = CoreRegistry.get(Config.class);
+        if (config != null && config.getSystem().isAsyncLightPropagation()) {
+            asyncPropagator = new AsyncBlockChangePropagator(chunkProvider, propagators);
+        }
     }
 
     public WorldProviderCoreImpl(WorldInfo info, GeneratingChunkProvider chunkProvider, Block defaultBlock) {
@@ -134,8 +146,12 @@ public WorldInfo getWorldInfo() {
 
     @Override
     public void processPropagation() {
-        for (BatchPropagator propagator : propagators) {
-            propagator.process(blockChanges.values());
+        if (asyncPropagator != null) {
+            asyncPropagator.process(blockChanges.values());
+        } else {
+            for (BatchPropagator propagator : propagators) {
+                propagator.process(blockChanges.values());
+            }
         }
         blockChanges.clear();
     }
@@ -189,12 +205,7 @@ public Block setBlock(Vector3i worldPos, Block type) {
             Block oldBlockType = chunk.setBlock(blockPos, type);
             chunk.unlock();
             if (oldBlockType != type) {
-                BlockChange oldChange = blockChanges.get(worldPos);
-                if (oldChange == null) {
-                    blockChanges.put(worldPos, new BlockChange(worldPos, oldBlockType, type));
-                } else {
-                    oldChange.setTo(type);
-                }
+                queueBlockChange(worldPos, oldBlockType, type);
                 for (Vector3i pos : ChunkMath.getChunkRegionAroundWorldPos(worldPos, 1)) {
                     RenderableChunk dirtiedChunk = chunkProvider.getChunk(pos);
                     if (dirtiedChunk != null) {
@@ -209,6 +220,72 @@ public Block setBlock(Vector3i worldPos, Block type) {
         return null;
     }
 
+    @Override
+    public Map<Vector3i, Block> setBlocks(Map<Vector3i, Block> blocks) {
+        Map<Vector3i, Map<Vector3i, Block>> blocksByChunk = Maps.newLinkedHashMap();
+        for (Map.Entry<Vector3i, Block> entry : blocks.entrySet()) {
+            Vector3i chunkPos = ChunkMath.calcChunkPos(entry.getKey());
+            Map<Vector3i, Block> chunkBlocks = blocksByChunk.get(chunkPos);
+            if (chunkBlocks == null) {
+                chunkBlocks = Maps.newLinkedHashMap();
+                blocksByChunk.put(chunkPos, chunkBlocks);
+            }
+            chunkBlocks.put(entry.getKey(), entry.getValue());
+        }
+
+        Map<Vector3i, Block> oldBlocks = Maps.newHashMapWithExpectedSize(blocks.size());
+        Set<Vector3i> dirtiedChunks = Sets.newHashSet();
+        for (Map.Entry<Vector3i, Map<Vector3i, Block>> chunkEntry : blocksByChunk.entrySet()) {
+            CoreChunk chunk = chunkProvider.getChunk(chunkEntry.getKey());
+            if (chunk == null) {
+                continue;
+            }
+            List<BlockChange> chunkChanges = Lists.newArrayListWithCapacity(chunkEntry.getValue().size());
+            chunk.lock();
+            try {
+                for (Map.Entry<Vector3i, Block> entry : chunkEntry.getValue().entrySet()) {
+                    Vector3i worldPos = entry.getKey();
+                    Block oldBlockType = chunk.setBlock(ChunkMath.calcBlockPos(worldPos), entry.getValue());
+                    oldBlocks.put(worldPos, oldBlockType);
+                    if (oldBlockType != entry.getValue()) {
+                        chunkChanges.add(new BlockChange(worldPos, oldBlockType, entry.getValue()));
+                    }
+                }
+            } finally {
+                chunk.unlock();
+            }
+            if (!chunkChanges.isEmpty()) {
+                for (BlockChange change : chunkChanges) {
+                    queueBlockChange(change.getPosition(), change.getFrom(), change.getTo());
+                    for (Vector3i pos : ChunkMath.getChunkRegionAroundWorldPos(change.getPosition(), 1)) {
+                        dirtiedChunks.add(pos);
+                    }
+                }
+                notifyBlocksChanged(chunkEntry.getKey(), chunkChanges);
+            }
+        }
+        for (Vector3i pos : dirtiedChunks) {
+            RenderableChunk dirtiedChunk = chunkProvider.getChunk(pos);
+            if (dirtiedChunk != null) {
+                dirtiedChunk.setDirty(true);
+            }
+        }
+        return oldBlocks;
+    }
+
+    /**
+     * Records a block change for the next {@link #processPropagation()}, merging it with an earlier change of the same
+     * position.
+     */
+    private void queueBlockChange(Vector3i worldPos, Block oldBlockType, Block type) {
+        BlockChange oldChange = blockChanges.get(worldPos);
+        if (oldChange == null) {
+            blockChanges.put(worldPos, new BlockChange(worldPos, oldBlockType, type));
+        } else {
+            oldChange.setTo(type);
+        }
+    }
+
     private void notifyBlockChanged(Vector3i pos, Block type, Block oldType) {
         // TODO: Could use a read/write lock.
         // TODO: Review, should only happen on main thread (as should changes to listeners)
@@ -219,6 +296,15 @@ private void notifyBlockChanged(Vector3i pos, Block type, Block oldType) {
         }
     }
 
+    private void notifyBlocksChanged(Vector3i chunkPos, Collection<BlockChange> changes) {
+        Collection<BlockChange> unmodifiableChanges = Collections.unmodifiableCollection(changes);
+        synchronized (listeners) {
+            for (WorldChangeListener listener : listeners) {
+                listener.onBlocksChanged(chunkPos, unmodifiableChanges);
+            }
+        }
+    }
+
     private void notifyBiomeChanged(Vector3i pos, Biome newBiome, Biome originalBiome) {
         // TODO: Could use a read/write lock.
         // TODO: Review, should only happen on main thread (as should changes to listeners)
@@ -251,11 +337,12 @@ public boolean setLiquid(int x, int y, int z, LiquidData newState, LiquidData ol
 
     @Override
     public LiquidData getLiquid(int x, int y, int z) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(x, y, z);
-        CoreChunk chunk = chunkProvider.getChunk(chunkPos);
+        CoreChunk chunk = getChunkOfBlock(x, y, z);
         if (chunk != null) {
-            Vector3i blockPos = ChunkMath.calcBlockPos(x, y, z);
-            return chunk.getLiquid(blockPos);
+            int blockX = ChunkMath.calcBlockPosX(x);
+            int blockY = ChunkMath.calcBlockPosY(y);
+            int blockZ = ChunkMath.calcBlockPosZ(z);
+            return chunk.getLiquid(blockX, blockY, blockZ);
         }
         logger.warn("Attempted to access unavailable chunk via liquid data at {}, {}, {}", x, y, z);
         return new LiquidData();
@@ -263,11 +350,12 @@ public LiquidData getLiquid(int x, int y, int z) {
 
     @Override
     public Block getBlock(int x, int y, int z) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(x, y, z);
-        CoreChunk chunk = chunkProvider.getChunk(chunkPos);
+        CoreChunk chunk = getChunkOfBlock(x, y, z);
         if (chunk != null) {
-            Vector3i blockPos = ChunkMath.calcBlockPos(x, y, z);
-            return chunk.getBlock(blockPos);
+            int blockX = ChunkMath.calcBlockPosX(x);
+            int blockY = ChunkMath.calcBlockPosY(y);
+            int blockZ = ChunkMath.calcBlockPosZ(z);
+            return chunk.getBlock(blockX, blockY, blockZ);
         }
         logger.warn("Attempted to access unavailable chunk via block at {}, {}, {}", x, y, z);
         return defaultBlock;
@@ -317,11 +405,12 @@ public Biome setBiome(Vector3i worldPos, Biome biome) {
 
     @Override
     public byte getLight(int x, int y, int z) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(x, y, z);
-        LitChunk chunk = chunkProvider.getChunk(chunkPos);
+        LitChunk chunk = getChunkOfBlock(x, y, z);
         if (chunk != null) {
-            Vector3i blockPos = ChunkMath.calcBlockPos(x, y, z);
-            return chunk.getLight(blockPos);
+            int blockX = ChunkMath.calcBlockPosX(x);
+            int blockY = ChunkMath.calcBlockPosY(y);
+            int blockZ = ChunkMath.calcBlockPosZ(z);
+            return chunk.getLight(blockX, blockY, blockZ);
         }
         logger.warn("Attempted to access unavailable chunk via light at {}, {}, {}", x, y, z);
         return 0;
@@ -329,11 +418,12 @@ public byte getLight(int x, int y, int z) {
 
     @Override
     public byte getSunlight(int x, int y, int z) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(x, y, z);
-        LitChunk chunk = chunkProvider.getChunk(chunkPos);
+        LitChunk chunk = getChunkOfBlock(x, y, z);
         if (chunk != null) {
-            Vector3i blockPos = ChunkMath.calcBlockPos(x, y, z);
-            return chunk.getSunlight(blockPos);
+            int blockX = ChunkMath.calcBlockPosX(x);
+            int blockY = ChunkMath.calcBlockPosY(y);
+            int blockZ = ChunkMath.calcBlockPosZ(z);
+            return chunk.getSunlight(blockX, blockY, blockZ);
         }
         logger.warn("Attempted to access unavailable chunk via sunlight at {}, {}, {}", x, y, z);
         return 0;
@@ -341,18 +431,29 @@ public byte getSunlight(int x, int y, int z) {
 
     @Override
     public byte getTotalLight(int x, int y, int z) {
-        Vector3i chunkPos = ChunkMath.calcChunkPos(x, y, z);
-        LitChunk chunk = chunkProvider.getChunk(chunkPos);
+        LitChunk chunk = getChunkOfBlock(x, y, z);
         if (chunk != null) {
-            Vector3i blockPos = ChunkMath.calcBlockPos(x, y, z);
-            return (byte) Math.max(chunk.getSunlight(blockPos), chunk.getLight(blockPos));
+            int blockX = ChunkMath.calcBlockPosX(x);
+            int blockY = ChunkMath.calcBlockPosY(y);
+            int blockZ = ChunkMath.calcBlockPosZ(z);
+            return (byte) Math.max(chunk.getSunlight(blockX, blockY, blockZ), chunk.getLight(blockX, blockY, blockZ));
         }
         logger.warn("Attempted to access unavailable chunk via total light at {}, {}, {}", x, y, z);
         return 0;
     }
 
+    /**
+     * Looks up the chunk of a block without allocating any vectors, as this gets called very often.
+     */
+    private Chunk getChunkOfBlock(int x, int y, int z) {
+        return chunkProvider.getChunk(ChunkMath.calcChunkPosX(x), ChunkMath.calcChunkPosY(y), ChunkMath.calcChunkPosZ(z));
+    }
+
     @Override
     public void dispose() {
+        if (asyncPropagator != null) {
+            asyncPropagator.dispose();
+        }
         chunkProvider.dispose();
 
     }
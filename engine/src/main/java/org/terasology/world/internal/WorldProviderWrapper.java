@@ -16,6 +16,7 @@
 
 package org.terasology.world.internal;
 
+import com.google.common.collect.Maps;
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
@@ -25,6 +26,7 @@
 import org.terasology.world.liquid.LiquidData;
 
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * @author Immortius
@@ -52,6 +54,15 @@ public Block setBlock(Vector3i pos, Block type) {
         return core.setBlock(pos, type);
     }
 
+    @Override
+    public Map<Vector3i, Block> setBlocks(Region3i region, Block type) {
+        Map<Vector3i, Block> blocks = Maps.newHashMapWithExpectedSize(region.size().x * region.size().y * region.size().z);
+        for (Vector3i pos : region) {
+            blocks.put(pos, type);
+        }
+        return setBlocks(blocks);
+    }
+
     @Override
     public boolean setLiquid(Vector3i pos, LiquidData state, LiquidData oldState) {
         return core.setLiquid(pos.x, pos.y, pos.z, state, oldState);
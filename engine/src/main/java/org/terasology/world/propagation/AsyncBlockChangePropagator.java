@@ -0,0 +1,250 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkProvider;
+import org.terasology.world.propagation.light.LightPropagationRules;
+import org.terasology.world.propagation.light.SunlightPropagationRules;
+import org.terasology.world.propagation.light.SunlightRegenPropagationRules;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Propagates the light changes caused by block changes on a worker thread, so that large edits don't stall the frame.
+ * <br><br>
+ * A batch of block changes gets propagated against {@link BufferedChunkView}s, which read the ready chunks directly
+ * but buffer all changed values. Once the batch finished, the main thread commits the buffered values to the chunks in
+ * one go, unless any chunk the batch read got modified in the meantime. In that case the batch gets propagated again,
+ * together with the block changes that arrived since. Only one batch runs at a time, so batches never conflict with
+ * each other.
+ */
+public class AsyncBlockChangePropagator {
+    /**
+     * After this many conflicting runs in a row, the changes get propagated on the main thread to guarantee progress.
+     */
+    private static final int MAX_CONFLICTS = 3;
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder()
+            .setNameFormat("Light-Propagation-%d").setDaemon(true).build();
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncBlockChangePropagator.class);
+
+    private final ChunkProvider chunkProvider;
+    private final List<BatchPropagator> worldPropagators;
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor(THREAD_FACTORY);
+
+    // In the order in which the positions changed first
+    private final Map<Vector3i, BlockChange> queuedChanges = Maps.newLinkedHashMap();
+    private PropagationBatch runningBatch;
+    private Future<?> runningTask;
+    private int conflicts;
+
+    /**
+     * @param worldPropagators propagators working directly on the world, which are used if a batch can't be committed
+     *                         repeatedly
+     */
+    public AsyncBlockChangePropagator(ChunkProvider chunkProvider, List<BatchPropagator> worldPropagators) {
+        this.chunkProvider = chunkProvider;
+        this.worldPropagators = worldPropagators;
+    }
+
+    /**
+     * Must be called by the main thread every frame, even if there are no new changes, so that finished batches get
+     * committed.
+     *
+     * @param blockChanges the block changes since the last call
+     */
+    public void process(Collection<BlockChange> blockChanges) {
+        for (BlockChange change : blockChanges) {
+            queue(change);
+        }
+        if (runningBatch != null) {
+            if (!runningTask.isDone() || !tryFinishBatch()) {
+                return;
+            }
+        }
+        if (!queuedChanges.isEmpty()) {
+            runningBatch = new PropagationBatch(chunkProvider, Lists.newArrayList(queuedChanges.values()));
+            queuedChanges.clear();
+            runningTask = executorService.submit(runningBatch);
+        }
+    }
+
+    private void queue(BlockChange change) {
+        BlockChange queued = queuedChanges.get(change.getPosition());
+        if (queued == null) {
+            queuedChanges.put(change.getPosition(), new BlockChange(change.getPosition(), change.getFrom(), change.getTo()));
+        } else {
+            queued.setTo(change.getTo());
+        }
+    }
+
+    /**
+     * @return false if the batch can't be committed yet, as chunks it read are locked by other work.
+     */
+    private boolean tryFinishBatch() {
+        PropagationBatch batch = runningBatch;
+        try {
+            runningTask.get();
+        } catch (InterruptedException | ExecutionException e) {
+            logger.error("Failed to propagate block changes in the background, propagating them directly", e);
+            finishOnMainThread(batch);
+            return true;
+        }
+        if (batch.isAnyChunkLocked()) {
+            return false;
+        }
+        runningBatch = null;
+        runningTask = null;
+        if (batch.isUnaffected()) {
+            batch.commit();
+            conflicts = 0;
+        } else if (++conflicts >= MAX_CONFLICTS) {
+            logger.debug("Block changes conflicted {} times in a row, propagating them directly", conflicts);
+            finishOnMainThread(batch);
+        } else {
+            requeue(batch.changes);
+        }
+        return true;
+    }
+
+    private void finishOnMainThread(PropagationBatch batch) {
+        runningBatch = null;
+        runningTask = null;
+        conflicts = 0;
+        requeue(batch.changes);
+        for (BatchPropagator propagator : worldPropagators) {
+            propagator.process(queuedChanges.values());
+        }
+        queuedChanges.clear();
+    }
+
+    /**
+     * Puts the changes of a batch in front of the queued changes, merging changes of the same position.
+     */
+    private void requeue(List<BlockChange> changes) {
+        Map<Vector3i, BlockChange> laterChanges = Maps.newLinkedHashMap(queuedChanges);
+        queuedChanges.clear();
+        for (BlockChange change : changes) {
+            queuedChanges.put(change.getPosition(), change);
+        }
+        for (BlockChange change : laterChanges.values()) {
+            queue(change);
+        }
+    }
+
+    /**
+     * Waits until the running batch, if any, finished propagating. It gets committed by the next call of
+     * {@link #process(Collection)}.
+     */
+    void awaitRunningBatch() throws InterruptedException, ExecutionException {
+        if (runningTask != null) {
+            runningTask.get();
+        }
+    }
+
+    public void dispose() {
+        executorService.shutdownNow();
+        runningBatch = null;
+        runningTask = null;
+        queuedChanges.clear();
+    }
+
+    private static final class PropagationBatch implements Runnable {
+        private final ChunkProvider chunkProvider;
+        private final List<BlockChange> changes;
+        private final ChunkAccessRecord chunks;
+        private final List<BufferedChunkView> views = Lists.newArrayList();
+        private final List<BatchPropagator> propagators = Lists.newArrayList();
+
+        private PropagationBatch(ChunkProvider chunkProvider, List<BlockChange> changes) {
+            this.chunkProvider = chunkProvider;
+            this.changes = changes;
+            this.chunks = new ChunkAccessRecord(chunkProvider);
+
+            LightPropagationRules lightRules = new LightPropagationRules();
+            BufferedChunkView lightWorldView = new BufferedChunkView(lightRules, chunks);
+            SunlightRegenPropagationRules regenRules = new SunlightRegenPropagationRules();
+            BufferedChunkView regenWorldView = new BufferedChunkView(regenRules, chunks);
+            PropagationRules sunlightRules = new SunlightPropagationRules(regenWorldView);
+            BufferedChunkView sunlightWorldView = new BufferedChunkView(sunlightRules, chunks);
+            views.add(lightWorldView);
+            views.add(regenWorldView);
+            views.add(sunlightWorldView);
+
+            propagators.add(new StandardBatchPropagator(lightRules, lightWorldView));
+            BatchPropagator sunlightPropagator = new StandardBatchPropagator(sunlightRules, sunlightWorldView);
+            propagators.add(new SunlightRegenBatchPropagator(regenRules, regenWorldView, sunlightPropagator, sunlightWorldView));
+            propagators.add(sunlightPropagator);
+        }
+
+        @Override
+        public void run() {
+            for (BatchPropagator propagator : propagators) {
+                propagator.process(changes);
+            }
+        }
+
+        private boolean isAnyChunkLocked() {
+            for (Chunk chunk : chunks.getAccessedChunks()) {
+                if (chunk.isLocked()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isUnaffected() {
+            return chunks.isUnchanged();
+        }
+
+        private void commit() {
+            List<Region3i> affectedRegions = Lists.newArrayList();
+            for (BufferedChunkView view : views) {
+                view.commit(affectedRegions);
+            }
+            // Like a change through the world, which dirties the chunks of all adjacent blocks as well
+            Set<Vector3i> dirtiedChunkPositions = Sets.newHashSet();
+            for (Region3i region : affectedRegions) {
+                for (Vector3i chunkPos : ChunkMath.calcChunkPos(region.expand(1))) {
+                    if (dirtiedChunkPositions.add(chunkPos)) {
+                        Chunk chunk = chunkProvider.getChunk(chunkPos);
+                        if (chunk != null) {
+                            chunk.setDirty(true);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
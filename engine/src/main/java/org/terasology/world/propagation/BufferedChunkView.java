@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import com.google.common.collect.Maps;
+import org.terasology.math.ChunkMath;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A world view that reads the ready chunks of the world, but keeps all values set through it in buffers until they
+ * get {@link #commit(Collection) committed}. This allows propagation to run on a worker thread without the main
+ * thread seeing partial results.
+ */
+final class BufferedChunkView implements PropagatorWorldView {
+    private static final int CHUNK_VOLUME = ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z;
+
+    private final PropagationRules rules;
+    private final ChunkAccessRecord chunks;
+    private final Map<Vector3i, ChunkBuffer> buffers = Maps.newHashMap();
+    private final Vector3i lookupPos = new Vector3i();
+
+    private ChunkBuffer lastBuffer;
+
+    /**
+     * @param chunks the chunk access to read through, which may be shared with the views of the other values
+     */
+    BufferedChunkView(PropagationRules rules, ChunkAccessRecord chunks) {
+        this.rules = rules;
+        this.chunks = chunks;
+    }
+
+    @Override
+    public byte getValueAt(Vector3i pos) {
+        int chunkX = ChunkMath.calcChunkPosX(pos.x);
+        int chunkY = ChunkMath.calcChunkPosY(pos.y);
+        int chunkZ = ChunkMath.calcChunkPosZ(pos.z);
+        Chunk chunk = chunks.getChunk(chunkX, chunkY, chunkZ);
+        if (chunk == null) {
+            return UNAVAILABLE;
+        }
+        int x = ChunkMath.calcBlockPosX(pos.x);
+        int y = ChunkMath.calcBlockPosY(pos.y);
+        int z = ChunkMath.calcBlockPosZ(pos.z);
+        ChunkBuffer buffer = getBuffer(chunkX, chunkY, chunkZ, false);
+        if (buffer != null) {
+            int index = ChunkBuffer.index(x, y, z);
+            if (buffer.written.get(index)) {
+                return buffer.values[index];
+            }
+        }
+        return rules.getValue(chunk, x, y, z);
+    }
+
+    @Override
+    public void setValueAt(Vector3i pos, byte value) {
+        int chunkX = ChunkMath.calcChunkPosX(pos.x);
+        int chunkY = ChunkMath.calcChunkPosY(pos.y);
+        int chunkZ = ChunkMath.calcChunkPosZ(pos.z);
+        if (chunks.getChunk(chunkX, chunkY, chunkZ) != null) {
+            int index = ChunkBuffer.index(ChunkMath.calcBlockPosX(pos.x), ChunkMath.calcBlockPosY(pos.y), ChunkMath.calcBlockPosZ(pos.z));
+            ChunkBuffer buffer = getBuffer(chunkX, chunkY, chunkZ, true);
+            buffer.values[index] = value;
+            buffer.written.set(index);
+        }
+    }
+
+    @Override
+    public Block getBlockAt(Vector3i pos) {
+        Chunk chunk = chunks.getChunk(ChunkMath.calcChunkPosX(pos.x), ChunkMath.calcChunkPosY(pos.y), ChunkMath.calcChunkPosZ(pos.z));
+        if (chunk != null) {
+            return chunk.getBlock(ChunkMath.calcBlockPosX(pos.x), ChunkMath.calcBlockPosY(pos.y), ChunkMath.calcBlockPosZ(pos.z));
+        }
+        return null;
+    }
+
+    private ChunkBuffer getBuffer(int chunkX, int chunkY, int chunkZ, boolean create) {
+        ChunkBuffer buffer = lastBuffer;
+        if (buffer != null && buffer.chunkPos.x == chunkX && buffer.chunkPos.y == chunkY && buffer.chunkPos.z == chunkZ) {
+            return buffer;
+        }
+        lookupPos.set(chunkX, chunkY, chunkZ);
+        buffer = buffers.get(lookupPos);
+        if (buffer == null) {
+            if (!create) {
+                return null;
+            }
+            buffer = new ChunkBuffer(chunks.getChunk(chunkX, chunkY, chunkZ));
+            buffers.put(buffer.chunkPos, buffer);
+        }
+        lastBuffer = buffer;
+        return buffer;
+    }
+
+    /**
+     * Writes the buffered values into the chunks. Must be called by the main thread, and only if the
+     * {@link ChunkAccessRecord} confirms that the chunks did not change since they got read.
+     *
+     * @param affectedRegions gets the regions of world positions whose values changed, so that they can be re-meshed
+     */
+    public void commit(Collection<Region3i> affectedRegions) {
+        Vector3i blockPos = new Vector3i();
+        for (ChunkBuffer buffer : buffers.values()) {
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            int maxZ = Integer.MIN_VALUE;
+            for (int index = buffer.written.nextSetBit(0); index >= 0; index = buffer.written.nextSetBit(index + 1)) {
+                blockPos.set(index % ChunkConstants.SIZE_X, (index / ChunkConstants.SIZE_X) % ChunkConstants.SIZE_Y,
+                        index / (ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y));
+                rules.setValue(buffer.chunk, blockPos, buffer.values[index]);
+                minX = Math.min(minX, blockPos.x);
+                minY = Math.min(minY, blockPos.y);
+                minZ = Math.min(minZ, blockPos.z);
+                maxX = Math.max(maxX, blockPos.x);
+                maxY = Math.max(maxY, blockPos.y);
+                maxZ = Math.max(maxZ, blockPos.z);
+            }
+            if (minX <= maxX) {
+                affectedRegions.add(Region3i.createFromMinMax(buffer.chunk.chunkToWorldPosition(minX, minY, minZ),
+                        buffer.chunk.chunkToWorldPosition(maxX, maxY, maxZ)));
+            }
+        }
+        buffers.clear();
+        lastBuffer = null;
+    }
+
+    private static final class ChunkBuffer {
+        private final Chunk chunk;
+        private final Vector3i chunkPos;
+        private final byte[] values = new byte[CHUNK_VOLUME];
+        private final BitSet written = new BitSet(CHUNK_VOLUME);
+
+        private ChunkBuffer(Chunk chunk) {
+            this.chunk = chunk;
+            this.chunkPos = new Vector3i(chunk.getPosition());
+        }
+
+        private static int index(int x, int y, int z) {
+            return x + ChunkConstants.SIZE_X * (y + ChunkConstants.SIZE_Y * z);
+        }
+    }
+}
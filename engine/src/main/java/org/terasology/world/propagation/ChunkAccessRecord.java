@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkProvider;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives a worker thread read access to the ready chunks of the world and remembers which chunks got accessed in which
+ * {@link Chunk#getChangeVersion() version}. This allows the main thread to check afterwards whether any of the chunks
+ * got modified, loaded or unloaded while the worker used them.
+ * <br><br>
+ * Must only be used by one thread at a time.
+ */
+final class ChunkAccessRecord {
+    private final ChunkProvider chunkProvider;
+    private final Map<Vector3i, AccessedChunk> accessedChunks = Maps.newHashMap();
+    private final Vector3i lookupPos = new Vector3i();
+
+    private AccessedChunk lastAccessed;
+
+    ChunkAccessRecord(ChunkProvider chunkProvider) {
+        this.chunkProvider = chunkProvider;
+    }
+
+    /**
+     * @return the ready chunk at the given chunk position, or null if there was none when it got accessed first.
+     */
+    public Chunk getChunk(int chunkX, int chunkY, int chunkZ) {
+        AccessedChunk accessed = lastAccessed;
+        if (accessed == null || accessed.pos.x != chunkX || accessed.pos.y != chunkY || accessed.pos.z != chunkZ) {
+            lookupPos.set(chunkX, chunkY, chunkZ);
+            accessed = accessedChunks.get(lookupPos);
+            if (accessed == null) {
+                Chunk chunk = chunkProvider.getChunk(chunkX, chunkY, chunkZ);
+                // The version must be read before any data of the chunk, so that later modifications change it
+                int version = (chunk != null) ? chunk.getChangeVersion() : 0;
+                accessed = new AccessedChunk(new Vector3i(lookupPos), chunk, version);
+                accessedChunks.put(accessed.pos, accessed);
+            }
+            lastAccessed = accessed;
+        }
+        return accessed.chunk;
+    }
+
+    /**
+     * @return the accessed chunks that were available.
+     */
+    public List<Chunk> getAccessedChunks() {
+        List<Chunk> result = Lists.newArrayListWithCapacity(accessedChunks.size());
+        for (AccessedChunk accessed : accessedChunks.values()) {
+            if (accessed.chunk != null) {
+                result.add(accessed.chunk);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Must be called by the main thread, after the worker finished.
+     *
+     * @return true if all accessed chunks are still in the state in which they got accessed.
+     */
+    public boolean isUnchanged() {
+        for (AccessedChunk accessed : accessedChunks.values()) {
+            Chunk current = chunkProvider.getChunk(accessed.pos);
+            if (current != accessed.chunk) {
+                return false;
+            }
+            if (current != null && current.getChangeVersion() != accessed.version) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class AccessedChunk {
+        private final Vector3i pos;
+        private final Chunk chunk;
+        private final int version;
+
+        private AccessedChunk(Vector3i pos, Chunk chunk, int version) {
+            this.pos = pos;
+            this.chunk = chunk;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.propagation;
+
+import java.util.Arrays;
+
+/**
+ * An insertion ordered set of block positions, stored as packed ints instead of {@link org.terasology.math.geom.Vector3i}s.
+ * <br><br>
+ * Adding a position that is already queued does not change its place in the queue, while removing and adding it again
+ * moves it to the end, like a {@link java.util.LinkedHashSet}. The backing arrays are kept when the queue gets cleared, so
+ * a reused queue does not allocate once it reached its working size.
+ */
+final class PositionQueue {
+    private static final int EMPTY = -1;
+    private static final int REMOVED = -2;
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * x, y and z of each entry, in insertion order
+     */
+    private int[] positions = new int[INITIAL_CAPACITY * 3];
+    private boolean[] removed = new boolean[INITIAL_CAPACITY];
+    private int size;
+    private int liveCount;
+
+    /**
+     * Open addressing index of the live entries, with linear probing
+     */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+    private int usedSlots;
+
+    PositionQueue() {
+        Arrays.fill(table, EMPTY);
+    }
+
+    public boolean isEmpty() {
+        return liveCount == 0;
+    }
+
+    /**
+     * @return the number of entries, including removed ones. Iterate up to this with {@link #isRemoved(int)}.
+     */
+    public int entryCount() {
+        return size;
+    }
+
+    public boolean isRemoved(int entry) {
+        return removed[entry];
+    }
+
+    public int getX(int entry) {
+        return positions[3 * entry];
+    }
+
+    public int getY(int entry) {
+        return positions[3 * entry + 1];
+    }
+
+    public int getZ(int entry) {
+        return positions[3 * entry + 2];
+    }
+
+    /**
+     * @return true if the position was not already queued
+     */
+    public boolean add(int x, int y, int z) {
+        int mask = table.length - 1;
+        int slot = hash(x, y, z) & mask;
+        int freeSlot = -1;
+        int entry;
+        while ((entry = table[slot]) != EMPTY) {
+            if (entry == REMOVED) {
+                if (freeSlot == -1) {
+                    freeSlot = slot;
+                }
+            } else if (matches(entry, x, y, z)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (freeSlot == -1) {
+            freeSlot = slot;
+            usedSlots++;
+        }
+
+        if (size == removed.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+            removed = Arrays.copyOf(removed, removed.length * 2);
+        }
+        positions[3 * size] = x;
+        positions[3 * size + 1] = y;
+        positions[3 * size + 2] = z;
+        table[freeSlot] = size;
+        size++;
+        liveCount++;
+
+        if (usedSlots * 2 > table.length) {
+            rehash(liveCount * 2 > table.length / 2 ? table.length * 2 : table.length);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the position was queued
+     */
+    public boolean remove(int x, int y, int z) {
+        if (liveCount == 0) {
+            return false;
+        }
+        int mask = table.length - 1;
+        int slot = hash(x, y, z) & mask;
+        int entry;
+        while ((entry = table[slot]) != EMPTY) {
+            if (entry != REMOVED && matches(entry, x, y, z)) {
+                table[slot] = REMOVED;
+                removed[entry] = true;
+                liveCount--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void clear() {
+        if (usedSlots > 0) {
+            Arrays.fill(table, EMPTY);
+            Arrays.fill(removed, 0, size, false);
+        }
+        size = 0;
+        liveCount = 0;
+        usedSlots = 0;
+    }
+
+    private boolean matches(int entry, int x, int y, int z) {
+        int index = 3 * entry;
+        return positions[index] == x && positions[index + 1] == y && positions[index + 2] == z;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        int mask = capacity - 1;
+        for (int entry = 0; entry < size; ++entry) {
+            if (!removed[entry]) {
+                int slot = hash(getX(entry), getY(entry), getZ(entry)) & mask;
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry;
+            }
+        }
+        usedSlots = liveCount;
+    }
+
+    private static int hash(int x, int y, int z) {
+        int h = x * 0x9E3779B1 + y * 0x85EBCA77 + z * 0xC2B2AE3D;
+        return h ^ (h >>> 16);
+    }
+}
@@ -16,7 +16,6 @@
 package org.terasology.world.propagation;
 
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import org.terasology.math.ChunkMath;
 import org.terasology.math.Region3i;
 import org.terasology.math.Side;
@@ -25,9 +24,7 @@
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.LitChunk;
 
-import java.util.Arrays;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Batch propagator that works on a set of changed blocks
@@ -37,12 +34,25 @@
 public class StandardBatchPropagator implements BatchPropagator {
 
     private static final byte NO_VALUE = 0;
+    private static final Side[] SIDES = Side.values();
 
     private PropagationRules rules;
     private PropagatorWorldView world;
 
-    private Set<Vector3i>[] reduceQueues;
-    private Set<Vector3i>[] increaseQueues;
+    private PositionQueue[] reduceQueues;
+    private PositionQueue[] increaseQueues;
+
+    /**
+     * Empty queues per level, which get swapped in while a level is being processed
+     */
+    private PositionQueue[] spareReduceQueues;
+    private PositionQueue[] spareIncreaseQueues;
+
+    /**
+     * Reused positions for the calls to the world and rules, which must not keep hold of them
+     */
+    private final Vector3i queuedPos = new Vector3i();
+    private final Vector3i neighbourPos = new Vector3i();
 
     private Map<Side, Vector3i> chunkEdgeDeltas = Maps.newEnumMap(Side.class);
 
@@ -70,18 +80,29 @@ public StandardBatchPropagator(PropagationRules rules, PropagatorWorldView world
             chunkEdgeDeltas.put(side, delta);
         }
 
-        increaseQueues = new Set[rules.getMaxValue()];
-        reduceQueues = new Set[rules.getMaxValue()];
-        for (int i = 0; i < rules.getMaxValue(); ++i) {
-            increaseQueues[i] = Sets.newLinkedHashSet();
-            reduceQueues[i] = Sets.newLinkedHashSet();
-        }
+        increaseQueues = createQueues(rules.getMaxValue());
+        reduceQueues = createQueues(rules.getMaxValue());
+        spareIncreaseQueues = createQueues(rules.getMaxValue());
+        spareReduceQueues = createQueues(rules.getMaxValue());
+    }
 
+    private static PositionQueue[] createQueues(int count) {
+        PositionQueue[] queues = new PositionQueue[count];
+        for (int i = 0; i < count; ++i) {
+            queues[i] = new PositionQueue();
+        }
+        return queues;
     }
 
     @Override
     public void process(BlockChange... changes) {
-        process(Arrays.asList(changes));
+        for (BlockChange blockChange : changes) {
+            reviewChange(blockChange);
+        }
+
+        processReduction();
+        processIncrease();
+        cleanUp();
     }
 
     @Override
@@ -96,34 +117,35 @@ public void process(Iterable<BlockChange> blockChanges) {
     }
 
     private void reviewChange(BlockChange blockChange) {
-        byte newValue = rules.getFixedValue(blockChange.getTo(), blockChange.getPosition());
-        byte existingValue = world.getValueAt(blockChange.getPosition());
+        Vector3i position = blockChange.getPosition();
+        byte newValue = rules.getFixedValue(blockChange.getTo(), position);
+        byte existingValue = world.getValueAt(position);
         if (newValue > existingValue) {
-            increase(blockChange.getPosition(), newValue);
+            increase(position, newValue);
         }
 
-        byte oldValue = rules.getFixedValue(blockChange.getFrom(), blockChange.getPosition());
+        byte oldValue = rules.getFixedValue(blockChange.getFrom(), position);
         if (newValue < oldValue) {
-            reduce(blockChange.getPosition(), oldValue);
+            reduce(position, oldValue);
         }
 
-        for (Side side : Side.values()) {
+        for (Side side : SIDES) {
             PropagationComparison comparison = rules.comparePropagation(blockChange.getTo(), blockChange.getFrom(), side);
             if (comparison.isRestricting() && existingValue > 0) {
-                reduce(blockChange.getPosition(), existingValue);
-                Vector3i adjPos = side.getAdjacentPos(blockChange.getPosition());
-                byte adjValue = world.getValueAt(adjPos);
+                reduce(position, existingValue);
+                setAdjacent(neighbourPos, position, side);
+                byte adjValue = world.getValueAt(neighbourPos);
                 if (adjValue == rules.propagateValue(existingValue, side, blockChange.getFrom())) {
-                    reduce(adjPos, adjValue);
+                    reduce(neighbourPos, adjValue);
                 }
             } else if (comparison.isPermitting()) {
                 if (existingValue > 0) {
-                    queueSpreadValue(blockChange.getPosition(), existingValue);
+                    queueSpreadValue(position, existingValue);
                 }
-                Vector3i adjPos = side.getAdjacentPos(blockChange.getPosition());
-                byte adjValue = world.getValueAt(adjPos);
+                setAdjacent(neighbourPos, position, side);
+                byte adjValue = world.getValueAt(neighbourPos);
                 if (adjValue != PropagatorWorldView.UNAVAILABLE) {
-                    queueSpreadValue(adjPos, adjValue);
+                    queueSpreadValue(neighbourPos, adjValue);
                 }
             }
         }
@@ -133,44 +155,46 @@ private void processReduction() {
         int depth = 0;
         while (depth < rules.getMaxValue()) {
             byte oldValue = (byte) (rules.getMaxValue() - depth);
-            Set<Vector3i> toProcess = reduceQueues[depth];
+            PositionQueue toProcess = reduceQueues[depth];
             if (!toProcess.isEmpty()) {
-                reduceQueues[depth] = Sets.newLinkedHashSetWithExpectedSize(toProcess.size());
+                reduceQueues[depth] = spareReduceQueues[depth];
 
-                for (Vector3i pos : toProcess) {
-                    purge(pos, oldValue);
-                }
-                if (toProcess.isEmpty()) {
-                    depth++;
+                for (int entry = 0; entry < toProcess.entryCount(); ++entry) {
+                    if (!toProcess.isRemoved(entry)) {
+                        queuedPos.set(toProcess.getX(entry), toProcess.getY(entry), toProcess.getZ(entry));
+                        purge(queuedPos, oldValue);
+                    }
                 }
+                toProcess.clear();
+                spareReduceQueues[depth] = toProcess;
             } else {
                 depth++;
             }
         }
     }
 
-    private void purge(Vector3i pos, byte oldValue) {
-        Block block = world.getBlockAt(pos);
-        increaseQueues[rules.getMaxValue() - oldValue].remove(pos);
-        byte fixedValue = rules.getFixedValue(block, pos);
+    private void purge(Vector3i position, byte oldValue) {
+        Block block = world.getBlockAt(position);
+        increaseQueues[rules.getMaxValue() - oldValue].remove(position.x, position.y, position.z);
+        byte fixedValue = rules.getFixedValue(block, position);
         if (fixedValue > 0) {
-            increase(pos, fixedValue);
+            increase(position, fixedValue);
         } else {
-            world.setValueAt(pos, NO_VALUE);
+            world.setValueAt(position, NO_VALUE);
         }
 
-        for (Side side : Side.values()) {
+        for (Side side : SIDES) {
             byte expectedValue = rules.propagateValue(oldValue, side, block);
-            Vector3i adjPos = side.getAdjacentPos(pos);
             if (rules.canSpreadOutOf(block, side)) {
-                byte adjValue = world.getValueAt(adjPos);
+                setAdjacent(neighbourPos, position, side);
+                byte adjValue = world.getValueAt(neighbourPos);
                 if (adjValue == expectedValue) {
-                    Block adjBlock = world.getBlockAt(adjPos);
+                    Block adjBlock = world.getBlockAt(neighbourPos);
                     if (rules.canSpreadInto(adjBlock, side.reverse())) {
-                        reduce(adjPos, expectedValue);
+                        reduce(neighbourPos, expectedValue);
                     }
                 } else if (adjValue > 0) {
-                    queueSpreadValue(adjPos, adjValue);
+                    queueSpreadValue(neighbourPos, adjValue);
                 }
             }
         }
@@ -180,41 +204,48 @@ private void processIncrease() {
         int depth = 0;
         while (depth < rules.getMaxValue() - 1) {
             byte value = (byte) (rules.getMaxValue() - depth);
-            Set<Vector3i> toProcess = increaseQueues[depth];
+            PositionQueue toProcess = increaseQueues[depth];
             if (!toProcess.isEmpty()) {
-                increaseQueues[depth] = Sets.newLinkedHashSetWithExpectedSize(toProcess.size());
+                increaseQueues[depth] = spareIncreaseQueues[depth];
 
-                for (Vector3i pos : toProcess) {
-                    push(pos, value);
-                }
-                if (increaseQueues[depth].isEmpty()) {
-                    depth++;
+                for (int entry = 0; entry < toProcess.entryCount(); ++entry) {
+                    if (!toProcess.isRemoved(entry)) {
+                        queuedPos.set(toProcess.getX(entry), toProcess.getY(entry), toProcess.getZ(entry));
+                        push(queuedPos, value);
+                    }
                 }
+                toProcess.clear();
+                spareIncreaseQueues[depth] = toProcess;
             } else {
                 depth++;
             }
         }
     }
 
-    private void push(Vector3i pos, byte value) {
-        Block block = world.getBlockAt(pos);
-        for (Side side : Side.values()) {
+    private void push(Vector3i position, byte value) {
+        Block block = world.getBlockAt(position);
+        for (Side side : SIDES) {
             byte spreadValue = rules.propagateValue(value, side, block);
-            Vector3i adjPos = side.getAdjacentPos(pos);
             if (rules.canSpreadOutOf(block, side)) {
-                byte adjValue = world.getValueAt(adjPos);
+                setAdjacent(neighbourPos, position, side);
+                byte adjValue = world.getValueAt(neighbourPos);
                 if (adjValue < spreadValue && adjValue != PropagatorWorldView.UNAVAILABLE) {
-                    Block adjBlock = world.getBlockAt(adjPos);
+                    Block adjBlock = world.getBlockAt(neighbourPos);
                     if (rules.canSpreadInto(adjBlock, side.reverse())) {
-                        increase(adjPos, spreadValue);
+                        increase(neighbourPos, spreadValue);
                     }
                 }
             }
         }
     }
 
+    private static void setAdjacent(Vector3i target, Vector3i position, Side side) {
+        Vector3i dir = side.getVector3i();
+        target.set(position.x + dir.x, position.y + dir.y, position.z + dir.z);
+    }
+
     private void cleanUp() {
-        for (Set<Vector3i> queue : increaseQueues) {
+        for (PositionQueue queue : increaseQueues) {
             queue.clear();
         }
     }
@@ -226,13 +257,13 @@ private void increase(Vector3i position, byte value) {
 
     private void queueSpreadValue(Vector3i position, byte value) {
         if (value > 1) {
-            increaseQueues[rules.getMaxValue() - value].add(position);
+            increaseQueues[rules.getMaxValue() - value].add(position.x, position.y, position.z);
         }
     }
 
     private void reduce(Vector3i position, byte oldValue) {
         if (oldValue > 0) {
-            reduceQueues[rules.getMaxValue() - oldValue].add(position);
+            reduceQueues[rules.getMaxValue() - oldValue].add(position.x, position.y, position.z);
         }
     }
 
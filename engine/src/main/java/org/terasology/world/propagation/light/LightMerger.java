@@ -16,6 +16,7 @@
 package org.terasology.world.propagation.light;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.math.Side;
@@ -30,24 +31,45 @@
 import org.terasology.world.propagation.StandardBatchPropagator;
 import org.terasology.world.propagation.SunlightRegenBatchPropagator;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * Merges the light of newly generated chunks with the light of their neighbours in the background.
+ * <br><br>
+ * Several merges can be pending at once and get processed by a pool of threads. Merges whose 3x3x3 chunk
+ * neighbourhoods overlap never run at the same time: a later merge waits until the earlier one has finished.
+ * <br><br>
+ * The completion order is relaxed: {@link #completeMerge()} returns the earliest started merge among the finished
+ * ones, so a merge that takes long does not hold back the completion of later independent merges. Merges are
+ * expected to get started in the order of their priority, so that finished merges get completed in that order, and
+ * earlier merges get completed before later overlapping ones, which can only start once those finished.
+ * <br><br>
+ * A merge can't be started while the merge of an adjacent chunk has not been completed, as the merge of a chunk only
+ * spreads light into neighbours that are ready.
+ *
  * @author Immortius
  */
 public class LightMerger<T> {
     private static final int CENTER_INDEX = 13;
+    private static final int MAX_PENDING_MERGES = 32;
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder()
+            .setNameFormat("Light-Merger-%d").setDaemon(true).build();
 
     private static Logger logger = LoggerFactory.getLogger(LightMerger.class);
 
-    private ExecutorService executorService = Executors.newSingleThreadExecutor();
-    private Future<T> resultFuture;
+    private final int threads;
+    private ExecutorService executorService;
+    // In the order in which the merges got started
+    private final List<PendingMerge<T>> pendingMerges = Lists.newArrayList();
 
     private GeneratingChunkProvider chunkProvider;
     private LightPropagationRules lightRules = new LightPropagationRules();
@@ -56,33 +78,106 @@
     private boolean running = true;
 
     public LightMerger(GeneratingChunkProvider chunkProvider) {
+        this(chunkProvider, THREADS);
+    }
+
+    LightMerger(GeneratingChunkProvider chunkProvider, int threads) {
         this.chunkProvider = chunkProvider;
+        this.threads = threads;
+        this.executorService = Executors.newFixedThreadPool(threads, THREAD_FACTORY);
     }
 
-    public void beginMerge(final Chunk chunk, final T data) {
-        resultFuture = executorService.submit(new Callable<T>() {
-            @Override
-            public T call() throws Exception {
-                merge(chunk);
-                return data;
+    /**
+     * @return true if another merge can be started, unless it is adjacent to a pending merge.
+     */
+    public boolean hasCapacity() {
+        return pendingMerges.size() < MAX_PENDING_MERGES;
+    }
+
+    /**
+     * Starts merging the light of the chunk in the background, as soon as no merge with an overlapping neighbourhood
+     * is running anymore.
+     *
+     * @return false if the merge could not be started, because there is no capacity or the merge of an adjacent
+     * chunk is pending.
+     */
+    public boolean beginMerge(final Chunk chunk, final T data) {
+        if (!hasCapacity()) {
+            return false;
+        }
+        Vector3i chunkPos = chunk.getPosition();
+        for (PendingMerge<T> pendingMerge : pendingMerges) {
+            if (chebyshevDistance(chunkPos, pendingMerge.chunk.getPosition()) <= 1) {
+                return false;
             }
-        });
+        }
+        pendingMerges.add(new PendingMerge<>(chunk, data));
+        startUnblockedMerges();
+        return true;
     }
 
+    /**
+     * Does not block.
+     *
+     * @return the data of the earliest started merge among the finished ones, or null if none finished. Earlier
+     * merges that are still running do not hold it back.
+     */
     public T completeMerge() {
-        if (resultFuture != null) {
-            try {
-                T result = resultFuture.get();
-                resultFuture = null;
-                return result;
-            } catch (InterruptedException | ExecutionException e) {
-                throw new RuntimeException("Error completing lighting merge");
+        startUnblockedMerges();
+        Iterator<PendingMerge<T>> iterator = pendingMerges.iterator();
+        while (iterator.hasNext()) {
+            PendingMerge<T> pendingMerge = iterator.next();
+            if (pendingMerge.isFinished()) {
+                iterator.remove();
+                startUnblockedMerges();
+                try {
+                    return pendingMerge.result.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new RuntimeException("Error completing lighting merge", e);
+                }
             }
         }
         return null;
     }
 
-    private void merge(Chunk chunk) {
+    /**
+     * Submits the waiting merges whose neighbourhood does not overlap with the one of an earlier merge that is still
+     * running or waiting. Earlier merges thus can't get overtaken by later ones.
+     */
+    private void startUnblockedMerges() {
+        for (int i = 0; i < pendingMerges.size(); i++) {
+            final PendingMerge<T> pendingMerge = pendingMerges.get(i);
+            if (pendingMerge.result == null && !isBlocked(pendingMerge, i)) {
+                pendingMerge.result = executorService.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        merge(pendingMerge.chunk);
+                        return pendingMerge.data;
+                    }
+                });
+            }
+        }
+    }
+
+    private boolean isBlocked(PendingMerge<T> pendingMerge, int index) {
+        Vector3i chunkPos = pendingMerge.chunk.getPosition();
+        for (int i = 0; i < index; i++) {
+            PendingMerge<T> earlierMerge = pendingMerges.get(i);
+            if (!earlierMerge.isFinished() && chebyshevDistance(chunkPos, earlierMerge.chunk.getPosition()) <= 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int chebyshevDistance(Vector3i a, Vector3i b) {
+        return Math.max(Math.abs(a.x - b.x), Math.max(Math.abs(a.y - b.y), Math.abs(a.z - b.z)));
+    }
+
+    /**
+     * Merges the light of the chunk with its neighbours. Runs on the merge threads.
+     */
+    protected void merge(Chunk chunk) {
         Chunk[] localChunks = assembleLocalChunks(chunk);
         localChunks[CENTER_INDEX] = chunk;
         for (Chunk localChunk : localChunks) {
@@ -152,18 +247,35 @@ private Chunk[] assembleLocalChunks(Chunk chunk) {
 
     public void shutdown() {
         running = false;
+        pendingMerges.clear();
         executorService.shutdown();
         try {
             executorService.awaitTermination(10, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
-            logger.error("Failed to shutdown light merge thread in a timely manner");
+            logger.error("Failed to shutdown light merge threads in a timely manner");
         }
     }
 
     public void restart() {
         if (!running) {
-            executorService = Executors.newSingleThreadExecutor();
+            executorService = Executors.newFixedThreadPool(threads, THREAD_FACTORY);
             running = true;
         }
     }
+
+    private static final class PendingMerge<T> {
+        private final Chunk chunk;
+        private final T data;
+        // null as long as the merge waits for merges with an overlapping neighbourhood
+        private Future<T> result;
+
+        private PendingMerge(Chunk chunk, T data) {
+            this.chunk = chunk;
+            this.data = data;
+        }
+
+        private boolean isFinished() {
+            return result != null && result.isDone();
+        }
+    }
 }